@@ -0,0 +1,65 @@
+package codes.writeonce.deltastore.api;
+
+import java.util.Arrays;
+
+/**
+ * Rows of the column arrays of a columnar table. Rows freed by released or removed records are reused before the
+ * arrays grow.
+ */
+public abstract class AbstractColumns {
+
+    protected static final int INITIAL_CAPACITY = 16;
+
+    private int capacity = INITIAL_CAPACITY;
+
+    private int size;
+
+    private int[] free = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    public int allocate() {
+
+        if (freeCount != 0) {
+            return free[--freeCount];
+        }
+
+        if (size == capacity) {
+            capacity *= 2;
+            resize(capacity);
+        }
+
+        return size++;
+    }
+
+    public void free(int row) {
+
+        clear(row);
+
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = row;
+    }
+
+    /**
+     * @return number of rows in use
+     */
+    public int size() {
+        return size - freeCount;
+    }
+
+    /**
+     * @return length of the column arrays
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Resets the row to the default values, releasing its references.
+     */
+    protected abstract void clear(int row);
+
+    protected abstract void resize(int capacity);
+}
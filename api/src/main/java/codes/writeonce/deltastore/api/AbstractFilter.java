@@ -5,6 +5,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -39,8 +40,19 @@ public abstract class AbstractFilter<E extends Entity<?>> implements Index<E> {
         }
     }
 
+    /**
+     * @return number of the entities matching the filter if it can be told without iterating them, otherwise -1
+     */
+    protected int count() {
+        return -1;
+    }
+
     @Override
     public int size() {
+        final int count = count();
+        if (count >= 0) {
+            return count;
+        }
         try (var iterator = iterator()) {
             return iterator.skip(Integer.MAX_VALUE);
         }
@@ -48,13 +60,56 @@ public abstract class AbstractFilter<E extends Entity<?>> implements Index<E> {
 
     @Override
     public boolean isEmpty() {
+        final int count = count();
+        if (count >= 0) {
+            return count == 0;
+        }
         try (var iterator = iterator()) {
             return !iterator.hasNext();
         }
     }
 
+    /**
+     * Iterates over the matching entities from the one at the index. The counted keys skip the preceding entities in
+     * logarithmic time where the filter leaves a single level of the key to iterate over.
+     */
+    @Nonnull
+    public SmartIterator<E> iteratorFromIndex(int index) {
+        final var iterator = iterator();
+        iterator.skip(index);
+        return iterator;
+    }
+
+    /**
+     * @return matching entity at the index, or {@code null} if there are not as many
+     */
+    @Nullable
+    public E select(int index) {
+        try (var iterator = iteratorFromIndex(index)) {
+            return iterator.get();
+        }
+    }
+
+    /**
+     * @return spliterator over the matching entities splitting the maps of the key structurally, or {@code null} if the
+     * filter is not supported by it
+     */
+    @Nullable
+    protected Spliterator<E> spliterator() {
+        return null;
+    }
+
+    /**
+     * The stream may be made parallel. Where the filter leaves the tree maps of the key to scan in the key order it
+     * splits them structurally, with exact sizes for the counted keys; the store must not be modified meanwhile, e.g.
+     * let it be a read view.
+     */
     @Override
     public Stream<E> stream() {
+        final var spliterator = spliterator();
+        if (spliterator != null) {
+            return StreamSupport.stream(spliterator, false);
+        }
         final var iterator = iterator();
         return StreamSupport.stream(iterator, false).onClose(iterator::close);
     }
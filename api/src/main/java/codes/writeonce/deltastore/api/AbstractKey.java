@@ -1,12 +1,33 @@
 package codes.writeonce.deltastore.api;
 
-import codes.writeonce.deltastore.api.map.AbstractTreeMap;
+import codes.writeonce.deltastore.api.map.IndexMap;
 
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.function.Consumer;
 
 public abstract class AbstractKey<E extends Entity<?>> extends AbstractFilter<E> {
 
-    protected <K1, K2, V, M1 extends AbstractTreeMap<K1, M2, M1>, M2 extends AbstractTreeMap<K2, V, M2>> void remove(
+    /**
+     * initial capacity of the nested maps of the keys
+     */
+    protected static final int SUB_MAP_CAPACITY =
+            Integer.getInteger("codes.writeonce.deltastore.api.AbstractKey.SUB_MAP_CAPACITY", 8);
+
+    /**
+     * capacity the nested maps of the keys keep while their entries are removed and while pooled, if grown to it
+     */
+    protected static final int SUB_MAP_RETAINED_CAPACITY =
+            Integer.getInteger("codes.writeonce.deltastore.api.AbstractKey.SUB_MAP_RETAINED_CAPACITY", 64);
+
+    /**
+     * number of emptied nested maps each level of a key keeps for reuse
+     */
+    protected static final int SUB_MAP_POOL_SIZE =
+            Integer.getInteger("codes.writeonce.deltastore.api.AbstractKey.SUB_MAP_POOL_SIZE", 256);
+
+    protected <K1, K2, V, M1 extends IndexMap<K1, M2, M1>, M2 extends IndexMap<K2, V, M2>> void remove(
             M1 map, K1 key, Consumer<M2> consumer) {
         final M2 map1 = map.get(key);
         if (map1 != null) {
@@ -20,4 +41,40 @@ public abstract class AbstractKey<E extends Entity<?>> extends AbstractFilter<E>
     protected <T> void with(T value, Consumer<T> consumer) {
         consumer.accept(value);
     }
+
+    /*
+     * Orderings of the key values of the index maps, the null value sorting first.
+     */
+
+    protected static int compare(@Nullable Long a, @Nullable Long b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : Long.compare(a, b);
+    }
+
+    protected static int compare(@Nullable Integer a, @Nullable Integer b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : Integer.compare(a, b);
+    }
+
+    protected static int compare(@Nullable Boolean a, @Nullable Boolean b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : Boolean.compare(a, b);
+    }
+
+    protected static int compare(@Nullable Id<?> a, @Nullable Id<?> b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : a.compareTo(b);
+    }
+
+    protected static int compare(@Nullable Enum<?> a, @Nullable Enum<?> b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : Integer.compare(a.ordinal(), b.ordinal());
+    }
+
+    protected static int compare(@Nullable Instant a, @Nullable Instant b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : a.compareTo(b);
+    }
+
+    protected static int compare(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : a.compareTo(b);
+    }
+
+    protected static int compare(@Nullable BigDecimal a, @Nullable BigDecimal b) {
+        return a == null ? b == null ? 0 : -1 : b == null ? 1 : a.compareTo(b);
+    }
 }
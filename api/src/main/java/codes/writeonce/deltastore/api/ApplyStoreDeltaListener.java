@@ -15,6 +15,24 @@ public class ApplyStoreDeltaListener<S extends Store<S>> implements DeltaListene
             DeltaRecord<S, ?, ?> removeListTail,
             DeltaRecord<S, ?, ?> updateListTail,
             DeltaRecord<S, ?, ?> insertListTail
+    ) {
+        try {
+            apply(store, removeListTail, updateListTail, insertListTail);
+        } finally {
+            DeltaRecord.iterate(removeListTail, DeltaRecord::release);
+            DeltaRecord.iterate(updateListTail, DeltaRecord::release);
+            DeltaRecord.iterate(insertListTail, DeltaRecord::release);
+        }
+    }
+
+    /**
+     * Applies the deltas to the store in a transaction of its own, leaving the delta records to the caller.
+     */
+    static <S extends Store<S>> void apply(
+            S store,
+            DeltaRecord<S, ?, ?> removeListTail,
+            DeltaRecord<S, ?, ?> updateListTail,
+            DeltaRecord<S, ?, ?> insertListTail
     ) {
         try (StoreTransaction<S> t = store.begin(true)) {
             DeltaRecord.iterate(removeListTail, item -> processRemove(store, item));
@@ -24,28 +42,29 @@ public class ApplyStoreDeltaListener<S extends Store<S>> implements DeltaListene
         }
     }
 
-    private <D extends DeltaRecord<S, E, D>,
+    private static <S extends Store<S>,
+            D extends DeltaRecord<S, E, D>,
             E extends Entity<E>>
     void processInsert(S store, DeltaRecord<S, E, D> deltaRecord) {
         update(deltaRecord, store.getTable(deltaRecord.getEntityType()).create(deltaRecord));
-        deltaRecord.release();
     }
 
-    private <D extends DeltaRecord<S, E, D>,
+    private static <S extends Store<S>,
+            D extends DeltaRecord<S, E, D>,
             E extends Entity<E>>
     void processUpdate(S store, DeltaRecord<S, E, D> deltaRecord) {
         update(deltaRecord, store.getTable(deltaRecord.getEntityType()).get(deltaRecord));
-        deltaRecord.release();
     }
 
-    private <D extends DeltaRecord<S, E, D>,
+    private static <S extends Store<S>,
+            D extends DeltaRecord<S, E, D>,
             E extends Entity<E>>
     void processRemove(S store, DeltaRecord<S, E, D> deltaRecord) {
         store.getTable(deltaRecord.getEntityType()).get(deltaRecord).remove();
-        deltaRecord.release();
     }
 
-    private <D extends DeltaRecord<S, E, D>,
+    private static <S extends Store<S>,
+            D extends DeltaRecord<S, E, D>,
             E extends Entity<E>>
     void update(DeltaRecord<S, E, D> deltaRecord, E entity) {
 
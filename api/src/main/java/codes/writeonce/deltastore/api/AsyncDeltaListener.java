@@ -0,0 +1,334 @@
+package codes.writeonce.deltastore.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the deltas of each commit over to a consumer thread calling the downstream listener, so that write-ahead
+ * logging, replication and fan-out do not add to the latency of the writer. Use it under a
+ * {@link TransformDeltaCommitListener}, which builds the delta lists on the writer thread.
+ * <p>
+ * The handoff goes through a bounded single-producer single-consumer ring buffer. The consumer merges consecutive
+ * queued commits into one {@link DeltaListener#acceptDeltas} call as long as applying the removes, updates and inserts
+ * of the merged lists in that order is equivalent to applying the commits one by one. The downstream releases the
+ * delta records on the consumer thread, which hands them back to the writer through their
+ * {@link ThreadLocalArrayPool}.
+ */
+public class AsyncDeltaListener<S extends Store<S>> implements DeltaListener<S>, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final DeltaListener<S> downstream;
+
+    private final Backpressure backpressure;
+
+    private final int maxBatch;
+
+    private final int mask;
+
+    private final DeltaRecord<S, ?, ?>[] removes;
+
+    private final DeltaRecord<S, ?, ?>[] updates;
+
+    private final DeltaRecord<S, ?, ?>[] inserts;
+
+    private final long[] times;
+
+    /**
+     * sequence of the next slot to publish, written by the producer
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * sequence of the next slot to consume, written by the consumer
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    private final Thread consumer;
+
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+    private final LatencyHistogram processingLatency = new LatencyHistogram();
+
+    private final AtomicLong commits = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * producer's cached copy of {@link #tail}
+     */
+    private long cachedTail;
+
+    private volatile boolean overflowed;
+
+    private volatile boolean closed;
+
+    private volatile boolean consumerParked;
+
+    private volatile Thread parkedProducer;
+
+    public AsyncDeltaListener(@Nonnull DeltaListener<S> downstream) {
+        this(downstream, DEFAULT_CAPACITY, Backpressure.BLOCK, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param capacity number of commits the queue holds, a power of two
+     * @param maxBatch maximum number of commits merged into one downstream call
+     */
+    @SuppressWarnings("unchecked")
+    public AsyncDeltaListener(
+            @Nonnull DeltaListener<S> downstream,
+            int capacity,
+            @Nonnull Backpressure backpressure,
+            int maxBatch
+    ) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity is not a power of two: " + capacity);
+        }
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("Non-positive batch size: " + maxBatch);
+        }
+
+        this.downstream = downstream;
+        this.backpressure = backpressure;
+        this.maxBatch = maxBatch;
+        this.mask = capacity - 1;
+        this.removes = new DeltaRecord[capacity];
+        this.updates = new DeltaRecord[capacity];
+        this.inserts = new DeltaRecord[capacity];
+        this.times = new long[capacity];
+        this.consumer = new Thread(this::consume, "deltastore-async-" + downstream.getClass().getSimpleName());
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void acceptDeltas(
+            DeltaRecord<S, ?, ?> removeListTail,
+            DeltaRecord<S, ?, ?> updateListTail,
+            DeltaRecord<S, ?, ?> insertListTail
+    ) {
+        if (closed) {
+            throw new IllegalStateException("Listener is closed");
+        }
+
+        if (removeListTail == null && updateListTail == null && insertListTail == null) {
+            return;
+        }
+
+        final long sequence = head.get();
+
+        if (overflowed || !awaitSlot(sequence)) {
+            DeltaRecord.iterate(removeListTail, DeltaRecord::release);
+            DeltaRecord.iterate(updateListTail, DeltaRecord::release);
+            DeltaRecord.iterate(insertListTail, DeltaRecord::release);
+            dropped.incrementAndGet();
+            return;
+        }
+
+        final int slot = (int) sequence & mask;
+        removes[slot] = removeListTail;
+        updates[slot] = updateListTail;
+        inserts[slot] = insertListTail;
+        times[slot] = System.nanoTime();
+        head.set(sequence + 1);
+
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * @return {@code false} if the queue is full and the commit is to be dropped
+     */
+    private boolean awaitSlot(long sequence) {
+
+        if (sequence - cachedTail <= mask) {
+            return true;
+        }
+
+        cachedTail = tail.get();
+        if (sequence - cachedTail <= mask) {
+            return true;
+        }
+
+        switch (backpressure) {
+            case DROP:
+                overflowed = true;
+                logger.warn("Handoff queue is full, dropping commits until reset");
+                return false;
+            case SPIN:
+                while (sequence - (cachedTail = tail.get()) > mask) {
+                    Thread.onSpinWait();
+                }
+                return true;
+            case BLOCK:
+                while (true) {
+                    parkedProducer = Thread.currentThread();
+                    if (sequence - (cachedTail = tail.get()) <= mask) {
+                        parkedProducer = null;
+                        return true;
+                    }
+                    LockSupport.park(this);
+                }
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private void consume() {
+
+        long sequence = tail.get();
+
+        while (true) {
+
+            long available = head.get();
+
+            if (available == sequence) {
+                if (closed) {
+                    break;
+                }
+                consumerParked = true;
+                available = head.get();
+                if (available == sequence && !closed) {
+                    LockSupport.park(this);
+                }
+                consumerParked = false;
+                continue;
+            }
+
+            final int slot = (int) sequence & mask;
+            DeltaRecord<S, ?, ?> removeListTail = removes[slot];
+            DeltaRecord<S, ?, ?> updateListTail = updates[slot];
+            DeltaRecord<S, ?, ?> insertListTail = inserts[slot];
+            final long now = System.nanoTime();
+            queueLatency.record(now - times[slot]);
+            clear(slot);
+            sequence++;
+            int count = 1;
+
+            while (sequence != available && count < maxBatch) {
+                final int next = (int) sequence & mask;
+                if (removes[next] != null && (updateListTail != null || insertListTail != null) ||
+                    updates[next] != null && insertListTail != null) {
+                    break;
+                }
+                removeListTail = concat(removeListTail, removes[next]);
+                updateListTail = concat(updateListTail, updates[next]);
+                insertListTail = concat(insertListTail, inserts[next]);
+                queueLatency.record(now - times[next]);
+                clear(next);
+                sequence++;
+                count++;
+            }
+
+            tail.set(sequence);
+            final Thread producer = parkedProducer;
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+
+            try {
+                downstream.acceptDeltas(removeListTail, updateListTail, insertListTail);
+            } catch (Exception e) {
+                logger.error("Failed to process deltas", e);
+            }
+
+            processingLatency.record(System.nanoTime() - now);
+            commits.addAndGet(count);
+            batches.incrementAndGet();
+        }
+    }
+
+    private void clear(int slot) {
+        removes[slot] = null;
+        updates[slot] = null;
+        inserts[slot] = null;
+    }
+
+    private static <S extends Store<S>> DeltaRecord<S, ?, ?> concat(DeltaRecord<S, ?, ?> tail1,
+            DeltaRecord<S, ?, ?> tail2) {
+        if (tail1 == null) {
+            return tail2;
+        }
+        if (tail2 != null) {
+            final DeltaRecord<S, ?, ?> head1 = tail1.next;
+            tail1.next = tail2.next;
+            tail2.next = head1;
+            return tail2;
+        }
+        return tail1;
+    }
+
+    /**
+     * @return {@code true} if commits have been dropped since the last {@link #reset()}
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Resumes passing the commits downstream after an overflow. Must be called by the writer thread once the
+     * downstream has been rebuilt from a snapshot of the store taken after the last dropped commit.
+     */
+    public void reset() {
+        overflowed = false;
+    }
+
+    /**
+     * @return time from the commit on the writer thread till its downstream call on the consumer thread
+     */
+    @Nonnull
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * @return duration of the downstream calls, one per batch
+     */
+    @Nonnull
+    public LatencyHistogram getProcessingLatency() {
+        return processingLatency;
+    }
+
+    /**
+     * @return number of commits passed downstream
+     */
+    public long getCommits() {
+        return commits.get();
+    }
+
+    /**
+     * @return number of downstream calls
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * @return number of commits dropped on overflow
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Passes the queued commits downstream and stops the consumer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(consumer);
+        consumer.join();
+    }
+}
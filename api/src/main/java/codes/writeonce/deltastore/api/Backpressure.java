@@ -0,0 +1,23 @@
+package codes.writeonce.deltastore.api;
+
+/**
+ * What the writer thread does when the handoff queue of an {@link AsyncDeltaListener} is full.
+ */
+public enum Backpressure {
+
+    /**
+     * park until the consumer frees a slot
+     */
+    BLOCK,
+
+    /**
+     * busy-wait until the consumer frees a slot, for the lowest wakeup latency at the cost of a core
+     */
+    SPIN,
+
+    /**
+     * release the deltas and drop this and all further commits until {@link AsyncDeltaListener#reset()}, the
+     * downstream has to be rebuilt from a snapshot of the store
+     */
+    DROP
+}
@@ -0,0 +1,12 @@
+package codes.writeonce.deltastore.api;
+
+public interface FieldValueLoaderCursor<X extends Throwable, E extends Entity<E>>
+        extends FieldValueLoaderVisitor<X, E> {
+
+    /**
+     * Moves to the next set of field values.
+     *
+     * @return {@code false} if there are no more
+     */
+    boolean next() throws X;
+}
@@ -0,0 +1,12 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+
+public interface FieldValueLoaderVisitor<X extends Throwable, E extends Entity<E>>
+        extends FieldValueSupplierVisitor<X, E> {
+
+    /**
+     * @return {@code false} if the field is not set, its value is not requested then
+     */
+    boolean isSet(@Nonnull Field<E, ?> field) throws X;
+}
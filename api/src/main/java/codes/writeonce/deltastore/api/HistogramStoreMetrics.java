@@ -0,0 +1,198 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the store measurements in {@link LatencyHistogram}s and exposes them through JMX once
+ * {@link #register registered}.
+ */
+public class HistogramStoreMetrics implements StoreMetrics, StoreMetricsMXBean {
+
+    public static final String DOMAIN = "codes.writeonce.deltastore";
+
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+
+    private final LatencyHistogram nestedCommitLatency = new LatencyHistogram();
+
+    private final LatencyHistogram rollbackLatency = new LatencyHistogram();
+
+    private final LatencyHistogram reindexLatency = new LatencyHistogram();
+
+    private final LatencyHistogram listenerLatency = new LatencyHistogram();
+
+    private final LatencyHistogram changeListLength = new LatencyHistogram();
+
+    private final LatencyHistogram nestingDepth = new LatencyHistogram();
+
+    private final Map<EntityType<?>, AtomicLong> inserts = new ConcurrentHashMap<>();
+
+    private final Map<EntityType<?>, AtomicLong> updates = new ConcurrentHashMap<>();
+
+    private final Map<EntityType<?>, AtomicLong> removes = new ConcurrentHashMap<>();
+
+    @Override
+    public void commit(long nanos, int changes, int depth) {
+        if (depth == 0) {
+            commitLatency.record(nanos);
+            changeListLength.record(changes);
+        } else {
+            nestedCommitLatency.record(nanos);
+        }
+        nestingDepth.record(depth);
+    }
+
+    @Override
+    public void rollback(long nanos, int changes, int depth) {
+        rollbackLatency.record(nanos);
+        nestingDepth.record(depth);
+    }
+
+    @Override
+    public void reindex(long unindexNanos, long reindexNanos) {
+        reindexLatency.record(unindexNanos + reindexNanos);
+    }
+
+    @Override
+    public void listener(long nanos) {
+        listenerLatency.record(nanos);
+    }
+
+    @Override
+    public void inserted(EntityType<?> entityType) {
+        increment(inserts, entityType);
+    }
+
+    @Override
+    public void updated(EntityType<?> entityType) {
+        increment(updates, entityType);
+    }
+
+    @Override
+    public void removed(EntityType<?> entityType) {
+        increment(removes, entityType);
+    }
+
+    private static void increment(@Nonnull Map<EntityType<?>, AtomicLong> counts, EntityType<?> entityType) {
+        AtomicLong count = counts.get(entityType);
+        if (count == null) {
+            count = counts.computeIfAbsent(entityType, k -> new AtomicLong());
+        }
+        count.incrementAndGet();
+    }
+
+    @Nonnull
+    public LatencyHistogram getCommitHistogram() {
+        return commitLatency;
+    }
+
+    @Nonnull
+    public LatencyHistogram getListenerHistogram() {
+        return listenerLatency;
+    }
+
+    @Override
+    public Map<String, Long> getCommitLatency() {
+        return commitLatency.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getNestedCommitLatency() {
+        return nestedCommitLatency.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getRollbackLatency() {
+        return rollbackLatency.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getReindexLatency() {
+        return reindexLatency.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getListenerLatency() {
+        return listenerLatency.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getChangeListLength() {
+        return changeListLength.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getNestingDepth() {
+        return nestingDepth.getSummary();
+    }
+
+    @Override
+    public Map<String, Long> getInserts() {
+        return counts(inserts);
+    }
+
+    @Override
+    public Map<String, Long> getUpdates() {
+        return counts(updates);
+    }
+
+    @Override
+    public Map<String, Long> getRemoves() {
+        return counts(removes);
+    }
+
+    @Nonnull
+    private static Map<String, Long> counts(@Nonnull Map<EntityType<?>, AtomicLong> counts) {
+        final Map<String, Long> result = new TreeMap<>();
+        counts.forEach((entityType, count) -> result.put(entityType.getName(), count.get()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        commitLatency.reset();
+        nestedCommitLatency.reset();
+        rollbackLatency.reset();
+        reindexLatency.reset();
+        listenerLatency.reset();
+        changeListLength.reset();
+        nestingDepth.reset();
+        inserts.clear();
+        updates.clear();
+        removes.clear();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as
+     * {@code codes.writeonce.deltastore:type=StoreMetrics,name=<name>}.
+     */
+    @Nonnull
+    public ObjectName register(@Nonnull String name) {
+        try {
+            final ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register store metrics " + name, e);
+        }
+    }
+
+    public void unregister(@Nonnull String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister store metrics " + name, e);
+        }
+    }
+
+    @Nonnull
+    private static ObjectName objectName(@Nonnull String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=StoreMetrics,name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,94 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Strategy {@link Id#of} hands out the identifiers with. Chosen once per JVM by the system property
+ * {@code codes.writeonce.deltastore.api.Id.interner}: {@code weak} for {@link WeakIdInterner}, the default,
+ * {@code striped} for {@link StripedIdInterner}, {@code none} for {@link NoIdInterner}, or the name of a subclass with
+ * a public no-argument constructor. The identifiers are compared by value, interning only saves memory.
+ */
+public abstract class IdInterner {
+
+    public static final String PROPERTY = "codes.writeonce.deltastore.api.Id.interner";
+
+    protected final LongAdder hits = new LongAdder();
+
+    protected final LongAdder misses = new LongAdder();
+
+    protected final LongAdder collisions = new LongAdder();
+
+    /**
+     * @return identifier of the value, the one already interned if still reachable
+     */
+    @Nonnull
+    public abstract Id<?> intern(long value);
+
+    @Nonnull
+    protected static Id<?> newId(long value) {
+        return new Id<>(value, Id.hash(value));
+    }
+
+    /**
+     * @return number of lookups answered with an identifier interned before
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that interned a new identifier
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of lookups that found the slot of the value taken by another one
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * @return number of overflow maps of the colliding values in use
+     */
+    public long getOverflowMaps() {
+        return 0;
+    }
+
+    /**
+     * @return number of the values kept in the overflow maps
+     */
+    public long getOverflowEntries() {
+        return 0;
+    }
+
+    /**
+     * @return number of preallocated identifiers taken and not replenished yet
+     */
+    public long getQueueLag() {
+        return 0;
+    }
+
+    @Nonnull
+    static IdInterner load() {
+
+        final String name = System.getProperty(PROPERTY, "weak");
+        switch (name) {
+            case "weak":
+                return new WeakIdInterner();
+            case "striped":
+                return new StripedIdInterner();
+            case "none":
+                return new NoIdInterner();
+            default:
+                try {
+                    return Class.forName(name).asSubclass(IdInterner.class).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalStateException("Failed to create the Id interner: " + name, e);
+                }
+        }
+    }
+}
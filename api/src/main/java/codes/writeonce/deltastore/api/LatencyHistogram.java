@@ -0,0 +1,91 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds, or other non-negative values, with power-of-two buckets. Recording is lock-free and allocation-free;
+ * percentiles are reported as the upper bound of their bucket, so they are accurate within a factor of two.
+ */
+public class LatencyHistogram {
+
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        }
+
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @return count, p50, p99, p99.9 and max
+     */
+    @Nonnull
+    public Map<String, Long> getSummary() {
+        final Map<String, Long> summary = new LinkedHashMap<>();
+        summary.put("count", getCount());
+        summary.put("p50", getPercentile(50));
+        summary.put("p99", getPercentile(99));
+        summary.put("p99.9", getPercentile(99.9));
+        summary.put("max", getMax());
+        return summary;
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + " p50=" + getPercentile(50) + " p99=" + getPercentile(99) + " p99.9=" +
+               getPercentile(99.9) + " max=" + getMax();
+    }
+}
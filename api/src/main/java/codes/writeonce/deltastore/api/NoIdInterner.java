@@ -0,0 +1,16 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates a new identifier on every lookup, leaving it all to the young generation of the garbage collector.
+ */
+public final class NoIdInterner extends IdInterner {
+
+    @Nonnull
+    @Override
+    public Id<?> intern(long value) {
+        misses.increment();
+        return newId(value);
+    }
+}
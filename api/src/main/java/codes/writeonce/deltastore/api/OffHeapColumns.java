@@ -0,0 +1,96 @@
+package codes.writeonce.deltastore.api;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Rows of fixed width kept outside the heap in pages of direct buffers, so that the payloads of the records of a
+ * table add neither to the heap nor to the work of the garbage collector. Pages are added as the table grows and are
+ * never moved; they are freed with the columns.
+ */
+public abstract class OffHeapColumns extends AbstractColumns {
+
+    private static final int PAGE_SHIFT = 12;
+
+    private static final int PAGE_ROWS = 1 << PAGE_SHIFT;
+
+    private static final int PAGE_MASK = PAGE_ROWS - 1;
+
+    private final int rowSize;
+
+    private ByteBuffer[] pages = new ByteBuffer[1];
+
+    private int pageCount;
+
+    protected OffHeapColumns(int rowSize) {
+        this.rowSize = rowSize;
+        addPages(capacity());
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        addPages(capacity);
+    }
+
+    private void addPages(int capacity) {
+
+        final int count = (capacity + PAGE_MASK) >>> PAGE_SHIFT;
+        if (count > pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(count, pages.length * 2));
+        }
+
+        while (pageCount < count) {
+            pages[pageCount++] = ByteBuffer.allocateDirect(PAGE_ROWS * rowSize).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Sets all the bytes of the row to zero, the encoding of the default values of the fields.
+     */
+    protected final void zero(int row) {
+
+        final ByteBuffer page = pages[row >>> PAGE_SHIFT];
+        final int start = (row & PAGE_MASK) * rowSize;
+        final int end = start + rowSize;
+
+        int i = start;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            page.putLong(i, 0);
+        }
+        for (; i < end; i++) {
+            page.put(i, (byte) 0);
+        }
+    }
+
+    protected final byte getByte(int row, int offset) {
+        return pages[row >>> PAGE_SHIFT].get((row & PAGE_MASK) * rowSize + offset);
+    }
+
+    protected final void putByte(int row, int offset, byte value) {
+        pages[row >>> PAGE_SHIFT].put((row & PAGE_MASK) * rowSize + offset, value);
+    }
+
+    protected final int getInt(int row, int offset) {
+        return pages[row >>> PAGE_SHIFT].getInt((row & PAGE_MASK) * rowSize + offset);
+    }
+
+    protected final void putInt(int row, int offset, int value) {
+        pages[row >>> PAGE_SHIFT].putInt((row & PAGE_MASK) * rowSize + offset, value);
+    }
+
+    protected final long getLong(int row, int offset) {
+        return pages[row >>> PAGE_SHIFT].getLong((row & PAGE_MASK) * rowSize + offset);
+    }
+
+    protected final void putLong(int row, int offset, long value) {
+        pages[row >>> PAGE_SHIFT].putLong((row & PAGE_MASK) * rowSize + offset, value);
+    }
+
+    /**
+     * @return number of bytes allocated outside the heap
+     */
+    public long getOffHeapSize() {
+        return (long) pageCount * PAGE_ROWS * rowSize;
+    }
+}
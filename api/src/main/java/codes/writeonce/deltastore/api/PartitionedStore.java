@@ -0,0 +1,239 @@
+package codes.writeonce.deltastore.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Spreads the entities over a number of independent stores by their primary key, each store owned by a thread of its
+ * own draining a queue of tasks. A task routed to a partition runs in a transaction of that partition, committed if the
+ * task returns and rolled back if it throws; there are no transactions spanning partitions.
+ * <p>
+ * The entities must not leave the thread of their partition: tasks and queries are to map them to values. Tasks must
+ * not wait for the results of other tasks of the same partitioned store.
+ */
+public class PartitionedStore<S extends Store<S>> implements AutoCloseable {
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * upper bounds of the key ranges of all the partitions but the last one, or {@code null} to partition by hash
+     */
+    private final long[] bounds;
+
+    private final ExecutorService[] executors;
+
+    private final List<S> stores;
+
+    /**
+     * Partitions the keys by hash.
+     *
+     * @param factory creates the store of a partition by its index, called on the thread of the partition
+     */
+    public PartitionedStore(int partitions, @Nonnull IntFunction<S> factory) {
+        this(partitions, null, factory);
+    }
+
+    /**
+     * Partitions the keys by range: the partition {@code i} holds the keys from {@code bounds[i - 1]} inclusive till
+     * {@code bounds[i]} exclusive.
+     *
+     * @param bounds ascending upper bounds of the key ranges of all the partitions but the last one
+     * @param factory creates the store of a partition by its index, called on the thread of the partition
+     */
+    public PartitionedStore(@Nonnull long[] bounds, @Nonnull IntFunction<S> factory) {
+        this(bounds.length + 1, bounds.clone(), factory);
+    }
+
+    private PartitionedStore(int partitions, long[] bounds, @Nonnull IntFunction<S> factory) {
+
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Non-positive partition count: " + partitions);
+        }
+        if (bounds != null) {
+            for (int i = 1; i < bounds.length; i++) {
+                if (bounds[i - 1] >= bounds[i]) {
+                    throw new IllegalArgumentException(
+                            "Partition bounds are not ascending: " + Arrays.toString(bounds));
+                }
+            }
+        }
+
+        this.bounds = bounds;
+        this.executors = new ExecutorService[partitions];
+
+        final List<CompletableFuture<S>> futures = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            final int partition = i;
+            executors[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                final Thread thread = new Thread(r, "deltastore-partition-" + partition);
+                thread.setDaemon(true);
+                return thread;
+            });
+            futures.add(CompletableFuture.supplyAsync(() -> factory.apply(partition), executors[i]));
+        }
+
+        final List<S> stores = new ArrayList<>(partitions);
+        for (final CompletableFuture<S> future : futures) {
+            stores.add(future.join());
+        }
+        this.stores = stores;
+    }
+
+    public int getPartitionCount() {
+        return executors.length;
+    }
+
+    public int partitionOf(long key) {
+
+        if (bounds == null) {
+            return Math.floorMod(Id.hash(key) * 0x9E3779B9, executors.length);
+        }
+
+        final int index = Arrays.binarySearch(bounds, key);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    /**
+     * Runs the task in a transaction of the partition owning the key.
+     */
+    @Nonnull
+    public <R> CompletableFuture<R> execute(@Nonnull Id<?> key, @Nonnull Function<S, R> task) {
+        return execute(key.value(), task);
+    }
+
+    /**
+     * Runs the task in a transaction of the partition owning the key.
+     */
+    @Nonnull
+    public <R> CompletableFuture<R> execute(long key, @Nonnull Function<S, R> task) {
+        return executeOn(partitionOf(key), task);
+    }
+
+    /**
+     * Runs the task in a transaction of the given partition.
+     */
+    @Nonnull
+    public <R> CompletableFuture<R> executeOn(int partition, @Nonnull Function<S, R> task) {
+        final S store = stores.get(partition);
+        return CompletableFuture.supplyAsync(() -> transact(store, task), executors[partition]);
+    }
+
+    /**
+     * Runs the task in a separate transaction of every partition.
+     *
+     * @return results by partition
+     */
+    @Nonnull
+    public <R> CompletableFuture<List<R>> executeAll(@Nonnull Function<S, R> task) {
+
+        final List<CompletableFuture<R>> futures = new ArrayList<>(executors.length);
+        for (int i = 0; i < executors.length; i++) {
+            futures.add(executeOn(i, task));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            final List<R> results = new ArrayList<>(futures.size());
+            for (final CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Runs the query on every partition and merges the mapped results.
+     *
+     * @param query  iterator over the matching entities of a partition, in the order of {@code order} once mapped
+     * @param mapper maps the entities to the results on the thread of their partition
+     * @param order  order of the results of each partition and of the merged ones
+     */
+    @Nonnull
+    public <E, R> CompletableFuture<List<R>> query(
+            @Nonnull Function<S, SmartIterator<E>> query,
+            @Nonnull Function<? super E, R> mapper,
+            @Nonnull Comparator<? super R> order
+    ) {
+        return executeAll(store -> {
+            final List<R> results = new ArrayList<>();
+            try (SmartIterator<E> iterator = query.apply(store)) {
+                while (true) {
+                    final E value = iterator.get();
+                    if (value == null) {
+                        break;
+                    }
+                    results.add(mapper.apply(value));
+                }
+            }
+            return results;
+        }).thenApply(results -> merge(results, order));
+    }
+
+    /**
+     * Lets the queued tasks finish and stops the threads of the partitions.
+     */
+    @Override
+    public void close() throws InterruptedException {
+
+        for (final ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+
+        for (final ExecutorService executor : executors) {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Still waiting for the partition tasks to finish");
+            }
+        }
+    }
+
+    private static <S extends Store<S>, R> R transact(@Nonnull S store, @Nonnull Function<S, R> task) {
+        try (Transaction t = store.begin()) {
+            final R result = task.apply(store);
+            t.commit();
+            return result;
+        }
+    }
+
+    @Nonnull
+    private static <R> List<R> merge(@Nonnull List<List<R>> lists, @Nonnull Comparator<? super R> order) {
+
+        int size = 0;
+        for (final List<R> list : lists) {
+            size += list.size();
+        }
+
+        final List<R> merged = new ArrayList<>(size);
+        final int[] positions = new int[lists.size()];
+
+        while (merged.size() < size) {
+            int min = -1;
+            R minValue = null;
+            for (int i = 0; i < positions.length; i++) {
+                final List<R> list = lists.get(i);
+                if (positions[i] < list.size()) {
+                    final R value = list.get(positions[i]);
+                    if (min < 0 || order.compare(value, minValue) < 0) {
+                        min = i;
+                        minValue = value;
+                    }
+                }
+            }
+            merged.add(minValue);
+            positions[min]++;
+        }
+
+        return merged;
+    }
+}
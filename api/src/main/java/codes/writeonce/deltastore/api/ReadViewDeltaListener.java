@@ -0,0 +1,165 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps two replicas of the store fed by the deltas of its commits and lets any thread open a consistent read-only
+ * view of one of them. The writer applies the deltas to the replica no reader holds and then publishes it, so neither
+ * the writer nor the readers ever wait for each other. While readers hold the published replica, the other one stays
+ * unpublished as well and the views lag behind the store until a later commit or {@link #publish()} finds it free.
+ * <p>
+ * The replicas must be created with the same contents as the store, e.g. empty, and are not to be used otherwise.
+ * The listener releases the delta records once both replicas have applied them.
+ * <p>
+ * Several threads may read the same view at once since the reads share no mutable state: the iterators of the keys and
+ * filters are taken from pools keeping a stack per thread, see {@link ThreadLocalArrayPool}, and batch lookups sort
+ * their keys in a scratch owned by the caller. Key maintenance, which uses the shared pools of nested maps, only runs
+ * on the writer thread.
+ */
+public class ReadViewDeltaListener<S extends Store<S>> implements DeltaListener<S> {
+
+    private final Replica<S> first;
+
+    private final Replica<S> second;
+
+    private volatile Replica<S> current;
+
+    public ReadViewDeltaListener(@Nonnull S first, @Nonnull S second) {
+        this.first = new Replica<>(first);
+        this.second = new Replica<>(second);
+        this.current = this.first;
+    }
+
+    @Override
+    public void acceptDeltas(
+            DeltaRecord<S, ?, ?> removeListTail,
+            DeltaRecord<S, ?, ?> updateListTail,
+            DeltaRecord<S, ?, ?> insertListTail
+    ) {
+        final Batch<S> batch = new Batch<>(removeListTail, updateListTail, insertListTail);
+        first.pending.add(batch);
+        second.pending.add(batch);
+        publish();
+    }
+
+    /**
+     * Brings the replica no reader holds up to date with the last commit and publishes it. Must be called by the
+     * writer thread, e.g. when idle, to let the views catch up with no more commits coming.
+     *
+     * @return {@code true} if the views are up to date with the last commit
+     */
+    public boolean publish() {
+
+        final Replica<S> back = current == first ? second : first;
+        if (!back.pending.isEmpty() && back.readers.get() == 0) {
+            back.apply();
+            current = back;
+        }
+
+        return current.pending.isEmpty();
+    }
+
+    /**
+     * Opens a view of the last published replica. May be called by any thread; the view must be closed by the same
+     * thread once done with it, and the store it exposes must not be written to or have transactions begun on it.
+     */
+    @Nonnull
+    public ReadView<S> open() {
+
+        while (true) {
+            final Replica<S> replica = current;
+            replica.readers.incrementAndGet();
+            if (current == replica) {
+                return new ReadView<>(replica);
+            }
+            replica.readers.decrementAndGet();
+        }
+    }
+
+    public static final class ReadView<S extends Store<S>> implements AutoCloseable {
+
+        private Replica<S> replica;
+
+        private ReadView(@Nonnull Replica<S> replica) {
+            this.replica = replica;
+        }
+
+        @Nonnull
+        public S store() {
+            if (replica == null) {
+                throw new IllegalStateException("View is closed");
+            }
+            return replica.store;
+        }
+
+        @Override
+        public void close() {
+            if (replica != null) {
+                replica.readers.decrementAndGet();
+                replica = null;
+            }
+        }
+    }
+
+    private static final class Replica<S extends Store<S>> {
+
+        final S store;
+
+        final AtomicInteger readers = new AtomicInteger();
+
+        final ArrayDeque<Batch<S>> pending = new ArrayDeque<>();
+
+        Replica(@Nonnull S store) {
+            this.store = store;
+        }
+
+        void apply() {
+            while (true) {
+                final Batch<S> batch = pending.poll();
+                if (batch == null) {
+                    break;
+                }
+                try {
+                    ApplyStoreDeltaListener.apply(store, batch.removeListTail, batch.updateListTail,
+                            batch.insertListTail);
+                } finally {
+                    batch.applied();
+                }
+            }
+        }
+    }
+
+    private static final class Batch<S extends Store<S>> {
+
+        final DeltaRecord<S, ?, ?> removeListTail;
+
+        final DeltaRecord<S, ?, ?> updateListTail;
+
+        final DeltaRecord<S, ?, ?> insertListTail;
+
+        /**
+         * replicas yet to apply the batch
+         */
+        int remaining = 2;
+
+        Batch(
+                DeltaRecord<S, ?, ?> removeListTail,
+                DeltaRecord<S, ?, ?> updateListTail,
+                DeltaRecord<S, ?, ?> insertListTail
+        ) {
+            this.removeListTail = removeListTail;
+            this.updateListTail = updateListTail;
+            this.insertListTail = insertListTail;
+        }
+
+        void applied() {
+            if (--remaining == 0) {
+                DeltaRecord.iterate(removeListTail, DeltaRecord::release);
+                DeltaRecord.iterate(updateListTail, DeltaRecord::release);
+                DeltaRecord.iterate(insertListTail, DeltaRecord::release);
+            }
+        }
+    }
+}
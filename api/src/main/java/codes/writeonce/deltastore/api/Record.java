@@ -126,6 +126,7 @@ public abstract class Record<S extends Store<S>, E extends Entity<E>, D extends
             }
         }
         transaction.changeListTail = this;
+        transaction.changeCount++;
         currentTransaction = transaction;
     }
 
@@ -0,0 +1,275 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Reference-counted dictionary of the strings of a dictionary field of a row table. The records keep the codes of the
+ * strings as with a {@link StringDictionary}; besides, every string has a label, an {@code int} ordered as the strings
+ * are, so that the tree keys over the field compare labels instead of strings. {@code null} is labelled
+ * {@link #NULL_LABEL}, the least of all.
+ * <p>
+ * A new string takes the label in the middle of the gap between its neighbours. Once there is no gap left, all the
+ * labels are spread evenly again and the listeners get the mapping of the old labels to the new ones to rewrite the
+ * keys of their maps. That happens rarely for fields of a low cardinality, the ones a dictionary is meant for.
+ */
+public final class SortedStringDictionary {
+
+    public static final int NULL_LABEL = Integer.MIN_VALUE;
+
+    /**
+     * label of the strings not in the dictionary, no key ever has it
+     */
+    public static final int MISSING_LABEL = Integer.MIN_VALUE + 1;
+
+    private static final int MIN_LABEL = Integer.MIN_VALUE + 2;
+
+    private static final int MAX_LABEL = Integer.MAX_VALUE - 1;
+
+    private final StringDictionary dictionary = new StringDictionary();
+
+    private final List<Consumer<IntUnaryOperator>> listeners = new ArrayList<>();
+
+    /**
+     * labels by the codes
+     */
+    private int[] labels = new int[16];
+
+    /**
+     * codes in the order of their labels
+     */
+    private int[] sorted = new int[16];
+
+    public SortedStringDictionary() {
+        labels[0] = NULL_LABEL;
+    }
+
+    /**
+     * Registers the listener of the relabelling, which is to replace every label it keeps with the one the mapping
+     * gives. The mapping is strictly increasing and only defined for the labels of the strings in the dictionary.
+     */
+    public void addListener(@Nonnull Consumer<IntUnaryOperator> listener) {
+        listeners.add(listener);
+    }
+
+    @Nullable
+    public String get(int code) {
+        return dictionary.get(code);
+    }
+
+    /**
+     * @return code of the string, referenced once more
+     */
+    public int acquire(@Nullable String value) {
+
+        final int size = dictionary.size();
+        final int code = dictionary.acquire(value);
+        if (dictionary.size() != size) {
+            insert(code, value);
+        }
+        return code;
+    }
+
+    public void release(int code) {
+
+        final int size = dictionary.size();
+        dictionary.release(code);
+        if (dictionary.size() != size) {
+            final int position = position(labels[code], size);
+            System.arraycopy(sorted, position + 1, sorted, position, size - position - 1);
+        }
+    }
+
+    /**
+     * Replaces a reference to one string with a reference to another one.
+     *
+     * @return code of the new string
+     */
+    public int replace(int code, @Nullable String value) {
+
+        if (dictionary.get(code) == value) {
+            return code;
+        }
+
+        final int replacement = acquire(value);
+        release(code);
+        return replacement;
+    }
+
+    public int label(int code) {
+        return labels[code];
+    }
+
+    /**
+     * @return label of the string, {@link #MISSING_LABEL} if it is not referenced
+     */
+    public int label(@Nullable String value) {
+
+        if (value == null) {
+            return NULL_LABEL;
+        }
+
+        final int code = dictionary.code(value);
+        return code == 0 ? MISSING_LABEL : labels[code];
+    }
+
+    /**
+     * @return labels of the strings, see {@link #label(String)}
+     */
+    @Nonnull
+    public Integer[] labels(@Nonnull String[] values) {
+
+        final Integer[] result = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = label(values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * References the string once more on behalf of a key.
+     *
+     * @return label of the string
+     */
+    public int acquireLabel(@Nullable String value) {
+        final int code = acquire(value);
+        return labels[code];
+    }
+
+    public void releaseLabel(@Nullable String value) {
+        release(dictionary.code(value));
+    }
+
+    /**
+     * @return least label of the strings in the dictionary above the bound, {@link Integer#MAX_VALUE} if there are no
+     * such strings, or {@code null} if the bound is {@code null}
+     */
+    @Nullable
+    public Integer ceiling(@Nullable String value, boolean exclusive) {
+
+        if (value == null) {
+            return null;
+        }
+
+        final int size = dictionary.size();
+        final int position = search(value, exclusive, size);
+        return position == size ? Integer.MAX_VALUE : labels[sorted[position]];
+    }
+
+    /**
+     * @return greatest label of the strings in the dictionary below the bound, {@link #NULL_LABEL} if there are no such
+     * strings, or {@code null} if the bound is {@code null}
+     */
+    @Nullable
+    public Integer floor(@Nullable String value, boolean exclusive) {
+
+        if (value == null) {
+            return null;
+        }
+
+        final int position = search(value, !exclusive, dictionary.size());
+        return position == 0 ? NULL_LABEL : labels[sorted[position - 1]];
+    }
+
+    /**
+     * @return number of distinct strings referenced
+     */
+    public int size() {
+        return dictionary.size();
+    }
+
+    /**
+     * @return position of the first string greater than the value if {@code after} is set, otherwise of the first
+     * string not less than it
+     */
+    private int search(@Nonnull String value, boolean after, int size) {
+
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final int c = dictionary.get(sorted[mid]).compareTo(value);
+            if (c < 0 || after && c == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int position(int label, int size) {
+
+        int low = 0;
+        int high = size;
+        while (true) {
+            final int mid = (low + high) >>> 1;
+            final int midLabel = labels[sorted[mid]];
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid;
+            } else {
+                return mid;
+            }
+        }
+    }
+
+    private void insert(int code, @Nonnull String value) {
+
+        final int size = dictionary.size() - 1;
+        final int position = search(value, false, size);
+
+        if (code >= labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(code + 1, labels.length * 2));
+        }
+        if (size == sorted.length) {
+            sorted = Arrays.copyOf(sorted, size * 2);
+        }
+
+        final long low = position == 0 ? MIN_LABEL - 1L : labels[sorted[position - 1]];
+        final long high = position == size ? MAX_LABEL + 1L : labels[sorted[position]];
+        if (high - low > 1) {
+            labels[code] = (int) (low + (high - low) / 2);
+        } else {
+            relabel(size, position);
+            labels[code] = (int) (MIN_LABEL + step(size) * (position + 1));
+        }
+
+        System.arraycopy(sorted, position, sorted, position + 1, size - position);
+        sorted[position] = code;
+    }
+
+    /**
+     * Spreads the labels of the strings evenly, leaving a gap for a new one at the position.
+     */
+    private void relabel(int size, int position) {
+
+        final int[] oldLabels = new int[size];
+        final int[] newLabels = new int[size];
+        final long step = step(size);
+
+        for (int i = 0; i < size; i++) {
+            final int code = sorted[i];
+            oldLabels[i] = labels[code];
+            newLabels[i] = (int) (MIN_LABEL + step * (i < position ? i + 1 : i + 2));
+            labels[code] = newLabels[i];
+        }
+
+        final IntUnaryOperator mapping = label -> label == NULL_LABEL
+                ? NULL_LABEL
+                : newLabels[Arrays.binarySearch(oldLabels, label)];
+        for (final Consumer<IntUnaryOperator> listener : listeners) {
+            listener.accept(mapping);
+        }
+    }
+
+    private static long step(int size) {
+        return ((long) MAX_LABEL - MIN_LABEL) / (size + 2);
+    }
+}
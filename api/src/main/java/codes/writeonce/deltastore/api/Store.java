@@ -9,20 +9,22 @@ import java.util.function.UnaryOperator;
 
 public abstract class Store<S extends Store<S>> implements DistributedTransactional {
 
-    protected final Logger logger = LoggerFactory.getLogger(getClass());
+    private static final int TRANSACTION_POOL_CAPACITY = 16;
 
-    public final Pool<StoreTransaction<S>> transactionPool = new Pool<StoreTransaction<S>>() {
-        @Nonnull
-        @Override
-        public StoreTransaction<S> get() {
-            return new StoreTransaction<>();
-        }
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-        @Override
-        public void put(@Nonnull StoreTransaction<S> value) {
-            value.clean();
-        }
-    };
+    /**
+     * Ended transactions are reused by the next {@link #begin()}, so a handle must not be used once it has committed or
+     * rolled back, apart from the closing call that follows.
+     */
+    public final Pool<StoreTransaction<S>> transactionPool =
+            new ArrayPool<StoreTransaction<S>>(TRANSACTION_POOL_CAPACITY, StoreTransaction::new) {
+                @Override
+                public void put(@Nonnull StoreTransaction<S> value) {
+                    value.clean();
+                    super.put(value);
+                }
+            };
 
     protected final Schema schema;
 
@@ -30,11 +32,22 @@ public abstract class Store<S extends Store<S>> implements DistributedTransactio
 
     public StoreTransaction<S> currentTransaction;
 
+    private StoreMetrics metrics = StoreMetrics.NONE;
+
     public Store(Schema schema, CommitListener<S> commitListener) {
         this.schema = schema;
         this.commitListener = commitListener;
     }
 
+    @Nonnull
+    public StoreMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(@Nonnull StoreMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public Schema getSchema() {
         return schema;
     }
@@ -62,12 +75,15 @@ public abstract class Store<S extends Store<S>> implements DistributedTransactio
 
         final Record<S, ?, ?> tail = currentTransaction.changeListTail;
         final StoreTransaction<S> prev = currentTransaction.transactionStackTop;
+        final int changes = currentTransaction.changeCount;
+        final int depth = currentTransaction.depth;
+        final long start = System.nanoTime();
 
         if (prev == null) {
             try {
-                final long start = System.nanoTime();
                 commitListener.commit(tail);
                 final long end = System.nanoTime();
+                metrics.listener(end - start);
                 logger.trace("Final commit in {} nanos", end - start);
             } catch (Throwable e) {
                 logger.error("Final commit failed, trying rollback", e);
@@ -76,12 +92,11 @@ public abstract class Store<S extends Store<S>> implements DistributedTransactio
             }
         } else if (prev.changeListTail == null) {
             prev.changeListTail = tail;
-            final long start = System.nanoTime();
+            prev.changeCount = changes;
             doForEach(Record::patch);
             final long end = System.nanoTime();
             logger.trace("Patch commit in {} nanos", end - start);
         } else {
-            final long start = System.nanoTime();
             doForEach(Record::commit);
             final long end = System.nanoTime();
             logger.trace("Regular commit in {} nanos", end - start);
@@ -89,6 +104,7 @@ public abstract class Store<S extends Store<S>> implements DistributedTransactio
 
         transactionPool.put(currentTransaction);
         currentTransaction = prev;
+        metrics.commit(System.nanoTime() - start, changes, depth);
     }
 
     public void rollback() {
@@ -96,6 +112,7 @@ public abstract class Store<S extends Store<S>> implements DistributedTransactio
         doForEach(Record::rollback);
         final long end = System.nanoTime();
         logger.trace("Rollback in {} nanos", end - start);
+        metrics.rollback(end - start, currentTransaction.changeCount, currentTransaction.depth);
         final StoreTransaction<S> prev = currentTransaction.transactionStackTop;
         transactionPool.put(currentTransaction);
         currentTransaction = prev;
@@ -111,6 +128,7 @@ public abstract class Store<S extends Store<S>> implements DistributedTransactio
             final long reindexEnd = System.nanoTime();
             logger.trace("Deferred reindexing: unindex in {} nanos, reindex in {} nanos", unindexEnd - unindexStart,
                     reindexEnd - unindexEnd);
+            metrics.reindex(unindexEnd - unindexStart, reindexEnd - unindexEnd);
         }
     }
 
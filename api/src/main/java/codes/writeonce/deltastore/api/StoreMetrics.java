@@ -0,0 +1,53 @@
+package codes.writeonce.deltastore.api;
+
+/**
+ * Receives the measurements of a store, see {@link Store#setMetrics}. Called on the writer thread of the store, apart
+ * from the delta counts which come from the thread calling the commit listener.
+ */
+public interface StoreMetrics {
+
+    StoreMetrics NONE = new StoreMetrics() {
+    };
+
+    /**
+     * @param changes length of the change list of the transaction
+     * @param depth   nesting depth of the transaction, 0 for the outermost one
+     */
+    default void commit(long nanos, int changes, int depth) {
+        // empty
+    }
+
+    /**
+     * @param changes length of the change list of the transaction
+     * @param depth   nesting depth of the transaction, 0 for the outermost one
+     */
+    default void rollback(long nanos, int changes, int depth) {
+        // empty
+    }
+
+    /**
+     * Deferred reindexing on the commit of a transaction begun with {@code deferIndex}.
+     */
+    default void reindex(long unindexNanos, long reindexNanos) {
+        // empty
+    }
+
+    /**
+     * Commit listener called on the commit of an outermost transaction.
+     */
+    default void listener(long nanos) {
+        // empty
+    }
+
+    default void inserted(EntityType<?> entityType) {
+        // empty
+    }
+
+    default void updated(EntityType<?> entityType) {
+        // empty
+    }
+
+    default void removed(EntityType<?> entityType) {
+        // empty
+    }
+}
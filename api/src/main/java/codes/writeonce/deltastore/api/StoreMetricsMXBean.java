@@ -0,0 +1,35 @@
+package codes.writeonce.deltastore.api;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link HistogramStoreMetrics}. Each histogram is reported as its count, p50, p99, p99.9
+ * and max; latencies are in nanoseconds.
+ */
+public interface StoreMetricsMXBean {
+
+    Map<String, Long> getCommitLatency();
+
+    Map<String, Long> getNestedCommitLatency();
+
+    Map<String, Long> getRollbackLatency();
+
+    Map<String, Long> getReindexLatency();
+
+    Map<String, Long> getListenerLatency();
+
+    Map<String, Long> getChangeListLength();
+
+    Map<String, Long> getNestingDepth();
+
+    /**
+     * @return delta record counts by entity type name
+     */
+    Map<String, Long> getInserts();
+
+    Map<String, Long> getUpdates();
+
+    Map<String, Long> getRemoves();
+
+    void reset();
+}
@@ -8,6 +8,16 @@ public class StoreTransaction<S extends Store<S>> implements DistributedTransact
     public Record<S, ?, ?> changeListTail;
     public StoreTransaction<S> transactionStackTop;
 
+    /**
+     * nesting depth, 0 for the outermost transaction
+     */
+    public int depth;
+
+    /**
+     * length of the change list
+     */
+    public int changeCount;
+
     StoreTransaction() {
         // empty
     }
@@ -18,6 +28,8 @@ public class StoreTransaction<S extends Store<S>> implements DistributedTransact
         this.store = store;
         this.changeListTail = null;
         this.transactionStackTop = store.currentTransaction;
+        this.depth = transactionStackTop == null ? 0 : transactionStackTop.depth + 1;
+        this.changeCount = 0;
         return this;
     }
 
@@ -84,5 +96,7 @@ public class StoreTransaction<S extends Store<S>> implements DistributedTransact
         store = null;
         changeListTail = null;
         transactionStackTop = null;
+        depth = 0;
+        changeCount = 0;
     }
 }
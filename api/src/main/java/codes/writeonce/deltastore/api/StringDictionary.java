@@ -0,0 +1,184 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Reference-counted dictionary of the strings of a columnar table. Equal strings share a code, {@code 0} stands for
+ * {@code null}; a code is reused once the last reference to its string is released.
+ */
+public final class StringDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] strings = new String[INITIAL_CAPACITY];
+
+    private int[] references = new int[INITIAL_CAPACITY];
+
+    /**
+     * open addressing table of the codes by the hashes of their strings, {@code 0} for a free slot
+     */
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private int size;
+
+    /**
+     * next code never assigned yet
+     */
+    private int next = 1;
+
+    /**
+     * first released code, chained through {@link #references}
+     */
+    private int free;
+
+    @Nullable
+    public String get(int code) {
+        return strings[code];
+    }
+
+    /**
+     * @return code of the string, {@code 0} if it is not referenced
+     */
+    public int code(@Nullable String value) {
+
+        if (value == null) {
+            return 0;
+        }
+
+        final int mask = table.length - 1;
+        int i = hash(value) & mask;
+        while (true) {
+            final int code = table[i];
+            if (code == 0 || value.equals(strings[code])) {
+                return code;
+            }
+            i = i + 1 & mask;
+        }
+    }
+
+    /**
+     * @return code of the string, referenced once more
+     */
+    public int acquire(@Nullable String value) {
+
+        if (value == null) {
+            return 0;
+        }
+
+        final int mask = table.length - 1;
+        int i = hash(value) & mask;
+        while (true) {
+            final int code = table[i];
+            if (code == 0) {
+                break;
+            }
+            if (value.equals(strings[code])) {
+                references[code]++;
+                return code;
+            }
+            i = i + 1 & mask;
+        }
+
+        final int code;
+        if (free != 0) {
+            code = free;
+            free = references[code];
+        } else {
+            if (next == strings.length) {
+                strings = Arrays.copyOf(strings, next * 2);
+                references = Arrays.copyOf(references, next * 2);
+            }
+            code = next++;
+        }
+
+        strings[code] = value;
+        references[code] = 1;
+        table[i] = code;
+
+        if (++size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+
+        return code;
+    }
+
+    public void release(int code) {
+
+        if (code == 0 || --references[code] != 0) {
+            return;
+        }
+
+        final int mask = table.length - 1;
+        int i = hash(strings[code]) & mask;
+        while (table[i] != code) {
+            i = i + 1 & mask;
+        }
+
+        // backward shift deletion keeps the probe sequences of the following codes unbroken
+        int j = i;
+        while (true) {
+            j = j + 1 & mask;
+            final int moved = table[j];
+            if (moved == 0) {
+                break;
+            }
+            final int home = hash(strings[moved]) & mask;
+            if ((j - home & mask) >= (j - i & mask)) {
+                table[i] = moved;
+                i = j;
+            }
+        }
+        table[i] = 0;
+
+        strings[code] = null;
+        references[code] = free;
+        free = code;
+        size--;
+    }
+
+    /**
+     * Replaces a reference to one string with a reference to another one.
+     *
+     * @return code of the new string
+     */
+    public int replace(int code, @Nullable String value) {
+
+        if (strings[code] == value) {
+            return code;
+        }
+
+        final int replacement = acquire(value);
+        release(code);
+        return replacement;
+    }
+
+    /**
+     * @return number of distinct strings referenced
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+
+        final int[] table = new int[capacity];
+        final int mask = capacity - 1;
+        for (final int code : this.table) {
+            if (code != 0) {
+                int i = hash(strings[code]) & mask;
+                while (table[i] != 0) {
+                    i = i + 1 & mask;
+                }
+                table[i] = code;
+            }
+        }
+        this.table = table;
+    }
+
+    private static int hash(@Nonnull String value) {
+        final int h = value.hashCode() * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+}
@@ -0,0 +1,192 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Interns the identifiers in weak references kept by a number of independently locked open addressing tables, the
+ * stripe of a value chosen by its hash. The references cleared by the garbage collector are expunged from a stripe by
+ * the next lookup of a new value there, without background threads.
+ */
+public final class StripedIdInterner extends IdInterner {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Stripe[] stripes;
+
+    private final int stripeMask;
+
+    private final int stripeShift;
+
+    public StripedIdInterner() {
+        this(Integer.getInteger("codes.writeonce.deltastore.api.StripedIdInterner.stripes", DEFAULT_STRIPES));
+    }
+
+    /**
+     * @param stripes number of the stripes, a power of two
+     */
+    public StripedIdInterner(int stripes) {
+
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripe count is not a power of two: " + stripes);
+        }
+
+        this.stripes = new Stripe[stripes];
+        this.stripeMask = stripes - 1;
+        this.stripeShift = Integer.numberOfTrailingZeros(stripes);
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Id<?> intern(long value) {
+        final int h = Id.hash(value) * 0x9E3779B9;
+        return stripes[h & stripeMask].intern(value, h >>> stripeShift);
+    }
+
+    /**
+     * @return number of the identifiers interned, the ones cleared and not expunged yet included
+     */
+    public long size() {
+        long size = 0;
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private final class Stripe {
+
+        private final ReferenceQueue<Id<?>> queue = new ReferenceQueue<>();
+
+        private IdRef[] table = new IdRef[INITIAL_CAPACITY];
+
+        private int size;
+
+        synchronized Id<?> intern(long value, int hash) {
+
+            int mask = table.length - 1;
+            int i = hash & mask;
+            boolean collided = false;
+
+            while (true) {
+                final IdRef ref = table[i];
+                if (ref == null) {
+                    break;
+                }
+                if (ref.value == value) {
+                    final Id<?> id = ref.get();
+                    if (id != null) {
+                        hits.increment();
+                        return id;
+                    }
+                    final Id<?> newId = newId(value);
+                    table[i] = new IdRef(newId, queue, hash);
+                    misses.increment();
+                    return newId;
+                }
+                if (!collided) {
+                    collided = true;
+                    collisions.increment();
+                }
+                i = i + 1 & mask;
+            }
+
+            if (expunge()) {
+                mask = table.length - 1;
+                i = hash & mask;
+                while (table[i] != null) {
+                    i = i + 1 & mask;
+                }
+            }
+
+            final Id<?> newId = newId(value);
+            table[i] = new IdRef(newId, queue, hash);
+            misses.increment();
+
+            if (++size * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+
+            return newId;
+        }
+
+        /**
+         * @return {@code true} if any reference has been removed
+         */
+        private boolean expunge() {
+
+            boolean removed = false;
+
+            IdRef ref;
+            while ((ref = (IdRef) queue.poll()) != null) {
+
+                final int mask = table.length - 1;
+                int i = ref.hash & mask;
+                while (table[i] != null && table[i] != ref) {
+                    i = i + 1 & mask;
+                }
+                if (table[i] == null) {
+                    // replaced by a newer reference to the same value
+                    continue;
+                }
+
+                // backward shift deletion keeps the probe sequences of the following references unbroken
+                int j = i;
+                while (true) {
+                    j = j + 1 & mask;
+                    final IdRef moved = table[j];
+                    if (moved == null) {
+                        break;
+                    }
+                    final int home = moved.hash & mask;
+                    if ((j - home & mask) >= (j - i & mask)) {
+                        table[i] = moved;
+                        i = j;
+                    }
+                }
+                table[i] = null;
+                size--;
+                removed = true;
+            }
+
+            return removed;
+        }
+
+        private void rehash(int capacity) {
+
+            final IdRef[] table = new IdRef[capacity];
+            final int mask = capacity - 1;
+            for (final IdRef ref : this.table) {
+                if (ref != null) {
+                    int i = ref.hash & mask;
+                    while (table[i] != null) {
+                        i = i + 1 & mask;
+                    }
+                    table[i] = ref;
+                }
+            }
+            this.table = table;
+        }
+    }
+
+    private static final class IdRef extends WeakReference<Id<?>> {
+
+        private final long value;
+
+        private final int hash;
+
+        IdRef(@Nonnull Id<?> referent, @Nonnull ReferenceQueue<? super Id<?>> queue, int hash) {
+            super(referent, queue);
+            this.value = referent.value();
+            this.hash = hash;
+        }
+    }
+}
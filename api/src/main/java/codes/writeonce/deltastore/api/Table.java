@@ -11,4 +11,16 @@ public interface Table<E extends Entity<E>> {
     <X extends Throwable> E create(FieldValueSupplierVisitor<X, E> fieldValueSupplierVisitor) throws X;
 
     <X extends Throwable> E get(FieldValueSupplierVisitor<X, E> fieldValueSupplierVisitor) throws X;
+
+    /**
+     * Adds a committed entity with the given field values, bypassing transactions and commit listeners. Meant for
+     * restoring the store contents while no transaction is pending; the entity is indexed but not reported anywhere.
+     */
+    <X extends Throwable> E load(FieldValueLoaderVisitor<X, E> fieldValueLoaderVisitor) throws X;
+
+    /**
+     * Adds committed entities like {@link #load} does for each set of field values of the cursor, then indexes all
+     * of them at once: the keys that are still empty are built from the sorted key values in one pass.
+     */
+    <X extends Throwable> void loadAll(FieldValueLoaderCursor<X, E> fieldValueLoaderCursor) throws X;
 }
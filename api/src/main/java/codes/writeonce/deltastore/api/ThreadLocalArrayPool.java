@@ -0,0 +1,157 @@
+package codes.writeonce.deltastore.api;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool keeping a separate stack of released objects per thread, so it may be shared by stores driven by
+ * different threads. Objects are cleaned when returned to the pool.
+ * <p>
+ * A thread that never takes objects from the pool, such as the consumer thread of an {@link AsyncDeltaListener}
+ * releasing the delta records of a writer, keeps none: it hands them over through a shared bounded stack, which the
+ * taking threads drain once their own stacks are empty.
+ */
+public class ThreadLocalArrayPool<T> implements Pool<T> {
+
+    private final int capacity;
+
+    private final Supplier<T> factory;
+
+    private final Consumer<T> cleaner;
+
+    private final ThreadLocal<Stack> stack = ThreadLocal.withInitial(Stack::new);
+
+    /**
+     * objects returned by the threads not taking from the pool, guarded by itself
+     */
+    private final Object[] handoff;
+
+    private volatile int handoffCount;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder drops = new LongAdder();
+
+    public ThreadLocalArrayPool(int capacity, Supplier<T> factory) {
+        this(capacity, factory, value -> {
+            // empty
+        });
+    }
+
+    public ThreadLocalArrayPool(int capacity, Supplier<T> factory, Consumer<T> cleaner) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.factory = factory;
+        this.cleaner = cleaner;
+        this.handoff = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    @Override
+    public T get() {
+
+        if (capacity > 0) {
+            final Stack s = stack.get();
+            if (s.array == null) {
+                s.array = new Object[capacity];
+            }
+            if (s.index == 0 && handoffCount != 0) {
+                drainHandoff(s);
+            }
+            if (s.index > 0) {
+                final var value = (T) s.array[--s.index];
+                s.array[s.index] = null;
+                hits.increment();
+                return value;
+            }
+        }
+
+        misses.increment();
+        return factory.get();
+    }
+
+    @Override
+    public void put(@Nonnull T value) {
+
+        cleaner.accept(value);
+
+        if (capacity > 0) {
+            final Stack s = stack.get();
+            if (s.array == null) {
+                if (handOver(value)) {
+                    return;
+                }
+            } else if (s.index < capacity) {
+                s.array[s.index++] = value;
+                return;
+            }
+        }
+
+        drops.increment();
+    }
+
+    private boolean handOver(@Nonnull T value) {
+        synchronized (handoff) {
+            final int count = handoffCount;
+            if (count == capacity) {
+                return false;
+            }
+            handoff[count] = value;
+            handoffCount = count + 1;
+            return true;
+        }
+    }
+
+    private void drainHandoff(@Nonnull Stack s) {
+        synchronized (handoff) {
+            final int count = handoffCount;
+            System.arraycopy(handoff, 0, s.array, 0, count);
+            Arrays.fill(handoff, 0, count, null);
+            s.index = count;
+            handoffCount = 0;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of {@link #get()} calls served from the pool
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of {@link #get()} calls that had to create a new object
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of {@link #put(Object)} calls that found the pool full
+     */
+    public long getDrops() {
+        return drops.sum();
+    }
+
+    private static class Stack {
+
+        /**
+         * allocated once the thread takes an object from the pool
+         */
+        private Object[] array;
+
+        private int index;
+    }
+}
@@ -27,6 +27,7 @@ public class TransformDeltaCommitListener<S extends Store<S>> implements CommitL
         int inserts = 0;
 
         if (tail != null) {
+            final StoreMetrics metrics = tail.store.getMetrics();
             final Record<S, ?, ?> head = tail.nextInChangeList;
             Record<S, ?, ?> item = head;
             do {
@@ -37,14 +38,17 @@ public class TransformDeltaCommitListener<S extends Store<S>> implements CommitL
                             deltaRecord.release();
                         } else {
                             updateListTail = appendTail(updateListTail, deltaRecord);
+                            metrics.updated(deltaRecord.getEntityType());
                             updates++;
                         }
                     } else {
                         if ((deltaRecord.mask0 & Record.MASK_EXISTS) == 0) {
                             removeListTail = appendTail(removeListTail, deltaRecord);
+                            metrics.removed(deltaRecord.getEntityType());
                             removes++;
                         } else {
                             insertListTail = appendTail(insertListTail, deltaRecord);
+                            metrics.inserted(deltaRecord.getEntityType());
                             inserts++;
                         }
                     }
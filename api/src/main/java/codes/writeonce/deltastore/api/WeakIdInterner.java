@@ -0,0 +1,440 @@
+package codes.writeonce.deltastore.api;
+
+import bak.pcj.hash.LongHashFunction;
+import bak.pcj.map.LongKeyOpenHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Interns the identifiers in weak references kept by a lock-free table of a fixed size; the colliding values of a slot
+ * go to an overflow map locked on access. The identifiers and their references are preallocated into a ring buffer by
+ * the {@code id-preallocator} thread, the references cleared by the garbage collector are removed by the
+ * {@code id-collector} thread.
+ */
+@SuppressWarnings("rawtypes")
+public final class WeakIdInterner extends IdInterner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeakIdInterner.class);
+
+    private static final LongHashFunction HASH_FUNCTION = new HashFunction();
+
+    private final int internerShift = Integer.getInteger("codes.writeonce.deltastore.api.Id.table.size", 23);
+
+    private final int internerMask = (1 << internerShift) - 1;
+
+    private final AtomicReference[] interner =
+            Stream.generate(AtomicReference::new).limit(1L << internerShift).toArray(AtomicReference[]::new);
+
+    private final int ringBufferShift = Integer.getInteger("codes.writeonce.deltastore.api.Id.ringBuffer.size", 18);
+
+    private final int ringBufferMask = (1 << ringBufferShift) - 1;
+
+    private final Id[] ringBuffer1 = new Id[ringBufferMask + 1];
+
+    private final IdRef[] ringBuffer2 = new IdRef[ringBufferMask + 1];
+
+    private final int unparkWatermarkShift =
+            Integer.getInteger("codes.writeonce.deltastore.api.Id.ringBuffer.watermark", 12);
+
+    private final int unparkWatermarkMask = (1 << unparkWatermarkShift) - 1;
+
+    private final AtomicInteger lastReadEntry = new AtomicInteger();
+
+    private volatile int firstEmptyEntry;
+
+    private final AtomicInteger nextReadEntry = new AtomicInteger();
+
+    private final int poolMask = (1 << Integer.getInteger("codes.writeonce.deltastore.api.Id.pool.size", 14)) - 1;
+
+    private final LongKeyOpenHashMap[] pool = new LongKeyOpenHashMap[poolMask + 1];
+
+    private final AtomicInteger lastReadPoolEntry = new AtomicInteger();
+
+    private volatile int firstEmptyPoolEntry;
+
+    private final AtomicInteger nextReadPoolEntry = new AtomicInteger();
+
+    private final AtomicInteger overflowMaps = new AtomicInteger();
+
+    private final AtomicLong overflowEntries = new AtomicLong();
+
+    private final ReferenceQueue<Id> referenceQueue = new ReferenceQueue<>();
+
+    private final Thread collectorThread = new Thread(
+            () -> {
+                try {
+                    while (true) {
+                        remove((IdRef) referenceQueue.remove());
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("Id collector thread interrupted", e);
+                }
+            },
+            "id-collector"
+    );
+
+    private final Thread preallocatorThread = new Thread(
+            () -> {
+                try {
+                    int last = firstEmptyEntry;
+                    while (true) {
+                        final int next = last + 1 & ringBufferMask;
+                        while (next == lastReadEntry.get()) {
+                            LockSupport.park();
+                        }
+                        final Id id = new Id();
+                        ringBuffer1[last] = id;
+                        ringBuffer2[last] = new IdRef(id, referenceQueue);
+                        firstEmptyEntry = next;
+                        last = next;
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("Id preallocator thread interrupted", e);
+                }
+            },
+            "id-preallocator"
+    );
+
+    public WeakIdInterner() {
+
+        LOGGER.info("Id table size: {}", internerShift);
+        LOGGER.info("Id ring buffer size: {}", ringBufferShift);
+        LOGGER.info("Id ring buffer watermark: {}", unparkWatermarkShift);
+
+        for (int i = 0; i < ringBufferMask; i++) {
+            final Id id = new Id();
+            ringBuffer1[i] = id;
+            ringBuffer2[i] = new IdRef(id, referenceQueue);
+        }
+
+        firstEmptyEntry = ringBufferMask;
+
+        collectorThread.setDaemon(true);
+        collectorThread.start();
+        preallocatorThread.setDaemon(true);
+        preallocatorThread.start();
+
+        LOGGER.info("Id pooling initialized");
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings({"unchecked", "SynchronizationOnLocalVariableOrMethodParameter"})
+    public Id<?> intern(long value) {
+
+        Id newId = null;
+        IdRef newIdRef = null;
+
+        final int hash = Id.hash(value);
+        final AtomicReference atomic = interner[hash & internerMask];
+
+        Object o = atomic.get();
+
+        while (true) {
+
+            if (o == null) {
+
+                if (newId == null) {
+                    final int sequence = borrow();
+                    if (sequence < 0) {
+                        newId = new Id(value, hash);
+                        newIdRef = new IdRef(newId, referenceQueue);
+                    } else {
+                        newId = ringBuffer1[sequence];
+                        ringBuffer1[sequence] = null;
+                        newIdRef = ringBuffer2[sequence];
+                        ringBuffer2[sequence] = null;
+                        reclaim(sequence);
+                        newId.init(value, hash);
+                        newIdRef.value = value;
+                    }
+                }
+
+                o = atomic.compareAndExchange(null, newIdRef);
+
+                if (o == null) {
+                    misses.increment();
+                    return newId;
+                }
+            } else if (o instanceof IdRef) {
+                final IdRef idRef = (IdRef) o;
+                final Id id = idRef.get();
+
+                if (id == null) {
+
+                    if (newId == null) {
+                        final int sequence = borrow();
+                        if (sequence < 0) {
+                            newId = new Id(value, hash);
+                            newIdRef = new IdRef(newId, referenceQueue);
+                        } else {
+                            newId = ringBuffer1[sequence];
+                            ringBuffer1[sequence] = null;
+                            newIdRef = ringBuffer2[sequence];
+                            ringBuffer2[sequence] = null;
+                            reclaim(sequence);
+                            newId.init(value, hash);
+                            newIdRef.value = value;
+                        }
+                    }
+
+                    final Object o2 = atomic.compareAndExchange(o, newIdRef);
+
+                    if (o2 == o) {
+                        misses.increment();
+                        return newId;
+                    }
+
+                    o = o2;
+                } else {
+                    final long otherValue = id.value();
+
+                    if (otherValue == value) {
+                        hits.increment();
+                        return id;
+                    }
+
+                    collisions.increment();
+
+                    final LongKeyOpenHashMap map = borrowMap();
+                    final Object o2;
+
+                    synchronized (map) {
+                        o2 = atomic.compareAndExchange(o, map);
+                        if (o2 == o) {
+                            overflowMaps.incrementAndGet();
+                            map.put(otherValue, idRef);
+
+                            if (newId == null) {
+                                final int sequence = borrow();
+                                if (sequence < 0) {
+                                    newId = new Id(value, hash);
+                                    newIdRef = new IdRef(newId, referenceQueue);
+                                } else {
+                                    newId = ringBuffer1[sequence];
+                                    ringBuffer1[sequence] = null;
+                                    newIdRef = ringBuffer2[sequence];
+                                    ringBuffer2[sequence] = null;
+                                    reclaim(sequence);
+                                    newId.init(value, hash);
+                                    newIdRef.value = value;
+                                }
+                            }
+
+                            map.put(value, newIdRef);
+                            overflowEntries.addAndGet(2);
+                            misses.increment();
+                            return newId;
+                        }
+                    }
+
+                    o = o2;
+                }
+            } else {
+                final LongKeyOpenHashMap map = (LongKeyOpenHashMap) o;
+
+                synchronized (map) {
+
+                    final IdRef idRef = (IdRef) map.get(value);
+                    final Id id;
+
+                    if (idRef != null) {
+                        id = idRef.get();
+                        if (id != null) {
+                            hits.increment();
+                            return id;
+                        }
+                    }
+
+                    final Object o2 = atomic.get();
+
+                    if (o2 == o) {
+
+                        if (newId == null) {
+                            final int sequence = borrow();
+                            if (sequence < 0) {
+                                newId = new Id(value, hash);
+                                newIdRef = new IdRef(newId, referenceQueue);
+                            } else {
+                                newId = ringBuffer1[sequence];
+                                ringBuffer1[sequence] = null;
+                                newIdRef = ringBuffer2[sequence];
+                                ringBuffer2[sequence] = null;
+                                reclaim(sequence);
+                                newId.init(value, hash);
+                                newIdRef.value = value;
+                            }
+                        }
+
+                        collisions.increment();
+                        map.put(value, newIdRef);
+                        if (idRef == null) {
+                            overflowEntries.incrementAndGet();
+                        }
+                        misses.increment();
+                        return newId;
+                    }
+
+                    o = o2;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "SynchronizationOnLocalVariableOrMethodParameter"})
+    private void remove(@Nonnull IdRef reference) {
+
+        final long value = reference.value;
+        final int hash = Id.hash(value);
+        final AtomicReference atomic = interner[hash & internerMask];
+
+        final Object o = atomic.compareAndExchange(reference, null);
+
+        if (o instanceof LongKeyOpenHashMap) {
+            final LongKeyOpenHashMap map = (LongKeyOpenHashMap) o;
+            synchronized (map) {
+                final IdRef idRef = (IdRef) map.get(value);
+                if (idRef == reference) {
+                    map.remove(value);
+                    overflowEntries.decrementAndGet();
+                    if (map.size() == 1) {
+                        atomic.set(map.values().iterator().next());
+                        map.clear();
+                        overflowEntries.decrementAndGet();
+                        overflowMaps.decrementAndGet();
+                        reclaimMap(map);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getOverflowMaps() {
+        return overflowMaps.get();
+    }
+
+    @Override
+    public long getOverflowEntries() {
+        return overflowEntries.get();
+    }
+
+    @Override
+    public long getQueueLag() {
+        return ringBufferMask - (firstEmptyEntry - nextReadEntry.get() & ringBufferMask);
+    }
+
+    private int borrow() {
+
+        int reading = nextReadEntry.get();
+
+        while (true) {
+
+            if (reading == firstEmptyEntry) {
+                return -1;
+            }
+
+            final int reading2 = nextReadEntry.compareAndExchange(reading, reading + 1 & ringBufferMask);
+
+            if (reading2 == reading) {
+                return reading;
+            }
+
+            reading = reading2;
+        }
+    }
+
+    private void reclaim(int sequence) {
+
+        final int next = sequence + 1 & ringBufferMask;
+
+        while (true) {
+            if (lastReadEntry.compareAndSet(sequence, next)) {
+                if ((next & unparkWatermarkMask) == 0) {
+                    LockSupport.unpark(preallocatorThread);
+                }
+                break;
+            }
+        }
+    }
+
+    @Nonnull
+    private LongKeyOpenHashMap borrowMap() {
+
+        int reading = nextReadPoolEntry.get();
+
+        while (true) {
+
+            if (reading == firstEmptyPoolEntry) {
+                return new LongKeyOpenHashMap(HASH_FUNCTION, 2);
+            }
+
+            final int next = reading + 1 & poolMask;
+
+            final int reading2 = nextReadPoolEntry.compareAndExchange(reading, next);
+
+            if (reading2 == reading) {
+
+                final LongKeyOpenHashMap map = pool[reading];
+                pool[reading] = null;
+
+                while (true) {
+                    if (lastReadPoolEntry.compareAndSet(reading, next)) {
+                        break;
+                    }
+                }
+
+                return map;
+            }
+
+            reading = reading2;
+        }
+    }
+
+    private void reclaimMap(@Nonnull LongKeyOpenHashMap map) {
+
+        final int last = firstEmptyPoolEntry;
+        final int next = last + 1 & poolMask;
+
+        if (next == lastReadPoolEntry.get()) {
+            return;
+        }
+
+        pool[last] = map;
+        firstEmptyPoolEntry = next;
+    }
+
+    private static class IdRef extends WeakReference<Id> {
+
+        private long value;
+
+        public IdRef(@Nonnull Id referent, @Nonnull ReferenceQueue<? super Id> referenceQueue) {
+            super(referent, referenceQueue);
+            value = referent.value();
+        }
+    }
+
+    private static class HashFunction implements LongHashFunction, Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 5881311561566223843L;
+
+        public int hash(long v) {
+            final var hash = (int) (v ^ (v >>> 32));
+            return hash == Integer.MIN_VALUE
+                    ? 0 // this is a workaround for PCJ 1.2 LongKeyOpenHashMap to prevent abs(-2147483648) = -2147483648
+                    : hash;
+        }
+    }
+}
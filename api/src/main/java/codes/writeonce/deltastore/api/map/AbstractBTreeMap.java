@@ -0,0 +1,580 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * B+tree ordering keys by their {@code long} representation. Keys of a node are packed into a single primitive array
+ * and leaves are linked in both directions, so lookups touch one array per level and scans walk memory sequentially.
+ */
+public abstract class AbstractBTreeMap<K, V, M extends AbstractBTreeMap<K, V, M>> implements OrderedMap<K, V, M> {
+
+    protected static final int FANOUT =
+            Integer.getInteger("codes.writeonce.deltastore.api.map.AbstractBTreeMap.FANOUT", 64);
+
+    private static final int MIN_SIZE = FANOUT / 2;
+
+    protected static final Object ABSENT = new Object();
+
+    static {
+        if (FANOUT < 4) {
+            throw new RuntimeException();
+        }
+    }
+
+    /**
+     * {@code null} if the map has no non-null keys
+     */
+    protected Node root;
+
+    /**
+     * number of inner levels above the leaves
+     */
+    protected int height;
+
+    protected Leaf first;
+
+    protected Leaf last;
+
+    protected boolean nullKey;
+
+    protected Object nullValue;
+
+    protected int size;
+
+    protected int modCount;
+
+    protected abstract long toLong(@Nonnull K key);
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int modCount() {
+        return modCount;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable K key) {
+        return key == null ? nullKey : find(toLong(key), ABSENT) != ABSENT;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(@Nullable K key) {
+        return key == null ? (V) nullValue : (V) find(toLong(key), null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(@Nullable K key, @Nullable V defaultValue) {
+
+        if (key == null) {
+            return nullKey ? (V) nullValue : defaultValue;
+        }
+
+        return (V) find(toLong(key), defaultValue);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(@Nullable K key) {
+
+        if (key == null) {
+            if (!nullKey) {
+                return null;
+            }
+            final var value = nullValue;
+            nullKey = false;
+            nullValue = null;
+            size--;
+            modCount++;
+            return (V) value;
+        }
+
+        return (V) delete(toLong(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(@Nullable K key, @Nullable V value) {
+
+        if (key == null) {
+            final var oldValue = nullValue;
+            nullValue = value;
+            if (!nullKey) {
+                nullKey = true;
+                size++;
+                modCount++;
+            }
+            return (V) oldValue;
+        }
+
+        return (V) insert(toLong(key), value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(@Nullable K key, @Nonnull Function<? super K, ? extends V> mappingFunction) {
+
+        if (key == null) {
+            if (nullKey) {
+                return (V) nullValue;
+            }
+        } else {
+            final var value = find(toLong(key), ABSENT);
+            if (value != ABSENT) {
+                return (V) value;
+            }
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            put(key, v);
+        }
+        return v;
+    }
+
+    protected boolean contains(long key) {
+        return find(key, ABSENT) != ABSENT;
+    }
+
+    @Nullable
+    protected Object find(long key, @Nullable Object defaultValue) {
+
+        final var leaf = leaf(key);
+        if (leaf != null) {
+            final var i = indexOf(leaf.keys, leaf.size, key);
+            if (i >= 0) {
+                return leaf.values[i];
+            }
+        }
+        return defaultValue;
+    }
+
+    @Nullable
+    protected Object insert(long key, @Nullable Object value) {
+
+        final var leaf = leaf(key);
+
+        if (leaf == null) {
+            final var n = new Leaf();
+            n.keys[0] = key;
+            n.values[0] = value;
+            n.size = 1;
+            root = n;
+            first = n;
+            last = n;
+            size++;
+            modCount++;
+            return null;
+        }
+
+        final var i = indexOf(leaf.keys, leaf.size, key);
+        if (i >= 0) {
+            final var oldValue = leaf.values[i];
+            leaf.values[i] = value;
+            return oldValue;
+        }
+
+        if (leaf.size < FANOUT) {
+            leaf.insert(-i - 1, key, value);
+        } else {
+            final var split = insert(root, height, key, value);
+            if (split != null) {
+                final var n = new Inner();
+                n.keys[0] = lowKey(split);
+                n.children[0] = root;
+                n.children[1] = split;
+                n.size = 2;
+                root = n;
+                height++;
+            }
+        }
+
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Nullable
+    protected Object delete(long key) {
+
+        final var leaf = leaf(key);
+        if (leaf == null) {
+            return null;
+        }
+
+        final var i = indexOf(leaf.keys, leaf.size, key);
+        if (i < 0) {
+            return null;
+        }
+
+        final var value = leaf.values[i];
+
+        if (leaf.size > MIN_SIZE || height == 0) {
+            leaf.remove(i);
+            if (leaf.size == 0) {
+                root = null;
+                first = null;
+                last = null;
+            }
+        } else {
+            delete(root, height, key);
+            if (root.size == 1 && height > 0) {
+                root = ((Inner) root).children[0];
+                height--;
+            }
+        }
+
+        size--;
+        modCount++;
+        return value;
+    }
+
+    /**
+     * @return new right sibling of the node if it was split
+     */
+    @Nullable
+    private Node insert(@Nonnull Node node, int level, long key, @Nullable Object value) {
+
+        if (level == 0) {
+            final var leaf = (Leaf) node;
+            final var i = -indexOf(leaf.keys, leaf.size, key) - 1;
+            final var right = leaf.split();
+            if (last == leaf) {
+                last = right;
+            }
+            if (i < leaf.size) {
+                leaf.insert(i, key, value);
+            } else {
+                right.insert(i - leaf.size, key, value);
+            }
+            return right;
+        }
+
+        final var inner = (Inner) node;
+        final var i = childIndex(inner.keys, inner.size - 1, key);
+        final var child = insert(inner.children[i], level - 1, key, value);
+        if (child == null) {
+            return null;
+        }
+
+        final var childKey = lowKey(child);
+        if (inner.size < FANOUT) {
+            inner.insert(i + 1, childKey, child);
+            return null;
+        }
+
+        final var right = inner.split();
+        if (i < inner.size) {
+            inner.insert(i + 1, childKey, child);
+        } else {
+            right.insert(i + 1 - inner.size, childKey, child);
+        }
+        return right;
+    }
+
+    /**
+     * @return {@code true} if the node became underfull
+     */
+    private boolean delete(@Nonnull Node node, int level, long key) {
+
+        if (level == 0) {
+            final var leaf = (Leaf) node;
+            leaf.remove(indexOf(leaf.keys, leaf.size, key));
+            return leaf.size < MIN_SIZE;
+        }
+
+        final var inner = (Inner) node;
+        final var i = childIndex(inner.keys, inner.size - 1, key);
+        if (!delete(inner.children[i], level - 1, key)) {
+            return false;
+        }
+
+        if (level == 1) {
+            rebalanceLeaf(inner, i);
+        } else {
+            rebalanceInner(inner, i);
+        }
+        return inner.size < MIN_SIZE;
+    }
+
+    private void rebalanceLeaf(@Nonnull Inner parent, int i) {
+
+        final var child = (Leaf) parent.children[i];
+
+        if (i > 0) {
+            final var left = (Leaf) parent.children[i - 1];
+            if (left.size > MIN_SIZE) {
+                final var n = left.size - 1;
+                child.insert(0, left.keys[n], left.values[n]);
+                left.remove(n);
+                parent.keys[i - 1] = child.keys[0];
+                return;
+            }
+        }
+
+        if (i + 1 < parent.size) {
+            final var right = (Leaf) parent.children[i + 1];
+            if (right.size > MIN_SIZE) {
+                child.insert(child.size, right.keys[0], right.values[0]);
+                right.remove(0);
+                parent.keys[i] = right.keys[0];
+                return;
+            }
+            child.merge(right);
+            parent.remove(i);
+            if (last == right) {
+                last = child;
+            }
+        } else {
+            final var left = (Leaf) parent.children[i - 1];
+            left.merge(child);
+            parent.remove(i - 1);
+            if (last == child) {
+                last = left;
+            }
+        }
+    }
+
+    private void rebalanceInner(@Nonnull Inner parent, int i) {
+
+        final var child = (Inner) parent.children[i];
+
+        if (i > 0) {
+            final var left = (Inner) parent.children[i - 1];
+            if (left.size > MIN_SIZE) {
+                final var n = left.size - 1;
+                System.arraycopy(child.keys, 0, child.keys, 1, child.size - 1);
+                System.arraycopy(child.children, 0, child.children, 1, child.size);
+                child.keys[0] = parent.keys[i - 1];
+                child.children[0] = left.children[n];
+                child.size++;
+                parent.keys[i - 1] = left.keys[n - 1];
+                left.children[n] = null;
+                left.size = n;
+                return;
+            }
+        }
+
+        if (i + 1 < parent.size) {
+            final var right = (Inner) parent.children[i + 1];
+            if (right.size > MIN_SIZE) {
+                child.keys[child.size - 1] = parent.keys[i];
+                child.children[child.size] = right.children[0];
+                child.size++;
+                parent.keys[i] = right.keys[0];
+                final var n = right.size - 1;
+                System.arraycopy(right.keys, 1, right.keys, 0, n - 1);
+                System.arraycopy(right.children, 1, right.children, 0, n);
+                right.children[n] = null;
+                right.size = n;
+                return;
+            }
+            child.merge(parent.keys[i], right);
+            parent.remove(i);
+        } else {
+            ((Inner) parent.children[i - 1]).merge(parent.keys[i - 1], child);
+            parent.remove(i - 1);
+        }
+    }
+
+    /**
+     * @return leaf that contains the key if it is present, or {@code null} if the map has no non-null keys
+     */
+    @Nullable
+    Leaf leaf(long key) {
+
+        var node = root;
+        for (int level = height; level > 0; level--) {
+            final var inner = (Inner) node;
+            node = inner.children[childIndex(inner.keys, inner.size - 1, key)];
+        }
+        return (Leaf) node;
+    }
+
+    private static long lowKey(@Nonnull Node node) {
+
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        return node.keys[0];
+    }
+
+    /**
+     * @return index of the key, or {@code -(insertion point) - 1} if there is no such key
+     */
+    static int indexOf(@Nonnull long[] keys, int size, long key) {
+
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            final var mid = (low + high) >>> 1;
+            final var k = keys[mid];
+            if (k < key) {
+                low = mid + 1;
+            } else if (k > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    /**
+     * @return number of separators not greater than the key
+     */
+    private static int childIndex(@Nonnull long[] keys, int size, long key) {
+
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            final var mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    abstract static class Node {
+
+        final long[] keys = new long[FANOUT];
+
+        int size;
+    }
+
+    static final class Leaf extends Node {
+
+        final Object[] values = new Object[FANOUT];
+
+        Leaf next;
+
+        Leaf prev;
+
+        private void insert(int i, long key, @Nullable Object value) {
+
+            final var n = size - i;
+            System.arraycopy(keys, i, keys, i + 1, n);
+            System.arraycopy(values, i, values, i + 1, n);
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        private void remove(int i) {
+
+            final var n = size - i - 1;
+            System.arraycopy(keys, i + 1, keys, i, n);
+            System.arraycopy(values, i + 1, values, i, n);
+            size--;
+            values[size] = null;
+        }
+
+        @Nonnull
+        private Leaf split() {
+
+            final var right = new Leaf();
+            final var n = size - MIN_SIZE;
+            System.arraycopy(keys, MIN_SIZE, right.keys, 0, n);
+            System.arraycopy(values, MIN_SIZE, right.values, 0, n);
+            Arrays.fill(values, MIN_SIZE, size, null);
+            right.size = n;
+            size = MIN_SIZE;
+            right.next = next;
+            right.prev = this;
+            if (next != null) {
+                next.prev = right;
+            }
+            next = right;
+            return right;
+        }
+
+        private void merge(@Nonnull Leaf right) {
+
+            System.arraycopy(right.keys, 0, keys, size, right.size);
+            System.arraycopy(right.values, 0, values, size, right.size);
+            size += right.size;
+            next = right.next;
+            if (next != null) {
+                next.prev = this;
+            }
+        }
+    }
+
+    /**
+     * Separator {@code keys[i]} is not greater than any key of {@code children[i + 1]} and greater than any key of
+     * {@code children[i]}. {@link #size} is the number of children.
+     */
+    static final class Inner extends Node {
+
+        final Node[] children = new Node[FANOUT];
+
+        /**
+         * Inserts a child with its separator key at position {@code i > 0}.
+         */
+        private void insert(int i, long key, @Nonnull Node child) {
+
+            System.arraycopy(keys, i - 1, keys, i, size - i);
+            System.arraycopy(children, i, children, i + 1, size - i);
+            keys[i - 1] = key;
+            children[i] = child;
+            size++;
+        }
+
+        /**
+         * Removes a child at position {@code i + 1} together with its separator key.
+         */
+        private void remove(int i) {
+
+            final var n = size - i - 2;
+            System.arraycopy(keys, i + 1, keys, i, n);
+            System.arraycopy(children, i + 2, children, i + 1, n);
+            size--;
+            children[size] = null;
+        }
+
+        @Nonnull
+        private Inner split() {
+
+            final var right = new Inner();
+            final var n = size - MIN_SIZE;
+            System.arraycopy(keys, MIN_SIZE, right.keys, 0, n - 1);
+            System.arraycopy(children, MIN_SIZE, right.children, 0, n);
+            Arrays.fill(children, MIN_SIZE, size, null);
+            right.size = n;
+            size = MIN_SIZE;
+            return right;
+        }
+
+        private void merge(long key, @Nonnull Inner right) {
+
+            keys[size - 1] = key;
+            System.arraycopy(right.keys, 0, keys, size, right.size - 1);
+            System.arraycopy(right.children, 0, children, size, right.size);
+            size += right.size;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Open-addressing hash map over the {@code long} representation of the keys. Collisions are resolved by linear
+ * probing and removed entries are marked rather than moved, so slots of the live entries only change when the table
+ * is rehashed on insertion. The marks ending a probe sequence are freed right away; the others are dropped by the
+ * rehash an insertion makes once they take a quarter of the table.
+ */
+public abstract class AbstractHashMap<K, V, M extends AbstractHashMap<K, V, M>> implements IndexMap<K, V, M> {
+
+    private static final int LOAD_FACTOR_PERCENT =
+            Integer.getInteger("codes.writeonce.deltastore.api.map.AbstractHashMap.LOAD_FACTOR_PERCENT", 60);
+
+    private static final int MIN_CAPACITY = 4;
+
+    static {
+        if (LOAD_FACTOR_PERCENT < 10 || LOAD_FACTOR_PERCENT > 90) {
+            throw new RuntimeException();
+        }
+    }
+
+    /**
+     * marks a free slot in {@link #values}
+     */
+    static final Object FREE = null;
+
+    /**
+     * marks a removed entry in {@link #values}
+     */
+    static final Object REMOVED = new Object();
+
+    /**
+     * stored in {@link #values} in place of {@code null} values
+     */
+    static final Object NULL_VALUE = new Object();
+
+    protected static final Object ABSENT = new Object();
+
+    protected long[] keys;
+
+    protected Object[] values;
+
+    /**
+     * number of slots that are not {@link #FREE}
+     */
+    protected int used;
+
+    /**
+     * number of slots that are {@link #REMOVED}
+     */
+    protected int removedCount;
+
+    protected int threshold;
+
+    protected boolean nullKey;
+
+    protected Object nullValue;
+
+    protected int size;
+
+    protected int modCount;
+
+    /**
+     * incremented when entries change slots
+     */
+    protected int rehashCount;
+
+    /**
+     * table size the map is not shrunk below
+     */
+    private final int retainedCapacity;
+
+    protected AbstractHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    protected AbstractHashMap(int expectedSize) {
+        this(expectedSize, expectedSize);
+    }
+
+    /**
+     * @param retainedSize number of entries the table keeps room for once emptied, so that the map can be refilled
+     *                     without rehashing
+     */
+    protected AbstractHashMap(int expectedSize, int retainedSize) {
+        retainedCapacity = tableSize(retainedSize);
+        allocate(Math.max(retainedCapacity, tableSize(expectedSize)));
+    }
+
+    protected abstract long toLong(@Nonnull K key);
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int modCount() {
+        return modCount;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable K key) {
+        return key == null ? nullKey : find(toLong(key), ABSENT) != ABSENT;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(@Nullable K key) {
+        return key == null ? (V) nullValue : (V) find(toLong(key), null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(@Nullable K key, @Nullable V defaultValue) {
+
+        if (key == null) {
+            return nullKey ? (V) nullValue : defaultValue;
+        }
+
+        return (V) find(toLong(key), defaultValue);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(@Nullable K key) {
+
+        if (key == null) {
+            if (!nullKey) {
+                return null;
+            }
+            final var value = nullValue;
+            nullKey = false;
+            nullValue = null;
+            size--;
+            modCount++;
+            return (V) value;
+        }
+
+        return (V) delete(toLong(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(@Nullable K key, @Nullable V value) {
+
+        if (key == null) {
+            final var oldValue = nullValue;
+            nullValue = value;
+            if (!nullKey) {
+                nullKey = true;
+                size++;
+                modCount++;
+            }
+            return (V) oldValue;
+        }
+
+        return (V) insert(toLong(key), value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(@Nullable K key, @Nonnull Function<? super K, ? extends V> mappingFunction) {
+
+        if (key == null) {
+            if (nullKey) {
+                return (V) nullValue;
+            }
+        } else {
+            final var value = find(toLong(key), ABSENT);
+            if (value != ABSENT) {
+                return (V) value;
+            }
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            put(key, v);
+        }
+        return v;
+    }
+
+    protected boolean contains(long key) {
+        return find(key, ABSENT) != ABSENT;
+    }
+
+    @Nullable
+    protected Object find(long key, @Nullable Object defaultValue) {
+
+        final var keys = this.keys;
+        final var values = this.values;
+        final var mask = keys.length - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final var value = values[i];
+            if (value == FREE) {
+                return defaultValue;
+            }
+            if (value != REMOVED && keys[i] == key) {
+                return value == NULL_VALUE ? null : value;
+            }
+        }
+    }
+
+    @Nullable
+    protected Object insert(long key, @Nullable Object value) {
+
+        final var mask = keys.length - 1;
+        int removed = -1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final var v = values[i];
+            if (v == FREE) {
+                if (removed == -1) {
+                    if (used == threshold || removedCount > keys.length / 4) {
+                        rehash(size + 1);
+                        insertNew(key, value);
+                        return null;
+                    }
+                    used++;
+                    removed = i;
+                } else {
+                    removedCount--;
+                }
+                keys[removed] = key;
+                values[removed] = value == null ? NULL_VALUE : value;
+                size++;
+                modCount++;
+                return null;
+            }
+            if (v == REMOVED) {
+                if (removed == -1) {
+                    removed = i;
+                }
+            } else if (keys[i] == key) {
+                values[i] = value == null ? NULL_VALUE : value;
+                return v == NULL_VALUE ? null : v;
+            }
+        }
+    }
+
+    @Nullable
+    protected Object delete(long key) {
+
+        final var mask = keys.length - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final var value = values[i];
+            if (value == FREE) {
+                return null;
+            }
+            if (value != REMOVED && keys[i] == key) {
+                values[i] = REMOVED;
+                removedCount++;
+                size--;
+                modCount++;
+                if (values[(i + 1) & mask] == FREE) {
+                    freeRemoved(i);
+                }
+                if (removedCount == used) {
+                    clearRemoved();
+                }
+                return value == NULL_VALUE ? null : value;
+            }
+        }
+    }
+
+    private void insertNew(long key, @Nullable Object value) {
+
+        final var mask = keys.length - 1;
+
+        int i = hash(key) & mask;
+        while (values[i] != FREE) {
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value == null ? NULL_VALUE : value;
+        used++;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Frees the removed entries ending with the slot followed by a free one: no probe sequence goes past them. No live
+     * entry changes its slot, so the iterators carry on.
+     */
+    private void freeRemoved(int i) {
+
+        final var mask = keys.length - 1;
+
+        while (values[i] == REMOVED) {
+            values[i] = FREE;
+            used--;
+            removedCount--;
+            i = (i - 1) & mask;
+        }
+    }
+
+    /**
+     * Drops the removed entries of the table left with no live entries, shrinking it down to the retained capacity. No
+     * live entry changes its slot, so the iterators carry on.
+     */
+    private void clearRemoved() {
+
+        if (keys.length > retainedCapacity) {
+            allocate(retainedCapacity);
+        } else if (used != 0) {
+            Arrays.fill(values, FREE);
+        }
+        used = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Rebuilds the table dropping removed entries, growing it if needed.
+     */
+    private void rehash(int expectedSize) {
+
+        final var oldKeys = keys;
+        final var oldValues = values;
+
+        allocate(Math.max(retainedCapacity, tableSize(expectedSize)));
+        used = 0;
+        removedCount = 0;
+        rehashCount++;
+
+        final var mask = keys.length - 1;
+
+        for (int j = 0; j < oldValues.length; j++) {
+            final var value = oldValues[j];
+            if (value != FREE && value != REMOVED) {
+                final var key = oldKeys[j];
+                int i = hash(key) & mask;
+                while (values[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = value;
+                used++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) ((long) capacity * LOAD_FACTOR_PERCENT / 100);
+    }
+
+    private static int tableSize(int expectedSize) {
+
+        final var needed = (long) expectedSize * 100 / LOAD_FACTOR_PERCENT + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int hash(long key) {
+        final var h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+}
@@ -21,6 +21,43 @@ abstract class AbstractSimpleIterator<K, V, M extends AbstractTreeMap<K, V, M>>
         return skipped;
     }
 
+    /**
+     * @return {@code true} if the positions of the entries of the map can be told by its counts, i.e. the map is
+     * counted and its values are not maps weighing their own counts
+     */
+    protected boolean indexed(int p) {
+        return map.isCounted() && !(map.values[p] instanceof AbstractTreeMap);
+    }
+
+    /**
+     * Moves to the farthest entry at most the distance away from the position in the direction not past the end of the
+     * iteration.
+     *
+     * @return distance to the entry moved to
+     */
+    protected int seek(int position, int distance, int direction) {
+
+        index = map.selectEntry(position + distance * direction);
+        if (!ended()) {
+            return distance;
+        }
+
+        int lo = 0;
+        int hi = distance - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            index = map.selectEntry(position + mid * direction);
+            if (ended()) {
+                hi = mid - 1;
+            } else {
+                lo = mid;
+            }
+        }
+
+        index = map.selectEntry(position + lo * direction);
+        return lo;
+    }
+
     @Nullable
     @SuppressWarnings("unchecked")
     @Override
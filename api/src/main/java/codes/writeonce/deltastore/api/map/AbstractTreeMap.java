@@ -3,9 +3,12 @@ package codes.writeonce.deltastore.api.map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
-public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>> implements Cloneable {
+public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
+        implements OrderedMap<K, V, M>, Cloneable {
 
     private static final int GROWTH_FACTOR_NUMERATOR =
             Integer.getInteger("codes.writeonce.deltastore.api.map.AbstractTreeMap.GROWTH_FACTOR_NUMERATOR", 21);
@@ -39,6 +42,11 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
 
     protected int capacity;
 
+    /**
+     * capacity the map is not shrunk below on removals
+     */
+    protected int minCapacity = 1;
+
     protected int size = 0;
 
     protected int modCount = 0;
@@ -47,17 +55,46 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
 
     protected int[] flags; // left, right, parent|red
 
+    /**
+     * sums of the weights of the entries by subtree, or {@code null} if the map is not counted, see {@link #count()}
+     */
+    protected int[] counts;
+
+    /**
+     * @param capacity initial capacity, kept while entries are removed; one slot is reserved
+     */
     public AbstractTreeMap(int capacity) {
+        this(capacity, capacity);
+    }
+
+    /**
+     * @param capacity         initial capacity; one slot is reserved
+     * @param retainedCapacity capacity the map is not shrunk below on removals once grown to it, so that an emptied
+     *                         map can be refilled without reallocating
+     */
+    public AbstractTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    /**
+     * @param counted whether to keep the sums of the weights of the entries by subtree, see {@link #count()}
+     */
+    public AbstractTreeMap(int capacity, int retainedCapacity, boolean counted) {
         this.capacity = capacity;
+        this.minCapacity = Math.max(capacity, retainedCapacity);
         values = new Object[capacity];
         flags = new int[capacity * 3];
+        if (counted) {
+            counts = new int[capacity];
+        }
     }
 
-    protected AbstractTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values,
-            int[] flags) {
+    protected AbstractTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags) {
         this.root = root;
         this.nullKey = nullKey;
         this.capacity = capacity;
+        this.minCapacity = minCapacity;
         this.size = size;
         this.modCount = modCount;
         this.values = values;
@@ -264,6 +301,11 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
             }
             flags[right * 3] = p;
             flags[iParent] = flags[iParent] & RED | right;
+            if (counts != null) {
+                final var count = counts[p];
+                counts[p] = count - counts[right] + counts[rightLeft];
+                counts[right] = count;
+            }
         }
     }
 
@@ -297,6 +339,11 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
             }
             flags[left * 3 + 1] = p;
             flags[iParent] = flags[iParent] & RED | left;
+            if (counts != null) {
+                final var count = counts[p];
+                counts[p] = count - counts[left] + counts[leftRight];
+                counts[left] = count;
+            }
         }
     }
 
@@ -353,6 +400,74 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
         return c;
     }
 
+    /**
+     * Reallocates the empty map for the given number of entries to be stored at the slots {@code 1..count} in the
+     * key order and then linked by {@link #link}.
+     */
+    protected void presize(int count) {
+
+        if (size != 0) {
+            throw new IllegalStateException("Map is not empty");
+        }
+
+        if (count < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        capacity = count + 1;
+        values = new Object[capacity];
+        flags = new int[capacity * 3];
+        if (counts != null) {
+            counts = new int[capacity];
+        }
+        realloc(capacity);
+    }
+
+    /**
+     * Links the entries stored at the slots {@code 1..count} in the key order into a balanced tree: the middle
+     * entry of each range is the root of its subtree, and the nodes of the deepest level of an incomplete tree are
+     * red.
+     */
+    protected void link(int count) {
+
+        int redLevel = 0;
+        for (int m = count - 1; m >= 0; m = m / 2 - 1) {
+            redLevel++;
+        }
+
+        root = link(1, count, 0, 0, redLevel);
+        size = count;
+        modCount++;
+    }
+
+    private int link(int lo, int hi, int parent, int level, int redLevel) {
+
+        if (lo > hi) {
+            return 0;
+        }
+
+        final var mid = (lo + hi) >>> 1;
+        final var left = link(lo, mid - 1, mid, level + 1, redLevel);
+        final var right = link(mid + 1, hi, mid, level + 1, redLevel);
+        flags[mid * 3] = left;
+        flags[mid * 3 + 1] = right;
+        flags[mid * 3 + 2] = level == redLevel ? parent | RED : parent;
+        if (counts != null) {
+            counts[mid] = weightOf(values[mid]) + counts[left] + counts[right];
+        }
+        return mid;
+    }
+
+    protected static void checkBulkLoad(int sortedKeysLength, int valuesLength, int count) {
+        if (count < 0 || count > sortedKeysLength || count > valuesLength) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    protected static IllegalArgumentException notAscending(int index) {
+        return new IllegalArgumentException("Keys are not in strictly ascending order at " + index);
+    }
+
     protected void free(int n) {
 
         final var last = size;
@@ -362,8 +477,15 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
             flags[n * 3] = 0;
             flags[n * 3 + 1] = 0;
             flags[n * 3 + 2] = 0;
+            if (counts != null) {
+                counts[n] = 0;
+            }
         } else {
             modCount++;
+            if (counts != null) {
+                counts[n] = counts[last];
+                counts[last] = 0;
+            }
             final var parent = flags[last * 3 + 2];
             if ((parent & ~RED) == 0) {
                 if (root == last) {
@@ -385,11 +507,16 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
         }
 
         if (compact(last)) {
-            final var shrinkedCapacity = shrinkedCapacity(last);
-            capacity = shrinkedCapacity;
-            flags = Arrays.copyOf(flags, shrinkedCapacity * 3);
-            values = Arrays.copyOf(values, shrinkedCapacity);
-            realloc(shrinkedCapacity);
+            final var shrinkedCapacity = Math.max(minCapacity, shrinkedCapacity(last));
+            if (shrinkedCapacity < capacity) {
+                capacity = shrinkedCapacity;
+                flags = Arrays.copyOf(flags, shrinkedCapacity * 3);
+                values = Arrays.copyOf(values, shrinkedCapacity);
+                if (counts != null) {
+                    counts = Arrays.copyOf(counts, shrinkedCapacity);
+                }
+                realloc(shrinkedCapacity);
+            }
         }
     }
 
@@ -434,6 +561,9 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
         final int capacity = addCapacity();
         flags = Arrays.copyOf(flags, capacity * 3);
         values = Arrays.copyOf(values, capacity);
+        if (counts != null) {
+            counts = Arrays.copyOf(counts, capacity);
+        }
         realloc(capacity);
         this.capacity = capacity;
     }
@@ -442,8 +572,12 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
         return (this.capacity + 1) * GROWTH_FACTOR_NUMERATOR / GROWTH_FACTOR_DENOMINATOR;
     }
 
+    /**
+     * @return capacity leaving room for at least one more entry after the removal, so that removing and adding an
+     * entry at a steady size does not reallocate
+     */
     protected int shrinkedCapacity(int used) {
-        return used * GROWTH_FACTOR_NUMERATOR / GROWTH_FACTOR_DENOMINATOR;
+        return Math.max(used + 1, used * GROWTH_FACTOR_NUMERATOR / GROWTH_FACTOR_DENOMINATOR);
     }
 
     protected boolean compact(int used) {
@@ -458,6 +592,296 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
         return size == 0;
     }
 
+    /**
+     * Passes the values of all the entries, including the {@code null} key, to the action in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(@Nonnull Consumer<? super V> action) {
+        for (int p = 1; p <= size; p++) {
+            action.accept((V) values[p]);
+        }
+    }
+
+    /**
+     * The weight of an entry is the {@link #count()} of its value if the value is a tree map, otherwise 1, so that the
+     * count of a counted map of counted maps is the number of the values at the innermost level. The weights of the
+     * nested maps are to be kept up to date with {@code addCount} as their contents change.
+     *
+     * @return sum of the weights of the entries if the map is counted, otherwise the number of the entries
+     */
+    public int count() {
+        return counts == null ? size : counts[root] + counts[nullKey];
+    }
+
+    public boolean isCounted() {
+        return counts != null;
+    }
+
+    /**
+     * @return sum of the weights of the entries with the keys in the range, including the {@code null} key if the
+     * range is not bounded from below, as {@code iteratorByRange} iterates them
+     */
+    public int countRange(@Nullable K fromKey, boolean fromExclusive, @Nullable K toKey, boolean toExclusive) {
+
+        checkCounted();
+
+        final int to = toKey == null
+                ? counts[root]
+                : countBefore(toExclusive ? ceilingEntry(toKey) : higherEntry(toKey));
+
+        if (fromKey == null) {
+            return to + counts[nullKey];
+        }
+
+        final int from = countBefore(fromExclusive ? higherEntry(fromKey) : ceilingEntry(fromKey));
+        return Math.max(0, to - from);
+    }
+
+    /**
+     * @return sum of the weights of the entries with the keys, once per occurrence of the key
+     */
+    public int countByKeys(@Nonnull K[] keys) {
+
+        int count = 0;
+        for (final K key : keys) {
+            final V value = get(key);
+            if (value != null) {
+                count += weightOf(value);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return sum of the weights of the entries with the keys less than the key, the {@code null} key being the least
+     */
+    public int rank(@Nullable K key) {
+
+        checkCounted();
+
+        if (key == null) {
+            return 0;
+        }
+
+        return counts[nullKey] + countBefore(ceilingEntry(key));
+    }
+
+    /**
+     * @return value of the entry the index falls on with the entries laid out in the key order, each taking as many
+     * places as its weight, or {@code null} if the index is out of the {@link #count()}
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V select(int index) {
+        return (V) values[selectEntry(index)];
+    }
+
+    /**
+     * Iterates over the values from the one the index falls on, see {@link #select}. The iterators of a counted map of
+     * values skip the entries in logarithmic time.
+     */
+    @Nonnull
+    public NestedIterator<M, V> iteratorFromIndex(int index) {
+        return iteratorFromIndex(index, false);
+    }
+
+    /**
+     * @param index index of the first value in the order of the iteration
+     */
+    @Nonnull
+    public NestedIterator<M, V> iteratorFromIndex(int index, boolean reversed) {
+
+        checkCounted();
+
+        final NestedIterator<M, V> iterator = iterator(reversed);
+        iterator.skip(index);
+        return iterator;
+    }
+
+    /**
+     * Spliterator over the values, splitting the tree structurally for parallel streams. The sizes are exact if the map
+     * is counted. The map must not be modified while the spliterator is in use, e.g. let it be a map of a read view.
+     */
+    @Nonnull
+    public Spliterator<V> spliterator() {
+        return spliteratorByRange(null, null, false, null, false);
+    }
+
+    /**
+     * Spliterator over the elements of the nested values, e.g. of the nested maps, see {@link #spliterator()}.
+     */
+    @Nonnull
+    public <T> Spliterator<T> spliterator(@Nonnull Function<? super V, ? extends Spliterator<T>> nested) {
+        return spliteratorByRange(nested, null, false, null, false);
+    }
+
+    /**
+     * Spliterator over the values of the entries with the keys in the range, including the {@code null} key if the
+     * range is not bounded from below, as {@code iteratorByRange} iterates them, see {@link #spliterator()}.
+     */
+    @Nonnull
+    public Spliterator<V> spliteratorByRange(@Nullable K fromKey, boolean fromExclusive, @Nullable K toKey,
+            boolean toExclusive) {
+        return spliteratorByRange(null, fromKey, fromExclusive, toKey, toExclusive);
+    }
+
+    /**
+     * Spliterator over the elements of the nested values of the entries with the keys in the range, see
+     * {@link #spliteratorByRange(Object, boolean, Object, boolean)}.
+     */
+    @Nonnull
+    public <T> Spliterator<T> spliteratorByRange(@Nullable Function<? super V, ? extends Spliterator<T>> nested,
+            @Nullable K fromKey, boolean fromExclusive, @Nullable K toKey, boolean toExclusive) {
+
+        final int first;
+        if (fromKey == null) {
+            first = getFirstEntry();
+        } else {
+            first = fromExclusive ? higherEntry(fromKey) : ceilingEntry(fromKey);
+        }
+
+        int last;
+        if (toKey == null) {
+            last = getLastEntry();
+        } else {
+            last = toExclusive ? ceilingEntry(toKey) : higherEntry(toKey);
+            last = last == 0 ? getLastEntry() : predecessor(last);
+        }
+
+        final boolean empty = first == 0 || last == 0 || TreeSpliterator.precedes(this, last, first);
+        return new TreeSpliterator<>(this, nested, fromKey == null ? nullKey : 0, empty ? 0 : first, last, size);
+    }
+
+    /**
+     * @return node of the entry the index falls on, see {@link #select}, or {@code 0}
+     */
+    protected int selectEntry(int index) {
+
+        checkCounted();
+
+        if (index < 0) {
+            return 0;
+        }
+
+        final int nullCount = counts[nullKey];
+        if (index < nullCount) {
+            return nullKey;
+        }
+        index -= nullCount;
+
+        int p = root;
+        while (p != 0) {
+            final var left = left(p);
+            final var leftCount = counts[left];
+            if (index < leftCount) {
+                p = left;
+            } else {
+                index -= leftCount;
+                final var weight = counts[p] - leftCount - counts[right(p)];
+                if (index < weight) {
+                    return p;
+                }
+                index -= weight;
+                p = right(p);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return index of the first place the entry of the node takes, see {@link #select}
+     */
+    protected int indexOf(int p) {
+        return p == nullKey ? 0 : counts[nullKey] + countBefore(p);
+    }
+
+    private void checkCounted() {
+        if (counts == null) {
+            throw new IllegalStateException("Map is not counted");
+        }
+    }
+
+    /**
+     * @return sum of the weights of the entries of the tree preceding the node, or of all of them for {@code 0}
+     */
+    protected int countBefore(int p) {
+
+        if (p == 0) {
+            return counts[root];
+        }
+
+        int count = counts[left(p)];
+        for (int parent = parent(p); parent != 0; p = parent, parent = parent(parent)) {
+            if (right(parent) == p) {
+                count += counts[parent] - counts[p];
+            }
+        }
+        return count;
+    }
+
+    protected static int weightOf(@Nullable Object value) {
+        return value instanceof AbstractTreeMap ? ((AbstractTreeMap<?, ?, ?>) value).count() : 1;
+    }
+
+    protected int weight(int p) {
+        return counts[p] - counts[left(p)] - counts[right(p)];
+    }
+
+    /**
+     * Adds to the weight of the node and to the sums of its ancestors.
+     */
+    protected void addWeight(int p, int delta) {
+        if (counts != null) {
+            for (; p != 0; p = parent(p)) {
+                counts[p] += delta;
+            }
+        }
+    }
+
+    /**
+     * Counts the value of the node just linked into the tree, before its rebalancing.
+     */
+    protected void inserted(int n) {
+        if (counts != null) {
+            final var weight = weightOf(values[n]);
+            counts[n] = weight;
+            for (int p = parent(n); p != 0; p = parent(p)) {
+                counts[p] += weight;
+            }
+        }
+    }
+
+    /**
+     * Recounts the value of the node just replaced.
+     */
+    protected void replaced(int n) {
+        if (counts != null) {
+            addWeight(n, weightOf(values[n]) - weight(n));
+        }
+    }
+
+    /**
+     * Uncounts the node about to be removed. A node with both children takes the entry of its successor, which is
+     * unlinked instead.
+     */
+    protected void removing(int p) {
+        if (counts != null) {
+            if (left(p) != 0 && right(p) != 0) {
+                final var s = successor(p);
+                final var weight = weight(s);
+                addWeight(p, weight - weight(p));
+                addWeight(s, -weight);
+            } else {
+                addWeight(p, -weight(p));
+            }
+        }
+    }
+
+    @Override
+    public int modCount() {
+        return modCount;
+    }
+
     protected int getFirstEntry() {
 
         int p = root;
@@ -488,10 +912,163 @@ public abstract class AbstractTreeMap<K, V, M extends AbstractTreeMap<K, V, M>>
         return p;
     }
 
+    /**
+     * Looks up the values of the keys at once, putting them at the same positions of the array, {@code null} for the
+     * keys not found. The keys are probed in the ascending order, each search going up from where the previous one
+     * ended only as far as the next key needs, so that a batch of keys takes a single walk over the tree.
+     *
+     * @param order scratch of at least {@code count} elements, overwritten with the positions of the keys in their
+     *              ascending order
+     * @return number of the keys found
+     */
+    public int getBatch(@Nonnull K[] keys, @Nonnull V[] values, int count, @Nonnull int[] order) {
+
+        boolean sorted = true;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            if (sorted && i > 0 && compareNullable(keys[i - 1], keys[i]) > 0) {
+                sorted = false;
+            }
+        }
+
+        if (!sorted) {
+            sortOrder(keys, order, count);
+        }
+
+        return getBatch(keys, values, count, order, true);
+    }
+
+    /**
+     * Looks up the values of the keys in the order given, see {@link #getBatch(Object[], Object[], int, int[])}. A key
+     * less than the previous one is searched for from the root.
+     *
+     * @return number of the keys found
+     */
+    public int getBatch(@Nonnull K[] keys, @Nonnull V[] values, int count) {
+        return getBatch(keys, values, count, null, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int getBatch(@Nonnull K[] keys, @Nonnull V[] values, int count, int[] order, boolean sorted) {
+
+        int found = 0;
+        int finger = 0;
+        K previous = null;
+
+        for (int i = 0; i < count; i++) {
+            final int index = sorted ? order[i] : i;
+            final K key = keys[index];
+
+            if (key == null) {
+                values[index] = (V) this.values[nullKey];
+                if (nullKey != 0) {
+                    found++;
+                }
+                continue;
+            }
+
+            int p = finger == 0 || !sorted && compareKeys(key, previous) < 0 ? root : climb(finger, key);
+            values[index] = null;
+
+            while (p != 0) {
+                finger = p;
+                final int cmp = compareKey(key, p);
+                if (cmp < 0) {
+                    p = left(p);
+                } else if (cmp > 0) {
+                    p = right(p);
+                } else {
+                    values[index] = (V) this.values[p];
+                    found++;
+                    break;
+                }
+            }
+
+            previous = key;
+        }
+
+        return found;
+    }
+
+    /**
+     * @param p node on the search path of a key not greater than the given one
+     * @return root of the least subtree containing both the node and the place of the key
+     */
+    private int climb(int p, @Nonnull K key) {
+
+        while (true) {
+            final int parent = parent(p);
+            if (parent == 0) {
+                return p;
+            }
+            if (left(parent) == p && compareKey(key, parent) < 0) {
+                return p;
+            }
+            p = parent;
+        }
+    }
+
+    /**
+     * Heap sort of the positions by the keys, the {@code null} key first.
+     */
+    private void sortOrder(@Nonnull K[] keys, @Nonnull int[] order, int count) {
+
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(keys, order, i, count);
+        }
+
+        for (int end = count - 1; end > 0; end--) {
+            final int top = order[0];
+            order[0] = order[end];
+            order[end] = top;
+            siftDown(keys, order, 0, end);
+        }
+    }
+
+    private void siftDown(@Nonnull K[] keys, @Nonnull int[] order, int i, int count) {
+
+        final int value = order[i];
+
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= count) {
+                break;
+            }
+            if (child + 1 < count && compareNullable(keys[order[child]], keys[order[child + 1]]) < 0) {
+                child++;
+            }
+            if (compareNullable(keys[value], keys[order[child]]) >= 0) {
+                break;
+            }
+            order[i] = order[child];
+            i = child;
+        }
+
+        order[i] = value;
+    }
+
+    private int compareNullable(@Nullable K key1, @Nullable K key2) {
+        if (key1 == null) {
+            return key2 == null ? 0 : -1;
+        }
+        return key2 == null ? 1 : compareKeys(key1, key2);
+    }
+
+    /**
+     * @return result of comparing the key to the key of the node
+     */
+    protected abstract int compareKey(@Nonnull K key, int p);
+
+    protected abstract int compareKeys(@Nonnull K key1, @Nonnull K key2);
+
     protected abstract void realloc(int capacity);
 
     protected abstract void copyKey(int from, int to);
 
+    protected abstract int ceilingEntry(@Nonnull K key);
+
+    protected abstract int higherEntry(@Nonnull K key);
+
     public abstract boolean containsKey(@Nullable K key);
 
     @Nullable
@@ -1,14 +1,15 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-final class ArrayChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> extends NestedIterator<M, T> {
+final class ArrayChainedIterator<K, V, M extends IndexMap<K, V, M>, T> extends NestedIterator<M, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ArrayChainedIterator> POOL = new ArrayPool<>(POOL_SIZE, ArrayChainedIterator::new);
+    private static final ThreadLocalArrayPool<ArrayChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ArrayChainedIterator::new);
 
     private NestedIterator<V, T> iterator;
 
@@ -25,7 +26,7 @@ final class ArrayChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> ex
     private boolean keep;
 
     @SuppressWarnings("unchecked")
-    public static <K, V, M extends AbstractTreeMap<K, V, M>, T> ArrayChainedIterator<K, V, M, T> create(
+    public static <K, V, M extends IndexMap<K, V, M>, T> ArrayChainedIterator<K, V, M, T> create(
             @Nonnull NestedIterator<V, T> iterator, @Nonnull K[] keys) {
         final ArrayChainedIterator<K, V, M, T> value = POOL.get();
         value.init(iterator, keys);
@@ -45,7 +46,7 @@ final class ArrayChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> ex
     @Override
     public T get() {
 
-        if (cached && expectedModCount == map.modCount) {
+        if (cached && expectedModCount == map.modCount()) {
             final var value = iterator.get();
             if (value != null) {
                 return value;
@@ -62,7 +63,7 @@ final class ArrayChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> ex
                 }
                 final var value = iterator.get();
                 if (value != null) {
-                    expectedModCount = map.modCount;
+                    expectedModCount = map.modCount();
                     cached = true;
                     keep = true;
                     return value;
@@ -79,7 +80,7 @@ final class ArrayChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> ex
     @Override
     public boolean hasNext() {
 
-        if (cached && expectedModCount == map.modCount) {
+        if (cached && expectedModCount == map.modCount()) {
             final var value = iterator.hasNext();
             if (value) {
                 return true;
@@ -96,7 +97,7 @@ final class ArrayChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> ex
                 }
                 final var value = iterator.hasNext();
                 if (value) {
-                    expectedModCount = map.modCount;
+                    expectedModCount = map.modCount();
                     cached = true;
                     keep = true;
                     return true;
@@ -1,14 +1,15 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-final class ArraySimpleIterator<K, V, M extends AbstractTreeMap<K, V, M>> extends NestedIterator<M, V> {
+final class ArraySimpleIterator<K, V, M extends IndexMap<K, V, M>> extends NestedIterator<M, V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ArraySimpleIterator> POOL = new ArrayPool<>(POOL_SIZE, ArraySimpleIterator::new);
+    private static final ThreadLocalArrayPool<ArraySimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ArraySimpleIterator::new);
 
     private K[] keys;
 
@@ -17,7 +18,7 @@ final class ArraySimpleIterator<K, V, M extends AbstractTreeMap<K, V, M>> extend
     private int index;
 
     @SuppressWarnings("unchecked")
-    public static <K, V, M extends AbstractTreeMap<K, V, M>> ArraySimpleIterator<K, V, M> create(@Nonnull K[] keys) {
+    public static <K, V, M extends IndexMap<K, V, M>> ArraySimpleIterator<K, V, M> create(@Nonnull K[] keys) {
         final ArraySimpleIterator<K, V, M> value = POOL.get();
         value.init(keys);
         return value;
@@ -0,0 +1,106 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+final class BTreeChainedIterator<K, V, M extends AbstractBTreeMap<K, V, M>, T>
+        extends BTreeRangeIterator<K, V, M, T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final ThreadLocalArrayPool<BTreeChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BTreeChainedIterator::new);
+
+    private NestedIterator<V, T> iterator;
+
+    /**
+     * nested iterator is attached to the entry the iterator is positioned at
+     */
+    private boolean attached;
+
+    public static <K, V, M extends AbstractBTreeMap<K, V, M>, T> BTreeChainedIterator<K, V, M, T> create(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return create(iterator, true, 0, false, true, 0, false, reversed);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V, M extends AbstractBTreeMap<K, V, M>, T> BTreeChainedIterator<K, V, M, T> create(
+            @Nonnull NestedIterator<V, T> iterator, boolean fromNull, long fromKey, boolean fromExclusive,
+            boolean toNull, long toKey, boolean toExclusive, boolean reversed) {
+        final BTreeChainedIterator<K, V, M, T> value = POOL.get();
+        value.init(fromNull, fromKey, fromExclusive, toNull, toKey, toExclusive, reversed);
+        value.iterator = iterator;
+        return value;
+    }
+
+    private BTreeChainedIterator() {
+        // empty
+    }
+
+    @Nullable
+    @Override
+    public T get() {
+
+        while (locate()) {
+            attach();
+            final var next = iterator.get();
+            if (next != null) {
+                return next;
+            }
+            consume();
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        while (locate()) {
+            attach();
+            if (iterator.hasNext()) {
+                return true;
+            }
+            consume();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean skip() {
+        return get() != null;
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && get() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    private void attach() {
+        if (attached) {
+            iterator.map(value());
+        } else {
+            iterator.reset(value());
+            attached = true;
+        }
+    }
+
+    @Override
+    protected void detach() {
+        attached = false;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        iterator.close();
+        iterator = null;
+        POOL.put(this);
+    }
+}
@@ -0,0 +1,279 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+
+abstract class BTreeRangeIterator<K, V, M extends AbstractBTreeMap<K, V, M>, T> extends NestedIterator<M, T> {
+
+    /**
+     * null entry should be next (but possibly not exist)
+     */
+    private static final int STATE_NULL = 0;
+
+    /**
+     * first non-null entry within the start bound should be next (but possibly not exist)
+     */
+    private static final int STATE_FIRST = 1;
+
+    /**
+     * lastKey points to next non-null entry, not consumed, leaf and index point to it if expectedModCount is on track
+     */
+    private static final int STATE_CURRENT = 2;
+
+    /**
+     * lastKey points to previously consumed non-null entry, leaf and index point to it if expectedModCount is on track
+     */
+    private static final int STATE_CONSUMED = 3;
+
+    private static final int STATE_ENDED = 4;
+
+    protected M map;
+
+    private boolean reversed;
+
+    private boolean fromNull;
+
+    private long fromKey;
+
+    private boolean fromExclusive;
+
+    private boolean toNull;
+
+    private long toKey;
+
+    private boolean toExclusive;
+
+    private int state;
+
+    private AbstractBTreeMap.Leaf leaf;
+
+    private int index;
+
+    private long lastKey;
+
+    private int expectedModCount;
+
+    protected void init(boolean fromNull, long fromKey, boolean fromExclusive, boolean toNull, long toKey,
+            boolean toExclusive, boolean reversed) {
+
+        this.fromNull = fromNull;
+        this.fromKey = fromKey;
+        this.fromExclusive = fromExclusive;
+        this.toNull = toNull;
+        this.toKey = toKey;
+        this.toExclusive = toExclusive;
+        this.reversed = reversed;
+    }
+
+    @Override
+    public void reset(@Nonnull M map) {
+
+        this.map = map;
+        this.leaf = null;
+        this.state = fromNull && !reversed ? STATE_NULL : STATE_FIRST;
+        detach();
+    }
+
+    @Override
+    public void map(@Nonnull M map) {
+
+        if (this.map != map) {
+            this.map = map;
+            this.leaf = null;
+        }
+    }
+
+    /**
+     * Called when the iterator moves away from the entry it was positioned at.
+     */
+    protected void detach() {
+        // empty
+    }
+
+    /**
+     * Positions the iterator at the next entry without consuming it.
+     *
+     * @return {@code false} if there are no more entries
+     */
+    protected final boolean locate() {
+
+        while (true) {
+            switch (state) {
+                default:
+                    throw new IllegalStateException();
+                case STATE_ENDED:
+                    return false;
+                case STATE_NULL:
+                    if (map.nullKey) {
+                        return true;
+                    }
+                    state = reversed ? STATE_ENDED : STATE_FIRST;
+                    detach();
+                    break;
+                case STATE_FIRST:
+                    if (reversed) {
+                        if (toNull) {
+                            last();
+                        } else if (toExclusive) {
+                            lower(toKey);
+                        } else {
+                            floor(toKey);
+                        }
+                    } else {
+                        if (fromNull) {
+                            first();
+                        } else if (fromExclusive) {
+                            higher(fromKey);
+                        } else {
+                            ceiling(fromKey);
+                        }
+                    }
+                    if (found()) {
+                        return true;
+                    }
+                    break;
+                case STATE_CURRENT:
+                    if (leaf != null && expectedModCount == map.modCount) {
+                        return true;
+                    }
+                    if (reversed) {
+                        floor(lastKey);
+                    } else {
+                        ceiling(lastKey);
+                    }
+                    if (leaf != null && leaf.keys[index] != lastKey) {
+                        detach();
+                    }
+                    if (found()) {
+                        return true;
+                    }
+                    break;
+                case STATE_CONSUMED:
+                    if (leaf != null && expectedModCount == map.modCount) {
+                        step();
+                    } else if (reversed) {
+                        lower(lastKey);
+                    } else {
+                        higher(lastKey);
+                    }
+                    if (found()) {
+                        return true;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Consumes the entry the iterator is positioned at by {@link #locate()}.
+     */
+    protected final void consume() {
+
+        if (state == STATE_NULL) {
+            state = reversed ? STATE_ENDED : STATE_FIRST;
+        } else {
+            state = STATE_CONSUMED;
+        }
+        detach();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final V value() {
+        return (V) (state == STATE_NULL ? map.nullValue : leaf.values[index]);
+    }
+
+    private boolean found() {
+
+        if (leaf != null) {
+            final var key = leaf.keys[index];
+            if (reversed
+                    ? fromNull || key > fromKey || key == fromKey && !fromExclusive
+                    : toNull || key < toKey || key == toKey && !toExclusive) {
+                lastKey = key;
+                expectedModCount = map.modCount;
+                state = STATE_CURRENT;
+                return true;
+            }
+            leaf = null;
+        }
+
+        state = reversed && fromNull ? STATE_NULL : STATE_ENDED;
+        detach();
+        return false;
+    }
+
+    private void first() {
+        leaf = map.first;
+        index = 0;
+    }
+
+    private void last() {
+        leaf = map.last;
+        if (leaf != null) {
+            index = leaf.size - 1;
+        }
+    }
+
+    private void ceiling(long key) {
+        final var i = seek(key);
+        forward(i < 0 ? -i - 1 : i);
+    }
+
+    private void higher(long key) {
+        final var i = seek(key);
+        forward(i < 0 ? -i - 1 : i + 1);
+    }
+
+    private void floor(long key) {
+        final var i = seek(key);
+        backward(i < 0 ? -i - 2 : i);
+    }
+
+    private void lower(long key) {
+        final var i = seek(key);
+        backward(i < 0 ? -i - 2 : i - 1);
+    }
+
+    private int seek(long key) {
+        leaf = map.leaf(key);
+        return leaf == null ? 0 : AbstractBTreeMap.indexOf(leaf.keys, leaf.size, key);
+    }
+
+    private void step() {
+        if (reversed) {
+            backward(index - 1);
+        } else {
+            forward(index + 1);
+        }
+    }
+
+    private void forward(int i) {
+        if (leaf != null) {
+            if (i < leaf.size) {
+                index = i;
+            } else {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+
+    private void backward(int i) {
+        if (leaf != null) {
+            if (i >= 0) {
+                index = i;
+            } else {
+                leaf = leaf.prev;
+                if (leaf != null) {
+                    index = leaf.size - 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        this.map = null;
+        this.leaf = null;
+    }
+}
@@ -0,0 +1,72 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
+
+import javax.annotation.Nullable;
+
+final class BTreeSimpleIterator<K, V, M extends AbstractBTreeMap<K, V, M>> extends BTreeRangeIterator<K, V, M, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final ThreadLocalArrayPool<BTreeSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BTreeSimpleIterator::new);
+
+    public static <K, V, M extends AbstractBTreeMap<K, V, M>> BTreeSimpleIterator<K, V, M> create(boolean reversed) {
+        return create(true, 0, false, true, 0, false, reversed);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V, M extends AbstractBTreeMap<K, V, M>> BTreeSimpleIterator<K, V, M> create(boolean fromNull,
+            long fromKey, boolean fromExclusive, boolean toNull, long toKey, boolean toExclusive, boolean reversed) {
+        final BTreeSimpleIterator<K, V, M> value = POOL.get();
+        value.init(fromNull, fromKey, fromExclusive, toNull, toKey, toExclusive, reversed);
+        return value;
+    }
+
+    private BTreeSimpleIterator() {
+        // empty
+    }
+
+    @Nullable
+    @Override
+    public V get() {
+
+        if (locate()) {
+            final var value = value();
+            consume();
+            return value;
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return locate();
+    }
+
+    @Override
+    public boolean skip() {
+
+        if (locate()) {
+            consume();
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && skip()) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        POOL.put(this);
+    }
+}
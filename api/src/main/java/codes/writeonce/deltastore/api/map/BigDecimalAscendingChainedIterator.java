@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -8,8 +8,8 @@ import java.math.BigDecimal;
 final class BigDecimalAscendingChainedIterator<V, T> extends AbstractBigDecimalAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BigDecimalAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BigDecimalAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<BigDecimalAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BigDecimalAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> BigDecimalAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
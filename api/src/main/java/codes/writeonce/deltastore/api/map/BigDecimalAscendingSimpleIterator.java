@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -8,8 +8,8 @@ import java.math.BigDecimal;
 final class BigDecimalAscendingSimpleIterator<V> extends AbstractBigDecimalAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BigDecimalAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BigDecimalAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<BigDecimalAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BigDecimalAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> BigDecimalAscendingSimpleIterator<V> create(boolean exclusive) {
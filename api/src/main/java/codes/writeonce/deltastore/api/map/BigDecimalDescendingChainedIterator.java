@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -8,8 +8,8 @@ import java.math.BigDecimal;
 final class BigDecimalDescendingChainedIterator<V, T> extends AbstractBigDecimalDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BigDecimalDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BigDecimalDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<BigDecimalDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BigDecimalDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> BigDecimalDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -8,8 +8,8 @@ import java.math.BigDecimal;
 final class BigDecimalDescendingSimpleIterator<V> extends AbstractBigDecimalDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BigDecimalDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BigDecimalDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<BigDecimalDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BigDecimalDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> BigDecimalDescendingSimpleIterator<V> create() {
@@ -23,21 +23,56 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
     }
 
     public BigDecimalTreeMap(int capacity) {
-        super(capacity);
+        this(capacity, capacity);
+    }
+
+    public BigDecimalTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public BigDecimalTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new Object[capacity];
     }
 
-    private BigDecimalTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            Object[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private BigDecimalTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, Object[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected BigDecimalTreeMap<V> clone() {
-        return new BigDecimalTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(),
-                keys.clone());
+        final var clone = new BigDecimalTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys keys in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull BigDecimal[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 0; i < count; i++) {
+            final var key = sortedKeys[i];
+            if (key == null || i != 0 && key.compareTo(sortedKeys[i - 1]) <= 0) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -98,6 +133,8 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
                 } else {
                     final var value = values[p];
 
+                    removing(p);
+
                     // If strictly internal, copy successor's element to p and then make p
                     // point to successor.
                     if (left(p) != 0 && right(p) != 0) {
@@ -165,12 +202,14 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -180,6 +219,7 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
                 root = n;
                 keys[n] = key;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
@@ -198,6 +238,7 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
                     } else {
                         final var oldValue = values[t];
                         values[t] = value;
+                        replaced(t);
                         return (V) oldValue;
                     }
                 } while (t != 0);
@@ -212,6 +253,7 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
                     flags[parent * 3 + 1] = e;
                 }
 
+                inserted(e);
                 fixAfterInsertion(e);
                 size++;
                 modCount++;
@@ -231,6 +273,51 @@ public final class BigDecimalTreeMap<V> extends AbstractTreeMap<BigDecimal, V, B
         keys[from] = null;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable BigDecimal key, int delta) {
+        addWeight(key == null ? nullKey : getEntry(key), delta);
+    }
+
+    protected int getEntry(@Nonnull BigDecimal key) {
+
+        int p = root;
+
+        while (p != 0) {
+            int cmp = key.compareTo((BigDecimal) keys[p]);
+            if (cmp < 0) {
+                p = left(p);
+            } else if (cmp > 0) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull BigDecimal key, int p) {
+        return key.compareTo((BigDecimal) keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull BigDecimal key1, @Nonnull BigDecimal key2) {
+        return key1.compareTo(key2);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull BigDecimal key) {
+        return getCeilingEntry(key);
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull BigDecimal key) {
+        return getHigherEntry(key);
+    }
+
     @Override
     public boolean containsKey(@Nullable BigDecimal key) {
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class BooleanAscendingChainedIterator<V, T> extends AbstractBooleanAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BooleanAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BooleanAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<BooleanAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BooleanAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> BooleanAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class BooleanAscendingSimpleIterator<V> extends AbstractBooleanAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BooleanAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BooleanAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<BooleanAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BooleanAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> BooleanAscendingSimpleIterator<V> create(boolean exclusive) {
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class BooleanDescendingChainedIterator<V, T> extends AbstractBooleanDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BooleanDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BooleanDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<BooleanDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BooleanDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> BooleanDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class BooleanDescendingSimpleIterator<V> extends AbstractBooleanDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<BooleanDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, BooleanDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<BooleanDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, BooleanDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> BooleanDescendingSimpleIterator<V> create() {
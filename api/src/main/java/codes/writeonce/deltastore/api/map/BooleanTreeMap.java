@@ -22,21 +22,55 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
     }
 
     public BooleanTreeMap(int capacity) {
-        super(capacity);
+        this(capacity, capacity);
+    }
+
+    public BooleanTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public BooleanTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new boolean[capacity];
     }
 
-    private BooleanTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            boolean[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private BooleanTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, boolean[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected BooleanTreeMap<V> clone() {
-        return new BooleanTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(),
-                keys.clone());
+        final var clone = new BooleanTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys keys in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull boolean[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            if (sortedKeys[i - 1] || !sortedKeys[i]) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -112,6 +146,8 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
             } else {
                 final var value = values[p];
 
+                removing(p);
+
                 // If strictly internal, copy successor's element to p and then make p
                 // point to successor.
                 if (left(p) != 0 && right(p) != 0) {
@@ -178,12 +214,14 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -201,6 +239,7 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
             root = n;
             keys[n] = key;
             values[n] = value;
+            inserted(n);
             size++;
             modCount++;
             return null;
@@ -219,6 +258,7 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
                 } else {
                     final var oldValue = values[t];
                     values[t] = value;
+                    replaced(t);
                     return (V) oldValue;
                 }
             } while (t != 0);
@@ -233,6 +273,7 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
                 flags[parent * 3 + 1] = e;
             }
 
+            inserted(e);
             fixAfterInsertion(e);
             size++;
             modCount++;
@@ -247,12 +288,12 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
 
     @Override
     protected int shrinkedCapacity(int used) {
-        return used;
+        return used + 1;
     }
 
     @Override
     protected boolean compact(int used) {
-        return capacity > used;
+        return capacity > used + 1;
     }
 
     @Override
@@ -266,6 +307,55 @@ public final class BooleanTreeMap<V> extends AbstractTreeMap<Boolean, V, Boolean
         keys[from] = false;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable Boolean key, int delta) {
+        addWeight(key == null ? nullKey : getEntry((boolean) key), delta);
+    }
+
+    public void addCount(boolean key, int delta) {
+        addWeight(getEntry(key), delta);
+    }
+
+    protected int getEntry(boolean key) {
+
+        int p = root;
+
+        while (p != 0) {
+            final var k = keys[p];
+            if (!key && k) {
+                p = left(p);
+            } else if (key && !k) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull Boolean key, int p) {
+        return Boolean.compare(key, keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull Boolean key1, @Nonnull Boolean key2) {
+        return Boolean.compare(key1, key2);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull Boolean key) {
+        return getCeilingEntry((boolean) key);
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull Boolean key) {
+        return getHigherEntry((boolean) key);
+    }
+
     @Override
     public boolean containsKey(@Nullable Boolean key) {
 
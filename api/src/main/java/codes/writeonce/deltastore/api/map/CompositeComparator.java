@@ -0,0 +1,65 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Layout and order of the composite keys of a {@link CompositeTreeMap}, generated per flat key. The components of a
+ * key are kept in slots of parallel arrays, {@link #longWidth()} longs and {@link #objectWidth()} objects per key:
+ * numbers, booleans, enum ordinals, identifier values and the seconds and nanos of instants in the longs, strings and
+ * decimals in the objects. The nullable components stored in the longs take a flag bit each in a leading slot and
+ * zeros as their values, so that {@code null} sorts first as it does in the nested maps.
+ */
+public abstract class CompositeComparator {
+
+    private final int components;
+
+    private final int longWidth;
+
+    private final int objectWidth;
+
+    protected CompositeComparator(int components, int longWidth, int objectWidth) {
+        this.components = components;
+        this.longWidth = longWidth;
+        this.objectWidth = objectWidth;
+    }
+
+    public int components() {
+        return components;
+    }
+
+    public int longWidth() {
+        return longWidth;
+    }
+
+    public int objectWidth() {
+        return objectWidth;
+    }
+
+    /**
+     * Compares two keys by their leading components only.
+     *
+     * @param components number of the leading components to compare
+     */
+    public abstract int compare(@Nonnull long[] longs1, @Nonnull Object[] objects1, int key1, @Nonnull long[] longs2,
+            @Nonnull Object[] objects2, int key2, int components);
+
+    /**
+     * Stores a component given as an object, as the filters take them.
+     */
+    public abstract void set(@Nonnull long[] longs, @Nonnull Object[] objects, int key, int component,
+            @Nullable Object value);
+
+    /**
+     * @return result of comparing two components kept in the objects, {@code null} first
+     */
+    protected static <T extends Comparable<? super T>> int compareObjects(@Nullable T value1, @Nullable T value2) {
+        if (value1 == value2) {
+            return 0;
+        }
+        if (value1 == null) {
+            return -1;
+        }
+        return value2 == null ? 1 : value1.compareTo(value2);
+    }
+}
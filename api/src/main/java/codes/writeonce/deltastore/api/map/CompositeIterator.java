@@ -0,0 +1,337 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Iterates over a {@link CompositeTreeMap} the way the nested map iterators do, one component level after another: all
+ * values, a key, a list of keys or a range of keys per level, in either order. The distinct components of a level are
+ * enumerated by seeking past all the keys sharing them; the innermost levels scanned in the same order are walked
+ * through as a single range of the tree. The components are given as objects and stored by the comparator of the map.
+ */
+public final class CompositeIterator<V> extends NestedIterator<CompositeTreeMap<V>, V> {
+
+    private static final int MODE_ALL = 0;
+
+    private static final int MODE_KEY = 1;
+
+    private static final int MODE_KEYS = 2;
+
+    private static final int MODE_RANGE = 3;
+
+    private final int levels;
+
+    private final int[] modes;
+
+    private final boolean[] reversed;
+
+    private final Object[][] keys;
+
+    private final Object[] from;
+
+    private final boolean[] fromExclusive;
+
+    private final Object[] to;
+
+    private final boolean[] toExclusive;
+
+    /**
+     * whether a component has been enumerated at the level under its current prefix
+     */
+    private final boolean[] started;
+
+    private final int[] listIndexes;
+
+    private CompositeTreeMap<V> map;
+
+    /**
+     * components of the current position, the leading ones being the prefix of the level entered
+     */
+    private CompositeKey cursor;
+
+    private CompositeKey bound;
+
+    /**
+     * level from which on the keys are walked through as a single range
+     */
+    private int scanLevel;
+
+    private int depth;
+
+    private int node;
+
+    private int expectedModCount;
+
+    /**
+     * value fetched by {@link #hasNext()} and not consumed yet
+     */
+    @Nullable
+    private V fetched;
+
+    /**
+     * @param levels number of the components of the keys
+     */
+    public CompositeIterator(int levels) {
+        this.levels = levels;
+        this.modes = new int[levels];
+        this.reversed = new boolean[levels];
+        this.keys = new Object[levels][];
+        this.from = new Object[levels];
+        this.fromExclusive = new boolean[levels];
+        this.to = new Object[levels];
+        this.toExclusive = new boolean[levels];
+        this.started = new boolean[levels];
+        this.listIndexes = new int[levels];
+    }
+
+    @Nonnull
+    public CompositeIterator<V> all(int level, boolean reversed) {
+        return range(level, null, false, null, false, reversed);
+    }
+
+    @Nonnull
+    public CompositeIterator<V> key(int level, @Nullable Object component) {
+        modes[level] = MODE_KEY;
+        keys[level] = new Object[]{component};
+        return this;
+    }
+
+    @Nonnull
+    public CompositeIterator<V> keys(int level, @Nonnull Object[] components) {
+        modes[level] = MODE_KEYS;
+        keys[level] = components;
+        return this;
+    }
+
+    @Nonnull
+    public CompositeIterator<V> range(int level, @Nullable Object from, boolean fromExclusive, @Nullable Object to,
+            boolean toExclusive, boolean reversed) {
+
+        modes[level] = from == null && to == null ? MODE_ALL : MODE_RANGE;
+        this.from[level] = from;
+        this.fromExclusive[level] = fromExclusive;
+        this.to[level] = to;
+        this.toExclusive[level] = toExclusive;
+        this.reversed[level] = reversed;
+        return this;
+    }
+
+    @Override
+    public void reset(@Nonnull CompositeTreeMap<V> map) {
+
+        this.map = map;
+
+        if (cursor == null || cursor.comparator != map.comparator()) {
+            cursor = new CompositeKey(map.comparator());
+            bound = new CompositeKey(map.comparator());
+        }
+
+        scanLevel = levels;
+        for (int i = levels - 1; i >= 0; i--) {
+            final int mode = modes[i];
+            if (mode != MODE_ALL && mode != MODE_RANGE) {
+                break;
+            }
+            if (i != levels - 1 && reversed[i] != reversed[i + 1]) {
+                break;
+            }
+            scanLevel = i;
+            if (mode != MODE_ALL) {
+                break;
+            }
+        }
+
+        depth = 0;
+        fetched = null;
+        enter(0);
+    }
+
+    @Override
+    public void map(@Nonnull CompositeTreeMap<V> map) {
+        if (this.map != map) {
+            this.map = map;
+            expectedModCount = -1;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (fetched == null) {
+            fetched = fetch();
+        }
+        return fetched != null;
+    }
+
+    @Override
+    @Nullable
+    public V get() {
+        final V value = fetched;
+        if (value == null) {
+            return fetch();
+        }
+        fetched = null;
+        return value;
+    }
+
+    @Nullable
+    private V fetch() {
+
+        final int last = levels - 1;
+
+        while (depth >= 0) {
+
+            if (depth == scanLevel) {
+                final V value = scan();
+                if (value != null) {
+                    return value;
+                }
+                depth--;
+                continue;
+            }
+
+            final boolean found = modes[depth] == MODE_ALL || modes[depth] == MODE_RANGE
+                    ? nextComponent(depth)
+                    : nextListed(depth);
+
+            if (!found) {
+                depth--;
+            } else if (depth == last) {
+                final V value = map.get(cursor);
+                if (value != null) {
+                    return value;
+                }
+            } else {
+                depth++;
+                enter(depth);
+            }
+        }
+
+        return null;
+    }
+
+    private void enter(int level) {
+        started[level] = false;
+        listIndexes[level] = 0;
+    }
+
+    private boolean nextListed(int level) {
+
+        final Object[] components = keys[level];
+        final int index = listIndexes[level];
+        if (index == components.length) {
+            return false;
+        }
+        listIndexes[level] = index + 1;
+        cursor.set(0, level, components[index]);
+        return true;
+    }
+
+    private boolean nextComponent(int level) {
+
+        final int p = seek(level, level + 1);
+        if (p == 0) {
+            return false;
+        }
+
+        map.copyKey(p, cursor);
+        return true;
+    }
+
+    /**
+     * @param components number of the leading components of the current position to seek past when the level has been
+     *                   started, all of them for the scanned level and the ones up to the level otherwise
+     * @return next entry under the prefix of the level within its range, or {@code 0}
+     */
+    private int seek(int level, int components) {
+
+        final int p;
+
+        if (reversed[level]) {
+            if (started[level]) {
+                p = map.floor(cursor, components, true);
+            } else if (to[level] == null) {
+                p = map.floor(cursor, level, false);
+            } else {
+                cursor.set(0, level, to[level]);
+                p = map.floor(cursor, level + 1, toExclusive[level]);
+            }
+        } else {
+            if (started[level]) {
+                p = map.ceiling(cursor, components, true);
+            } else if (from[level] == null) {
+                p = map.ceiling(cursor, level, false);
+            } else {
+                cursor.set(0, level, from[level]);
+                p = map.ceiling(cursor, level + 1, fromExclusive[level]);
+            }
+        }
+
+        started[level] = true;
+        return accept(level, p) ? p : 0;
+    }
+
+    /**
+     * @return whether the entry has the prefix of the level and its component of the level is within the range
+     */
+    private boolean accept(int level, int p) {
+
+        if (p == 0 || map.compare(cursor, p, level) != 0) {
+            return false;
+        }
+
+        if (reversed[level]) {
+            final Object from = this.from[level];
+            if (from != null) {
+                map.copyKey(p, bound);
+                bound.set(0, level, from);
+                final int cmp = map.compare(bound, p, level + 1);
+                return fromExclusive[level] ? cmp < 0 : cmp <= 0;
+            }
+        } else {
+            final Object to = this.to[level];
+            if (to != null) {
+                map.copyKey(p, bound);
+                bound.set(0, level, to);
+                final int cmp = map.compare(bound, p, level + 1);
+                return toExclusive[level] ? cmp > 0 : cmp >= 0;
+            }
+        }
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private V scan() {
+
+        final int level = scanLevel;
+        int p;
+
+        if (started[level] && map.modCount == expectedModCount) {
+            p = reversed[level] ? map.predecessor(node) : map.successor(node);
+            if (!accept(level, p)) {
+                p = 0;
+            }
+        } else {
+            p = seek(level, levels);
+        }
+
+        if (p == 0) {
+            return null;
+        }
+
+        map.copyKey(p, cursor);
+        node = p;
+        expectedModCount = map.modCount;
+        return (V) map.values[p];
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        map = null;
+        cursor = null;
+        bound = null;
+        fetched = null;
+    }
+}
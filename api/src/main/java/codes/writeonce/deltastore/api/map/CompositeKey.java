@@ -0,0 +1,130 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Composite keys laid out by a {@link CompositeComparator} in parallel arrays, the way a {@link CompositeTreeMap} keeps
+ * them. A lookup in the map takes the key at the position {@code 0}; a bulk load takes as many keys as there are
+ * entries. The map copies the components of a key it stores, so a single instance can be refilled for every update.
+ */
+public final class CompositeKey {
+
+    final CompositeComparator comparator;
+
+    final long[] longs;
+
+    final Object[] objects;
+
+    final int keys;
+
+    public CompositeKey(@Nonnull CompositeComparator comparator) {
+        this(comparator, 1);
+    }
+
+    public CompositeKey(@Nonnull CompositeComparator comparator, int keys) {
+        this.comparator = comparator;
+        this.keys = keys;
+        this.longs = new long[keys * comparator.longWidth()];
+        this.objects = new Object[keys * comparator.objectWidth()];
+    }
+
+    public void setLong(int key, int slot, long value) {
+        longs[key * comparator.longWidth() + slot] = value;
+    }
+
+    public void setObject(int key, int slot, @Nullable Object value) {
+        objects[key * comparator.objectWidth() + slot] = value;
+    }
+
+    /**
+     * Stores a component given as an object, see {@link CompositeComparator#set}.
+     */
+    public void set(int key, int component, @Nullable Object value) {
+        comparator.set(longs, objects, key, component, value);
+    }
+
+    public int compareTo(@Nonnull CompositeKey other, int key, int otherKey) {
+        return comparator.compare(longs, objects, key, other.longs, other.objects, otherKey,
+                comparator.components());
+    }
+
+    /**
+     * Drops the references to the components kept in the objects.
+     */
+    public void clear() {
+        Arrays.fill(objects, null);
+    }
+
+    /**
+     * Sorts the keys along with their values.
+     *
+     * @return index of the first key equal to the previous one after sorting, or {@code -1}
+     */
+    public int sort(@Nonnull Object[] values, int count) {
+
+        if (count > 1) {
+            final int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            mergeSort(order.clone(), order, 0, count);
+            permute(values, order, count);
+        }
+
+        for (int i = 1; i < count; i++) {
+            if (compareTo(this, i - 1, i) == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void mergeSort(@Nonnull int[] src, @Nonnull int[] dest, int from, int to) {
+
+        final int length = to - from;
+
+        if (length < 8) {
+            for (int i = from + 1; i < to; i++) {
+                final int key = dest[i];
+                int j = i;
+                while (j > from && compareTo(this, dest[j - 1], key) > 0) {
+                    dest[j] = dest[j - 1];
+                    j--;
+                }
+                dest[j] = key;
+            }
+            return;
+        }
+
+        final int mid = (from + to) >>> 1;
+        mergeSort(dest, src, from, mid);
+        mergeSort(dest, src, mid, to);
+
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || p < mid && compareTo(this, src[p], src[q]) <= 0) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    private void permute(@Nonnull Object[] values, @Nonnull int[] order, int count) {
+
+        final int longWidth = comparator.longWidth();
+        final int objectWidth = comparator.objectWidth();
+        final long[] longs = this.longs.clone();
+        final Object[] objects = this.objects.clone();
+        final Object[] sourceValues = Arrays.copyOf(values, count);
+
+        for (int i = 0; i < count; i++) {
+            final int source = order[i];
+            System.arraycopy(longs, source * longWidth, this.longs, i * longWidth, longWidth);
+            System.arraycopy(objects, source * objectWidth, this.objects, i * objectWidth, objectWidth);
+            values[i] = sourceValues[source];
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Tree map of {@link CompositeKey composite keys} kept in a single tree: the components of all the keys are packed in
+ * two parallel arrays indexed by the node, laid out and ordered by a generated {@link CompositeComparator}, so that
+ * neither a key nor a nested map per distinct prefix is allocated. The map is filtered per component by a
+ * {@link CompositeIterator}; as a leaf map it has no chained iterators.
+ */
+public final class CompositeTreeMap<V> extends AbstractTreeMap<CompositeKey, V, CompositeTreeMap<V>> {
+
+    private final CompositeComparator comparator;
+
+    private final int longWidth;
+
+    private final int objectWidth;
+
+    private long[] longs;
+
+    private Object[] objects;
+
+    public CompositeTreeMap(@Nonnull CompositeComparator comparator) {
+        this(comparator, 1);
+    }
+
+    public CompositeTreeMap(@Nonnull CompositeComparator comparator, int capacity) {
+        this(comparator, capacity, capacity);
+    }
+
+    public CompositeTreeMap(@Nonnull CompositeComparator comparator, int capacity, int retainedCapacity) {
+        super(capacity, retainedCapacity, false);
+        this.comparator = comparator;
+        this.longWidth = comparator.longWidth();
+        this.objectWidth = comparator.objectWidth();
+        this.longs = new long[capacity * longWidth];
+        this.objects = new Object[capacity * objectWidth];
+    }
+
+    private CompositeTreeMap(@Nonnull CompositeComparator comparator, int root, int nullKey, int capacity,
+            int minCapacity, int size, int modCount, Object[] values, int[] flags, long[] longs, Object[] objects) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
+        this.comparator = comparator;
+        this.longWidth = comparator.longWidth();
+        this.objectWidth = comparator.objectWidth();
+        this.longs = longs;
+        this.objects = objects;
+    }
+
+    @SuppressWarnings("MethodDoesntCallSuperMethod")
+    @Override
+    protected CompositeTreeMap<V> clone() {
+        return new CompositeTreeMap<>(comparator, root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), longs.clone(), objects.clone());
+    }
+
+    @Nonnull
+    public CompositeComparator comparator() {
+        return comparator;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them.
+     *
+     * @param sortedKeys keys in strictly ascending order, see {@link CompositeKey#sort}
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull CompositeKey sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.keys, values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            if (sortedKeys.compareTo(sortedKeys, i - 1, i) >= 0) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys.longs, 0, longs, longWidth, count * longWidth);
+        System.arraycopy(sortedKeys.objects, 0, objects, objectWidth, count * objectWidth);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(@Nullable CompositeKey key) {
+
+        if (key == null) {
+            return nullKey == 0 ? null : (V) values[nullKey];
+        }
+
+        final int p = getEntry(key);
+        return p == 0 ? null : (V) values[p];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(@Nullable CompositeKey key) {
+
+        if (key == null) {
+            final var n = nullKey;
+            if (n == 0) {
+                return null;
+            } else {
+                final var value = values[n];
+                nullKey = 0;
+                free(n);
+                size--;
+                modCount++;
+                return (V) value;
+            }
+        }
+
+        int p = getEntry(key);
+        if (p == 0) {
+            return null;
+        }
+
+        final var value = values[p];
+
+        removing(p);
+
+        // If strictly internal, copy successor's element to p and then make p
+        // point to successor.
+        if (left(p) != 0 && right(p) != 0) {
+            int s = successor(p);
+            copySlots(s, p);
+            values[p] = values[s];
+            p = s;
+        } // p has 2 children
+
+        // Start fixup at replacement node, if it exists.
+        int r = left(p) == 0 ? right(p) : left(p);
+
+        final var parent = parent(p);
+
+        if (r != 0) {
+            // Link replacement to parent
+            final var iParentR = r * 3 + 2;
+            flags[iParentR] = flags[iParentR] & RED | parent;
+            if (parent == 0) {
+                root = r;
+            } else if (p == left(parent)) {
+                flags[parent * 3] = r;
+            } else {
+                flags[parent * 3 + 1] = r;
+            }
+
+            // Fix replacement
+            if (!red(p)) {
+                fixAfterDeletion(r);
+            }
+        } else if (parent == 0) { // return if we are the only node.
+            root = 0;
+        } else { //  No children. Use self as phantom replacement and unlink.
+            if (!red(p)) {
+                fixAfterDeletion(p);
+            }
+
+            if (p == left(parent)) {
+                flags[parent * 3] = 0;
+            } else if (p == right(parent)) {
+                flags[parent * 3 + 1] = 0;
+            }
+        }
+
+        clearSlots(p);
+        free(p);
+        size--;
+        modCount++;
+        return (V) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(@Nullable CompositeKey key, @Nullable V value) {
+
+        if (key == null) {
+            int n = nullKey;
+            if (n == 0) {
+                n = allocate();
+                nullKey = n;
+                values[n] = value;
+                inserted(n);
+                size++;
+                modCount++;
+                return null;
+            } else {
+                final var oldValue = values[n];
+                values[n] = value;
+                replaced(n);
+                return (V) oldValue;
+            }
+        }
+
+        var t = root;
+        if (t == 0) {
+            final var n = allocate();
+            root = n;
+            store(key, n);
+            values[n] = value;
+            inserted(n);
+            size++;
+            modCount++;
+            return null;
+        }
+
+        int cmp;
+        int parent;
+
+        do {
+            parent = t;
+            cmp = compareKey(key, t);
+            if (cmp < 0) {
+                t = left(t);
+            } else if (cmp > 0) {
+                t = right(t);
+            } else {
+                final var oldValue = values[t];
+                values[t] = value;
+                replaced(t);
+                return (V) oldValue;
+            }
+        } while (t != 0);
+
+        final var e = allocate();
+        store(key, e);
+        values[e] = value;
+        flags[e * 3 + 2] = parent;
+        if (cmp < 0) {
+            flags[parent * 3] = e;
+        } else {
+            flags[parent * 3 + 1] = e;
+        }
+
+        inserted(e);
+        fixAfterInsertion(e);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable CompositeKey key) {
+        return key == null ? nullKey != 0 : getEntry(key) != 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(@Nullable CompositeKey key, @Nullable V defaultValue) {
+
+        final int p = key == null ? nullKey : getEntry(key);
+        return p == 0 ? defaultValue : (V) values[p];
+    }
+
+    @Override
+    @Nullable
+    public V computeIfAbsent(@Nullable CompositeKey key,
+            @Nonnull Function<? super CompositeKey, ? extends V> mappingFunction) {
+
+        final int p = key == null ? nullKey : getEntry(key);
+        if (p != 0) {
+            @SuppressWarnings("unchecked") final V value = (V) values[p];
+            return value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            put(key, v);
+        }
+        return v;
+    }
+
+    /**
+     * Copies the components of the entry into the key at the position {@code 0}.
+     */
+    public void copyKey(int p, @Nonnull CompositeKey key) {
+        System.arraycopy(longs, p * longWidth, key.longs, 0, longWidth);
+        System.arraycopy(objects, p * objectWidth, key.objects, 0, objectWidth);
+    }
+
+    /**
+     * @return result of comparing the leading components of the key at the position {@code 0} to the key of the node
+     */
+    public int compare(@Nonnull CompositeKey key, int p, int components) {
+        return comparator.compare(key.longs, key.objects, 0, longs, objects, p, components);
+    }
+
+    /**
+     * @param components number of the leading components to compare
+     * @param exclusive  whether the entries with these components equal to the ones of the key are skipped
+     * @return first entry with its leading components not less than the ones of the key, or {@code 0}
+     */
+    public int ceiling(@Nonnull CompositeKey key, int components, boolean exclusive) {
+
+        int p = root;
+        int result = 0;
+        while (p != 0) {
+            final int cmp = compare(key, p, components);
+            if (cmp < 0 || cmp == 0 && !exclusive) {
+                result = p;
+                p = left(p);
+            } else {
+                p = right(p);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param components number of the leading components to compare
+     * @param exclusive  whether the entries with these components equal to the ones of the key are skipped
+     * @return last entry with its leading components not greater than the ones of the key, or {@code 0}
+     */
+    public int floor(@Nonnull CompositeKey key, int components, boolean exclusive) {
+
+        int p = root;
+        int result = 0;
+        while (p != 0) {
+            final int cmp = compare(key, p, components);
+            if (cmp > 0 || cmp == 0 && !exclusive) {
+                result = p;
+                p = right(p);
+            } else {
+                p = left(p);
+            }
+        }
+        return result;
+    }
+
+    protected int getEntry(@Nonnull CompositeKey key) {
+
+        final int components = comparator.components();
+        int p = root;
+
+        while (p != 0) {
+            final int cmp = compare(key, p, components);
+            if (cmp < 0) {
+                p = left(p);
+            } else if (cmp > 0) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull CompositeKey key, int p) {
+        return compare(key, p, comparator.components());
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull CompositeKey key1, @Nonnull CompositeKey key2) {
+        return key1.compareTo(key2, 0, 0);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull CompositeKey key) {
+        return ceiling(key, comparator.components(), false);
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull CompositeKey key) {
+        return ceiling(key, comparator.components(), true);
+    }
+
+    @Override
+    protected void realloc(int capacity) {
+        longs = Arrays.copyOf(longs, capacity * longWidth);
+        objects = Arrays.copyOf(objects, capacity * objectWidth);
+    }
+
+    @Override
+    protected void copyKey(int from, int to) {
+        copySlots(from, to);
+        clearSlots(from);
+    }
+
+    private void store(@Nonnull CompositeKey key, int p) {
+        System.arraycopy(key.longs, 0, longs, p * longWidth, longWidth);
+        System.arraycopy(key.objects, 0, objects, p * objectWidth, objectWidth);
+    }
+
+    private void copySlots(int from, int to) {
+        System.arraycopy(longs, from * longWidth, longs, to * longWidth, longWidth);
+        System.arraycopy(objects, from * objectWidth, objects, to * objectWidth, objectWidth);
+    }
+
+    private void clearSlots(int p) {
+        Arrays.fill(objects, p * objectWidth, (p + 1) * objectWidth, null);
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<CompositeTreeMap<V>, V> iterator(boolean reversed) {
+
+        final CompositeIterator<V> it = new CompositeIterator<>(comparator.components());
+        for (int i = 0; i < comparator.components(); i++) {
+            it.all(i, reversed);
+        }
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<CompositeTreeMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+        throw new UnsupportedOperationException("Composite tree map is a leaf map");
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<CompositeTreeMap<V>, V> iteratorByKey(@Nullable CompositeKey key) {
+
+        final NestedIterator<CompositeTreeMap<V>, V> it = SingletonSimpleIterator.create(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<CompositeTreeMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable CompositeKey key) {
+        throw new UnsupportedOperationException("Composite tree map is a leaf map");
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<CompositeTreeMap<V>, V> iteratorByKeys(@Nonnull CompositeKey[] keys) {
+
+        final NestedIterator<CompositeTreeMap<V>, V> it = ArraySimpleIterator.create(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<CompositeTreeMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull CompositeKey[] keys) {
+        throw new UnsupportedOperationException("Composite tree map is a leaf map");
+    }
+
+    /**
+     * Ranges of whole composite keys are not supported, the ranges are given per component to a
+     * {@link CompositeIterator}.
+     */
+    @Nonnull
+    @Override
+    public NestedIterator<CompositeTreeMap<V>, V> iteratorByRange(@Nullable CompositeKey fromKey,
+            boolean fromExclusive, @Nullable CompositeKey toKey, boolean toExclusive, boolean reversed) {
+        throw new UnsupportedOperationException("Composite tree map is filtered per component");
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<CompositeTreeMap<V>, T> iteratorByRange(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable CompositeKey fromKey, boolean fromExclusive, @Nullable CompositeKey toKey, boolean toExclusive,
+            boolean reversed) {
+        throw new UnsupportedOperationException("Composite tree map is a leaf map");
+    }
+}
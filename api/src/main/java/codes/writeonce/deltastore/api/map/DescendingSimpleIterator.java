@@ -100,6 +100,42 @@ abstract class DescendingSimpleIterator<K, V, M extends AbstractTreeMap<K, V, M>
         }
     }
 
+    /**
+     * Skips the entries of a counted map of values by their positions in logarithmic time.
+     */
+    @Override
+    public int skip(int count) {
+
+        if (count <= 1) {
+            return super.skip(count);
+        }
+
+        final int current = nextEntry();
+        if (current == 0) {
+            return 0;
+        }
+
+        if (!indexed(current)) {
+            return 1 + super.skip(count - 1);
+        }
+
+        final int position = map.indexOf(current);
+        final int distance = Math.min(count - 1, position - map.counts[map.nullKey]);
+        if (distance <= 0) {
+            return 1 + super.skip(count - 1);
+        }
+
+        final int moved = seek(position, distance, -1);
+        if (moved == 0) {
+            index = current;
+        } else {
+            updateLastKey();
+            expectedModCount = map.modCount;
+            state = STATE_LAST_EXCLUSIVE_FETCHED;
+        }
+        return 1 + moved + super.skip(count - 1 - moved);
+    }
+
     @Override
     public boolean hasNext() {
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class EnumAscendingChainedIterator<V, T> extends AbstractEnumAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<EnumAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, EnumAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<EnumAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, EnumAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> EnumAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class EnumAscendingSimpleIterator<V> extends AbstractEnumAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<EnumAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, EnumAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<EnumAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, EnumAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> EnumAscendingSimpleIterator<V> create(boolean exclusive) {
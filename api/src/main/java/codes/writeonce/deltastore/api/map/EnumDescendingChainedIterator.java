@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class EnumDescendingChainedIterator<V, T> extends AbstractEnumDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<EnumDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, EnumDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<EnumDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, EnumDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> EnumDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
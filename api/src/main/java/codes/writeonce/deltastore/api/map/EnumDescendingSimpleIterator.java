@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class EnumDescendingSimpleIterator<V> extends AbstractEnumDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<EnumDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, EnumDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<EnumDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, EnumDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> EnumDescendingSimpleIterator<V> create() {
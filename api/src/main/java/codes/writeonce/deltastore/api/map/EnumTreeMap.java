@@ -23,20 +23,55 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
     }
 
     public EnumTreeMap(int capacity) {
-        super(capacity);
+        this(capacity, capacity);
+    }
+
+    public EnumTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public EnumTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new int[capacity];
     }
 
-    private EnumTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            int[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private EnumTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, int[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected EnumTreeMap<V> clone() {
-        return new EnumTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(), keys.clone());
+        final var clone = new EnumTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys ordinals of the keys in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull int[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            if (sortedKeys[i] <= sortedKeys[i - 1]) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -112,6 +147,8 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
             } else {
                 final var value = values[p];
 
+                removing(p);
+
                 // If strictly internal, copy successor's element to p and then make p
                 // point to successor.
                 if (left(p) != 0 && right(p) != 0) {
@@ -178,12 +215,14 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -201,6 +240,7 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
             root = n;
             keys[n] = key;
             values[n] = value;
+            inserted(n);
             size++;
             modCount++;
             return null;
@@ -219,6 +259,7 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
                 } else {
                     final var oldValue = values[t];
                     values[t] = value;
+                    replaced(t);
                     return (V) oldValue;
                 }
             } while (t != 0);
@@ -233,6 +274,7 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
                 flags[parent * 3 + 1] = e;
             }
 
+            inserted(e);
             fixAfterInsertion(e);
             size++;
             modCount++;
@@ -247,12 +289,12 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
 
     @Override
     protected int shrinkedCapacity(int used) {
-        return used;
+        return used + 1;
     }
 
     @Override
     protected boolean compact(int used) {
-        return capacity > used;
+        return capacity > used + 1;
     }
 
     @Override
@@ -266,6 +308,55 @@ public final class EnumTreeMap<V> extends AbstractTreeMap<Enum<?>, V, EnumTreeMa
         keys[from] = 0;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable Enum<?> key, int delta) {
+        addWeight(key == null ? nullKey : getEntry(key.ordinal()), delta);
+    }
+
+    public void addCount(int key, int delta) {
+        addWeight(getEntry(key), delta);
+    }
+
+    protected int getEntry(int key) {
+
+        int p = root;
+
+        while (p != 0) {
+            final var k = keys[p];
+            if (key < k) {
+                p = left(p);
+            } else if (key > k) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull Enum<?> key, int p) {
+        return Integer.compare(key.ordinal(), keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull Enum<?> key1, @Nonnull Enum<?> key2) {
+        return Integer.compare(key1.ordinal(), key2.ordinal());
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull Enum<?> key) {
+        return getCeilingEntry(key.ordinal());
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull Enum<?> key) {
+        return getHigherEntry(key.ordinal());
+    }
+
     @Override
     public boolean containsKey(@Nullable Enum<?> key) {
 
@@ -0,0 +1,99 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+final class HashChainedIterator<K, V, M extends AbstractHashMap<K, V, M>, T>
+        extends HashSlotIterator<K, V, M, T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final ThreadLocalArrayPool<HashChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, HashChainedIterator::new);
+
+    private NestedIterator<V, T> iterator;
+
+    /**
+     * nested iterator is attached to the entry the iterator is positioned at
+     */
+    private boolean attached;
+
+    @SuppressWarnings("unchecked")
+    public static <K, V, M extends AbstractHashMap<K, V, M>, T> HashChainedIterator<K, V, M, T> create(
+            @Nonnull NestedIterator<V, T> iterator) {
+        final HashChainedIterator<K, V, M, T> value = POOL.get();
+        value.iterator = iterator;
+        return value;
+    }
+
+    private HashChainedIterator() {
+        // empty
+    }
+
+    @Nullable
+    @Override
+    public T get() {
+
+        while (locate()) {
+            attach();
+            final var next = iterator.get();
+            if (next != null) {
+                return next;
+            }
+            consume();
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        while (locate()) {
+            attach();
+            if (iterator.hasNext()) {
+                return true;
+            }
+            consume();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean skip() {
+        return get() != null;
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && get() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    private void attach() {
+        if (attached) {
+            iterator.map(value());
+        } else {
+            iterator.reset(value());
+            attached = true;
+        }
+    }
+
+    @Override
+    protected void detach() {
+        attached = false;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        iterator.close();
+        iterator = null;
+        POOL.put(this);
+    }
+}
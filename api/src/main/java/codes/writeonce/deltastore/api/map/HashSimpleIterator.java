@@ -0,0 +1,65 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
+
+import javax.annotation.Nullable;
+
+final class HashSimpleIterator<K, V, M extends AbstractHashMap<K, V, M>> extends HashSlotIterator<K, V, M, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final ThreadLocalArrayPool<HashSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, HashSimpleIterator::new);
+
+    @SuppressWarnings("unchecked")
+    public static <K, V, M extends AbstractHashMap<K, V, M>> HashSimpleIterator<K, V, M> create() {
+        return POOL.get();
+    }
+
+    private HashSimpleIterator() {
+        // empty
+    }
+
+    @Nullable
+    @Override
+    public V get() {
+
+        if (locate()) {
+            final var value = value();
+            consume();
+            return value;
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return locate();
+    }
+
+    @Override
+    public boolean skip() {
+
+        if (locate()) {
+            consume();
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && skip()) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        POOL.put(this);
+    }
+}
@@ -0,0 +1,107 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Iterates entries of an {@link AbstractHashMap} in slot order, starting with the null key. Entries added or removed
+ * during the iteration may or may not be seen, but a rehash of the table makes the position meaningless and results
+ * in {@link ConcurrentModificationException}.
+ */
+abstract class HashSlotIterator<K, V, M extends AbstractHashMap<K, V, M>, T> extends NestedIterator<M, T> {
+
+    protected M map;
+
+    /**
+     * next slot to examine, -1 for the null key
+     */
+    private int index;
+
+    private int expectedRehashCount;
+
+    @Override
+    public void reset(@Nonnull M map) {
+
+        this.map = map;
+        this.index = -1;
+        this.expectedRehashCount = map.rehashCount;
+        detach();
+    }
+
+    /**
+     * The map has no order to resume from, so iteration of a different map starts over.
+     */
+    @Override
+    public void map(@Nonnull M map) {
+        if (this.map != map) {
+            reset(map);
+        }
+    }
+
+    /**
+     * Called when the iterator moves away from the entry it was positioned at.
+     */
+    protected void detach() {
+        // empty
+    }
+
+    /**
+     * Positions the iterator at the next entry without consuming it.
+     *
+     * @return {@code false} if there are no more entries
+     */
+    protected final boolean locate() {
+
+        if (index < 0) {
+            if (map.nullKey) {
+                return true;
+            }
+            index = 0;
+        }
+
+        if (expectedRehashCount != map.rehashCount) {
+            throw new ConcurrentModificationException();
+        }
+
+        final var values = map.values;
+        while (index < values.length) {
+            final var value = values[index];
+            if (value != AbstractHashMap.FREE && value != AbstractHashMap.REMOVED) {
+                return true;
+            }
+            index++;
+        }
+
+        return false;
+    }
+
+    /**
+     * Consumes the entry the iterator is positioned at by {@link #locate()}.
+     */
+    protected final void consume() {
+        index++;
+        detach();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final V value() {
+
+        if (index < 0) {
+            return (V) map.nullValue;
+        }
+
+        final var value = map.values[index];
+        return value == AbstractHashMap.NULL_VALUE ? null : (V) value;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        this.map = null;
+    }
+}
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class IdAscendingChainedIterator<V, T> extends AbstractIdAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IdAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IdAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<IdAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IdAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> IdAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class IdAscendingSimpleIterator<V> extends AbstractIdAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IdAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IdAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<IdAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IdAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> IdAscendingSimpleIterator<V> create(boolean exclusive) {
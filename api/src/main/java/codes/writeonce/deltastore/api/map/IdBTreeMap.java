@@ -0,0 +1,205 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.Id;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.LongFunction;
+
+public final class IdBTreeMap<V> extends AbstractBTreeMap<Id<?>, V, IdBTreeMap<V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final IdBTreeMap EMPTY_MAP = new IdBTreeMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <V> IdBTreeMap<V> empty() {
+        return (IdBTreeMap<V>) EMPTY_MAP;
+    }
+
+    @Override
+    protected long toLong(@Nonnull Id<?> key) {
+        return key.value();
+    }
+
+    public boolean containsKey(long key) {
+        return contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(long key) {
+        return (V) find(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(long key, @Nullable V defaultValue) {
+        return (V) find(key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(long key) {
+        return (V) delete(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(long key, @Nullable V value) {
+        return (V) insert(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(long key, @Nonnull LongFunction<? extends V> mappingFunction) {
+
+        final var value = find(key, ABSENT);
+        if (value != ABSENT) {
+            return (V) value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            insert(key, v);
+        }
+        return v;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdBTreeMap<V>, V> iterator(boolean reversed) {
+
+        final NestedIterator<IdBTreeMap<V>, V> it = newIterator(reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdBTreeMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+
+        final NestedIterator<IdBTreeMap<V>, T> it = newIterator(iterator, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdBTreeMap<V>, V> iteratorByKey(@Nullable Id<?> key) {
+
+        final NestedIterator<IdBTreeMap<V>, V> it = newIteratorByKey(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdBTreeMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Id<?> key) {
+
+        final NestedIterator<IdBTreeMap<V>, T> it = newIteratorByKey(iterator, key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdBTreeMap<V>, V> iteratorByKeys(@Nonnull Id<?>[] keys) {
+
+        final NestedIterator<IdBTreeMap<V>, V> it = newIteratorByKeys(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdBTreeMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull Id<?>[] keys) {
+
+        final NestedIterator<IdBTreeMap<V>, T> it = newIteratorByKeys(iterator, keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdBTreeMap<V>, V> iteratorByRange(@Nullable Id<?> fromKey, boolean fromExclusive,
+            @Nullable Id<?> toKey, boolean toExclusive, boolean reversed) {
+
+        final NestedIterator<IdBTreeMap<V>, V> it =
+                newIteratorByRange(fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdBTreeMap<V>, T> iteratorByRange(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Id<?> fromKey, boolean fromExclusive, @Nullable Id<?> toKey, boolean toExclusive,
+            boolean reversed) {
+
+        final NestedIterator<IdBTreeMap<V>, T> it =
+                newIteratorByRange(iterator, fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IdBTreeMap<V>, V> newIterator(boolean reversed) {
+        return BTreeSimpleIterator.create(reversed);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdBTreeMap<V>, T> newIterator(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return BTreeChainedIterator.create(iterator, reversed);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IdBTreeMap<V>, V> newIteratorByKey(@Nullable Id<?> key) {
+        return SingletonSimpleIterator.create(key);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdBTreeMap<V>, T> newIteratorByKey(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Id<?> key) {
+        return SingletonChainedIterator.create(iterator, key);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IdBTreeMap<V>, V> newIteratorByKeys(@Nonnull Id<?>[] keys) {
+        return ArraySimpleIterator.create(keys);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdBTreeMap<V>, T> newIteratorByKeys(
+            @Nonnull NestedIterator<V, T> iterator, @Nonnull Id<?>[] keys) {
+        return ArrayChainedIterator.create(iterator, keys);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IdBTreeMap<V>, V> newIteratorByRange(
+            @Nullable Id<?> fromKey, boolean fromExclusive, @Nullable Id<?> toKey, boolean toExclusive,
+            boolean reversed) {
+
+        return BTreeSimpleIterator.create(
+                fromKey == null, fromKey == null ? 0 : fromKey.value(), fromExclusive,
+                toKey == null, toKey == null ? 0 : toKey.value(), toExclusive,
+                reversed
+        );
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdBTreeMap<V>, T> newIteratorByRange(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Id<?> fromKey, boolean fromExclusive,
+            @Nullable Id<?> toKey, boolean toExclusive, boolean reversed) {
+
+        return BTreeChainedIterator.create(
+                iterator,
+                fromKey == null, fromKey == null ? 0 : fromKey.value(), fromExclusive,
+                toKey == null, toKey == null ? 0 : toKey.value(), toExclusive,
+                reversed
+        );
+    }
+}
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class IdDescendingChainedIterator<V, T> extends AbstractIdDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IdDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IdDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<IdDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IdDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> IdDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class IdDescendingSimpleIterator<V> extends AbstractIdDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IdDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IdDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<IdDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IdDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> IdDescendingSimpleIterator<V> create() {
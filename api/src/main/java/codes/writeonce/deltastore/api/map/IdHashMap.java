@@ -0,0 +1,175 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.Id;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.LongFunction;
+
+public final class IdHashMap<V> extends AbstractHashMap<Id<?>, V, IdHashMap<V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final IdHashMap EMPTY_MAP = new IdHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <V> IdHashMap<V> empty() {
+        return (IdHashMap<V>) EMPTY_MAP;
+    }
+
+    public IdHashMap() {
+        // empty
+    }
+
+    public IdHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public IdHashMap(int expectedSize, int retainedSize) {
+        super(expectedSize, retainedSize);
+    }
+
+    @Override
+    protected long toLong(@Nonnull Id<?> key) {
+        return key.value();
+    }
+
+    public boolean containsKey(long key) {
+        return contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(long key) {
+        return (V) find(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(long key, @Nullable V defaultValue) {
+        return (V) find(key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(long key) {
+        return (V) delete(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(long key, @Nullable V value) {
+        return (V) insert(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(long key, @Nonnull LongFunction<? extends V> mappingFunction) {
+
+        final var value = find(key, ABSENT);
+        if (value != ABSENT) {
+            return (V) value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            insert(key, v);
+        }
+        return v;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdHashMap<V>, V> iterator(boolean reversed) {
+
+        final NestedIterator<IdHashMap<V>, V> it = newIterator(reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdHashMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+
+        final NestedIterator<IdHashMap<V>, T> it = newIterator(iterator, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdHashMap<V>, V> iteratorByKey(@Nullable Id<?> key) {
+
+        final NestedIterator<IdHashMap<V>, V> it = newIteratorByKey(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdHashMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Id<?> key) {
+
+        final NestedIterator<IdHashMap<V>, T> it = newIteratorByKey(iterator, key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IdHashMap<V>, V> iteratorByKeys(@Nonnull Id<?>[] keys) {
+
+        final NestedIterator<IdHashMap<V>, V> it = newIteratorByKeys(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IdHashMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull Id<?>[] keys) {
+
+        final NestedIterator<IdHashMap<V>, T> it = newIteratorByKeys(iterator, keys);
+        it.reset(this);
+        return it;
+    }
+
+    /**
+     * @param reversed ignored, the map has no order
+     */
+    @Nonnull
+    public static <V> NestedIterator<IdHashMap<V>, V> newIterator(boolean reversed) {
+        return HashSimpleIterator.create();
+    }
+
+    /**
+     * @param reversed ignored, the map has no order
+     */
+    @Nonnull
+    public static <V, T> NestedIterator<IdHashMap<V>, T> newIterator(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return HashChainedIterator.create(iterator);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IdHashMap<V>, V> newIteratorByKey(@Nullable Id<?> key) {
+        return SingletonSimpleIterator.create(key);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdHashMap<V>, T> newIteratorByKey(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Id<?> key) {
+        return SingletonChainedIterator.create(iterator, key);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IdHashMap<V>, V> newIteratorByKeys(@Nonnull Id<?>[] keys) {
+        return ArraySimpleIterator.create(keys);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdHashMap<V>, T> newIteratorByKeys(
+            @Nonnull NestedIterator<V, T> iterator, @Nonnull Id<?>[] keys) {
+        return ArrayChainedIterator.create(iterator, keys);
+    }
+}
@@ -25,20 +25,55 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
     }
 
     public IdTreeMap(int capacity) {
-        super(capacity);
+        this(capacity, capacity);
+    }
+
+    public IdTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public IdTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new long[capacity];
     }
 
-    private IdTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            long[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private IdTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, long[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected IdTreeMap<V> clone() {
-        return new IdTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(), keys.clone());
+        final var clone = new IdTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys values of the ids in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull long[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            if (sortedKeys[i] <= sortedKeys[i - 1]) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -114,6 +149,8 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
             } else {
                 final var value = values[p];
 
+                removing(p);
+
                 // If strictly internal, copy successor's element to p and then make p
                 // point to successor.
                 if (left(p) != 0 && right(p) != 0) {
@@ -180,12 +217,14 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -203,6 +242,7 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
             root = n;
             keys[n] = key;
             values[n] = value;
+            inserted(n);
             size++;
             modCount++;
             return null;
@@ -221,6 +261,7 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
                 } else {
                     final var oldValue = values[t];
                     values[t] = value;
+                    replaced(t);
                     return (V) oldValue;
                 }
             } while (t != 0);
@@ -235,6 +276,7 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
                 flags[parent * 3 + 1] = e;
             }
 
+            inserted(e);
             fixAfterInsertion(e);
             size++;
             modCount++;
@@ -253,6 +295,55 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
         keys[from] = 0;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable Id<?> key, int delta) {
+        addWeight(key == null ? nullKey : getEntry(key.value()), delta);
+    }
+
+    public void addCount(long key, int delta) {
+        addWeight(getEntry(key), delta);
+    }
+
+    protected int getEntry(long key) {
+
+        int p = root;
+
+        while (p != 0) {
+            final var k = keys[p];
+            if (key < k) {
+                p = left(p);
+            } else if (key > k) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull Id<?> key, int p) {
+        return Long.compare(key.value(), keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull Id<?> key1, @Nonnull Id<?> key2) {
+        return Long.compare(key1.value(), key2.value());
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull Id<?> key) {
+        return getCeilingEntry(key.value());
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull Id<?> key) {
+        return getHigherEntry(key.value());
+    }
+
     @Override
     public boolean containsKey(@Nullable Id<?> key) {
 
@@ -565,6 +656,29 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
         return it;
     }
 
+    /**
+     * Iterates over the values of the ids in the range, without the {@code null} key.
+     */
+    @Nonnull
+    public NestedIterator<IdTreeMap<V>, V> iteratorByRange(long fromKey, boolean fromExclusive, long toKey,
+            boolean toExclusive, boolean reversed) {
+
+        final NestedIterator<IdTreeMap<V>, V> it =
+                newIteratorByRange(fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    public <T> NestedIterator<IdTreeMap<V>, T> iteratorByRange(@Nonnull NestedIterator<V, T> iterator, long fromKey,
+            boolean fromExclusive, long toKey, boolean toExclusive, boolean reversed) {
+
+        final NestedIterator<IdTreeMap<V>, T> it =
+                newIteratorByRange(iterator, fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
     @Nonnull
     public static <V> NestedIterator<IdTreeMap<V>, V> newIterator(boolean reversed) {
         return reversed ? IdDescendingSimpleIterator.create() : IdAscendingSimpleIterator.create(false);
@@ -619,10 +733,8 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
             } else {
                 if (fromKey == null) {
                     return IdDescendingSimpleIterator.create(toExclusive, toKey.value());
-                } else if (fromExclusive) {
-                    return ToKeyExclusiveIdDescendingSimpleIterator.create(toExclusive, toKey.value(), fromKey.value());
                 } else {
-                    return ToKeyInclusiveIdDescendingSimpleIterator.create(toExclusive, toKey.value(), fromKey.value());
+                    return newIteratorByRange(fromKey.value(), fromExclusive, toKey.value(), toExclusive, true);
                 }
             }
         } else {
@@ -637,12 +749,8 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
             } else {
                 if (toKey == null) {
                     return IdAscendingSimpleIterator.create(fromExclusive, fromKey.value());
-                } else if (toExclusive) {
-                    return ToKeyExclusiveIdAscendingSimpleIterator
-                            .create(fromExclusive, fromKey.value(), toKey.value());
                 } else {
-                    return ToKeyInclusiveIdAscendingSimpleIterator
-                            .create(fromExclusive, fromKey.value(), toKey.value());
+                    return newIteratorByRange(fromKey.value(), fromExclusive, toKey.value(), toExclusive, false);
                 }
             }
         }
@@ -665,12 +773,9 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
             } else {
                 if (fromKey == null) {
                     return IdDescendingChainedIterator.create(iterator, toExclusive, toKey.value());
-                } else if (fromExclusive) {
-                    return ToKeyExclusiveIdDescendingChainedIterator.create(iterator, toExclusive, toKey.value(),
-                            fromKey.value());
                 } else {
-                    return ToKeyInclusiveIdDescendingChainedIterator.create(iterator, toExclusive, toKey.value(),
-                            fromKey.value());
+                    return newIteratorByRange(iterator, fromKey.value(), fromExclusive, toKey.value(), toExclusive,
+                            true);
                 }
             }
         } else {
@@ -685,14 +790,42 @@ public final class IdTreeMap<V> extends AbstractTreeMap<Id<?>, V, IdTreeMap<V>>
             } else {
                 if (toKey == null) {
                     return IdAscendingChainedIterator.create(iterator, fromExclusive, fromKey.value());
-                } else if (toExclusive) {
-                    return ToKeyExclusiveIdAscendingChainedIterator.create(iterator, fromExclusive, fromKey.value(),
-                            toKey.value());
                 } else {
-                    return ToKeyInclusiveIdAscendingChainedIterator.create(iterator, fromExclusive, fromKey.value(),
-                            toKey.value());
+                    return newIteratorByRange(iterator, fromKey.value(), fromExclusive, toKey.value(), toExclusive,
+                            false);
                 }
             }
         }
     }
+
+    @Nonnull
+    public static <V> NestedIterator<IdTreeMap<V>, V> newIteratorByRange(
+            long fromKey, boolean fromExclusive, long toKey, boolean toExclusive, boolean reversed) {
+
+        if (reversed) {
+            return fromExclusive
+                    ? ToKeyExclusiveIdDescendingSimpleIterator.create(toExclusive, toKey, fromKey)
+                    : ToKeyInclusiveIdDescendingSimpleIterator.create(toExclusive, toKey, fromKey);
+        } else {
+            return toExclusive
+                    ? ToKeyExclusiveIdAscendingSimpleIterator.create(fromExclusive, fromKey, toKey)
+                    : ToKeyInclusiveIdAscendingSimpleIterator.create(fromExclusive, fromKey, toKey);
+        }
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IdTreeMap<V>, T> newIteratorByRange(
+            @Nonnull NestedIterator<V, T> iterator, long fromKey, boolean fromExclusive, long toKey,
+            boolean toExclusive, boolean reversed) {
+
+        if (reversed) {
+            return fromExclusive
+                    ? ToKeyExclusiveIdDescendingChainedIterator.create(iterator, toExclusive, toKey, fromKey)
+                    : ToKeyInclusiveIdDescendingChainedIterator.create(iterator, toExclusive, toKey, fromKey);
+        } else {
+            return toExclusive
+                    ? ToKeyExclusiveIdAscendingChainedIterator.create(iterator, fromExclusive, fromKey, toKey)
+                    : ToKeyInclusiveIdAscendingChainedIterator.create(iterator, fromExclusive, fromKey, toKey);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Function;
+
+/**
+ * Map contract shared by the index map implementations. A {@code null} key is allowed.
+ */
+public interface IndexMap<K, V, M extends IndexMap<K, V, M>> {
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * @return counter incremented on every structural modification, used by iterators to detect changes
+     */
+    int modCount();
+
+    boolean containsKey(@Nullable K key);
+
+    @Nullable
+    V get(@Nullable K key);
+
+    @Nullable
+    V getOrDefault(@Nullable K key, @Nullable V defaultValue);
+
+    @Nullable
+    V remove(@Nullable K key);
+
+    @Nullable
+    V put(@Nullable K key, @Nullable V value);
+
+    @Nullable
+    V computeIfAbsent(@Nullable K key, @Nonnull Function<? super K, ? extends V> mappingFunction);
+
+    /**
+     * @param reversed ignored by unordered maps
+     */
+    @Nonnull
+    NestedIterator<M, V> iterator(boolean reversed);
+
+    /**
+     * @param reversed ignored by unordered maps
+     */
+    @Nonnull
+    <T> NestedIterator<M, T> iterator(@Nonnull NestedIterator<V, T> iterator, boolean reversed);
+
+    @Nonnull
+    NestedIterator<M, V> iteratorByKey(@Nullable K key);
+
+    @Nonnull
+    <T> NestedIterator<M, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator, @Nullable K key);
+
+    @Nonnull
+    NestedIterator<M, V> iteratorByKeys(@Nonnull K[] keys);
+
+    @Nonnull
+    <T> NestedIterator<M, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator, @Nonnull K[] keys);
+}
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class InstantAscendingChainedIterator<V, T> extends AbstractInstantAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<InstantAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, InstantAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<InstantAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, InstantAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> InstantAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
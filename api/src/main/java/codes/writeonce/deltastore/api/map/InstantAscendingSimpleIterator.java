@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class InstantAscendingSimpleIterator<V> extends AbstractInstantAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<InstantAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, InstantAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<InstantAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, InstantAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> InstantAscendingSimpleIterator<V> create(boolean exclusive) {
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class InstantDescendingChainedIterator<V, T> extends AbstractInstantDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<InstantDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, InstantDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<InstantDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, InstantDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> InstantDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class InstantDescendingSimpleIterator<V> extends AbstractInstantDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<InstantDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, InstantDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<InstantDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, InstantDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> InstantDescendingSimpleIterator<V> create() {
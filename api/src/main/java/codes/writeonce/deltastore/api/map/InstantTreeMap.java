@@ -24,14 +24,22 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
     }
 
     public InstantTreeMap(int capacity) {
-        super(capacity);
+        this(capacity, capacity);
+    }
+
+    public InstantTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public InstantTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys1 = new long[capacity];
         keys2 = new int[capacity];
     }
 
-    private InstantTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            long[] keys1, int[] keys2) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private InstantTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, long[] keys1, int[] keys2) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys1 = keys1;
         this.keys2 = keys2;
     }
@@ -39,8 +47,39 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected InstantTreeMap<V> clone() {
-        return new InstantTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(),
-                keys1.clone(), keys2.clone());
+        final var clone = new InstantTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys1.clone(), keys2.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys1 epoch seconds of the keys in strictly ascending order of the keys
+     * @param sortedKeys2 nanosecond adjustments of the keys at the same positions
+     * @param values      values of the keys at the same positions
+     * @param count       number of the entries
+     */
+    public void bulkLoad(@Nonnull long[] sortedKeys1, @Nonnull int[] sortedKeys2, @Nonnull Object[] values,
+            int count) {
+
+        checkBulkLoad(Math.min(sortedKeys1.length, sortedKeys2.length), values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            final var key1 = sortedKeys1[i];
+            final var prev1 = sortedKeys1[i - 1];
+            if (key1 < prev1 || key1 == prev1 && sortedKeys2[i] <= sortedKeys2[i - 1]) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys1, 0, keys1, 1, count);
+        System.arraycopy(sortedKeys2, 0, keys2, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -129,6 +168,8 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
                 } else {
                     final var value = values[p];
 
+                    removing(p);
+
                     // If strictly internal, copy successor's element to p and then make p
                     // point to successor.
                     if (left(p) != 0 && right(p) != 0) {
@@ -198,12 +239,14 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -222,6 +265,7 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
             keys1[n] = key1;
             keys2[n] = key2;
             values[n] = value;
+            inserted(n);
             size++;
             modCount++;
             return null;
@@ -250,6 +294,7 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
                     } else {
                         final var oldValue = values[t];
                         values[t] = value;
+                        replaced(t);
                         return (V) oldValue;
                     }
                 }
@@ -266,6 +311,7 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
                 flags[parent * 3 + 1] = e;
             }
 
+            inserted(e);
             fixAfterInsertion(e);
             size++;
             modCount++;
@@ -288,6 +334,63 @@ public final class InstantTreeMap<V> extends AbstractTreeMap<Instant, V, Instant
         keys2[from] = 0;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable Instant key, int delta) {
+        addWeight(key == null ? nullKey : getEntry(key.getEpochSecond(), key.getNano()), delta);
+    }
+
+    public void addCount(long key1, int key2, int delta) {
+        addWeight(getEntry(key1, key2), delta);
+    }
+
+    protected int getEntry(long key1, int key2) {
+
+        int p = root;
+
+        while (p != 0) {
+            final var k1 = keys1[p];
+            if (key1 < k1) {
+                p = left(p);
+            } else if (key1 > k1) {
+                p = right(p);
+            } else {
+                final var k2 = keys2[p];
+                if (key2 < k2) {
+                    p = left(p);
+                } else if (key2 > k2) {
+                    p = right(p);
+                } else {
+                    return p;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull Instant key, int p) {
+        final var cmp = Long.compare(key.getEpochSecond(), keys1[p]);
+        return cmp == 0 ? Integer.compare(key.getNano(), keys2[p]) : cmp;
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull Instant key1, @Nonnull Instant key2) {
+        return key1.compareTo(key2);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull Instant key) {
+        return getCeilingEntry(key.getEpochSecond(), key.getNano());
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull Instant key) {
+        return getHigherEntry(key.getEpochSecond(), key.getNano());
+    }
+
     @Override
     public boolean containsKey(@Nullable Instant key) {
 
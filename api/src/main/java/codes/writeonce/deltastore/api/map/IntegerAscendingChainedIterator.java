@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class IntegerAscendingChainedIterator<V, T> extends AbstractIntegerAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IntegerAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IntegerAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<IntegerAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IntegerAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> IntegerAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class IntegerAscendingSimpleIterator<V> extends AbstractIntegerAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IntegerAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IntegerAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<IntegerAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IntegerAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> IntegerAscendingSimpleIterator<V> create(boolean exclusive) {
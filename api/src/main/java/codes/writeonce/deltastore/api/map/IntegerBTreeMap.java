@@ -0,0 +1,203 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.IntFunction;
+
+public final class IntegerBTreeMap<V> extends AbstractBTreeMap<Integer, V, IntegerBTreeMap<V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final IntegerBTreeMap EMPTY_MAP = new IntegerBTreeMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <V> IntegerBTreeMap<V> empty() {
+        return (IntegerBTreeMap<V>) EMPTY_MAP;
+    }
+
+    @Override
+    protected long toLong(@Nonnull Integer key) {
+        return key;
+    }
+
+    public boolean containsKey(int key) {
+        return contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(int key) {
+        return (V) find(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(int key, @Nullable V defaultValue) {
+        return (V) find(key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(int key) {
+        return (V) delete(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(int key, @Nullable V value) {
+        return (V) insert(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(int key, @Nonnull IntFunction<? extends V> mappingFunction) {
+
+        final var value = find(key, ABSENT);
+        if (value != ABSENT) {
+            return (V) value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            insert(key, v);
+        }
+        return v;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerBTreeMap<V>, V> iterator(boolean reversed) {
+
+        final NestedIterator<IntegerBTreeMap<V>, V> it = newIterator(reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerBTreeMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+
+        final NestedIterator<IntegerBTreeMap<V>, T> it = newIterator(iterator, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerBTreeMap<V>, V> iteratorByKey(@Nullable Integer key) {
+
+        final NestedIterator<IntegerBTreeMap<V>, V> it = newIteratorByKey(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerBTreeMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Integer key) {
+
+        final NestedIterator<IntegerBTreeMap<V>, T> it = newIteratorByKey(iterator, key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerBTreeMap<V>, V> iteratorByKeys(@Nonnull Integer[] keys) {
+
+        final NestedIterator<IntegerBTreeMap<V>, V> it = newIteratorByKeys(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerBTreeMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull Integer[] keys) {
+
+        final NestedIterator<IntegerBTreeMap<V>, T> it = newIteratorByKeys(iterator, keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerBTreeMap<V>, V> iteratorByRange(@Nullable Integer fromKey, boolean fromExclusive,
+            @Nullable Integer toKey, boolean toExclusive, boolean reversed) {
+
+        final NestedIterator<IntegerBTreeMap<V>, V> it =
+                newIteratorByRange(fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerBTreeMap<V>, T> iteratorByRange(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Integer fromKey, boolean fromExclusive, @Nullable Integer toKey, boolean toExclusive,
+            boolean reversed) {
+
+        final NestedIterator<IntegerBTreeMap<V>, T> it =
+                newIteratorByRange(iterator, fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IntegerBTreeMap<V>, V> newIterator(boolean reversed) {
+        return BTreeSimpleIterator.create(reversed);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerBTreeMap<V>, T> newIterator(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return BTreeChainedIterator.create(iterator, reversed);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IntegerBTreeMap<V>, V> newIteratorByKey(@Nullable Integer key) {
+        return SingletonSimpleIterator.create(key);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerBTreeMap<V>, T> newIteratorByKey(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Integer key) {
+        return SingletonChainedIterator.create(iterator, key);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IntegerBTreeMap<V>, V> newIteratorByKeys(@Nonnull Integer[] keys) {
+        return ArraySimpleIterator.create(keys);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerBTreeMap<V>, T> newIteratorByKeys(
+            @Nonnull NestedIterator<V, T> iterator, @Nonnull Integer[] keys) {
+        return ArrayChainedIterator.create(iterator, keys);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IntegerBTreeMap<V>, V> newIteratorByRange(
+            @Nullable Integer fromKey, boolean fromExclusive, @Nullable Integer toKey, boolean toExclusive,
+            boolean reversed) {
+
+        return BTreeSimpleIterator.create(
+                fromKey == null, fromKey == null ? 0 : fromKey, fromExclusive,
+                toKey == null, toKey == null ? 0 : toKey, toExclusive,
+                reversed
+        );
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerBTreeMap<V>, T> newIteratorByRange(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Integer fromKey, boolean fromExclusive,
+            @Nullable Integer toKey, boolean toExclusive, boolean reversed) {
+
+        return BTreeChainedIterator.create(
+                iterator,
+                fromKey == null, fromKey == null ? 0 : fromKey, fromExclusive,
+                toKey == null, toKey == null ? 0 : toKey, toExclusive,
+                reversed
+        );
+    }
+}
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class IntegerDescendingChainedIterator<V, T> extends AbstractIntegerDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IntegerDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IntegerDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<IntegerDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IntegerDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> IntegerDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
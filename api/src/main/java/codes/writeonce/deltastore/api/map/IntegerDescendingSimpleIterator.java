@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class IntegerDescendingSimpleIterator<V> extends AbstractIntegerDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<IntegerDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, IntegerDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<IntegerDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, IntegerDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> IntegerDescendingSimpleIterator<V> create() {
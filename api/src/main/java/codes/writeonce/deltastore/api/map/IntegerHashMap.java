@@ -0,0 +1,173 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.IntFunction;
+
+public final class IntegerHashMap<V> extends AbstractHashMap<Integer, V, IntegerHashMap<V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final IntegerHashMap EMPTY_MAP = new IntegerHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <V> IntegerHashMap<V> empty() {
+        return (IntegerHashMap<V>) EMPTY_MAP;
+    }
+
+    public IntegerHashMap() {
+        // empty
+    }
+
+    public IntegerHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public IntegerHashMap(int expectedSize, int retainedSize) {
+        super(expectedSize, retainedSize);
+    }
+
+    @Override
+    protected long toLong(@Nonnull Integer key) {
+        return key;
+    }
+
+    public boolean containsKey(int key) {
+        return contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(int key) {
+        return (V) find(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(int key, @Nullable V defaultValue) {
+        return (V) find(key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(int key) {
+        return (V) delete(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(int key, @Nullable V value) {
+        return (V) insert(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(int key, @Nonnull IntFunction<? extends V> mappingFunction) {
+
+        final var value = find(key, ABSENT);
+        if (value != ABSENT) {
+            return (V) value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            insert(key, v);
+        }
+        return v;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerHashMap<V>, V> iterator(boolean reversed) {
+
+        final NestedIterator<IntegerHashMap<V>, V> it = newIterator(reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerHashMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+
+        final NestedIterator<IntegerHashMap<V>, T> it = newIterator(iterator, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerHashMap<V>, V> iteratorByKey(@Nullable Integer key) {
+
+        final NestedIterator<IntegerHashMap<V>, V> it = newIteratorByKey(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerHashMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Integer key) {
+
+        final NestedIterator<IntegerHashMap<V>, T> it = newIteratorByKey(iterator, key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<IntegerHashMap<V>, V> iteratorByKeys(@Nonnull Integer[] keys) {
+
+        final NestedIterator<IntegerHashMap<V>, V> it = newIteratorByKeys(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<IntegerHashMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull Integer[] keys) {
+
+        final NestedIterator<IntegerHashMap<V>, T> it = newIteratorByKeys(iterator, keys);
+        it.reset(this);
+        return it;
+    }
+
+    /**
+     * @param reversed ignored, the map has no order
+     */
+    @Nonnull
+    public static <V> NestedIterator<IntegerHashMap<V>, V> newIterator(boolean reversed) {
+        return HashSimpleIterator.create();
+    }
+
+    /**
+     * @param reversed ignored, the map has no order
+     */
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerHashMap<V>, T> newIterator(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return HashChainedIterator.create(iterator);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IntegerHashMap<V>, V> newIteratorByKey(@Nullable Integer key) {
+        return SingletonSimpleIterator.create(key);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerHashMap<V>, T> newIteratorByKey(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Integer key) {
+        return SingletonChainedIterator.create(iterator, key);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<IntegerHashMap<V>, V> newIteratorByKeys(@Nonnull Integer[] keys) {
+        return ArraySimpleIterator.create(keys);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<IntegerHashMap<V>, T> newIteratorByKeys(
+            @Nonnull NestedIterator<V, T> iterator, @Nonnull Integer[] keys) {
+        return ArrayChainedIterator.create(iterator, keys);
+    }
+}
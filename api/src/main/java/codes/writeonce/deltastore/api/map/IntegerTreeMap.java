@@ -5,6 +5,7 @@ import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 
 public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, IntegerTreeMap<V>> {
 
@@ -22,22 +23,71 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
         this(1);
     }
 
-    private IntegerTreeMap(int capacity) {
-        super(capacity);
+    public IntegerTreeMap(int capacity) {
+        this(capacity, capacity);
+    }
+
+    public IntegerTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public IntegerTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new int[capacity];
     }
 
-    private IntegerTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            int[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private IntegerTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, int[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected IntegerTreeMap<V> clone() {
-        return new IntegerTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(),
-                keys.clone());
+        final var clone = new IntegerTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys keys in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull int[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            if (sortedKeys[i] <= sortedKeys[i - 1]) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
+    }
+
+    /**
+     * Replaces every key but the {@code null} one in place, keeping the tree as it is.
+     *
+     * @param mapping strictly increasing function of the keys, so that their order does not change
+     */
+    public void relabel(@Nonnull IntUnaryOperator mapping) {
+
+        for (int p = 1; p <= size; p++) {
+            if (p != nullKey) {
+                keys[p] = mapping.applyAsInt(keys[p]);
+            }
+        }
+        modCount++;
     }
 
     @Override
@@ -113,6 +163,8 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
             } else {
                 final var value = values[p];
 
+                removing(p);
+
                 // If strictly internal, copy successor's element to p and then make p
                 // point to successor.
                 if (left(p) != 0 && right(p) != 0) {
@@ -179,12 +231,14 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -202,6 +256,7 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
             root = n;
             keys[n] = key;
             values[n] = value;
+            inserted(n);
             size++;
             modCount++;
             return null;
@@ -220,6 +275,7 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
                 } else {
                     final var oldValue = values[t];
                     values[t] = value;
+                    replaced(t);
                     return (V) oldValue;
                 }
             } while (t != 0);
@@ -234,6 +290,7 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
                 flags[parent * 3 + 1] = e;
             }
 
+            inserted(e);
             fixAfterInsertion(e);
             size++;
             modCount++;
@@ -252,6 +309,55 @@ public final class IntegerTreeMap<V> extends AbstractTreeMap<Integer, V, Integer
         keys[from] = 0;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable Integer key, int delta) {
+        addWeight(key == null ? nullKey : getEntry((int) key), delta);
+    }
+
+    public void addCount(int key, int delta) {
+        addWeight(getEntry(key), delta);
+    }
+
+    protected int getEntry(int key) {
+
+        int p = root;
+
+        while (p != 0) {
+            final var k = keys[p];
+            if (key < k) {
+                p = left(p);
+            } else if (key > k) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull Integer key, int p) {
+        return Integer.compare(key, keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull Integer key1, @Nonnull Integer key2) {
+        return Integer.compare(key1, key2);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull Integer key) {
+        return getCeilingEntry((int) key);
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull Integer key) {
+        return getHigherEntry((int) key);
+    }
+
     @Override
     public boolean containsKey(@Nullable Integer key) {
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class LongAscendingChainedIterator<V, T> extends AbstractLongAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<LongAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, LongAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<LongAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, LongAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> LongAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class LongAscendingSimpleIterator<V> extends AbstractLongAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<LongAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, LongAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<LongAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, LongAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> LongAscendingSimpleIterator<V> create(boolean exclusive) {
@@ -0,0 +1,203 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.LongFunction;
+
+public final class LongBTreeMap<V> extends AbstractBTreeMap<Long, V, LongBTreeMap<V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final LongBTreeMap EMPTY_MAP = new LongBTreeMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <V> LongBTreeMap<V> empty() {
+        return (LongBTreeMap<V>) EMPTY_MAP;
+    }
+
+    @Override
+    protected long toLong(@Nonnull Long key) {
+        return key;
+    }
+
+    public boolean containsKey(long key) {
+        return contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(long key) {
+        return (V) find(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(long key, @Nullable V defaultValue) {
+        return (V) find(key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(long key) {
+        return (V) delete(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(long key, @Nullable V value) {
+        return (V) insert(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(long key, @Nonnull LongFunction<? extends V> mappingFunction) {
+
+        final var value = find(key, ABSENT);
+        if (value != ABSENT) {
+            return (V) value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            insert(key, v);
+        }
+        return v;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongBTreeMap<V>, V> iterator(boolean reversed) {
+
+        final NestedIterator<LongBTreeMap<V>, V> it = newIterator(reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongBTreeMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+
+        final NestedIterator<LongBTreeMap<V>, T> it = newIterator(iterator, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongBTreeMap<V>, V> iteratorByKey(@Nullable Long key) {
+
+        final NestedIterator<LongBTreeMap<V>, V> it = newIteratorByKey(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongBTreeMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Long key) {
+
+        final NestedIterator<LongBTreeMap<V>, T> it = newIteratorByKey(iterator, key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongBTreeMap<V>, V> iteratorByKeys(@Nonnull Long[] keys) {
+
+        final NestedIterator<LongBTreeMap<V>, V> it = newIteratorByKeys(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongBTreeMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull Long[] keys) {
+
+        final NestedIterator<LongBTreeMap<V>, T> it = newIteratorByKeys(iterator, keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongBTreeMap<V>, V> iteratorByRange(@Nullable Long fromKey, boolean fromExclusive,
+            @Nullable Long toKey, boolean toExclusive, boolean reversed) {
+
+        final NestedIterator<LongBTreeMap<V>, V> it =
+                newIteratorByRange(fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongBTreeMap<V>, T> iteratorByRange(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Long fromKey, boolean fromExclusive, @Nullable Long toKey, boolean toExclusive,
+            boolean reversed) {
+
+        final NestedIterator<LongBTreeMap<V>, T> it =
+                newIteratorByRange(iterator, fromKey, fromExclusive, toKey, toExclusive, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<LongBTreeMap<V>, V> newIterator(boolean reversed) {
+        return BTreeSimpleIterator.create(reversed);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<LongBTreeMap<V>, T> newIterator(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return BTreeChainedIterator.create(iterator, reversed);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<LongBTreeMap<V>, V> newIteratorByKey(@Nullable Long key) {
+        return SingletonSimpleIterator.create(key);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<LongBTreeMap<V>, T> newIteratorByKey(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Long key) {
+        return SingletonChainedIterator.create(iterator, key);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<LongBTreeMap<V>, V> newIteratorByKeys(@Nonnull Long[] keys) {
+        return ArraySimpleIterator.create(keys);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<LongBTreeMap<V>, T> newIteratorByKeys(
+            @Nonnull NestedIterator<V, T> iterator, @Nonnull Long[] keys) {
+        return ArrayChainedIterator.create(iterator, keys);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<LongBTreeMap<V>, V> newIteratorByRange(
+            @Nullable Long fromKey, boolean fromExclusive, @Nullable Long toKey, boolean toExclusive,
+            boolean reversed) {
+
+        return BTreeSimpleIterator.create(
+                fromKey == null, fromKey == null ? 0 : fromKey, fromExclusive,
+                toKey == null, toKey == null ? 0 : toKey, toExclusive,
+                reversed
+        );
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<LongBTreeMap<V>, T> newIteratorByRange(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Long fromKey, boolean fromExclusive,
+            @Nullable Long toKey, boolean toExclusive, boolean reversed) {
+
+        return BTreeChainedIterator.create(
+                iterator,
+                fromKey == null, fromKey == null ? 0 : fromKey, fromExclusive,
+                toKey == null, toKey == null ? 0 : toKey, toExclusive,
+                reversed
+        );
+    }
+}
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class LongDescendingChainedIterator<V, T> extends AbstractLongDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<LongDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, LongDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<LongDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, LongDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> LongDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
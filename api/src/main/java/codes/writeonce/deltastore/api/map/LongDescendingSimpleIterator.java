@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class LongDescendingSimpleIterator<V> extends AbstractLongDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<LongDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, LongDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<LongDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, LongDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> LongDescendingSimpleIterator<V> create() {
@@ -0,0 +1,173 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.LongFunction;
+
+public final class LongHashMap<V> extends AbstractHashMap<Long, V, LongHashMap<V>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final LongHashMap EMPTY_MAP = new LongHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <V> LongHashMap<V> empty() {
+        return (LongHashMap<V>) EMPTY_MAP;
+    }
+
+    public LongHashMap() {
+        // empty
+    }
+
+    public LongHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public LongHashMap(int expectedSize, int retainedSize) {
+        super(expectedSize, retainedSize);
+    }
+
+    @Override
+    protected long toLong(@Nonnull Long key) {
+        return key;
+    }
+
+    public boolean containsKey(long key) {
+        return contains(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(long key) {
+        return (V) find(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V getOrDefault(long key, @Nullable V defaultValue) {
+        return (V) find(key, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(long key) {
+        return (V) delete(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(long key, @Nullable V value) {
+        return (V) insert(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V computeIfAbsent(long key, @Nonnull LongFunction<? extends V> mappingFunction) {
+
+        final var value = find(key, ABSENT);
+        if (value != ABSENT) {
+            return (V) value;
+        }
+
+        final V v = mappingFunction.apply(key);
+        if (v != null) {
+            insert(key, v);
+        }
+        return v;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongHashMap<V>, V> iterator(boolean reversed) {
+
+        final NestedIterator<LongHashMap<V>, V> it = newIterator(reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongHashMap<V>, T> iterator(@Nonnull NestedIterator<V, T> iterator,
+            boolean reversed) {
+
+        final NestedIterator<LongHashMap<V>, T> it = newIterator(iterator, reversed);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongHashMap<V>, V> iteratorByKey(@Nullable Long key) {
+
+        final NestedIterator<LongHashMap<V>, V> it = newIteratorByKey(key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongHashMap<V>, T> iteratorByKey(@Nonnull NestedIterator<V, T> iterator,
+            @Nullable Long key) {
+
+        final NestedIterator<LongHashMap<V>, T> it = newIteratorByKey(iterator, key);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public NestedIterator<LongHashMap<V>, V> iteratorByKeys(@Nonnull Long[] keys) {
+
+        final NestedIterator<LongHashMap<V>, V> it = newIteratorByKeys(keys);
+        it.reset(this);
+        return it;
+    }
+
+    @Nonnull
+    @Override
+    public <T> NestedIterator<LongHashMap<V>, T> iteratorByKeys(@Nonnull NestedIterator<V, T> iterator,
+            @Nonnull Long[] keys) {
+
+        final NestedIterator<LongHashMap<V>, T> it = newIteratorByKeys(iterator, keys);
+        it.reset(this);
+        return it;
+    }
+
+    /**
+     * @param reversed ignored, the map has no order
+     */
+    @Nonnull
+    public static <V> NestedIterator<LongHashMap<V>, V> newIterator(boolean reversed) {
+        return HashSimpleIterator.create();
+    }
+
+    /**
+     * @param reversed ignored, the map has no order
+     */
+    @Nonnull
+    public static <V, T> NestedIterator<LongHashMap<V>, T> newIterator(
+            @Nonnull NestedIterator<V, T> iterator, boolean reversed) {
+        return HashChainedIterator.create(iterator);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<LongHashMap<V>, V> newIteratorByKey(@Nullable Long key) {
+        return SingletonSimpleIterator.create(key);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<LongHashMap<V>, T> newIteratorByKey(
+            @Nonnull NestedIterator<V, T> iterator, @Nullable Long key) {
+        return SingletonChainedIterator.create(iterator, key);
+    }
+
+    @Nonnull
+    public static <V> NestedIterator<LongHashMap<V>, V> newIteratorByKeys(@Nonnull Long[] keys) {
+        return ArraySimpleIterator.create(keys);
+    }
+
+    @Nonnull
+    public static <V, T> NestedIterator<LongHashMap<V>, T> newIteratorByKeys(
+            @Nonnull NestedIterator<V, T> iterator, @Nonnull Long[] keys) {
+        return ArrayChainedIterator.create(iterator, keys);
+    }
+}
@@ -23,20 +23,55 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
     }
 
     public LongTreeMap(int capacity) {
-        super(capacity);
+        this(capacity, capacity);
+    }
+
+    public LongTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public LongTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new long[capacity];
     }
 
-    private LongTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            long[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private LongTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, long[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected LongTreeMap<V> clone() {
-        return new LongTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(), keys.clone());
+        final var clone = new LongTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys keys in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull long[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 1; i < count; i++) {
+            if (sortedKeys[i] <= sortedKeys[i - 1]) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -112,6 +147,8 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
             } else {
                 final var value = values[p];
 
+                removing(p);
+
                 // If strictly internal, copy successor's element to p and then make p
                 // point to successor.
                 if (left(p) != 0 && right(p) != 0) {
@@ -178,12 +215,14 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -201,6 +240,7 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
             root = n;
             keys[n] = key;
             values[n] = value;
+            inserted(n);
             size++;
             modCount++;
             return null;
@@ -219,6 +259,7 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
                 } else {
                     final var oldValue = values[t];
                     values[t] = value;
+                    replaced(t);
                     return (V) oldValue;
                 }
             } while (t != 0);
@@ -233,6 +274,7 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
                 flags[parent * 3 + 1] = e;
             }
 
+            inserted(e);
             fixAfterInsertion(e);
             size++;
             modCount++;
@@ -251,6 +293,55 @@ public final class LongTreeMap<V> extends AbstractTreeMap<Long, V, LongTreeMap<V
         keys[from] = 0;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable Long key, int delta) {
+        addWeight(key == null ? nullKey : getEntry((long) key), delta);
+    }
+
+    public void addCount(long key, int delta) {
+        addWeight(getEntry(key), delta);
+    }
+
+    protected int getEntry(long key) {
+
+        int p = root;
+
+        while (p != 0) {
+            final var k = keys[p];
+            if (key < k) {
+                p = left(p);
+            } else if (key > k) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull Long key, int p) {
+        return Long.compare(key, keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull Long key1, @Nonnull Long key2) {
+        return Long.compare(key1, key2);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull Long key) {
+        return getCeilingEntry((long) key);
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull Long key) {
+        return getHigherEntry((long) key);
+    }
+
     @Override
     public boolean containsKey(@Nullable Long key) {
 
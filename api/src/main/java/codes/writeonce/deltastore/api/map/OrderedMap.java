@@ -0,0 +1,18 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Sorted index map. The {@code null} key sorts before any other key.
+ */
+public interface OrderedMap<K, V, M extends OrderedMap<K, V, M>> extends IndexMap<K, V, M> {
+
+    @Nonnull
+    NestedIterator<M, V> iteratorByRange(@Nullable K fromKey, boolean fromExclusive, @Nullable K toKey,
+            boolean toExclusive, boolean reversed);
+
+    @Nonnull
+    <T> NestedIterator<M, T> iteratorByRange(@Nonnull NestedIterator<V, T> iterator, @Nullable K fromKey,
+            boolean fromExclusive, @Nullable K toKey, boolean toExclusive, boolean reversed);
+}
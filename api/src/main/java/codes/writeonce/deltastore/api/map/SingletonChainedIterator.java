@@ -1,15 +1,15 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T> extends NestedIterator<M, T> {
+final class SingletonChainedIterator<K, V, M extends IndexMap<K, V, M>, T> extends NestedIterator<M, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<SingletonChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, SingletonChainedIterator::new);
+    private static final ThreadLocalArrayPool<SingletonChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, SingletonChainedIterator::new);
 
     private NestedIterator<V, T> iterator;
 
@@ -26,7 +26,7 @@ final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T
     private boolean keep;
 
     @SuppressWarnings("unchecked")
-    public static <K, V, M extends AbstractTreeMap<K, V, M>, T> SingletonChainedIterator<K, V, M, T> create(
+    public static <K, V, M extends IndexMap<K, V, M>, T> SingletonChainedIterator<K, V, M, T> create(
             @Nonnull NestedIterator<V, T> iterator, @Nullable K key) {
         final SingletonChainedIterator<K, V, M, T> value = POOL.get();
         value.init(iterator, key);
@@ -46,7 +46,7 @@ final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T
     @Override
     public T get() {
 
-        if (cached && expectedModCount == map.modCount) {
+        if (cached && expectedModCount == map.modCount()) {
             final var value = iterator.get();
             if (value != null) {
                 return value;
@@ -63,7 +63,7 @@ final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T
                 }
                 final var value = iterator.get();
                 if (value != null) {
-                    expectedModCount = map.modCount;
+                    expectedModCount = map.modCount();
                     cached = true;
                     keep = true;
                     return value;
@@ -80,7 +80,7 @@ final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T
     @Override
     public boolean hasNext() {
 
-        if (cached && expectedModCount == map.modCount) {
+        if (cached && expectedModCount == map.modCount()) {
             final var value = iterator.hasNext();
             if (value) {
                 return true;
@@ -97,7 +97,7 @@ final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T
                 }
                 final var value = iterator.hasNext();
                 if (value) {
-                    expectedModCount = map.modCount;
+                    expectedModCount = map.modCount();
                     cached = true;
                     keep = true;
                     return true;
@@ -111,6 +111,11 @@ final class SingletonChainedIterator<K, V, M extends AbstractTreeMap<K, V, M>, T
         return false;
     }
 
+    @Override
+    public int skip(int count) {
+        return count > 0 && hasNext() ? iterator.skip(count) : 0;
+    }
+
     @Override
     public void reset(@Nonnull M map) {
 
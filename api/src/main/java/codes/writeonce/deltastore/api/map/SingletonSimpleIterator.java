@@ -1,15 +1,15 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-final class SingletonSimpleIterator<K, V, M extends AbstractTreeMap<K, V, M>> extends NestedIterator<M, V> {
+final class SingletonSimpleIterator<K, V, M extends IndexMap<K, V, M>> extends NestedIterator<M, V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<SingletonSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, SingletonSimpleIterator::new);
+    private static final ThreadLocalArrayPool<SingletonSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, SingletonSimpleIterator::new);
 
     private K key;
 
@@ -18,7 +18,7 @@ final class SingletonSimpleIterator<K, V, M extends AbstractTreeMap<K, V, M>> ex
     private boolean index;
 
     @SuppressWarnings("unchecked")
-    public static <K, V, M extends AbstractTreeMap<K, V, M>> SingletonSimpleIterator<K, V, M> create(@Nullable K key) {
+    public static <K, V, M extends IndexMap<K, V, M>> SingletonSimpleIterator<K, V, M> create(@Nullable K key) {
         final SingletonSimpleIterator<K, V, M> value = POOL.get();
         value.init(key);
         return value;
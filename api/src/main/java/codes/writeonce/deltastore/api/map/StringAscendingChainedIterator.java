@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class StringAscendingChainedIterator<V, T> extends AbstractStringAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<StringAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, StringAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<StringAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, StringAscendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> StringAscendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator,
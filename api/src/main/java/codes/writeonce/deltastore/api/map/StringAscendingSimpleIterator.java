@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class StringAscendingSimpleIterator<V> extends AbstractStringAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<StringAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, StringAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<StringAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, StringAscendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> StringAscendingSimpleIterator<V> create(boolean exclusive) {
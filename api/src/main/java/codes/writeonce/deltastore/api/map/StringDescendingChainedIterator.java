@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class StringDescendingChainedIterator<V, T> extends AbstractStringDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<StringDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, StringDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<StringDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, StringDescendingChainedIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V, T> StringDescendingChainedIterator<V, T> create(@Nonnull NestedIterator<V, T> iterator) {
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class StringDescendingSimpleIterator<V> extends AbstractStringDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<StringDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, StringDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<StringDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, StringDescendingSimpleIterator::new);
 
     @SuppressWarnings("unchecked")
     public static <V> StringDescendingSimpleIterator<V> create() {
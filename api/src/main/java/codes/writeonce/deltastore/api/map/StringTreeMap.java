@@ -21,22 +21,57 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
         this(1);
     }
 
-    private StringTreeMap(int capacity) {
-        super(capacity);
+    public StringTreeMap(int capacity) {
+        this(capacity, capacity);
+    }
+
+    public StringTreeMap(int capacity, int retainedCapacity) {
+        this(capacity, retainedCapacity, false);
+    }
+
+    public StringTreeMap(int capacity, int retainedCapacity, boolean counted) {
+        super(capacity, retainedCapacity, counted);
         keys = new Object[capacity];
     }
 
-    private StringTreeMap(int root, int nullKey, int capacity, int size, int modCount, Object[] values, int[] flags,
-            Object[] keys) {
-        super(root, nullKey, capacity, size, modCount, values, flags);
+    private StringTreeMap(int root, int nullKey, int capacity, int minCapacity, int size, int modCount,
+            Object[] values, int[] flags, Object[] keys) {
+        super(root, nullKey, capacity, minCapacity, size, modCount, values, flags);
         this.keys = keys;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     protected StringTreeMap<V> clone() {
-        return new StringTreeMap<>(root, nullKey, capacity, size, modCount, values.clone(), flags.clone(),
-                keys.clone());
+        final var clone = new StringTreeMap<V>(root, nullKey, capacity, minCapacity, size, modCount,
+                values.clone(), flags.clone(), keys.clone());
+        clone.counts = counts == null ? null : counts.clone();
+        return clone;
+    }
+
+    /**
+     * Fills the empty map with the entries in linear time, building a balanced tree in arrays sized for them. The
+     * {@code null} key is not accepted here, {@link #put} it afterwards.
+     *
+     * @param sortedKeys keys in strictly ascending order
+     * @param values     values of the keys at the same positions
+     * @param count      number of the entries
+     */
+    public void bulkLoad(@Nonnull String[] sortedKeys, @Nonnull Object[] values, int count) {
+
+        checkBulkLoad(sortedKeys.length, values.length, count);
+
+        for (int i = 0; i < count; i++) {
+            final var key = sortedKeys[i];
+            if (key == null || i != 0 && key.compareTo(sortedKeys[i - 1]) <= 0) {
+                throw notAscending(i);
+            }
+        }
+
+        presize(count);
+        System.arraycopy(sortedKeys, 0, keys, 1, count);
+        System.arraycopy(values, 0, this.values, 1, count);
+        link(count);
     }
 
     @Override
@@ -54,7 +89,7 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
             int p = root;
 
             while (p != 0) {
-                int cmp = key.compareTo((String) keys[p]);
+                int cmp = compare(key, keys[p]);
                 if (cmp < 0) {
                     p = left(p);
                 } else if (cmp > 0) {
@@ -89,7 +124,7 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
             int p = root;
 
             while (p != 0) {
-                int cmp = key.compareTo((String) keys[p]);
+                int cmp = compare(key, keys[p]);
                 if (cmp < 0) {
                     p = flags[p * 3];
                 } else if (cmp > 0) {
@@ -97,6 +132,8 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
                 } else {
                     final var value = values[p];
 
+                    removing(p);
+
                     // If strictly internal, copy successor's element to p and then make p
                     // point to successor.
                     if (left(p) != 0 && right(p) != 0) {
@@ -164,12 +201,14 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
                 n = allocate();
                 nullKey = n;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
             } else {
                 final var oldValue = values[n];
                 values[n] = value;
+                replaced(n);
                 return (V) oldValue;
             }
         } else {
@@ -179,6 +218,7 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
                 root = n;
                 keys[n] = key;
                 values[n] = value;
+                inserted(n);
                 size++;
                 modCount++;
                 return null;
@@ -189,7 +229,7 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
 
                 do {
                     parent = t;
-                    cmp = key.compareTo((String) keys[t]);
+                    cmp = compare(key, keys[t]);
                     if (cmp < 0) {
                         t = left(t);
                     } else if (cmp > 0) {
@@ -197,6 +237,7 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
                     } else {
                         final var oldValue = values[t];
                         values[t] = value;
+                        replaced(t);
                         return (V) oldValue;
                     }
                 } while (t != 0);
@@ -211,6 +252,7 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
                     flags[parent * 3 + 1] = e;
                 }
 
+                inserted(e);
                 fixAfterInsertion(e);
                 size++;
                 modCount++;
@@ -230,6 +272,58 @@ public final class StringTreeMap<V> extends AbstractTreeMap<String, V, StringTre
         keys[from] = null;
     }
 
+    /**
+     * Adds to the weight of the entry of the key in the counted map, see {@link #count()}.
+     */
+    public void addCount(@Nullable String key, int delta) {
+        addWeight(key == null ? nullKey : getEntry(key), delta);
+    }
+
+    /**
+     * Keys taken from the records of dictionary fields share their instances, so equal keys are often identical.
+     */
+    private static int compare(@Nonnull String key, Object other) {
+        return key == other ? 0 : key.compareTo((String) other);
+    }
+
+    protected int getEntry(@Nonnull String key) {
+
+        int p = root;
+
+        while (p != 0) {
+            int cmp = compare(key, keys[p]);
+            if (cmp < 0) {
+                p = left(p);
+            } else if (cmp > 0) {
+                p = right(p);
+            } else {
+                return p;
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected int compareKey(@Nonnull String key, int p) {
+        return compare(key, keys[p]);
+    }
+
+    @Override
+    protected int compareKeys(@Nonnull String key1, @Nonnull String key2) {
+        return compare(key1, key2);
+    }
+
+    @Override
+    protected int ceilingEntry(@Nonnull String key) {
+        return getCeilingEntry(key);
+    }
+
+    @Override
+    protected int higherEntry(@Nonnull String key) {
+        return getHigherEntry(key);
+    }
+
     @Override
     public boolean containsKey(@Nullable String key) {
 
@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -9,8 +9,8 @@ final class ToKeyExclusiveBigDecimalAscendingChainedIterator<V, T>
         extends AbstractBigDecimalAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBigDecimalAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBigDecimalAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalAscendingChainedIterator::new);
 
     private BigDecimal toKey;
 
@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -8,8 +8,8 @@ import java.math.BigDecimal;
 final class ToKeyExclusiveBigDecimalAscendingSimpleIterator<V> extends AbstractBigDecimalAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBigDecimalAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBigDecimalAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalAscendingSimpleIterator::new);
 
     private BigDecimal toKey;
 
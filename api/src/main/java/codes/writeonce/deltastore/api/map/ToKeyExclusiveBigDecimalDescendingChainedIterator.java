@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -9,8 +9,8 @@ final class ToKeyExclusiveBigDecimalDescendingChainedIterator<V, T>
         extends AbstractBigDecimalDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBigDecimalDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBigDecimalDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalDescendingChainedIterator::new);
 
     private BigDecimal toKey;
 
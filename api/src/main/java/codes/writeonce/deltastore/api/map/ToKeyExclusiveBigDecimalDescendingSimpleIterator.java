@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -8,8 +8,8 @@ import java.math.BigDecimal;
 final class ToKeyExclusiveBigDecimalDescendingSimpleIterator<V> extends AbstractBigDecimalDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBigDecimalDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBigDecimalDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBigDecimalDescendingSimpleIterator::new);
 
     private BigDecimal toKey;
 
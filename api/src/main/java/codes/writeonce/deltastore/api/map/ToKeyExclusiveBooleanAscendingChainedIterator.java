@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class ToKeyExclusiveBooleanAscendingChainedIterator<V, T> extends AbstractBooleanAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBooleanAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBooleanAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanAscendingChainedIterator::new);
 
     private boolean toKey;
 
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyExclusiveBooleanAscendingSimpleIterator<V> extends AbstractBooleanAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBooleanAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBooleanAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanAscendingSimpleIterator::new);
 
     private boolean toKey;
 
@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
@@ -8,8 +8,8 @@ final class ToKeyExclusiveBooleanDescendingChainedIterator<V, T>
         extends AbstractBooleanDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBooleanDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBooleanDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanDescendingChainedIterator::new);
 
     private boolean toKey;
 
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyExclusiveBooleanDescendingSimpleIterator<V> extends AbstractBooleanDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveBooleanDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveBooleanDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveBooleanDescendingSimpleIterator::new);
 
     private boolean toKey;
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class ToKeyExclusiveEnumAscendingChainedIterator<V, T> extends AbstractEnumAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveEnumAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveEnumAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumAscendingChainedIterator::new);
 
     private int toKey;
 
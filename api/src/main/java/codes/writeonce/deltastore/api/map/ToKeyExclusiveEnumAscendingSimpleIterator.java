@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyExclusiveEnumAscendingSimpleIterator<V> extends AbstractEnumAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveEnumAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveEnumAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumAscendingSimpleIterator::new);
 
     private int toKey;
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class ToKeyExclusiveEnumDescendingChainedIterator<V, T> extends AbstractEnumDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveEnumDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveEnumDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumDescendingChainedIterator::new);
 
     private int toKey;
 
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyExclusiveEnumDescendingSimpleIterator<V> extends AbstractEnumDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveEnumDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveEnumDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveEnumDescendingSimpleIterator::new);
 
     private int toKey;
 
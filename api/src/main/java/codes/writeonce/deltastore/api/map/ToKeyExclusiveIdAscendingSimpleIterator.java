@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyExclusiveIdAscendingSimpleIterator<V> extends AbstractIdAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveIdAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveIdAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveIdAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveIdAscendingSimpleIterator::new);
 
     private long toKey;
 
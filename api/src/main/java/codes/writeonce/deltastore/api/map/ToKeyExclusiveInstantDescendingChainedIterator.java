@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
@@ -8,8 +8,8 @@ final class ToKeyExclusiveInstantDescendingChainedIterator<V, T>
         extends AbstractInstantDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveInstantDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveInstantDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveInstantDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveInstantDescendingChainedIterator::new);
 
     private long toKey1;
 
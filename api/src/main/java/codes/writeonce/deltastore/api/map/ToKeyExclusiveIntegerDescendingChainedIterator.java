@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
@@ -8,8 +8,8 @@ final class ToKeyExclusiveIntegerDescendingChainedIterator<V, T>
         extends AbstractIntegerDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyExclusiveIntegerDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyExclusiveIntegerDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyExclusiveIntegerDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyExclusiveIntegerDescendingChainedIterator::new);
 
     private int toKey;
 
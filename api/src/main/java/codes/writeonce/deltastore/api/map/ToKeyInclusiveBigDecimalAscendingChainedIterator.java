@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -9,8 +9,8 @@ final class ToKeyInclusiveBigDecimalAscendingChainedIterator<V, T>
         extends AbstractBigDecimalAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveBigDecimalAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveBigDecimalAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveBigDecimalAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveBigDecimalAscendingChainedIterator::new);
 
     private BigDecimal toKey;
 
@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -9,8 +9,8 @@ final class ToKeyInclusiveBigDecimalDescendingChainedIterator<V, T>
         extends AbstractBigDecimalDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveBigDecimalDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveBigDecimalDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveBigDecimalDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveBigDecimalDescendingChainedIterator::new);
 
     private BigDecimal toKey;
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class ToKeyInclusiveBooleanAscendingChainedIterator<V, T> extends AbstractBooleanAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveBooleanAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveBooleanAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanAscendingChainedIterator::new);
 
     private boolean toKey;
 
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyInclusiveBooleanAscendingSimpleIterator<V> extends AbstractBooleanAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveBooleanAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveBooleanAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanAscendingSimpleIterator::new);
 
     private boolean toKey;
 
@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
@@ -8,8 +8,8 @@ final class ToKeyInclusiveBooleanDescendingChainedIterator<V, T>
         extends AbstractBooleanDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveBooleanDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveBooleanDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanDescendingChainedIterator::new);
 
     private boolean toKey;
 
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyInclusiveBooleanDescendingSimpleIterator<V> extends AbstractBooleanDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveBooleanDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveBooleanDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveBooleanDescendingSimpleIterator::new);
 
     private boolean toKey;
 
@@ -1,14 +1,14 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
 final class ToKeyInclusiveEnumAscendingChainedIterator<V, T> extends AbstractEnumAscendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveEnumAscendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveEnumAscendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveEnumAscendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveEnumAscendingChainedIterator::new);
 
     private int toKey;
 
@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyInclusiveEnumAscendingSimpleIterator<V> extends AbstractEnumAscendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveEnumAscendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveEnumAscendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveEnumAscendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveEnumAscendingSimpleIterator::new);
 
     private int toKey;
 
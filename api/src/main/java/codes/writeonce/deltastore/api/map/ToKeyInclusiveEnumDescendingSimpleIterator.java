@@ -1,12 +1,12 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 final class ToKeyInclusiveEnumDescendingSimpleIterator<V> extends AbstractEnumDescendingSimpleIterator<V> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveEnumDescendingSimpleIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveEnumDescendingSimpleIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveEnumDescendingSimpleIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveEnumDescendingSimpleIterator::new);
 
     private int toKey;
 
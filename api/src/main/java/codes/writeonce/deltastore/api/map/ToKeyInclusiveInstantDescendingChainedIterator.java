@@ -1,6 +1,6 @@
 package codes.writeonce.deltastore.api.map;
 
-import codes.writeonce.deltastore.api.ArrayPool;
+import codes.writeonce.deltastore.api.ThreadLocalArrayPool;
 
 import javax.annotation.Nonnull;
 
@@ -8,8 +8,8 @@ final class ToKeyInclusiveInstantDescendingChainedIterator<V, T>
         extends AbstractInstantDescendingChainedIterator<V, T> {
 
     @SuppressWarnings("rawtypes")
-    private static final ArrayPool<ToKeyInclusiveInstantDescendingChainedIterator> POOL =
-            new ArrayPool<>(POOL_SIZE, ToKeyInclusiveInstantDescendingChainedIterator::new);
+    private static final ThreadLocalArrayPool<ToKeyInclusiveInstantDescendingChainedIterator> POOL =
+            new ThreadLocalArrayPool<>(POOL_SIZE, ToKeyInclusiveInstantDescendingChainedIterator::new);
 
     private long toKey1;
 
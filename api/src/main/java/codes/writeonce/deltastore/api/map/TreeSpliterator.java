@@ -0,0 +1,308 @@
+package codes.writeonce.deltastore.api.map;
+
+import javax.annotation.Nonnull;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Traverses a range of the nodes of a tree map in the key order, splitting it at the median place of a counted map or
+ * at the root of the subtree spanning the range otherwise. A range narrowed down to a single entry of nested values
+ * goes on splitting the spliterator of the nested values.
+ * <p>
+ * The sizes of the ranges of a counted map are exact. Neither the map nor the nested values may be modified while the
+ * spliterator is in use.
+ */
+final class TreeSpliterator<V, T> implements Spliterator<T> {
+
+    private final AbstractTreeMap<?, V, ?> map;
+
+    /**
+     * spliterator over the elements of a value, or {@code null} if the values are the elements
+     */
+    private final Function<? super V, ? extends Spliterator<T>> nested;
+
+    private final int expectedModCount;
+
+    /**
+     * node of the {@code null} key still to be traversed, or {@code 0}
+     */
+    private int nullNode;
+
+    /**
+     * first node of the range still to be traversed, or {@code 0} if none is left
+     */
+    private int first;
+
+    /**
+     * last node of the range still to be traversed
+     */
+    private int last;
+
+    /**
+     * spliterator over the nested values of the entry being traversed
+     */
+    private Spliterator<T> current;
+
+    /**
+     * size estimate of the range of a map not counted
+     */
+    private long estimate;
+
+    TreeSpliterator(
+            @Nonnull AbstractTreeMap<?, V, ?> map,
+            Function<? super V, ? extends Spliterator<T>> nested,
+            int nullNode,
+            int first,
+            int last,
+            long estimate
+    ) {
+        this(map, nested, map.modCount, nullNode, first, last, estimate);
+    }
+
+    private TreeSpliterator(
+            @Nonnull AbstractTreeMap<?, V, ?> map,
+            Function<? super V, ? extends Spliterator<T>> nested,
+            int expectedModCount,
+            int nullNode,
+            int first,
+            int last,
+            long estimate
+    ) {
+        this.map = map;
+        this.nested = nested;
+        this.expectedModCount = expectedModCount;
+        this.nullNode = nullNode;
+        this.first = first;
+        this.last = first == 0 ? 0 : last;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+
+        if (current != null) {
+            if (first == 0 && nullNode == 0) {
+                return current.trySplit();
+            }
+            final Spliterator<T> prefix = current;
+            current = null;
+            return prefix;
+        }
+
+        if (first == 0) {
+            return null;
+        }
+
+        if (first == last) {
+            if (nullNode != 0) {
+                return new TreeSpliterator<>(map, nested, expectedModCount, takeNullNode(), 0, 0, estimate >>>= 1);
+            }
+            if (nested == null) {
+                return null;
+            }
+            current = nested.apply(value(first));
+            first = 0;
+            last = 0;
+            return current.trySplit();
+        }
+
+        final int middle = middle();
+        final TreeSpliterator<V, T> prefix = new TreeSpliterator<>(map, nested, expectedModCount, takeNullNode(),
+                first, map.predecessor(middle), estimate >>>= 1);
+        first = middle;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+
+        requireNonNull(action);
+
+        while (true) {
+            if (current != null) {
+                if (current.tryAdvance(action)) {
+                    return true;
+                }
+                current = null;
+            }
+
+            final int node = next();
+            if (node == 0) {
+                return false;
+            }
+
+            if (nested == null) {
+                action.accept(element(node));
+                checkModCount();
+                return true;
+            }
+
+            current = nested.apply(value(node));
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+
+        requireNonNull(action);
+
+        if (current != null) {
+            current.forEachRemaining(action);
+            current = null;
+        }
+
+        for (int node = next(); node != 0; node = next()) {
+            if (nested == null) {
+                action.accept(element(node));
+            } else {
+                nested.apply(value(node)).forEachRemaining(action);
+            }
+        }
+
+        checkModCount();
+    }
+
+    @Override
+    public long estimateSize() {
+
+        if (map.counts == null) {
+            return estimate;
+        }
+
+        long size = map.counts[nullNode];
+        if (first != 0) {
+            size += map.countBefore(last) + map.weight(last) - map.countBefore(first);
+        }
+        if (current != null) {
+            final long remaining = current.estimateSize();
+            if (remaining == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            size += remaining;
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        if (map.counts == null) {
+            return ORDERED | NONNULL;
+        }
+        return nested == null ? ORDERED | NONNULL | SIZED | SUBSIZED : ORDERED | NONNULL | SIZED;
+    }
+
+    private int next() {
+
+        if (nullNode != 0) {
+            return takeNullNode();
+        }
+
+        final int node = first;
+        if (node != 0) {
+            first = node == last ? 0 : map.successor(node);
+            if (first == 0) {
+                last = 0;
+            }
+        }
+        return node;
+    }
+
+    private int takeNullNode() {
+        final int node = nullNode;
+        nullNode = 0;
+        return node;
+    }
+
+    /**
+     * @return node splitting the range of more than one node into two non-empty parts, the first node of the second one
+     */
+    private int middle() {
+
+        int middle;
+
+        if (map.counts == null) {
+            middle = commonAncestor(map, first, last);
+        } else {
+            final int from = map.countBefore(first);
+            final int to = map.countBefore(last) + map.weight(last);
+            middle = map.selectEntry(map.counts[map.nullKey] + (from + to >>> 1));
+        }
+
+        return middle == first ? map.successor(first) : middle;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int node) {
+        return (V) map.values[node];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element(int node) {
+        return (T) map.values[node];
+    }
+
+    private void checkModCount() {
+        if (map.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * @return {@code true} if the first node precedes the second one in the key order
+     */
+    static boolean precedes(@Nonnull AbstractTreeMap<?, ?, ?> map, int a, int b) {
+
+        if (a == b) {
+            return false;
+        }
+
+        final int ancestor = commonAncestor(map, a, b);
+        if (ancestor == a) {
+            return childOf(map, a, b) == map.right(a);
+        }
+        if (ancestor == b) {
+            return childOf(map, b, a) == map.left(b);
+        }
+        return childOf(map, ancestor, a) == map.left(ancestor);
+    }
+
+    private static int commonAncestor(@Nonnull AbstractTreeMap<?, ?, ?> map, int a, int b) {
+
+        int depthA = depth(map, a);
+        int depthB = depth(map, b);
+
+        for (; depthA > depthB; depthA--) {
+            a = map.parent(a);
+        }
+        for (; depthB > depthA; depthB--) {
+            b = map.parent(b);
+        }
+        while (a != b) {
+            a = map.parent(a);
+            b = map.parent(b);
+        }
+        return a;
+    }
+
+    private static int depth(@Nonnull AbstractTreeMap<?, ?, ?> map, int p) {
+        int depth = 0;
+        for (p = map.parent(p); p != 0; p = map.parent(p)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * @return child of the ancestor on the path to its descendant
+     */
+    private static int childOf(@Nonnull AbstractTreeMap<?, ?, ?> map, int ancestor, int descendant) {
+        while (map.parent(descendant) != ancestor) {
+            descendant = map.parent(descendant);
+        }
+        return descendant;
+    }
+}
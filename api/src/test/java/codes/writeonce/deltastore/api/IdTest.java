@@ -2,7 +2,12 @@ package codes.writeonce.deltastore.api;
 
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class IdTest {
 
@@ -10,4 +15,56 @@ public class IdTest {
     public void of() {
         assertSame(Id.of(1000), Id.of(1000));
     }
+
+    @Test
+    public void striped() {
+
+        final StripedIdInterner interner = new StripedIdInterner(4);
+        final Id<?>[] ids = new Id<?>[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = interner.intern(i * 31L);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertSame(ids[i], interner.intern(i * 31L));
+            assertEquals(i * 31L, ids[i].value());
+        }
+
+        assertEquals(ids.length, interner.getMisses());
+        assertEquals(ids.length, interner.getHits());
+        assertEquals(ids.length, interner.size());
+    }
+
+    @Test
+    public void stripedReclaims() throws InterruptedException {
+
+        final StripedIdInterner interner = new StripedIdInterner(1);
+        WeakReference<Id<?>> reference = new WeakReference<>(interner.intern(-1));
+        for (int i = 0; i < 1000; i++) {
+            interner.intern(i);
+        }
+
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(reference.get() == null);
+
+        long value = 1000;
+        for (int i = 0; i < 100 && interner.size() > 1; i++) {
+            interner.intern(value++);
+            Thread.sleep(10);
+        }
+        assertTrue(interner.size() < 1000);
+        assertEquals(-1, interner.intern(-1).value());
+    }
+
+    @Test
+    public void none() {
+
+        final NoIdInterner interner = new NoIdInterner();
+        final Id<?> id = interner.intern(1000);
+        assertNotSame(id, interner.intern(1000));
+        assertEquals(id, interner.intern(1000));
+        assertEquals(3, interner.getMisses());
+    }
 }
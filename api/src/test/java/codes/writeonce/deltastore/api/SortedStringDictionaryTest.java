@@ -0,0 +1,96 @@
+package codes.writeonce.deltastore.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static codes.writeonce.deltastore.api.SortedStringDictionary.MISSING_LABEL;
+import static codes.writeonce.deltastore.api.SortedStringDictionary.NULL_LABEL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SortedStringDictionaryTest {
+
+    @Test
+    public void orderedLabels() {
+        final SortedStringDictionary dictionary = new SortedStringDictionary();
+
+        assertEquals(0, dictionary.acquire(null));
+        assertEquals(NULL_LABEL, dictionary.label(0));
+        assertEquals(NULL_LABEL, dictionary.label((String) null));
+
+        final int b = dictionary.acquire("b");
+        final int a = dictionary.acquire("a");
+        final int c = dictionary.acquire("c");
+        assertEquals(b, dictionary.acquire(new String("b")));
+        assertEquals(3, dictionary.size());
+
+        assertTrue(NULL_LABEL < dictionary.label(a));
+        assertTrue(dictionary.label(a) < dictionary.label(b));
+        assertTrue(dictionary.label(b) < dictionary.label(c));
+        assertEquals(MISSING_LABEL, dictionary.label("bb"));
+
+        assertEquals((Integer) dictionary.label(c), dictionary.ceiling("bb", false));
+        assertEquals((Integer) dictionary.label(b), dictionary.ceiling("b", false));
+        assertEquals((Integer) dictionary.label(c), dictionary.ceiling("b", true));
+        assertEquals((Integer) Integer.MAX_VALUE, dictionary.ceiling("d", false));
+        assertEquals((Integer) dictionary.label(b), dictionary.floor("bb", false));
+        assertEquals((Integer) dictionary.label(a), dictionary.floor("b", true));
+        assertEquals((Integer) NULL_LABEL, dictionary.floor("a", true));
+        assertNull(dictionary.ceiling(null, false));
+        assertNull(dictionary.floor(null, true));
+
+        final int d = dictionary.replace(b, "d");
+        assertEquals("b", dictionary.get(b));
+        dictionary.release(b);
+        assertNull(dictionary.get(b));
+        assertEquals(MISSING_LABEL, dictionary.label("b"));
+        assertEquals((Integer) dictionary.label(c), dictionary.ceiling("b", false));
+        assertTrue(dictionary.label(c) < dictionary.label(d));
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    public void relabel() {
+        final SortedStringDictionary dictionary = new SortedStringDictionary();
+        final TreeMap<String, Integer> expected = new TreeMap<>();
+        final List<Integer> relabels = new ArrayList<>();
+
+        dictionary.addListener(mapping -> {
+            relabels.add(1);
+            expected.replaceAll((value, label) -> {
+                final int relabelled = mapping.applyAsInt(label);
+                assertEquals(dictionary.label(value), relabelled);
+                return relabelled;
+            });
+        });
+
+        // appending in order halves the gap at the end every time
+        final Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            final String value = i % 2 == 0 ? String.format("%05d", i) : Integer.toString(random.nextInt(100000));
+            if (!expected.containsKey(value)) {
+                expected.put(value, dictionary.acquireLabel(value));
+            }
+            if (i % 7 == 0) {
+                final String removed = expected.firstKey();
+                dictionary.releaseLabel(removed);
+                expected.remove(removed);
+            }
+        }
+
+        assertTrue(!relabels.isEmpty());
+        assertEquals(expected.size(), dictionary.size());
+
+        int previous = NULL_LABEL;
+        for (final var entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), dictionary.label(entry.getKey()));
+            assertTrue(previous < entry.getValue());
+            previous = entry.getValue();
+        }
+    }
+}
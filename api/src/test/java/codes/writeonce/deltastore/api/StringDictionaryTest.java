@@ -0,0 +1,61 @@
+package codes.writeonce.deltastore.api;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void sharedCodes() {
+        final StringDictionary dictionary = new StringDictionary();
+
+        assertEquals(0, dictionary.acquire(null));
+        assertNull(dictionary.get(0));
+
+        final int a = dictionary.acquire("a");
+        assertEquals(a, dictionary.acquire(new String("a")));
+        assertEquals(1, dictionary.size());
+
+        final int b = dictionary.replace(a, "b");
+        assertEquals("a", dictionary.get(a));
+        assertEquals("b", dictionary.get(b));
+
+        dictionary.release(a);
+        assertNull(dictionary.get(a));
+        assertEquals(b, dictionary.replace(b, "b"));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    public void random() {
+        final StringDictionary dictionary = new StringDictionary();
+        final Random random = new Random(1);
+        final Map<String, Integer> references = new HashMap<>();
+        final Map<String, Integer> codes = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            final String value = String.valueOf(random.nextInt(500));
+            if (random.nextBoolean()) {
+                final int code = dictionary.acquire(value);
+                final Integer previous = codes.putIfAbsent(value, code);
+                assertEquals(previous == null ? code : previous, code);
+                references.merge(value, 1, Integer::sum);
+            } else if (references.containsKey(value)) {
+                final int code = codes.get(value);
+                assertEquals(value, dictionary.get(code));
+                dictionary.release(code);
+                if (references.merge(value, -1, Integer::sum) == 0) {
+                    references.remove(value);
+                    codes.remove(value);
+                }
+            }
+            assertEquals(references.size(), dictionary.size());
+        }
+    }
+}
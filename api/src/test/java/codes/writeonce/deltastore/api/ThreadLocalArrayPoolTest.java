@@ -0,0 +1,79 @@
+package codes.writeonce.deltastore.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadLocalArrayPoolTest {
+
+    @Test
+    public void reuse() {
+        final List<Object> cleaned = new ArrayList<>();
+        final ThreadLocalArrayPool<Object> pool = new ThreadLocalArrayPool<>(1, Object::new, cleaned::add);
+
+        final Object a = pool.get();
+        final Object b = pool.get();
+        pool.put(a);
+        pool.put(b);
+
+        assertEquals(2, cleaned.size());
+        assertSame(a, pool.get());
+        assertNotSame(a, pool.get());
+
+        assertEquals(1, pool.getHits());
+        assertEquals(3, pool.getMisses());
+        assertEquals(1, pool.getDrops());
+    }
+
+    @Test
+    public void perThread() throws InterruptedException {
+        final ThreadLocalArrayPool<Object> pool = new ThreadLocalArrayPool<>(16, Object::new, value -> {
+        });
+
+        final Object a = pool.get();
+        pool.put(a);
+
+        final Object[] other = new Object[1];
+        final Thread thread = new Thread(() -> other[0] = pool.get());
+        thread.start();
+        thread.join();
+
+        assertNotSame(a, other[0]);
+        assertSame(a, pool.get());
+    }
+
+    @Test
+    public void handoffFromReleasingThread() throws InterruptedException {
+        final ThreadLocalArrayPool<Object> pool = new ThreadLocalArrayPool<>(2, Object::new, value -> {
+        });
+
+        final Object a = pool.get();
+        final Object b = pool.get();
+        final Object c = pool.get();
+
+        final Thread thread = new Thread(() -> {
+            pool.put(a);
+            pool.put(b);
+            pool.put(c);
+        });
+        thread.start();
+        thread.join();
+
+        final Object d = pool.get();
+        final Object e = pool.get();
+        assertTrue(d == a || d == b);
+        assertTrue(e == a || e == b);
+        assertNotSame(d, e);
+        assertNotSame(c, pool.get());
+
+        assertEquals(2, pool.getHits());
+        assertEquals(4, pool.getMisses());
+        assertEquals(1, pool.getDrops());
+    }
+}
@@ -0,0 +1,81 @@
+package codes.writeonce.deltastore.api.map;
+
+import codes.writeonce.deltastore.api.Id;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IdTreeMapTest {
+
+    @Test
+    public void primitiveKeys() {
+
+        final var map = new IdTreeMap<Long>();
+        final var expected = new TreeMap<Long, Long>();
+
+        for (long i = 0; i < 1000; i++) {
+            final long key = i * 7 % 1000 * 3 - 1000;
+            assertNull(map.put(key, key));
+            expected.put(key, key);
+        }
+        map.put((Id<?>) null, Long.MIN_VALUE);
+
+        assertEquals(Long.valueOf(-1000), map.get(-1000));
+        assertEquals(Long.valueOf(-1000), map.get(Id.of(-1000)));
+        assertNull(map.get(-999));
+
+        assertEquals(Long.valueOf(5), map.remove(5));
+        expected.remove(5L);
+        assertNull(map.remove(5));
+
+        for (final long from : new long[]{-1001, -1000, -3, 0, 1, 500, 1996}) {
+            for (final long to : new long[]{-1000, -2, 0, 2, 501, 1997, 2000}) {
+                for (int flags = 0; flags < 8; flags++) {
+                    final boolean fromExclusive = (flags & 1) != 0;
+                    final boolean toExclusive = (flags & 2) != 0;
+                    final boolean reversed = (flags & 4) != 0;
+                    final var range = from > to ? new TreeMap<Long, Long>()
+                            : expected.subMap(from, !fromExclusive, to, !toExclusive);
+                    final var values = new ArrayList<>((reversed ? range.descendingMap() : range).values());
+
+                    assertEquals(values, values(map.iteratorByRange(from, fromExclusive, to, toExclusive, reversed)));
+                    assertEquals(values, values(map.iteratorByRange(Id.of(from), fromExclusive, Id.of(to),
+                            toExclusive, reversed)));
+                    assertEquals(values, chained(map, from, fromExclusive, to, toExclusive, reversed));
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static List<Long> chained(@Nonnull IdTreeMap<Long> map, long from, boolean fromExclusive, long to,
+            boolean toExclusive, boolean reversed) {
+
+        final var nested = new IdTreeMap<IdTreeMap<Long>>();
+        nested.put(1, map);
+        return values(nested.iteratorByRange(IdTreeMap.newIteratorByRange(from, fromExclusive, to, toExclusive,
+                reversed), 0, false, 2, false, false));
+    }
+
+    @Nonnull
+    private static List<Long> values(@Nonnull NestedIterator<?, Long> iterator) {
+
+        final var values = new ArrayList<Long>();
+        try (iterator) {
+            while (true) {
+                final var value = iterator.get();
+                if (value == null) {
+                    break;
+                }
+                values.add(value);
+            }
+        }
+        return values;
+    }
+}
@@ -4,16 +4,25 @@ import org.junit.Test;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeMap;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class IntegerTreeMapTest {
@@ -70,6 +79,427 @@ public class IntegerTreeMapTest {
         map.put(18, (Integer) 18);
     }
 
+    @Test
+    public void bulkLoad() {
+
+        for (int n = 0; n < 300; n++) {
+
+            final var all = Stream.iterate(1, k -> k + 1).limit(n).collect(toCollection(ArrayList::new));
+            final var keys = new int[n];
+            final var values = new Object[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = all.get(i);
+                values[i] = all.get(i);
+            }
+
+            final var map = new IntegerTreeMap<Integer>();
+            map.bulkLoad(keys, values, n);
+            check(map, emptySet(), all);
+            if (map.root != 0) {
+                assertEquals(0, map.parent(map.root));
+                blackHeight(map, map.root);
+            }
+
+            assertNull(map.put(n + 1, (Integer) (n + 1)));
+            all.add(n + 1);
+            check(map, emptySet(), all);
+
+            for (int i = 1; i <= n; i += 2) {
+                assertEquals((Integer) i, map.remove(i));
+                all.remove((Integer) i);
+            }
+            check(map, emptySet(), all);
+        }
+    }
+
+    @Test
+    public void retainedCapacity() {
+
+        final var map = new IntegerTreeMap<Integer>(8, 64);
+
+        for (int i = 0; i < 40; i++) {
+            map.put(i, (Integer) i);
+        }
+        final var values = map.values;
+        for (int i = 0; i < 40; i++) {
+            map.remove(i);
+        }
+        assertSame(values, map.values);
+
+        for (int i = 0; i < 100; i++) {
+            map.put(i, (Integer) i);
+        }
+        final var clone = map.clone();
+        for (int i = 0; i < 100; i++) {
+            map.remove(i);
+            clone.remove(i);
+        }
+        assertEquals(64, map.capacity);
+        assertTrue(map.isEmpty());
+        assertEquals(64, clone.capacity);
+        assertTrue(clone.isEmpty());
+    }
+
+    @Test
+    public void counts() {
+
+        final var random = new Random(1);
+        final var map = new IntegerTreeMap<Integer>(1, 1, true);
+        final var expected = new TreeMap<Integer, Integer>();
+        boolean nullKey = false;
+
+        for (int i = 0; i < 20000; i++) {
+            final int key = random.nextInt(2000);
+            switch (random.nextInt(5)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    map.put(null, (Integer) key);
+                    nullKey = true;
+                    break;
+                case 2:
+                    map.remove(null);
+                    nullKey = false;
+                    break;
+                default:
+                    assertEquals(expected.put(key, key), map.put(key, (Integer) key));
+                    break;
+            }
+
+            if (i % 100 == 0) {
+                assertEquals(map.size(), map.count());
+                assertEquals(map.size() - (nullKey ? 1 : 0), counts(map, map.root));
+                for (int j = 0; j < 10; j++) {
+                    final int from = random.nextInt(2100) - 50;
+                    final int to = from + random.nextInt(500);
+                    final boolean fromExclusive = random.nextBoolean();
+                    final boolean toExclusive = random.nextBoolean();
+                    assertEquals(expected.subMap(from, !fromExclusive, to, !toExclusive).size(),
+                            map.countRange(from, fromExclusive, to, toExclusive));
+                    assertEquals(expected.headMap(to, !toExclusive).size() + (nullKey ? 1 : 0),
+                            map.countRange(null, false, to, toExclusive));
+                    assertEquals(expected.tailMap(from, !fromExclusive).size(),
+                            map.countRange(from, fromExclusive, null, false));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rankAndSelect() {
+
+        final var random = new Random(2);
+        final var map = new IntegerTreeMap<Integer>(1, 1, true);
+        final var expected = new TreeMap<Integer, Integer>();
+
+        for (int i = 0; i < 3000; i++) {
+            final int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, key), map.put(key, (Integer) key));
+            }
+        }
+        map.put(null, (Integer) (-1));
+
+        final var values = new ArrayList<Integer>();
+        values.add(-1);
+        values.addAll(expected.values());
+
+        assertEquals(0, map.rank(null));
+        for (int key = -1; key <= 1000; key++) {
+            assertEquals(expected.headMap(key).size() + 1, map.rank(key));
+        }
+
+        assertNull(map.select(-1));
+        assertNull(map.select(values.size()));
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(values.get(i), map.select(i));
+        }
+
+        for (int i = 0; i <= values.size() + 1; i += 7) {
+            assertEquals(values.subList(Math.min(i, values.size()), values.size()), list(map.iteratorFromIndex(i)));
+            final var reversed = new ArrayList<>(values);
+            Collections.reverse(reversed);
+            assertEquals(reversed.subList(Math.min(i, values.size()), values.size()),
+                    list(map.iteratorFromIndex(i, true)));
+        }
+
+        for (int j = 0; j < 200; j++) {
+            final int from = random.nextInt(1100) - 50;
+            final int to = from + random.nextInt(500);
+            final boolean fromExclusive = random.nextBoolean();
+            final boolean toExclusive = random.nextBoolean();
+            final boolean reversed = random.nextBoolean();
+            final int skip = random.nextInt(300);
+            final var range = new ArrayList<>(expected.subMap(from, !fromExclusive, to, !toExclusive).values());
+            if (reversed) {
+                Collections.reverse(range);
+            }
+            try (var iterator = map.iteratorByRange(from, fromExclusive, to, toExclusive, reversed)) {
+                assertEquals(Math.min(skip, range.size()), iterator.skip(skip));
+                assertEquals(range.subList(Math.min(skip, range.size()), range.size()), list(iterator));
+            }
+        }
+    }
+
+    private static List<Integer> list(NestedIterator<?, Integer> iterator) {
+        final var list = new ArrayList<Integer>();
+        try (iterator) {
+            while (iterator.hasNext()) {
+                list.add(iterator.next());
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void nestedCounts() {
+
+        final var map = new IntegerTreeMap<IntegerTreeMap<Integer>>(1, 1, true);
+
+        for (int i = 0; i < 100; i++) {
+            final var nested = new IntegerTreeMap<Integer>(1, 1, true);
+            map.put(i, nested);
+            for (int j = 0; j < i; j++) {
+                nested.put(j, (Integer) j);
+                map.addCount(i, 1);
+            }
+        }
+
+        assertEquals(4950, map.count());
+        assertEquals(45, map.countRange(null, false, 10, true));
+        assertEquals(10 + 11, map.countRange(10, false, 11, false));
+        assertEquals(10 + 11 + 12, map.countByKeys(new Integer[]{10, 11, 12}));
+
+        for (int i = 0; i < 100; i += 2) {
+            final var nested = map.get(i);
+            if (nested.remove(0) != null) {
+                map.addCount(i, -1);
+            }
+            if (nested.isEmpty()) {
+                map.remove(i);
+            }
+        }
+
+        assertEquals(4950 - 49, map.count());
+        assertEquals(1 + 2 + 3 + 4 + 5 + 6 + 7 + 8 + 9 - 4, map.countRange(null, false, 10, true));
+        assertEquals(map.count(), counts(map, map.root));
+    }
+
+    @Test
+    public void spliterators() {
+
+        for (final boolean counted : new boolean[]{false, true}) {
+            final var random = new Random(3);
+            final var map = new IntegerTreeMap<Integer>(1, 1, counted);
+            final var expected = new TreeMap<Integer, Integer>();
+
+            for (int i = 0; i < 5000; i++) {
+                final int key = random.nextInt(3000);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    assertEquals(expected.put(key, key), map.put(key, (Integer) key));
+                }
+            }
+            map.put(null, (Integer) (-1));
+
+            final var values = new ArrayList<Integer>();
+            values.add(-1);
+            values.addAll(expected.values());
+            checkSplits(map.spliterator(), values, counted);
+            assertEquals(values, StreamSupport.stream(map.spliterator(), true).collect(toList()));
+
+            for (int j = 0; j < 100; j++) {
+                final int from = random.nextInt(3100) - 50;
+                final int to = from + random.nextInt(1000) - 50;
+                final boolean fromExclusive = random.nextBoolean();
+                final boolean toExclusive = random.nextBoolean();
+                final var range = from > to ? List.<Integer>of()
+                        : new ArrayList<>(expected.subMap(from, !fromExclusive, to, !toExclusive).values());
+                checkSplits(map.spliteratorByRange(from, fromExclusive, to, toExclusive), range, counted);
+                assertEquals(range, StreamSupport.stream(map.spliteratorByRange(from, fromExclusive, to, toExclusive),
+                        true).collect(toList()));
+
+                final var head = new ArrayList<Integer>();
+                head.add(-1);
+                head.addAll(expected.headMap(to, !toExclusive).values());
+                checkSplits(map.spliteratorByRange(null, false, to, toExclusive), head, counted);
+            }
+        }
+    }
+
+    @Test
+    public void nestedSpliterators() {
+
+        final var map = new IntegerTreeMap<IntegerTreeMap<Integer>>(1, 1, true);
+        final var values = new ArrayList<Integer>();
+
+        for (int i = 0; i < 100; i++) {
+            final var nested = new IntegerTreeMap<Integer>(1, 1, true);
+            map.put(i, nested);
+            for (int j = 0; j < i * 10; j++) {
+                nested.put(j, (Integer) (i * 10000 + j));
+                map.addCount(i, 1);
+                values.add(i * 10000 + j);
+            }
+        }
+
+        final var spliterator = map.spliterator(IntegerTreeMap::spliterator);
+        assertEquals(values.size(), spliterator.estimateSize());
+        checkSplits(spliterator, values, false);
+        assertEquals(values, StreamSupport.stream(map.spliterator(IntegerTreeMap::spliterator), true)
+                .collect(toList()));
+
+        final var range = map.spliteratorByRange(IntegerTreeMap::spliterator, 10, false, 12, true);
+        assertEquals(100 + 110, range.estimateSize());
+        assertEquals(values.subList(450, 450 + 100 + 110), StreamSupport.stream(range, true).collect(toList()));
+    }
+
+    @Test
+    public void getBatch() {
+
+        final var random = new Random(4);
+        final var map = new IntegerTreeMap<Integer>();
+
+        for (int i = 0; i < 3000; i++) {
+            final int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+            } else {
+                map.put(key, (Integer) key);
+            }
+        }
+        map.put(null, (Integer) (-1));
+
+        final var keys = new Integer[1000];
+        final var values = new Integer[keys.length];
+        final var order = new int[keys.length];
+
+        for (int j = 0; j < 20; j++) {
+            final int count = random.nextInt(keys.length);
+            int expected = 0;
+            for (int i = 0; i < count; i++) {
+                keys[i] = random.nextInt(100) == 0 ? null : (Integer) (random.nextInt(2100) - 50);
+                if (map.get(keys[i]) != null) {
+                    expected++;
+                }
+            }
+            if (j % 2 == 0) {
+                Arrays.sort(keys, 0, count, Comparator.nullsFirst(Comparator.naturalOrder()));
+            }
+
+            assertEquals(expected, map.getBatch(keys, values, count, order));
+            for (int i = 0; i < count; i++) {
+                assertEquals(map.get(keys[i]), values[i]);
+            }
+
+            Arrays.fill(values, -2);
+            assertEquals(expected, map.getBatch(keys, values, count));
+            for (int i = 0; i < count; i++) {
+                assertEquals(map.get(keys[i]), values[i]);
+            }
+        }
+    }
+
+    /**
+     * Splits the spliterator all the way down, checking the parts come in order and are sized exactly if expected.
+     */
+    private static void checkSplits(Spliterator<Integer> spliterator, List<Integer> expected, boolean sized) {
+
+        if (sized) {
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+            assertEquals(expected.size(), spliterator.estimateSize());
+        }
+
+        final var prefix = spliterator.trySplit();
+        if (prefix == null) {
+            final var list = new ArrayList<Integer>();
+            spliterator.forEachRemaining(list::add);
+            assertEquals(expected, list);
+            return;
+        }
+
+        final var prefixList = new ArrayList<Integer>();
+        prefix.forEachRemaining(prefixList::add);
+        assertTrue(prefixList.size() <= expected.size());
+        assertEquals(expected.subList(0, prefixList.size()), prefixList);
+        checkSplits(spliterator, expected.subList(prefixList.size(), expected.size()), sized);
+    }
+
+    private static int counts(AbstractTreeMap<?, ?, ?> map, int p) {
+
+        if (p == 0) {
+            return 0;
+        }
+
+        final int count =
+                AbstractTreeMap.weightOf(map.values[p]) + counts(map, map.left(p)) + counts(map, map.right(p));
+        assertEquals(count, map.counts[p]);
+        return count;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bulkLoadUnsorted() {
+        new IntegerTreeMap<Integer>().bulkLoad(new int[]{1, 3, 3}, new Object[3], 3);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bulkLoadNotEmpty() {
+        final var map = new IntegerTreeMap<Integer>();
+        map.put(1, (Integer) 1);
+        map.bulkLoad(new int[]{2}, new Object[1], 1);
+    }
+
+    @Test
+    public void relabel() {
+
+        final var all = Stream.iterate(1, n -> n + 1).limit(100).collect(toCollection(ArrayList::new));
+        final var map = new IntegerTreeMap<Integer>();
+        for (final Integer value : all) {
+            map.put(value, nvl(value));
+        }
+        map.put(null, (Integer) 0);
+        map.remove(50);
+
+        map.relabel(key -> key * 10);
+
+        assertEquals(99, map.size() - 1);
+        assertEquals((Integer) 0, map.get(null));
+        for (final Integer value : all) {
+            assertEquals(value == 50 ? null : nvl(value), map.get(value * 10));
+        }
+
+        final var values = new ArrayList<Integer>();
+        map.forEachValue(values::add);
+        assertEquals(100, values.size());
+    }
+
+    private int blackHeight(@Nonnull IntegerTreeMap<Integer> map, int p) {
+
+        if (p == 0) {
+            return 1;
+        }
+
+        final var red = map.red(p);
+        if (red) {
+            assertTrue(map.left(p) == 0 || !map.red(map.left(p)));
+            assertTrue(map.right(p) == 0 || !map.red(map.right(p)));
+        }
+        if (map.left(p) != 0) {
+            assertEquals(p, map.parent(map.left(p)));
+        }
+        if (map.right(p) != 0) {
+            assertEquals(p, map.parent(map.right(p)));
+        }
+
+        final var left = blackHeight(map, map.left(p));
+        assertEquals(left, blackHeight(map, map.right(p)));
+        return red ? left : left + 1;
+    }
+
     private void recurAddRemove(
             @Nonnull IntegerTreeMap<Integer> map,
             @Nonnull Set<Integer> notAdded,
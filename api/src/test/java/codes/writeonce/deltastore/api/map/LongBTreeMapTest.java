@@ -0,0 +1,207 @@
+package codes.writeonce.deltastore.api.map;
+
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toCollection;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LongBTreeMapTest {
+
+    @Test
+    public void sequential() {
+
+        final var all = Stream.iterate(1L, n -> n + 1).limit(5000).collect(toCollection(ArrayList::new));
+        final var map = new LongBTreeMap<Long>();
+        final var expected = new TreeMap<Long, Long>();
+
+        for (final Long value : all) {
+            assertNull(map.put(value, value));
+            expected.put(value, value);
+        }
+        check(map, expected);
+
+        Collections.reverse(all);
+        for (final Long value : all) {
+            assertEquals(value, map.remove(value));
+            expected.remove(value);
+            if (value % 97 == 0) {
+                check(map, expected);
+            }
+        }
+        check(map, expected);
+        assertNull(map.root);
+    }
+
+    @Test
+    public void random() {
+
+        final var random = new Random(1);
+        final var map = new LongBTreeMap<Long>();
+        final var expected = new TreeMap<Long, Long>();
+
+        for (int i = 0; i < 50000; i++) {
+            final long key = random.nextInt(3000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, key * 2), map.put(key, (Long) (key * 2)));
+            }
+            if (i % 5000 == 0) {
+                check(map, expected);
+            }
+        }
+        check(map, expected);
+
+        for (int i = 0; i < 200; i++) {
+            final long from = random.nextInt(3200) - 1100;
+            final long to = from + random.nextInt(500);
+            for (int mode = 0; mode < 8; mode++) {
+                final var fromExclusive = (mode & 1) != 0;
+                final var toExclusive = (mode & 2) != 0;
+                final var reversed = (mode & 4) != 0;
+                final var sub = expected.subMap(from, !fromExclusive, to, !toExclusive);
+                assertEquals(new ArrayList<>((reversed ? sub.descendingMap() : sub).values()),
+                        list(map.iteratorByRange(from, fromExclusive, to, toExclusive, reversed)));
+            }
+        }
+    }
+
+    @Test
+    public void nullKey() {
+
+        final var map = new LongBTreeMap<Long>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, (Long) i);
+        }
+        map.put(null, -1L);
+
+        assertEquals(101, map.size());
+        assertTrue(map.containsKey((Long) null));
+        assertEquals(-1L, (long) list(map.iterator(false)).get(0));
+        assertEquals(-1L, (long) list(map.iterator(true)).get(100));
+        assertEquals(51, list(map.iteratorByRange(null, false, 49L, false, false)).size());
+        assertEquals(50, list(map.iteratorByRange(50L, false, null, false, false)).size());
+        assertEquals(51, list(map.iteratorByRange(null, false, 49L, false, true)).size());
+
+        assertEquals(-1L, (long) map.remove((Long) null));
+        assertFalse(map.containsKey((Long) null));
+        assertEquals(100, list(map.iterator(false)).size());
+    }
+
+    @Test
+    public void removeWhileIterating() {
+
+        final var map = new LongBTreeMap<Long>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, (Long) i);
+        }
+
+        final List<Long> seen = new ArrayList<>();
+        try (var iterator = map.iterator(false)) {
+            while (true) {
+                final var value = iterator.get();
+                if (value == null) {
+                    break;
+                }
+                seen.add(value);
+                map.remove(value);
+                map.remove(value + 1);
+            }
+        }
+
+        assertEquals(500, seen.size());
+        assertEquals(998L, (long) seen.get(499));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void chained() {
+
+        final var map = new LongBTreeMap<LongBTreeMap<Long>>();
+        for (long i = 0; i < 300; i++) {
+            map.computeIfAbsent(i % 7, k -> new LongBTreeMap<>()).put(i, (Long) i);
+        }
+        map.put(3L, new LongBTreeMap<>());
+
+        final var all = list(map.iterator(LongBTreeMap.newIterator(false), false));
+        assertEquals(300 - 43, all.size());
+        assertEquals(0L, (long) all.get(0));
+        assertEquals(7L, (long) all.get(1));
+
+        final var range = list(map.iteratorByRange(LongBTreeMap.newIterator(true), 2L, true, 4L, false, true));
+        assertEquals(43, range.size());
+        assertEquals(298L, (long) range.get(0));
+
+        assertSame(LongBTreeMap.empty(), map.getOrDefault(10L, LongBTreeMap.empty()));
+    }
+
+    @Nonnull
+    private static <M> List<Long> list(@Nonnull NestedIterator<M, Long> iterator) {
+
+        final List<Long> list = new ArrayList<>();
+        try (iterator) {
+            while (iterator.hasNext()) {
+                list.add(iterator.get());
+            }
+        }
+        return list;
+    }
+
+    private static void check(@Nonnull LongBTreeMap<Long> map, @Nonnull NavigableMap<Long, Long> expected) {
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.values()), list(map.iterator(false)));
+        assertEquals(new ArrayList<>(expected.descendingMap().values()), list(map.iterator(true)));
+
+        if (map.root != null) {
+            final var leaves = new ArrayList<AbstractBTreeMap.Leaf>();
+            traverse(map.root, map.height, true, null, null, leaves);
+            assertSame(map.first, leaves.get(0));
+            assertSame(map.last, leaves.get(leaves.size() - 1));
+            for (int i = 0; i < leaves.size(); i++) {
+                assertSame(i == 0 ? null : leaves.get(i - 1), leaves.get(i).prev);
+                assertSame(i == leaves.size() - 1 ? null : leaves.get(i + 1), leaves.get(i).next);
+            }
+        }
+    }
+
+    private static void traverse(@Nonnull AbstractBTreeMap.Node node, int level, boolean root, @Nullable Long low,
+            @Nullable Long high, @Nonnull List<AbstractBTreeMap.Leaf> leaves) {
+
+        if (!root) {
+            assertTrue(node.size >= AbstractBTreeMap.FANOUT / 2);
+        }
+
+        if (level == 0) {
+            final var leaf = (AbstractBTreeMap.Leaf) node;
+            for (int i = 0; i < leaf.size; i++) {
+                final var key = leaf.keys[i];
+                assertTrue(i == 0 || leaf.keys[i - 1] < key);
+                assertTrue(low == null || key >= low);
+                assertTrue(high == null || key < high);
+            }
+            leaves.add(leaf);
+        } else {
+            final var inner = (AbstractBTreeMap.Inner) node;
+            assertTrue(inner.size >= 2);
+            for (int i = 0; i < inner.size; i++) {
+                traverse(inner.children[i], level - 1, false, i == 0 ? low : (Long) inner.keys[i - 1],
+                        i == inner.size - 1 ? high : (Long) inner.keys[i], leaves);
+            }
+        }
+    }
+}
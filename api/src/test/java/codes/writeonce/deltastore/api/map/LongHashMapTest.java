@@ -0,0 +1,207 @@
+package codes.writeonce.deltastore.api.map;
+
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LongHashMapTest {
+
+    @Test
+    public void random() {
+
+        final var random = new Random(1);
+        final var map = new LongHashMap<Long>();
+        final var expected = new HashMap<Long, Long>();
+
+        for (int i = 0; i < 100000; i++) {
+            final long key = random.nextInt(3000) - 1000;
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.get(key), map.get(key));
+                    break;
+                default:
+                    assertEquals(expected.put(key, key * 2), map.put(key, (Long) (key * 2)));
+                    break;
+            }
+            if (i % 10000 == 0) {
+                check(map, expected);
+            }
+        }
+        check(map, expected);
+
+        for (final Long key : new HashSet<>(expected.keySet())) {
+            assertEquals(expected.remove(key), map.remove(key));
+        }
+        check(map, expected);
+    }
+
+    @Test
+    public void retainedSize() {
+
+        final var map = new LongHashMap<Long>(4, 16);
+        final var retained = map.keys.length;
+
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, (Long) i);
+        }
+        for (long i = 0; i < 1000; i++) {
+            map.remove(i);
+        }
+        assertEquals(retained, map.keys.length);
+        assertEquals(0, map.used);
+
+        for (long i = 0; i < 10; i++) {
+            map.put(i, (Long) i);
+        }
+        final var keys = map.keys;
+        for (long i = 0; i < 10; i++) {
+            map.remove(i);
+        }
+        assertSame(keys, map.keys);
+        assertNull(map.get(5L));
+    }
+
+    @Test
+    public void removedEntriesWithNullKey() {
+
+        final var map = new LongHashMap<Long>(4, 16);
+        final var retained = map.keys.length;
+        map.put(null, -1L);
+
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, (Long) i);
+        }
+        for (long i = 0; i < 1000; i++) {
+            map.remove(i);
+        }
+        assertEquals(retained, map.keys.length);
+        assertEquals(0, map.used);
+        assertEquals(-1L, (long) map.get(null));
+    }
+
+    @Test
+    public void removedEntriesAreBounded() {
+
+        final var map = new LongHashMap<Long>(1000);
+        for (long i = 0; i < 1000; i++) {
+            map.put(i * 7919, (Long) i);
+        }
+
+        for (long i = 0; i < 100_000; i++) {
+            assertEquals(i, (long) map.remove(i * 7919));
+            map.put((i + 1000) * 7919, (Long) (i + 1000));
+            assertTrue(map.removedCount <= map.keys.length / 4 + 1);
+        }
+
+        assertEquals(1000, map.size());
+        for (long i = 100_000; i < 101_000; i++) {
+            assertEquals(i, (long) map.get(i * 7919));
+        }
+    }
+
+    @Test
+    public void nullKeyAndValue() {
+
+        final var map = new LongHashMap<Long>();
+        map.put(null, -1L);
+        map.put(5L, null);
+
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(5L));
+        assertNull(map.get(5L));
+        assertEquals(-1L, (long) map.getOrDefault(null, 0L));
+        assertEquals(-1L, (long) map.iterator(false).get());
+
+        assertEquals(-1L, (long) map.remove((Long) null));
+        assertNull(map.remove(5L));
+        assertFalse(map.containsKey(5L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void removeWhileIterating() {
+
+        final var map = new LongHashMap<Long>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, (Long) i);
+        }
+
+        int count = 0;
+        try (var iterator = map.iterator(false)) {
+            while (true) {
+                final var value = iterator.get();
+                if (value == null) {
+                    break;
+                }
+                assertEquals(value, map.remove(value));
+                count++;
+            }
+        }
+
+        assertEquals(1000, count);
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void rehashWhileIterating() {
+
+        final var map = new LongHashMap<Long>();
+        map.put(0L, (Long) 0L);
+
+        try (var iterator = map.iterator(false)) {
+            assertEquals(0L, (long) iterator.get());
+            for (long i = 1; i < 100; i++) {
+                map.put(i, (Long) i);
+            }
+            iterator.get();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void chained() {
+
+        final var map = new IdHashMap<LongHashMap<Long>>();
+        for (long i = 0; i < 300; i++) {
+            map.computeIfAbsent(i % 7, k -> new LongHashMap<>()).put(i, (Long) i);
+        }
+
+        final Set<Long> all = new HashSet<>();
+        try (var iterator = map.iterator(LongHashMap.newIterator(false), false)) {
+            iterator.forEachRemaining(all::add);
+        }
+        assertEquals(300, all.size());
+    }
+
+    private static void check(@Nonnull LongHashMap<Long> map, @Nonnull Map<Long, Long> expected) {
+
+        assertEquals(expected.size(), map.size());
+
+        final var actual = new HashMap<Long, Long>();
+        try (var iterator = map.iterator(false)) {
+            while (iterator.hasNext()) {
+                final var value = iterator.get();
+                assertNull(actual.put(value / 2, value));
+            }
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,30 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Same as the stock JMH launcher, but runs with the GC profiler when no profilers are given explicitly.
+ */
+public final class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+
+        final CommandLineOptions options = new CommandLineOptions(args);
+
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams() ||
+            options.shouldListProfilers() || options.shouldListResultFormats() || !options.getProfilers().isEmpty()) {
+            Main.main(args);
+            return;
+        }
+
+        new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    }
+
+    private BenchmarkMain() {
+        // empty
+    }
+}
@@ -0,0 +1,152 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.IdInterner;
+import codes.writeonce.deltastore.api.NoIdInterner;
+import codes.writeonce.deltastore.api.StripedIdInterner;
+import codes.writeonce.deltastore.api.WeakIdInterner;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Id#of} under contention: lookups of a shared set of interned values and of new values, per interner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class IdBenchmark {
+
+    private static final int HOT_VALUES = 1 << 16;
+
+    @Param({"weak", "striped", "none"})
+    public String interner;
+
+    private IdInterner instance;
+
+    /**
+     * keeps the hot values interned
+     */
+    private Id<?>[] hot;
+
+    private final AtomicLong nextThreadBase = new AtomicLong(1L << 40);
+
+    private final AtomicBoolean countersTaken = new AtomicBoolean();
+
+    @Setup
+    public void setup() {
+
+        switch (interner) {
+            case "weak":
+                instance = new WeakIdInterner();
+                break;
+            case "striped":
+                instance = new StripedIdInterner();
+                break;
+            case "none":
+                instance = new NoIdInterner();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported interner: " + interner);
+        }
+
+        hot = new Id<?>[HOT_VALUES];
+        for (int i = 0; i < HOT_VALUES; i++) {
+            hot[i] = instance.intern(i + 1000L);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private long next;
+
+        private long base;
+
+        @Setup
+        public void setup(IdBenchmark benchmark) {
+            base = benchmark.nextThreadBase.getAndAdd(1L << 32);
+        }
+    }
+
+    /**
+     * Lookup outcomes of the shared interner per iteration. The counters of the interner are global, so only one of the
+     * threads reports them and the others keep zeros for the sums to stay right.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long hits;
+
+        public long misses;
+
+        public long collisions;
+
+        private IdInterner instance;
+
+        private long hitsBefore;
+
+        private long missesBefore;
+
+        private long collisionsBefore;
+
+        @Setup
+        public void setup(IdBenchmark benchmark) {
+            if (!benchmark.countersTaken.getAndSet(true)) {
+                instance = benchmark.instance;
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void start() {
+            hits = 0;
+            misses = 0;
+            collisions = 0;
+            if (instance != null) {
+                hitsBefore = instance.getHits();
+                missesBefore = instance.getMisses();
+                collisionsBefore = instance.getCollisions();
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            if (instance != null) {
+                hits = instance.getHits() - hitsBefore;
+                misses = instance.getMisses() - missesBefore;
+                collisions = instance.getCollisions() - collisionsBefore;
+            }
+        }
+    }
+
+    @Benchmark
+    public Id<?> hit(Cursor cursor, Counters counters) {
+        return instance.intern((cursor.next++ & HOT_VALUES - 1) + 1000L);
+    }
+
+    @Benchmark
+    public Id<?> miss(Cursor cursor, Counters counters) {
+        return instance.intern(cursor.base + cursor.next++);
+    }
+}
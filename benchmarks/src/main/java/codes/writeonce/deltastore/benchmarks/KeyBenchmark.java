@@ -0,0 +1,151 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.example.model.common.Order;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBenchmark {
+
+    private static final int PROBES = 1 << 12;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"1024"})
+    public int fooCardinality;
+
+    @Param({"16"})
+    public int rangeWidth;
+
+    private OrderStore store;
+
+    private final Id<Order>[] ids = newIdArray();
+
+    private final int[] foos = new int[PROBES];
+
+    private final Order[] orders = new Order[PROBES];
+
+    private final int[] order = new int[PROBES];
+
+    private final ArrayList<Order> destinationList = new ArrayList<>();
+
+    private int probe;
+
+    @Setup
+    public void setup() {
+
+        store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        Orders.populate(store, size, fooCardinality);
+
+        final Random random = new Random(0);
+        for (int i = 0; i < PROBES; i++) {
+            ids[i] = Id.of(random.nextInt(size));
+            foos[i] = random.nextInt(fooCardinality);
+        }
+    }
+
+    @Benchmark
+    public Order idIndexGet() {
+        return store.orderIdIndex().get(ids[nextProbe()]);
+    }
+
+    /**
+     * Resolves all the probe ids one by one, for comparison with {@link #idIndexGetAll()}.
+     */
+    @Benchmark
+    public Order[] idIndexGetEach() {
+        for (int i = 0; i < PROBES; i++) {
+            orders[i] = store.orderIdIndex().get(ids[i]);
+        }
+        return orders;
+    }
+
+    @Benchmark
+    public Order[] idIndexGetAll() {
+        store.orderIdIndex().getAll(ids, orders, PROBES);
+        return orders;
+    }
+
+    @Benchmark
+    public Order[] idIndexGetAllSorted() {
+        store.orderIdIndex().getAll(ids, orders, PROBES, order);
+        return orders;
+    }
+
+    @Benchmark
+    public List<Order> fooIndexList() {
+        return store.orderFooIndex().list(foos[nextProbe()]);
+    }
+
+    @Benchmark
+    public List<Order> fooIndexListReusable() {
+        store.orderFooIndex().list(foos[nextProbe()], destinationList);
+        return destinationList;
+    }
+
+    @Benchmark
+    public void filterRangeScan(Blackhole blackhole) {
+        final int from = foos[nextProbe()];
+        try (var iterator = store.orderFooIndex().filter().fooFrom(from).fooBefore(from + rangeWidth).iterator()) {
+            while (true) {
+                final var value = iterator.get();
+                if (value == null) {
+                    break;
+                }
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public int filterRangeSize() {
+        final int from = foos[nextProbe()];
+        return store.orderFooIndex().filter().fooFrom(from).fooBefore(from + rangeWidth).size();
+    }
+
+    /**
+     * Moves an order to a foo value of its own and back, emptying and recreating a nested map of the key each time.
+     */
+    @Benchmark
+    public void fooIndexMove() {
+        final Order order = store.orderIdIndex().get(ids[nextProbe()]);
+        final int foo = order.getFoo();
+        store.orderFooIndex().remove(order, foo);
+        store.orderFooIndex().add(order, -1);
+        store.orderFooIndex().remove(order, -1);
+        store.orderFooIndex().add(order, foo);
+    }
+
+    private int nextProbe() {
+        return probe = (probe + 1) & (PROBES - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Id<Order>[] newIdArray() {
+        return (Id<Order>[]) new Id<?>[PROBES];
+    }
+}
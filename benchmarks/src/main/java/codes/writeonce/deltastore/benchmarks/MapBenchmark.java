@@ -0,0 +1,139 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.map.LongBTreeMap;
+import codes.writeonce.deltastore.api.map.LongHashMap;
+import codes.writeonce.deltastore.api.map.LongTreeMap;
+import codes.writeonce.deltastore.api.map.NestedIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the red-black {@link LongTreeMap} with the B+tree {@link LongBTreeMap} and the hash {@link LongHashMap} on
+ * random keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    private static final int PROBES = 1 << 12;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"64"})
+    public int rangeWidth;
+
+    private LongTreeMap<Long> treeMap;
+
+    private LongBTreeMap<Long> bTreeMap;
+
+    private LongHashMap<Long> hashMap;
+
+    private final long[] keys = new long[PROBES];
+
+    private int probe;
+
+    @Setup
+    public void setup() {
+
+        treeMap = new LongTreeMap<>();
+        bTreeMap = new LongBTreeMap<>();
+        hashMap = new LongHashMap<>();
+
+        final Random random = new Random(0);
+        for (int i = 0; i < size; i++) {
+            final long key = random.nextInt(size * 2);
+            treeMap.put(key, (Long) key);
+            bTreeMap.put(key, (Long) key);
+            hashMap.put(key, (Long) key);
+        }
+
+        for (int i = 0; i < PROBES; i++) {
+            keys[i] = random.nextInt(size * 2);
+        }
+    }
+
+    @Benchmark
+    public Long treeGet() {
+        return treeMap.get(keys[nextProbe()]);
+    }
+
+    @Benchmark
+    public Long bTreeGet() {
+        return bTreeMap.get(keys[nextProbe()]);
+    }
+
+    @Benchmark
+    public Long hashGet() {
+        return hashMap.get(keys[nextProbe()]);
+    }
+
+    @Benchmark
+    public Long treePutRemove() {
+        final long key = keys[nextProbe()];
+        final Long value = treeMap.remove(key);
+        treeMap.put(key, value == null ? (Long) key : value);
+        return value;
+    }
+
+    @Benchmark
+    public Long bTreePutRemove() {
+        final long key = keys[nextProbe()];
+        final Long value = bTreeMap.remove(key);
+        bTreeMap.put(key, value == null ? (Long) key : value);
+        return value;
+    }
+
+    @Benchmark
+    public Long hashPutRemove() {
+        final long key = keys[nextProbe()];
+        final Long value = hashMap.remove(key);
+        hashMap.put(key, value == null ? (Long) key : value);
+        return value;
+    }
+
+    @Benchmark
+    public void treeRangeScan(Blackhole blackhole) {
+        final long from = keys[nextProbe()];
+        scan(treeMap.iteratorByRange(from, false, from + rangeWidth, true, false), blackhole);
+    }
+
+    @Benchmark
+    public void bTreeRangeScan(Blackhole blackhole) {
+        final long from = keys[nextProbe()];
+        scan(bTreeMap.iteratorByRange(from, false, from + rangeWidth, true, false), blackhole);
+    }
+
+    private static void scan(NestedIterator<?, Long> iterator, Blackhole blackhole) {
+        try (iterator) {
+            while (true) {
+                final var value = iterator.get();
+                if (value == null) {
+                    break;
+                }
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    private int nextProbe() {
+        return probe = (probe + 1) & (PROBES - 1);
+    }
+}
@@ -0,0 +1,86 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter iteration over N independent stores, each owned by one of N threads; run with {@code -t} to change N.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MultiStoreBenchmark {
+
+    private static final int PROBES = 1 << 12;
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"1024"})
+    public int fooCardinality;
+
+    @Param({"16"})
+    public int rangeWidth;
+
+    private OrderStore store;
+
+    private final int[] foos = new int[PROBES];
+
+    private int probe;
+
+    @Setup
+    public void setup() {
+
+        store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        Orders.populate(store, size, fooCardinality);
+
+        final Random random = new Random(0);
+        for (int i = 0; i < PROBES; i++) {
+            foos[i] = random.nextInt(fooCardinality);
+        }
+    }
+
+    @Benchmark
+    public void filterRangeScan(Blackhole blackhole) {
+        final int from = foos[nextProbe()];
+        try (var iterator = store.orderFooIndex().filter().fooFrom(from).fooBefore(from + rangeWidth).iterator()) {
+            while (true) {
+                final var value = iterator.get();
+                if (value == null) {
+                    break;
+                }
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public int filterRangeSize() {
+        final int from = foos[nextProbe()];
+        return store.orderFooIndex().filter().fooFrom(from).fooBefore(from + rangeWidth).size();
+    }
+
+    private int nextProbe() {
+        return probe = (probe + 1) & (PROBES - 1);
+    }
+}
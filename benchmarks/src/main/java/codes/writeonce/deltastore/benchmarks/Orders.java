@@ -0,0 +1,32 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.Transaction;
+import codes.writeonce.deltastore.example.model.common.Order;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+
+final class Orders {
+
+    static final String BAR1 = "bar1";
+
+    static final String BAR2 = "bar2";
+
+    static Order[] populate(OrderStore store, int count, int fooCardinality) {
+
+        final Order[] orders = new Order[count];
+
+        try (Transaction t = store.begin(true)) {
+            for (int i = 0; i < count; i++) {
+                orders[i] = store.order().create(Id.of(i), i % fooCardinality);
+                orders[i].setBar(BAR1);
+            }
+            t.commit();
+        }
+
+        return orders;
+    }
+
+    private Orders() {
+        // empty
+    }
+}
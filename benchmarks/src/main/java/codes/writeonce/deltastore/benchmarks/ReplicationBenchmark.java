@@ -0,0 +1,90 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.ApplyStoreDeltaListener;
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.api.Transaction;
+import codes.writeonce.deltastore.api.TransformDeltaCommitListener;
+import codes.writeonce.deltastore.example.model.common.Order;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits on a source store replicated into a second store via {@link TransformDeltaCommitListener} and
+ * {@link ApplyStoreDeltaListener}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplicationBenchmark {
+
+    @Param({"1", "16", "256", "4096"})
+    public int changes;
+
+    private OrderStore store;
+
+    private Order[] orders;
+
+    private Id<Order>[] newIds;
+
+    private boolean flip;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+
+        final OrderStore replica = new OrderStore(new ReleaseDeltaCommitListener<>());
+        store = new OrderStore(new TransformDeltaCommitListener<>(new ApplyStoreDeltaListener<>(replica)));
+        orders = Orders.populate(store, changes, 1024);
+
+        newIds = (Id<Order>[]) new Id<?>[changes];
+        for (int i = 0; i < changes; i++) {
+            newIds[i] = Id.of(changes + i);
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        flip = !flip;
+        final String bar = flip ? Orders.BAR2 : Orders.BAR1;
+        try (Transaction t = store.begin()) {
+            for (final Order order : orders) {
+                order.setBar(bar);
+            }
+            t.commit();
+        }
+    }
+
+    @Benchmark
+    public void insertRemove() {
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < newIds.length; i++) {
+                store.order().create(newIds[i], i);
+            }
+            t.commit();
+        }
+
+        try (Transaction t = store.begin()) {
+            for (final Id<Order> id : newIds) {
+                store.orderIdIndex().get(id).remove();
+            }
+            t.commit();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.map.InstantTreeMap;
+import codes.writeonce.deltastore.api.map.LongTreeMap;
+import codes.writeonce.deltastore.api.map.NestedIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sums the values of half of the entries of a large tree map, with the structurally split spliterators and with the
+ * batches peeled off the iterators, sequentially and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SpliteratorBenchmark {
+
+    @Param({"10000000"})
+    public int size;
+
+    @Param({"long", "instant"})
+    public String kind;
+
+    @Param({"false", "true"})
+    public boolean counted;
+
+    private LongTreeMap<Long> longMap;
+
+    private InstantTreeMap<Long> instantMap;
+
+    @Setup
+    public void setup() {
+
+        final Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (long) i;
+        }
+
+        switch (kind) {
+            case "long": {
+                final long[] keys = new long[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = i * 2L;
+                }
+                longMap = new LongTreeMap<>(1, 1, counted);
+                longMap.bulkLoad(keys, values, size);
+                break;
+            }
+            case "instant": {
+                final long[] seconds = new long[size];
+                final int[] nanos = new int[size];
+                for (int i = 0; i < size; i++) {
+                    seconds[i] = i / 4;
+                    nanos[i] = i % 4 * 250_000_000;
+                }
+                instantMap = new InstantTreeMap<>(1, 1, counted);
+                instantMap.bulkLoad(seconds, nanos, values, size);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported kind: " + kind);
+        }
+    }
+
+    @Benchmark
+    public long structural() {
+        return sum(structuralSpliterator(), false);
+    }
+
+    @Benchmark
+    public long structuralParallel() {
+        return sum(structuralSpliterator(), true);
+    }
+
+    @Benchmark
+    public long iterator() {
+        try (var iterator = iteratorByRange()) {
+            return sum(iterator, false);
+        }
+    }
+
+    @Benchmark
+    public long iteratorParallel() {
+        try (var iterator = iteratorByRange()) {
+            return sum(iterator, true);
+        }
+    }
+
+    private Spliterator<Long> structuralSpliterator() {
+        if (longMap != null) {
+            return longMap.spliteratorByRange(size / 2L, false, size * 3L / 2, true);
+        }
+        return instantMap.spliteratorByRange(Instant.ofEpochSecond(size / 8), false,
+                Instant.ofEpochSecond(size * 3L / 8), true);
+    }
+
+    private NestedIterator<?, Long> iteratorByRange() {
+        if (longMap != null) {
+            return longMap.iteratorByRange(size / 2L, false, size * 3L / 2, true, false);
+        }
+        return instantMap.iteratorByRange(Instant.ofEpochSecond(size / 8), false,
+                Instant.ofEpochSecond(size * 3L / 8), true, false);
+    }
+
+    private static long sum(Spliterator<Long> spliterator, boolean parallel) {
+        return StreamSupport.stream(spliterator, parallel).mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,97 @@
+package codes.writeonce.deltastore.benchmarks;
+
+import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.api.Transaction;
+import codes.writeonce.deltastore.example.model.common.Order;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+
+    @Param({"1", "16", "256", "4096"})
+    public int changes;
+
+    private OrderStore store;
+
+    private Order[] orders;
+
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        orders = Orders.populate(store, changes, 1024);
+    }
+
+    @Benchmark
+    public void commit() {
+        final String bar = nextBar();
+        try (Transaction t = store.begin()) {
+            for (final Order order : orders) {
+                order.setBar(bar);
+            }
+            t.commit();
+        }
+    }
+
+    @Benchmark
+    public void commitDeferIndex() {
+        final String bar = nextBar();
+        try (Transaction t = store.begin(true)) {
+            for (final Order order : orders) {
+                order.setBar(bar);
+            }
+            t.commit();
+        }
+    }
+
+    @Benchmark
+    public void rollback() {
+        final String bar = nextBar();
+        try (Transaction ignored = store.begin()) {
+            for (final Order order : orders) {
+                order.setBar(bar);
+            }
+        }
+    }
+
+    @Benchmark
+    public void nestedRollback() {
+        final String bar = nextBar();
+        final int half = orders.length / 2;
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < half; i++) {
+                orders[i].setBar(bar);
+            }
+            try (Transaction ignored = store.begin()) {
+                for (final Order order : orders) {
+                    order.setBar(bar == Orders.BAR1 ? Orders.BAR2 : Orders.BAR1);
+                }
+            }
+            t.commit();
+        }
+    }
+
+    private String nextBar() {
+        flip = !flip;
+        return flip ? Orders.BAR2 : Orders.BAR1;
+    }
+}
@@ -1,20 +1,60 @@
 package codes.writeonce.deltastore;
 
 import codes.writeonce.deltastore.api.ApplyStoreDeltaListener;
+import codes.writeonce.deltastore.api.AsyncDeltaListener;
+import codes.writeonce.deltastore.api.Backpressure;
+import codes.writeonce.deltastore.api.HistogramStoreMetrics;
 import codes.writeonce.deltastore.api.Id;
 import codes.writeonce.deltastore.api.NotUniqueException;
+import codes.writeonce.deltastore.api.PartitionedStore;
+import codes.writeonce.deltastore.api.ReadViewDeltaListener;
 import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.api.ReleaseDeltaListener;
+import codes.writeonce.deltastore.api.SmartIterator;
+import codes.writeonce.deltastore.api.SortedStringDictionary;
 import codes.writeonce.deltastore.api.Transaction;
 import codes.writeonce.deltastore.api.TransformDeltaCommitListener;
 import codes.writeonce.deltastore.example.model.common.Order;
 import codes.writeonce.deltastore.example.model.order.Order2;
+import codes.writeonce.deltastore.example.model.order.Order2BarFooFlatIndex;
+import codes.writeonce.deltastore.example.model.order.Order2BarFooIndex;
+import codes.writeonce.deltastore.example.model.order.Order2BarFooUniqueIndex;
+import codes.writeonce.deltastore.example.model.order.Order2FooBarFlatIndex;
+import codes.writeonce.deltastore.example.model.order.Order3;
+import codes.writeonce.deltastore.example.model.order.Order4;
 import codes.writeonce.deltastore.example.model.order.OrderStore;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 public class StoreTest {
 
@@ -406,4 +446,1056 @@ public class StoreTest {
             assertEquals("567", store2.order2IdIndex().get(ID1B).getBar());
         }
     }
+
+    @Test
+    public void readViews() throws InterruptedException {
+
+        final ReadViewDeltaListener<OrderStore> views = new ReadViewDeltaListener<>(
+                new OrderStore(new ReleaseDeltaCommitListener<>()),
+                new OrderStore(new ReleaseDeltaCommitListener<>()));
+
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(views));
+
+        try (Transaction t = store.begin()) {
+            store.order().create(ID1, 1).setBar("0");
+            store.order().create(ID2, 2).setBar("0");
+            t.commit();
+        }
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread[] readers = new Thread[2];
+
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    int last = 0;
+                    @SuppressWarnings("unchecked")
+                    final Id<Order>[] ids = new Id[]{ID2, ID1};
+                    final Order[] found = new Order[ids.length];
+                    while (!done.get()) {
+                        try (ReadViewDeltaListener.ReadView<OrderStore> view = views.open()) {
+                            final OrderStore replica = view.store();
+                            final String bar = replica.orderIdIndex().get(ID1).getBar();
+                            assertEquals(bar, replica.orderIdIndex().get(ID2).getBar());
+                            final int value = Integer.parseInt(bar);
+                            assertTrue(value >= last);
+                            assertEquals(value + 2, replica.orderIdIndex().list().size());
+                            assertEquals(value, replica.orderFooIndex().filter().fooFrom(1001).size());
+                            assertEquals(2, replica.orderIdIndex().getAll(ids, found, ids.length,
+                                    new int[ids.length]));
+                            assertEquals(bar, found[0].getBar());
+                            last = value;
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            readers[i].start();
+        }
+
+        for (int i = 1; i <= 2000; i++) {
+            try (Transaction t = store.begin()) {
+                store.orderIdIndex().get(ID1).setBar(String.valueOf(i));
+                store.orderIdIndex().get(ID2).setBar(String.valueOf(i));
+                store.order().create(Id.of(1000 + i), 1000 + i);
+                t.commit();
+            }
+        }
+
+        done.set(true);
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(error.get());
+
+        assertTrue(views.publish());
+        try (ReadViewDeltaListener.ReadView<OrderStore> view = views.open()) {
+            assertEquals("2000", view.store().orderIdIndex().get(ID1).getBar());
+            assertEquals(2002, view.store().orderIdIndex().list().size());
+        }
+
+        final ReadViewDeltaListener.ReadView<OrderStore> view = views.open();
+        view.close();
+        try {
+            view.store();
+            fail();
+        } catch (IllegalStateException ignored) {
+            // expected
+        }
+    }
+
+    @Test
+    public void asyncCommit() throws InterruptedException {
+
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final AsyncDeltaListener<OrderStore> async =
+                new AsyncDeltaListener<>(new ApplyStoreDeltaListener<>(store2), 4, Backpressure.BLOCK, 8);
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(async));
+
+        for (int i = 0; i < 3000; i++) {
+            try (Transaction t = store.begin()) {
+                switch (i % 3) {
+                    case 0:
+                        store.order().create(Id.of(i / 3), i);
+                        break;
+                    case 1:
+                        store.orderIdIndex().get(Id.of(i / 3)).setBar(String.valueOf(i));
+                        break;
+                    default:
+                        if (i % 2 == 0) {
+                            store.orderIdIndex().get(Id.of(i / 3)).remove();
+                        }
+                        break;
+                }
+                t.commit();
+            }
+        }
+
+        async.close();
+
+        assertEquals(2500, async.getCommits());
+        assertTrue(async.getBatches() <= async.getCommits());
+        assertEquals(2500, async.getQueueLatency().getCount());
+        assertEquals(0, async.getDropped());
+
+        try (Transaction ignored = store2.begin()) {
+            assertEquals(500, store2.orderIdIndex().list().size());
+            for (int i = 0; i < 1000; i++) {
+                final Order order = store2.orderIdIndex().get(Id.of(i));
+                if (i % 2 == 0) {
+                    assertNull(order);
+                } else {
+                    assertEquals(i * 3, order.getFoo());
+                    assertEquals(String.valueOf(i * 3 + 1), order.getBar());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void asyncCommitDrop() throws InterruptedException {
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ReleaseDeltaListener<OrderStore> release = new ReleaseDeltaListener<>();
+        final AsyncDeltaListener<OrderStore> async = new AsyncDeltaListener<>((removes, updates, inserts) -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            release.acceptDeltas(removes, updates, inserts);
+        }, 2, Backpressure.DROP, 1);
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(async));
+
+        for (int i = 0; i < 10; i++) {
+            try (Transaction t = store.begin()) {
+                store.order().create(Id.of(i), i);
+                t.commit();
+            }
+        }
+
+        assertTrue(async.isOverflowed());
+        assertTrue(async.getDropped() >= 7);
+        latch.countDown();
+        async.close();
+        assertEquals(10, async.getCommits() + async.getDropped());
+        async.reset();
+        assertFalse(async.isOverflowed());
+    }
+
+    @Test
+    public void metrics() throws Exception {
+
+        final HistogramStoreMetrics metrics = new HistogramStoreMetrics();
+        final OrderStore store =
+                new OrderStore(new TransformDeltaCommitListener<>(new ReleaseDeltaListener<OrderStore>()));
+        store.setMetrics(metrics);
+
+        try (Transaction t = store.begin()) {
+            store.order().create(ID1, 234);
+            try (Transaction t2 = store.begin()) {
+                store.order().create(ID2, 432);
+                store.order2().create(ID1B, 1);
+                t2.commit();
+            }
+            try (Transaction ignored = store.begin()) {
+                store.orderIdIndex().get(ID1).setBar("x");
+            }
+            t.commit();
+        }
+
+        try (Transaction t = store.begin(true)) {
+            store.orderIdIndex().get(ID1).setBar("y");
+            store.orderIdIndex().get(ID2).remove();
+            t.commit();
+        }
+
+        assertEquals(2, metrics.getCommitLatency().get("count").longValue());
+        assertEquals(1, metrics.getNestedCommitLatency().get("count").longValue());
+        assertEquals(1, metrics.getRollbackLatency().get("count").longValue());
+        assertEquals(1, metrics.getReindexLatency().get("count").longValue());
+        assertEquals(2, metrics.getListenerLatency().get("count").longValue());
+        assertEquals(3, metrics.getChangeListLength().get("max").longValue());
+        assertEquals(1, metrics.getNestingDepth().get("max").longValue());
+        assertEquals(Map.of("Order", 2L, "Order2", 1L), metrics.getInserts());
+        assertEquals(Map.of("Order", 1L), metrics.getUpdates());
+        assertEquals(Map.of("Order", 1L), metrics.getRemoves());
+
+        final ObjectName name = metrics.register("test");
+        try {
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CommitLatency"));
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Inserts"));
+        } finally {
+            metrics.unregister("test");
+        }
+    }
+
+    @Test
+    public void flatKeys() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final String[] bars = {null, "", "a", "a\0", "a\1", "a\2", "ab", "b", "\uffff"};
+        final List<Order2> orders = new ArrayList<>();
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 90; i++) {
+                final Order2 order = store.order2().create(Id.of(1000 - i * 7), i % 2 == 0 ? i - 45 : 45 - i);
+                order.setBar(bars[i % bars.length]);
+                orders.add(order);
+            }
+            t.commit();
+        }
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 90; i += 4) {
+                orders.get(i).setBar(bars[(i + 4) % bars.length]);
+            }
+            for (int i = 1; i < 90; i += 10) {
+                orders.get(i).remove();
+            }
+            t.commit();
+        }
+
+        checkFlatKeys(store, f -> f.iterator(), f -> f.iterator());
+        checkFlatKeys(store, f -> f.reversed().iterator(), f -> f.reversed().iterator());
+        checkFlatKeys(store, f -> f.barReversed().fooReversed().iterator(),
+                f -> f.barReversed().fooReversed().iterator());
+        checkFlatKeys(store, f -> f.fooReversed().iterator(), f -> f.fooReversed().iterator());
+        checkFlatKeys(store, f -> f.bar("a").iterator(), f -> f.bar("a").iterator());
+        checkFlatKeys(store, f -> f.bar((String) null).iterator(), f -> f.bar((String) null).iterator());
+        checkFlatKeys(store, f -> f.bar("b", null, "a\0").iterator(), f -> f.bar("b", null, "a\0").iterator());
+        checkFlatKeys(store, f -> f.barFrom("a").barBefore("b").iterator(),
+                f -> f.barFrom("a").barBefore("b").iterator());
+        checkFlatKeys(store, f -> f.barAfter("a").barTo("b").barReversed().iterator(),
+                f -> f.barAfter("a").barTo("b").barReversed().iterator());
+        checkFlatKeys(store, f -> f.barTo("a\1").fooFrom(-10).fooTo(20).iterator(),
+                f -> f.barTo("a\1").fooFrom(-10).fooTo(20).iterator());
+        checkFlatKeys(store, f -> f.barAfter("").fooAfter(-30).fooReversed().reversed().iterator(),
+                f -> f.barAfter("").fooAfter(-30).fooReversed().reversed().iterator());
+        checkFlatKeys(store, f -> f.foo(3, -4, 5, 44).iterator(), f -> f.foo(3, -4, 5, 44).iterator());
+        checkFlatKeys(store, f -> f.bar("ab").foo(-39).iterator(), f -> f.bar("ab").foo(-39).iterator());
+
+        final List<Order2> remaining = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (i % 10 != 1) {
+                remaining.add(orders.get(i));
+            }
+        }
+        final Order2[] entities = remaining.toArray(new Order2[0]);
+        final Order2BarFooFlatIndex loaded = new Order2BarFooFlatIndex();
+        loaded.addAll(entities, entities.length);
+        assertEquals(ids(store.order2BarFooIndex().iterator()), ids(loaded.iterator()));
+
+        final Order2FooBarFlatIndex unique = new Order2FooBarFlatIndex();
+        unique.addAll(entities, entities.length);
+        assertEquals(ids(store.order2FooBarFlatIndex().iterator()), ids(unique.iterator()));
+        for (final Order2 order : entities) {
+            assertEquals(order, store.order2FooBarFlatIndex().get(order.getFoo(), order.getBar()));
+        }
+        assertNull(store.order2FooBarFlatIndex().get(0, "x"));
+
+        entities[1] = entities[0];
+        try {
+            new Order2FooBarFlatIndex().addAll(entities, entities.length);
+            fail();
+        } catch (NotUniqueException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void bulkLoadWithNullLeadingField() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final String[] bars = {"b", null, "a", null, ""};
+        final List<Order2> orders = new ArrayList<>();
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 20; i++) {
+                final Order2 order = store.order2().create(Id.of(100 - i), i * 7 % 20 - 10);
+                order.setBar(bars[i % bars.length]);
+                orders.add(order);
+            }
+            t.commit();
+        }
+
+        final Order2[] entities = orders.toArray(new Order2[0]);
+        final Order2BarFooIndex loaded = new Order2BarFooIndex(new SortedStringDictionary());
+        loaded.addAll(entities, entities.length);
+        assertEquals(ids(store.order2BarFooIndex().iterator()), ids(loaded.iterator()));
+        assertEquals(ids(store.order2BarFooIndex().filter().bar((String) null).iterator()),
+                ids(loaded.filter().bar((String) null).iterator()));
+    }
+
+    @Test
+    public void countedKeys() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final Random random = new Random(1);
+        final String[] bars = {null, "a", "b", "c", "d"};
+        final List<Order2> orders = new ArrayList<>();
+
+        for (int round = 0; round < 20; round++) {
+            try (Transaction t = store.begin()) {
+                for (int i = 0; i < 50; i++) {
+                    final int op = random.nextInt(3);
+                    if (op == 0 || orders.isEmpty()) {
+                        final Order2 order = store.order2().create(Id.of(round * 100 + i + 1), round * 100 + i);
+                        order.setBar(bars[random.nextInt(bars.length)]);
+                        orders.add(order);
+                    } else if (op == 1) {
+                        orders.get(random.nextInt(orders.size())).setBar(bars[random.nextInt(bars.length)]);
+                    } else {
+                        orders.remove(random.nextInt(orders.size())).remove();
+                    }
+                }
+                t.commit();
+            }
+
+            final Order2BarFooIndex key = store.order2BarFooIndex();
+            final Order2BarFooUniqueIndex unique = store.order2BarFooUniqueIndex();
+
+            assertEquals(orders.size(), key.count());
+            assertEquals(orders.size(), key.size());
+            assertEquals(orders.size(), unique.count());
+
+            for (final String bar : bars) {
+                final int expected = ids(key.filter().bar(bar).iterator()).size();
+                assertEquals(expected, key.count(bar));
+                assertEquals(expected, key.filter().bar(bar).size());
+                assertEquals(expected, unique.count(bar));
+                assertEquals(expected, unique.filter().bar(bar).size());
+                assertEquals(expected == 0, unique.filter().bar(bar).isEmpty());
+            }
+
+            checkCounts(key.filter().bar("a", "c", "x"), unique.filter().bar("a", "c", "x"));
+            checkCounts(key.filter().barFrom("b"), unique.filter().barFrom("b"));
+            checkCounts(key.filter().barAfter("a").barBefore("d"), unique.filter().barAfter("a").barBefore("d"));
+            checkCounts(key.filter().barTo("b"), unique.filter().barTo("b"));
+            checkCounts(key.filter().bar("b").fooFrom(500).fooBefore(1500),
+                    unique.filter().bar("b").fooFrom(500).fooBefore(1500));
+            checkCounts(key.filter().bar((String) null).foo(1, 2, 3, 1),
+                    unique.filter().bar((String) null).foo(1, 2, 3, 1));
+            checkCounts(key.filter().barFrom("a").foo(7), unique.filter().barFrom("a").foo(7));
+
+            for (final String bar : bars) {
+                final List<Id<Order2>> all = ids(unique.filter().bar(bar).iterator());
+                final List<Id<Order2>> reversed = ids(unique.filter().bar(bar).fooReversed().iterator());
+                for (int i = 0; i <= all.size() + 1; i += 3) {
+                    final int from = Math.min(i, all.size());
+                    assertEquals(all.subList(from, all.size()), ids(unique.filter().bar(bar).iteratorFromIndex(i)));
+                    assertEquals(reversed.subList(from, all.size()),
+                            ids(unique.filter().bar(bar).fooReversed().iteratorFromIndex(i)));
+                    final Order2 selected = unique.filter().bar(bar).select(i);
+                    assertEquals(i < all.size() ? all.get(i) : null, selected == null ? null : selected.getId());
+                }
+            }
+
+            for (final Order2 order : orders) {
+                assertEquals(1, key.filter().bar(order.getBar()).foo(order.getFoo()).size());
+                assertEquals(1, key.count(order.getBar(), order.getFoo()));
+                assertEquals(1, unique.filter().bar(order.getBar()).foo(order.getFoo()).size());
+            }
+        }
+    }
+
+    private static void checkCounts(Order2BarFooIndex.Filter filter, Order2BarFooUniqueIndex.Filter unique) {
+        final int expected = ids(filter.iterator()).size();
+        assertEquals(expected, filter.size());
+        assertEquals(expected, ids(unique.iterator()).size());
+        assertEquals(expected, unique.size());
+    }
+
+    @Test
+    public void dictionaryField() {
+
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final OrderStore store =
+                new OrderStore(new TransformDeltaCommitListener<>(new ApplyStoreDeltaListener<>(store2)));
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 10; i++) {
+                store.order2().create(Id.of(i + 1), i).setBar(new String(i % 2 == 0 ? "even" : "odd"));
+            }
+            t.commit();
+        }
+
+        for (final OrderStore s : List.of(store, store2)) {
+            final Order2 first = s.order2IdIndex().get(Id.of(1));
+            final Order2 third = s.order2IdIndex().get(Id.of(3));
+            assertEquals("even", first.getBar());
+            assertSame(first.getBar(), third.getBar());
+            assertEquals(5, s.order2BarFooIndex().count("odd"));
+        }
+
+        try (Transaction ignored = store.begin()) {
+            final Order2 order = store.order2IdIndex().get(Id.of(1));
+            order.setBar("other");
+            assertEquals("other", order.getBar());
+            store.order2IdIndex().get(Id.of(2)).remove();
+        }
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 10; i += 2) {
+                store.order2IdIndex().get(Id.of(i + 1)).setBar(null);
+            }
+            store.order2IdIndex().get(Id.of(2)).remove();
+            t.commit();
+        }
+
+        for (final OrderStore s : List.of(store, store2)) {
+            assertNull(s.order2IdIndex().get(Id.of(1)).getBar());
+            assertEquals("odd", s.order2IdIndex().get(Id.of(4)).getBar());
+            assertNull(s.order2IdIndex().get(Id.of(2)));
+            assertEquals(5, s.order2BarFooIndex().count(null));
+            assertEquals(4, s.order2BarFooIndex().count("odd"));
+        }
+    }
+
+    @Test
+    public void dictionaryFieldOrder() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final List<Order2> orders = new ArrayList<>();
+
+        // ascending strings take the labels halving the gap at the end, so the keys get relabelled many times over
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 200; i++) {
+                final Order2 order = store.order2().create(Id.of(i + 1), i);
+                order.setBar(i % 50 == 49 ? null : String.format("k%03d", i));
+                orders.add(order);
+            }
+            t.commit();
+        }
+
+        final Order2BarFooIndex key = store.order2BarFooIndex();
+        final Order2BarFooUniqueIndex unique = store.order2BarFooUniqueIndex();
+        final Comparator<Order2> order =
+                Comparator.comparing(Order2::getBar, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                        .thenComparing(Order2::getFoo);
+
+        assertEquals(ids(orders.stream().sorted(order)), ids(key.iterator()));
+        assertEquals(ids(key.iterator()), ids(unique.iterator()));
+        assertEquals(ids(orders.subList(50, 60).stream()),
+                ids(key.filter().barFrom("k050").barBefore("k060").iterator()));
+        assertEquals(10, key.filter().barAfter("k0505").barTo("k060").size());
+        assertEquals(10, unique.filter().barAfter("k0505").barTo("k060").size());
+        assertEquals(5, key.filter().barTo("k000").size());
+        assertEquals(0, key.filter().barFrom("k0505").barBefore("k051").size());
+        assertEquals(0, key.filter().barFrom("z").size());
+        assertEquals(0, key.count("k0505"));
+        assertEquals(1, key.count("k050"));
+        assertEquals(2, key.filter().bar("k060", "k0505", "k010").size());
+        assertEquals(ids(orders.subList(60, 61).stream()), ids(key.filter().bar("k060").iterator()));
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 200; i += 2) {
+                orders.get(i).setBar(String.format("k%03d", 199 - i) + "x");
+            }
+            orders.get(1).remove();
+            t.commit();
+        }
+        orders.remove(1);
+
+        assertEquals(ids(orders.stream().sorted(order)), ids(key.iterator()));
+        assertEquals(ids(key.iterator()), ids(unique.iterator()));
+        assertEquals(orders.size(), key.filter().barFrom("").size() + key.count(null));
+
+        final Order2[] entities = orders.toArray(new Order2[0]);
+        final Order2BarFooIndex loaded = new Order2BarFooIndex(new SortedStringDictionary());
+        loaded.addAll(entities, entities.length);
+        assertEquals(ids(key.iterator()), ids(loaded.iterator()));
+        assertEquals(ids(key.filter().barFrom("k100").iterator()), ids(loaded.filter().barFrom("k100").iterator()));
+    }
+
+    @Test
+    public void columnarStorage() {
+
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final OrderStore store =
+                new OrderStore(new TransformDeltaCommitListener<>(new ApplyStoreDeltaListener<>(store2)));
+        final Random random = new Random(1);
+        final String[] bars = {null, "a", "b", "c"};
+        final Map<Id<Order3>, Object[]> expected = new HashMap<>();
+        final List<Order3> orders = new ArrayList<>();
+        int next = 1;
+
+        for (int round = 0; round < 40; round++) {
+            final boolean rollback = random.nextInt(4) == 0;
+            final Map<Id<Order3>, Object[]> before = new HashMap<>();
+            expected.forEach((id, values) -> before.put(id, values.clone()));
+            final List<Order3> beforeOrders = new ArrayList<>(orders);
+
+            try (Transaction t = store.begin()) {
+                for (int i = 0; i < 20; i++) {
+                    final int op = random.nextInt(4);
+                    if (op == 0 || orders.isEmpty()) {
+                        final Id<Order3> id = Id.of(next++);
+                        final Order3 order = store.order3().create(id, i);
+                        order.setBar(bars[random.nextInt(bars.length)]);
+                        expected.put(id, new Object[]{i, order.getBar(), null});
+                        orders.add(order);
+                    } else if (op == 1) {
+                        final Order3 order = orders.get(random.nextInt(orders.size()));
+                        final String bar = bars[random.nextInt(bars.length)];
+                        order.setBar(bar == null ? null : new String(bar));
+                        expected.get(order.getId())[1] = bar;
+                    } else if (op == 2) {
+                        final Order3 order = orders.get(random.nextInt(orders.size()));
+                        order.setFoo(order.getFoo() + 1);
+                        order.setBaz((long) round);
+                        final Object[] values = expected.get(order.getId());
+                        values[0] = (Integer) values[0] + 1;
+                        values[2] = (long) round;
+                    } else {
+                        final Order3 order = orders.remove(random.nextInt(orders.size()));
+                        expected.remove(order.getId());
+                        order.remove();
+                    }
+                }
+                if (!rollback) {
+                    t.commit();
+                }
+            }
+
+            if (rollback) {
+                expected.clear();
+                expected.putAll(before);
+                orders.clear();
+                orders.addAll(beforeOrders);
+            }
+
+            assertEquals(expected.size(), orders.size());
+            for (final Order3 order : orders) {
+                final Object[] values = expected.get(order.getId());
+                assertEquals(values[0], order.getFoo());
+                assertEquals(values[1], order.getBar());
+                assertEquals(values[2], order.getBaz());
+                assertTrue(store.order3IdIndex().get(order.getId()) == order);
+            }
+
+            for (final String bar : bars) {
+                final long count = expected.values().stream().filter(values -> Objects.equals(values[1], bar)).count();
+                assertEquals(count, store.order3BarFooIndex().filter().bar(bar).size());
+                assertEquals(count, store2.order3BarFooIndex().filter().bar(bar).size());
+            }
+
+            for (final Map.Entry<Id<Order3>, Object[]> entry : expected.entrySet()) {
+                final Order3 replica = store2.order3IdIndex().get(entry.getKey());
+                assertNotNull(replica);
+                assertEquals(entry.getValue()[0], replica.getFoo());
+                assertEquals(entry.getValue()[1], replica.getBar());
+                assertEquals(entry.getValue()[2], replica.getBaz());
+            }
+        }
+    }
+
+    @Test
+    public void btreeKey() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final Random random = new Random(2);
+        final Map<Long, Integer> expected = new HashMap<>();
+        final List<Order3> orders = new ArrayList<>();
+
+        for (int round = 0; round < 20; round++) {
+            final boolean rollback = round % 5 == 4;
+            final Map<Long, Integer> before = new HashMap<>(expected);
+            final List<Order3> beforeOrders = new ArrayList<>(orders);
+
+            try (Transaction t = store.begin()) {
+                for (int i = 0; i < 500; i++) {
+                    final int op = random.nextInt(3);
+                    if (op == 0 || orders.isEmpty()) {
+                        final long id = round * 1000L + i;
+                        orders.add(store.order3().create(Id.of(id), random.nextInt(100)));
+                        expected.put(id, orders.get(orders.size() - 1).getFoo());
+                    } else if (op == 1) {
+                        final Order3 order = orders.get(random.nextInt(orders.size()));
+                        order.setFoo(random.nextInt(100));
+                        expected.put(order.getId().value(), order.getFoo());
+                    } else {
+                        final Order3 order = orders.remove(random.nextInt(orders.size()));
+                        expected.remove(order.getId().value());
+                        order.remove();
+                    }
+                }
+                if (!rollback) {
+                    t.commit();
+                }
+            }
+
+            if (rollback) {
+                expected.clear();
+                expected.putAll(before);
+                orders.clear();
+                orders.addAll(beforeOrders);
+            }
+
+            for (int i = 0; i < 100; i += 7) {
+                final int from = i;
+                final int to = from + random.nextInt(30);
+                final List<Long> ids = new ArrayList<>();
+                expected.entrySet().stream()
+                        .filter(e -> e.getValue() >= from && e.getValue() < to)
+                        .sorted(Map.Entry.<Long, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                        .forEach(e -> ids.add(e.getKey()));
+
+                final List<Long> actual = new ArrayList<>();
+                try (SmartIterator<Order3> iterator =
+                             store.order3FooIndex().filter().fooFrom(from).fooBefore(to).iterator()) {
+                    while (iterator.hasNext()) {
+                        actual.add(iterator.next().getId().value());
+                    }
+                }
+                assertEquals(ids, actual);
+
+                final List<Long> reversed = new ArrayList<>();
+                try (SmartIterator<Order3> iterator =
+                             store.order3FooIndex().filter().fooFrom(from).fooBefore(to).fooReversed().reversed()
+                                     .iterator()) {
+                    while (iterator.hasNext()) {
+                        reversed.add(iterator.next().getId().value());
+                    }
+                }
+                Collections.reverse(reversed);
+                assertEquals(ids, reversed);
+            }
+
+            assertEquals(expected.size(), store.order3FooIndex().filter().size());
+        }
+    }
+
+    @Test
+    public void offHeapStorage() {
+
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final OrderStore store =
+                new OrderStore(new TransformDeltaCommitListener<>(new ApplyStoreDeltaListener<>(store2)));
+        final int count = 5000;
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < count; i++) {
+                final Order4 order = store.order4().create(Id.of(i + 1), i, i % 4 == 1, Id.of(i % 7));
+                order.setBar(i % 2 == 0 ? null : "bar" + i % 3);
+                order.setBaz(i % 3 == 0 ? null : (long) -i);
+                order.setChecked(i % 3 == 0 ? null : i % 3 == 1);
+                order.setTime(i % 4 == 0 ? null : Instant.ofEpochSecond(i, i));
+                order.setDay(i % 8 == 7 ? null : DayOfWeek.of(i % 8 + 1));
+                order.setAmount(i % 5 == 0 ? null : BigDecimal.valueOf(i, 2));
+                order.setOrder2(i % 2 == 0 ? null : Id.of(i));
+            }
+            t.commit();
+        }
+
+        try (Transaction ignored = store.begin()) {
+            for (int i = 0; i < count; i += 2) {
+                final Order4 order = store.order4IdIndex().get(Id.of(i + 1));
+                order.setBar("x");
+                order.setTime(null);
+                order.setChecked(true);
+                order.remove();
+            }
+        }
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < count; i += 2) {
+                store.order4IdIndex().get(Id.of(i + 1)).remove();
+            }
+            t.commit();
+        }
+
+        assertEquals(0, store.order4BarFooIndex().filter().bar((String) null).size());
+        assertEquals(count / 2, store.order4BarFooIndex().size());
+
+        for (final OrderStore s : List.of(store, store2)) {
+            for (int i = 1; i < count; i += 2) {
+                final Order4 order = s.order4IdIndex().get(Id.of(i + 1));
+                assertEquals(i, order.getFoo());
+                assertEquals("bar" + i % 3, order.getBar());
+                assertEquals(i % 3 == 0 ? null : (Long) (long) -i, order.getBaz());
+                assertEquals(i % 4 == 1, order.isFlag());
+                assertEquals(i % 3 == 0 ? null : i % 3 == 1, order.getChecked());
+                assertEquals(i % 4 == 0 ? null : Instant.ofEpochSecond(i, i), order.getTime());
+                assertEquals(i % 8 == 7 ? null : DayOfWeek.of(i % 8 + 1), order.getDay());
+                assertEquals(i % 5 == 0 ? null : BigDecimal.valueOf(i, 2), order.getAmount());
+                assertEquals(Id.of(i), order.getOrder2());
+                assertEquals(i + 1, order.getIdValue());
+                assertEquals(i % 7, order.getOwnerValue());
+            }
+        }
+
+        try (Transaction t = store.begin()) {
+            final Order4 order = store.order4().create(Id.of(count + 1), -1, false, Id.of(1));
+            assertNull(order.getBar());
+            assertNull(order.getBaz());
+            assertFalse(order.isFlag());
+            assertNull(order.getChecked());
+            assertNull(order.getTime());
+            assertNull(order.getDay());
+            assertNull(order.getAmount());
+            assertNull(order.getOrder2());
+            t.commit();
+        }
+    }
+
+    @Test
+    public void removedEntitiesStayReadable() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+
+        final Order3 order3;
+        final Order4 order4;
+        try (Transaction t = store.begin()) {
+            order3 = store.order3().create(Id.of(1), 10);
+            order3.setBar("a");
+            order3.setBaz(11L);
+            order4 = store.order4().create(Id.of(2), 20, true, Id.of(3));
+            order4.setBar("b");
+            order4.setTime(Instant.ofEpochSecond(21));
+            t.commit();
+        }
+
+        try (Transaction t = store.begin()) {
+            order3.remove();
+            order4.remove();
+            t.commit();
+        }
+
+        assertNull(store.order3IdIndex().get(Id.of(1)));
+        assertNull(store.order4IdIndex().get(Id.of(2)));
+
+        assertEquals(Id.of(1), order3.getId());
+        assertEquals(10, order3.getFoo());
+        assertEquals("a", order3.getBar());
+        assertEquals(Long.valueOf(11), order3.getBaz());
+
+        assertEquals(Id.of(2), order4.getId());
+        assertEquals(2, order4.getIdValue());
+        assertEquals(20, order4.getFoo());
+        assertEquals("b", order4.getBar());
+        assertTrue(order4.isFlag());
+        assertEquals(Instant.ofEpochSecond(21), order4.getTime());
+        assertEquals(3, order4.getOwnerValue());
+
+        try (Transaction t = store.begin()) {
+            final Order3 other = store.order3().create(Id.of(4), 40);
+            other.setBar("c");
+            t.commit();
+        }
+
+        assertEquals(10, order3.getFoo());
+        assertEquals("a", order3.getBar());
+    }
+
+    @Test
+    public void idValues() {
+
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final OrderStore store =
+                new OrderStore(new TransformDeltaCommitListener<>(new ApplyStoreDeltaListener<>(store2)));
+
+        try (Transaction t = store.begin()) {
+            store.order2().create(Id.of(1000), 1);
+            store.order4().create(Id.of(2000), 2, false, Id.of(1000));
+            t.commit();
+        }
+
+        assertEquals(1000, store.order2IdIndex().get(1000).getIdValue());
+        assertNull(store.order2IdIndex().get(1001));
+
+        try (Transaction ignored = store.begin()) {
+            store.order4IdIndex().get(2000).setOwnerValue(3000);
+            assertEquals(3000, store.order4IdIndex().get(2000).getOwnerValue());
+        }
+
+        try (Transaction t = store.begin()) {
+            final Order4 order = store.order4IdIndex().get(2000);
+            assertEquals(1000, order.getOwnerValue());
+            order.setOwnerValue(1000);
+            assertFalse(order.isChangedOwner());
+            order.setOwnerValue(4000);
+            t.commit();
+        }
+
+        for (final OrderStore s : List.of(store, store2)) {
+            final Order4 order = s.order4IdIndex().get(2000);
+            assertEquals(2000, order.getIdValue());
+            assertEquals(4000, order.getOwnerValue());
+            assertEquals(Id.of(4000), order.getOwner());
+        }
+    }
+
+    @Test
+    public void storesOnSeparateThreads() throws InterruptedException {
+
+        final int threadCount = 4;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int n = 0; n < threadCount; n++) {
+            final int shard = n;
+            final Thread thread = new Thread(() -> {
+                try {
+                    final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+                    try (Transaction t = store.begin()) {
+                        for (int i = 0; i < 1000; i++) {
+                            store.order().create(Id.of(shard * 1000L + i), i % 100);
+                        }
+                        t.commit();
+                    }
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        final int from = i % 90;
+                        try (Transaction ignored = store.begin();
+                             SmartIterator<Order> iterator =
+                                     store.orderFooIndex().filter().fooFrom(from).fooBefore(from + 10).iterator()) {
+                            // ordered by foo, then by id
+                            for (int j = 0; j < 100; j++) {
+                                assertTrue(iterator.hasNext());
+                                assertEquals(shard * 1000L + j % 10 * 100 + from + j / 10,
+                                        iterator.next().getId().value());
+                            }
+                            assertFalse(iterator.hasNext());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "store-" + n);
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void partitionedStore() throws Exception {
+
+        try (PartitionedStore<OrderStore> stores =
+                     new PartitionedStore<>(4, i -> new OrderStore(new ReleaseDeltaCommitListener<>()))) {
+
+            for (int i = 0; i < 1000; i++) {
+                final Id<Order> id = Id.of(i);
+                final int foo = i % 10;
+                stores.execute(id, store -> store.order().create(id, foo).getId()).get();
+            }
+
+            final List<Integer> counts = stores.executeAll(store -> store.orderFooIndex().filter().size()).get();
+            assertEquals(1000, counts.stream().mapToInt(Integer::intValue).sum());
+            for (final int count : counts) {
+                assertTrue(count > 0);
+            }
+
+            assertEquals(Integer.valueOf(7), stores.execute(567, store -> store.orderIdIndex().get(Id.of(567)).getFoo())
+                    .get());
+
+            final List<Long> ids = stores.query(
+                    store -> store.orderFooIndex().filter().foo(3).iterator(),
+                    order -> order.getId().value(),
+                    Comparator.naturalOrder()
+            ).get();
+            assertEquals(100, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(i * 10L + 3, ids.get(i).longValue());
+            }
+
+            try {
+                stores.execute(5, store -> {
+                    store.orderIdIndex().get(Id.of(5)).setBar("x");
+                    throw new IllegalStateException();
+                }).get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertNull(stores.execute(5, store -> store.orderIdIndex().get(Id.of(5)).getBar()).get());
+        }
+
+        final long[] bounds = {100, 200};
+        try (PartitionedStore<OrderStore> stores =
+                     new PartitionedStore<>(bounds, i -> new OrderStore(new ReleaseDeltaCommitListener<>()))) {
+            assertEquals(0, stores.partitionOf(-1));
+            assertEquals(0, stores.partitionOf(99));
+            assertEquals(1, stores.partitionOf(100));
+            assertEquals(1, stores.partitionOf(199));
+            assertEquals(2, stores.partitionOf(200));
+        }
+    }
+
+    @Test
+    public void parallelFilterStreams() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 10_000; i++) {
+                store.order2().create(Id.of(i + 1), i).setBar(String.valueOf((char) ('a' + i % 7)));
+            }
+            t.commit();
+        }
+
+        final Order2BarFooIndex key = store.order2BarFooIndex();
+        checkParallel(key.filter(), key.filter().iterator());
+        checkParallel(key.filter().barFrom("b").barBefore("e"), key.filter().barFrom("b").barBefore("e").iterator());
+        checkParallel(key.filter().bar("c").fooAfter(100).fooTo(5000),
+                key.filter().bar("c").fooAfter(100).fooTo(5000).iterator());
+        checkParallel(key.filter().bar("c").foo(2), key.filter().bar("c").foo(2).iterator());
+        checkParallel(key.filter().bar("z"), key.filter().bar("z").iterator());
+        checkParallel(key.filter().reversed(), key.filter().reversed().iterator());
+    }
+
+    private static void checkParallel(Order2BarFooIndex.Filter filter, SmartIterator<Order2> iterator) {
+        final List<Id<Order2>> expected = ids(iterator);
+        try (var stream = filter.stream()) {
+            assertEquals(expected, stream.parallel().map(Order2::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getAll() {
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 1000; i += 2) {
+                store.order().create(Id.of(i), i);
+                store.order4().create(Id.of(i), i, false, Id.of(i));
+            }
+            t.commit();
+        }
+
+        final Id<Order>[] ids = new Id[]{Id.of(10), Id.of(3), Id.of(998), Id.of(0), Id.of(10), Id.of(1001)};
+        final Order[] orders = new Order[ids.length];
+        assertEquals(4, store.orderIdIndex().getAll(ids, orders, ids.length));
+        for (int i = 0; i < ids.length; i++) {
+            assertSame(store.orderIdIndex().get(ids[i]), orders[i]);
+        }
+
+        final Order[] sorted = new Order[ids.length];
+        assertEquals(4, store.orderIdIndex().getAll(ids, sorted, ids.length, new int[ids.length]));
+        assertArrayEquals(orders, sorted);
+
+        final Id<Order4>[] ids4 = new Id[]{Id.of(3), Id.of(4)};
+        final Order4[] orders4 = new Order4[ids4.length];
+        assertEquals(1, store.order4IdIndex().getAll(ids4, orders4, ids4.length));
+        assertNull(orders4[0]);
+        assertEquals(4, orders4[1].getFoo());
+    }
+
+    @Test
+    public void keyMaintenanceDoesNotAllocate() {
+
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        final List<Order2> orders = new ArrayList<>();
+
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < 4; i++) {
+                final Order2 order = store.order2().create(Id.of(i + 1), i);
+                order.setBar("a");
+                orders.add(order);
+            }
+            // keeps "b" referenced, so that the interner does not drop and re-add it on every move
+            store.order2().create(Id.of(5), 4).setBar("b");
+            t.commit();
+        }
+
+        // many short calls bring moveBars itself to the final JIT tier: a method still running profiled code
+        // keeps raising tier transition events, and the VM may allocate on this thread while handling them
+        for (int i = 0; i < 5_000; i++) {
+            moveBars(store, orders, 20);
+        }
+
+        // the VM still allocates a few bytes on this thread now and then while it recompiles or reaches a safepoint,
+        // so the test looks for a round that stays under a byte per move: a single object per move would exceed it
+        final int moves = 2_000;
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 50 && allocated >= moves; round++) {
+            final long before = bean.getCurrentThreadAllocatedBytes();
+            moveBars(store, orders, moves);
+            allocated = Math.min(allocated, bean.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        assertTrue("allocated " + allocated + " bytes in " + moves + " moves", allocated < moves);
+        final Order2BarFooIndex key = store.order2BarFooIndex();
+        assertEquals(List.of(Id.of(1), Id.of(2), Id.of(3), Id.of(4)), ids(key.filter().bar("a").iterator()));
+        assertEquals(List.of(Id.of(5)), ids(key.filter().bar("b").iterator()));
+    }
+
+    /**
+     * Moves the orders to another bar and back in a transaction per move, the way the applications do, so that the
+     * keys are maintained through the commits.
+     */
+    private static void moveBars(OrderStore store, List<Order2> orders, int count) {
+
+        for (int i = 0; i < count; i++) {
+            final Order2 order = orders.get(i & 3);
+            try (Transaction t = store.begin()) {
+                order.setBar("b");
+                t.commit();
+            }
+            try (Transaction t = store.begin()) {
+                order.setBar("a");
+                t.commit();
+            }
+        }
+    }
+
+    private static void checkFlatKeys(
+            OrderStore store,
+            Function<Order2BarFooIndex.Filter, SmartIterator<Order2>> tree,
+            Function<Order2BarFooFlatIndex.Filter, SmartIterator<Order2>> flat
+    ) {
+        final List<Id<Order2>> expected = ids(tree.apply(store.order2BarFooIndex().filter()));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, ids(flat.apply(store.order2BarFooFlatIndex().filter())));
+    }
+
+    private static List<Id<Order2>> ids(Stream<Order2> stream) {
+        return stream.map(Order2::getId).collect(Collectors.toList());
+    }
+
+    private static List<Id<Order2>> ids(SmartIterator<Order2> iterator) {
+        final List<Id<Order2>> ids = new ArrayList<>();
+        try (iterator) {
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getId());
+            }
+        }
+        return ids;
+    }
 }
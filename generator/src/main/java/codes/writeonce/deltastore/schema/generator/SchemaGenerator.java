@@ -9,8 +9,10 @@ import codes.writeonce.deltastore.schema.xml.reader.IdFieldInfo;
 import codes.writeonce.deltastore.schema.xml.reader.InstantFieldInfo;
 import codes.writeonce.deltastore.schema.xml.reader.IntegerFieldInfo;
 import codes.writeonce.deltastore.schema.xml.reader.KeyInfo;
+import codes.writeonce.deltastore.schema.xml.reader.KeyKind;
 import codes.writeonce.deltastore.schema.xml.reader.LongFieldInfo;
 import codes.writeonce.deltastore.schema.xml.reader.SchemaInfo;
+import codes.writeonce.deltastore.schema.xml.reader.Storage;
 import codes.writeonce.deltastore.schema.xml.reader.StringFieldInfo;
 
 import javax.annotation.Nonnull;
@@ -28,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,6 +38,56 @@ import static java.util.stream.Collectors.toList;
 
 public class SchemaGenerator {
 
+    private static final List<String> KEY_IMPORTS = List.of(
+            "codes.writeonce.deltastore.api.AbstractFilter",
+            "codes.writeonce.deltastore.api.AbstractKey",
+            "codes.writeonce.deltastore.api.ArrayPool",
+            "codes.writeonce.deltastore.api.map.LongTreeMap",
+            "codes.writeonce.deltastore.api.map.IntegerTreeMap",
+            "codes.writeonce.deltastore.api.map.IdTreeMap",
+            "codes.writeonce.deltastore.api.map.InstantTreeMap",
+            "codes.writeonce.deltastore.api.map.BigDecimalTreeMap",
+            "codes.writeonce.deltastore.api.map.StringTreeMap",
+            "codes.writeonce.deltastore.api.map.EnumTreeMap",
+            "codes.writeonce.deltastore.api.map.BooleanTreeMap",
+            "codes.writeonce.deltastore.api.map.LongBTreeMap",
+            "codes.writeonce.deltastore.api.map.IntegerBTreeMap",
+            "codes.writeonce.deltastore.api.map.IdBTreeMap",
+            "codes.writeonce.deltastore.api.map.LongHashMap",
+            "codes.writeonce.deltastore.api.map.IntegerHashMap",
+            "codes.writeonce.deltastore.api.map.IdHashMap",
+            "codes.writeonce.deltastore.api.map.CompositeIterator",
+            "codes.writeonce.deltastore.api.map.CompositeComparator",
+            "codes.writeonce.deltastore.api.map.CompositeKey",
+            "codes.writeonce.deltastore.api.map.CompositeTreeMap",
+            "codes.writeonce.deltastore.api.NotUniqueException",
+            "codes.writeonce.deltastore.api.SmartIterator",
+            "codes.writeonce.deltastore.api.SortedStringDictionary",
+            "codes.writeonce.deltastore.api.map.NestedIterator"
+    );
+
+    private static final List<String> KEY_JAVA_IMPORTS = List.of(
+            "java.util.ArrayList",
+            "java.util.Arrays",
+            "java.util.Collections",
+            "java.util.Comparator",
+            "java.util.HashMap",
+            "java.util.List",
+            "java.util.Map",
+            "java.util.Objects",
+            "java.util.Spliterator",
+            "java.util.Spliterators",
+            "java.util.function.IntUnaryOperator",
+            "java.util.stream.Collectors",
+            "java.util.stream.Stream",
+            "java.util.stream.StreamSupport"
+    );
+
+    private static final List<String> KEY_STATIC_IMPORTS = List.of(
+            "static java.util.Spliterator.NONNULL",
+            "static java.util.Spliterator.ORDERED"
+    );
+
     public void generate(SchemaInfo schemaInfo, Path targetDirectory, Charset charset)
             throws IOException {
 
@@ -45,6 +98,7 @@ public class SchemaGenerator {
             generateEntityTypes(schemaInfo, targetDirectory, charset);
             generateRecordClasses(schemaInfo, targetDirectory, charset);
             generateDeltaRecordClasses(schemaInfo, targetDirectory, charset);
+            generateColumnsClasses(schemaInfo, targetDirectory, charset);
         } else {
             generateAbstractStoreClass(schemaInfo, targetDirectory, charset);
         }
@@ -205,11 +259,22 @@ public class SchemaGenerator {
 
             writer.append(" {\n");
 
+            final Set<FieldInfo> dictionaryFields = getDictionaryFields(schemaInfo);
+
+            for (final FieldInfo fieldInfo : dictionaryFields) {
+                writer.append("\n");
+                writer.append("    private final codes.writeonce.deltastore.api.SortedStringDictionary ")
+                        .append(dictionaryName(fieldInfo))
+                        .append(" = new codes.writeonce.deltastore.api.SortedStringDictionary();\n");
+            }
+
             for (final KeyInfo keyInfo : schemaInfo.getKeyMap().values()) {
                 writer.append("\n");
                 writer.append("    private final ").append(keyInfo.getName()).append(" ")
                         .append(withSmallLetter(keyInfo.getName())).append(" = new ").append(keyInfo.getName())
-                        .append("();\n");
+                        .append("(").append(getLabeledFields(schemaInfo, keyInfo).stream()
+                                .map(SchemaGenerator::dictionaryName).collect(Collectors.joining(", ")))
+                        .append(");\n");
             }
 
             for (final EntityTypeInfo entityTypeInfo : schemaInfo.getTypeMap().values()) {
@@ -222,6 +287,16 @@ public class SchemaGenerator {
                 }
             }
 
+            for (final EntityTypeInfo entityTypeInfo : schemaInfo.getTypeMap().values()) {
+                if (entityTypeInfo.isInstantiable() && entityTypeInfo.getStorage() != Storage.ROW) {
+                    final String columnsName = entityTypeInfo.getName() + "Columns";
+                    writer.append("\n");
+                    writer.append("    private final ").append(columnsName).append(" ")
+                            .append(withSmallLetter(columnsName)).append(" = new ").append(columnsName)
+                            .append("();\n");
+                }
+            }
+
             writer.append("\n");
             indent(writer, 1).append("private final List<Table<?>> tables = Arrays.asList(");
 
@@ -268,6 +343,26 @@ public class SchemaGenerator {
                 }
             }
 
+            for (final EntityTypeInfo entityTypeInfo : schemaInfo.getTypeMap().values()) {
+                if (entityTypeInfo.isInstantiable() && entityTypeInfo.getStorage() != Storage.ROW) {
+                    final String columnsName = entityTypeInfo.getName() + "Columns";
+                    writer.append("\n");
+                    writer.append("    ").append(columnsName).append(" ").append(withSmallLetter(columnsName))
+                            .append("() {\n");
+                    writer.append("        return ").append(withSmallLetter(columnsName)).append(";\n");
+                    writer.append("    }\n");
+                }
+            }
+
+            for (final FieldInfo fieldInfo : dictionaryFields) {
+                final String dictionaryName = dictionaryName(fieldInfo);
+                writer.append("\n");
+                writer.append("    codes.writeonce.deltastore.api.SortedStringDictionary ").append(dictionaryName)
+                        .append("() {\n");
+                writer.append("        return ").append(dictionaryName).append(";\n");
+                writer.append("    }\n");
+            }
+
             writer.append("\n");
             indent(writer, 1).append("@Override\n");
             indent(writer, 1).append("public List<Table<?>> getTables() {\n");
@@ -397,6 +492,345 @@ public class SchemaGenerator {
         }
     }
 
+    private void generateColumnsClasses(SchemaInfo schemaInfo, Path path, Charset charset) throws IOException {
+
+        for (final EntityTypeInfo entityTypeInfo : schemaInfo.getTypeMap().values()) {
+            if (entityTypeInfo.isInstantiable() && entityTypeInfo.getStorage() != Storage.ROW) {
+                try (FileOutputStream out = new FileOutputStream(
+                        path.resolve(entityTypeInfo.getName() + "Columns.java").toFile());
+                     OutputStreamWriter writer = new OutputStreamWriter(out, charset)) {
+
+                    if (entityTypeInfo.getStorage() == Storage.OFFHEAP) {
+                        generateOffHeapColumnsClass(schemaInfo, schemaInfo.getPackageName(), writer, entityTypeInfo);
+                    } else {
+                        generateColumnsClass(schemaInfo, schemaInfo.getPackageName(), writer, entityTypeInfo);
+                    }
+                }
+            }
+        }
+    }
+
+    private void generateColumnsClass(SchemaInfo schemaInfo, String packageName, Appendable writer,
+            EntityTypeInfo entityTypeInfo) throws IOException {
+
+        final List<FieldInfo> fields = getFields(schemaInfo, entityTypeInfo);
+        final boolean strings = fields.stream().anyMatch(fieldInfo -> fieldInfo instanceof StringFieldInfo);
+
+        writer.append("package ").append(packageName).append(";\n");
+        writer.append("\n");
+        writer.append("import codes.writeonce.deltastore.api.AbstractColumns;\n");
+        if (strings) {
+            writer.append("import codes.writeonce.deltastore.api.StringDictionary;\n");
+        }
+        writer.append("\n");
+        writer.append("import java.util.Arrays;\n");
+        writer.append("\n");
+        writer.append("final class ").append(entityTypeInfo.getName()).append("Columns extends AbstractColumns {\n");
+
+        if (strings) {
+            writer.append("\n");
+            indent(writer, 1).append("final StringDictionary strings = new StringDictionary();\n");
+        }
+
+        for (final FieldInfo fieldInfo : fields) {
+            final String type = columnType(schemaInfo, entityTypeInfo, fieldInfo);
+            writer.append("\n");
+            indent(writer, 1).append(type).append("[] ").append(fieldInfo.getName()).append(" = new ").append(type)
+                    .append("[INITIAL_CAPACITY];\n");
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        indent(writer, 1).append("protected void clear(int row) {\n");
+        for (final FieldInfo fieldInfo : fields) {
+            if (fieldInfo instanceof StringFieldInfo) {
+                indent(writer, 2).append("strings.release(").append(fieldInfo.getName()).append("[row]);\n");
+                indent(writer, 2).append(fieldInfo.getName()).append("[row] = 0;\n");
+            } else {
+                indent(writer, 2).append(fieldInfo.getName()).append("[row] = ").append(getDefault(fieldInfo))
+                        .append(";\n");
+            }
+        }
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        indent(writer, 1).append("protected void resize(int capacity) {\n");
+        for (final FieldInfo fieldInfo : fields) {
+            indent(writer, 2).append(fieldInfo.getName()).append(" = Arrays.copyOf(").append(fieldInfo.getName())
+                    .append(", capacity);\n");
+        }
+        indent(writer, 1).append("}\n");
+
+        writer.append("}\n");
+    }
+
+    private void generateOffHeapColumnsClass(SchemaInfo schemaInfo, String packageName, Appendable writer,
+            EntityTypeInfo entityTypeInfo) throws IOException {
+
+        final String name = entityTypeInfo.getName();
+        final List<FieldInfo> fields = getFields(schemaInfo, entityTypeInfo);
+        final boolean strings = fields.stream().anyMatch(fieldInfo -> fieldInfo instanceof StringFieldInfo);
+        final List<FieldInfo> heapFields =
+                fields.stream().filter(fieldInfo -> offHeapWidth(fieldInfo) == 0).collect(toList());
+
+        writer.append("package ").append(packageName).append(";\n");
+        writer.append("\n");
+        writer.append("import codes.writeonce.deltastore.api.OffHeapColumns;\n");
+        if (strings) {
+            writer.append("import codes.writeonce.deltastore.api.StringDictionary;\n");
+        }
+        if (!heapFields.isEmpty()) {
+            writer.append("\n");
+            writer.append("import java.util.Arrays;\n");
+        }
+
+        appendImport(writer, schemaInfo, entityTypeInfo);
+
+        for (final SchemaInfo parentSchemaInfo : schemaInfo.getParentSchemaMap().values()) {
+            for (final EntityTypeInfo eti : parentSchemaInfo.getTypeMap().values()) {
+                if (eti.getSchemaName().equals(parentSchemaInfo.getName())) {
+                    writer.append("import ").append(parentSchemaInfo.getPackageName()).append('.')
+                            .append(eti.getName()).append(";\n");
+                }
+            }
+        }
+
+        writer.append("\n");
+        writer.append("final class ").append(name).append("Columns extends OffHeapColumns {\n");
+
+        int offset = 0;
+        for (final FieldInfo fieldInfo : fields) {
+            final int width = offHeapWidth(fieldInfo);
+            if (width != 0) {
+                writer.append("\n");
+                indent(writer, 1).append("private static final int OFFSET_").append(toUpperCase(fieldInfo.getName()))
+                        .append(" = ").append(String.valueOf(offset)).append(";\n");
+                offset += width;
+            }
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("private static final int ROW_SIZE = ").append(String.valueOf(Math.max(offset, 1)))
+                .append(";\n");
+
+        for (final FieldInfo fieldInfo : fields) {
+            if (fieldInfo instanceof EnumFieldInfo) {
+                final String type = ((EnumFieldInfo) fieldInfo).getType();
+                writer.append("\n");
+                indent(writer, 1).append("private static final ").append(type).append("[] ")
+                        .append(toUpperCase(fieldInfo.getName())).append("_VALUES = ").append(type)
+                        .append(".values();\n");
+            }
+        }
+
+        if (strings) {
+            writer.append("\n");
+            indent(writer, 1).append("final StringDictionary strings = new StringDictionary();\n");
+        }
+
+        for (final FieldInfo fieldInfo : heapFields) {
+            final String type = typeName(schemaInfo, fieldInfo, name, false);
+            writer.append("\n");
+            indent(writer, 1).append("private ").append(type).append("[] ").append(fieldInfo.getName())
+                    .append(" = new ").append(type).append("[INITIAL_CAPACITY];\n");
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append(name).append("Columns() {\n");
+        indent(writer, 2).append("super(ROW_SIZE);\n");
+        indent(writer, 1).append("}\n");
+
+        for (final FieldInfo fieldInfo : fields) {
+            appendOffHeapAccessors(schemaInfo, writer, entityTypeInfo, fieldInfo);
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        indent(writer, 1).append("protected void clear(int row) {\n");
+        for (final FieldInfo fieldInfo : fields) {
+            if (fieldInfo instanceof StringFieldInfo) {
+                indent(writer, 2).append("strings.release(getInt(row, OFFSET_")
+                        .append(toUpperCase(fieldInfo.getName())).append("));\n");
+            }
+        }
+        for (final FieldInfo fieldInfo : heapFields) {
+            indent(writer, 2).append(fieldInfo.getName()).append("[row] = null;\n");
+        }
+        indent(writer, 2).append("zero(row);\n");
+        indent(writer, 1).append("}\n");
+
+        if (!heapFields.isEmpty()) {
+            writer.append("\n");
+            indent(writer, 1).append("@Override\n");
+            indent(writer, 1).append("protected void resize(int capacity) {\n");
+            indent(writer, 2).append("super.resize(capacity);\n");
+            for (final FieldInfo fieldInfo : heapFields) {
+                indent(writer, 2).append(fieldInfo.getName()).append(" = Arrays.copyOf(")
+                        .append(fieldInfo.getName()).append(", capacity);\n");
+            }
+            indent(writer, 1).append("}\n");
+        }
+
+        writer.append("}\n");
+    }
+
+    private void appendOffHeapAccessors(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            FieldInfo fieldInfo) throws IOException {
+
+        final String type = typeName(schemaInfo, fieldInfo, entityTypeInfo.getName(), false);
+        final String fieldName = fieldInfo.getName();
+        final String offset = "OFFSET_" + toUpperCase(fieldName);
+        final String next = " + 1";
+
+        if (hasValueAccessors(fieldInfo)) {
+            writer.append("\n");
+            indent(writer, 1).append("long ").append(fieldName).append("Value(int row) {\n");
+            indent(writer, 2).append("return getLong(row, ").append(offset).append(next).append(");\n");
+            indent(writer, 1).append("}\n");
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append(type).append(" ").append(fieldName).append("(int row) {\n");
+        if (fieldInfo instanceof StringFieldInfo) {
+            indent(writer, 2).append("return strings.get(getInt(row, ").append(offset).append("));\n");
+        } else if (fieldInfo instanceof BigDecimalFieldInfo) {
+            indent(writer, 2).append("return ").append(fieldName).append("[row];\n");
+        } else if (fieldInfo instanceof EnumFieldInfo) {
+            indent(writer, 2).append("final int ordinal = getInt(row, ").append(offset).append(");\n");
+            indent(writer, 2).append("return ordinal == 0 ? null : ").append(toUpperCase(fieldName))
+                    .append("_VALUES[ordinal - 1];\n");
+        } else if (fieldInfo instanceof BooleanFieldInfo) {
+            if (fieldInfo.isNullable()) {
+                indent(writer, 2).append("final byte value = getByte(row, ").append(offset).append(");\n");
+                indent(writer, 2).append("return value == 0 ? null : value == 2;\n");
+            } else {
+                indent(writer, 2).append("return getByte(row, ").append(offset).append(") != 0;\n");
+            }
+        } else {
+            final String value;
+            if (fieldInfo instanceof IntegerFieldInfo) {
+                value = "getInt(row, " + offset + (fieldInfo.isNullable() ? next : "") + ")";
+            } else if (fieldInfo instanceof LongFieldInfo) {
+                value = "getLong(row, " + offset + (fieldInfo.isNullable() ? next : "") + ")";
+            } else if (fieldInfo instanceof IdFieldInfo) {
+                value = "codes.writeonce.deltastore.api.Id.of(getLong(row, " + offset + next + "))";
+            } else {
+                value = "java.time.Instant.ofEpochSecond(getLong(row, " + offset + next + "), getInt(row, " +
+                        offset + " + 9))";
+            }
+            if (fieldInfo.isNullable() || !isPrimitive(fieldInfo)) {
+                indent(writer, 2).append("return getByte(row, ").append(offset).append(") == 0 ? null : ")
+                        .append(value).append(";\n");
+            } else {
+                indent(writer, 2).append("return ").append(value).append(";\n");
+            }
+        }
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("void ").append(fieldName).append("(int row, ").append(type).append(" value) {\n");
+        if (fieldInfo instanceof StringFieldInfo) {
+            indent(writer, 2).append("putInt(row, ").append(offset).append(", strings.replace(getInt(row, ")
+                    .append(offset).append("), value));\n");
+        } else if (fieldInfo instanceof BigDecimalFieldInfo) {
+            indent(writer, 2).append(fieldName).append("[row] = value;\n");
+        } else if (fieldInfo instanceof EnumFieldInfo) {
+            indent(writer, 2).append("putInt(row, ").append(offset)
+                    .append(", value == null ? 0 : value.ordinal() + 1);\n");
+        } else if (fieldInfo instanceof BooleanFieldInfo) {
+            if (fieldInfo.isNullable()) {
+                indent(writer, 2).append("putByte(row, ").append(offset)
+                        .append(", value == null ? (byte) 0 : value ? (byte) 2 : (byte) 1);\n");
+            } else {
+                indent(writer, 2).append("putByte(row, ").append(offset).append(", value ? (byte) 1 : (byte) 0);\n");
+            }
+        } else if (!fieldInfo.isNullable() && isPrimitive(fieldInfo)) {
+            indent(writer, 2).append(fieldInfo instanceof IntegerFieldInfo ? "putInt" : "putLong").append("(row, ")
+                    .append(offset).append(", value);\n");
+        } else {
+            indent(writer, 2).append("if (value == null) {\n");
+            indent(writer, 3).append("putByte(row, ").append(offset).append(", (byte) 0);\n");
+            indent(writer, 2).append("} else {\n");
+            indent(writer, 3).append("putByte(row, ").append(offset).append(", (byte) 1);\n");
+            if (fieldInfo instanceof IntegerFieldInfo) {
+                indent(writer, 3).append("putInt(row, ").append(offset).append(next).append(", value);\n");
+            } else if (fieldInfo instanceof LongFieldInfo) {
+                indent(writer, 3).append("putLong(row, ").append(offset).append(next).append(", value);\n");
+            } else if (fieldInfo instanceof IdFieldInfo) {
+                indent(writer, 3).append("putLong(row, ").append(offset).append(next).append(", value.value());\n");
+            } else {
+                indent(writer, 3).append("putLong(row, ").append(offset).append(next)
+                        .append(", value.getEpochSecond());\n");
+                indent(writer, 3).append("putInt(row, ").append(offset).append(" + 9, value.getNano());\n");
+            }
+            indent(writer, 2).append("}\n");
+        }
+        indent(writer, 1).append("}\n");
+    }
+
+    /**
+     * @return number of bytes of the field in an off-heap row: a presence byte followed by the value for nullable
+     * fields, a dictionary code for strings, {@code 0} for decimals kept on the heap
+     */
+    private static int offHeapWidth(FieldInfo fieldInfo) {
+        return fieldInfo.accept(new FieldInfo.Visitor<Integer, RuntimeException>() {
+            @Override
+            public Integer visit(StringFieldInfo fieldInfo) {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public Integer visit(IntegerFieldInfo fieldInfo) {
+                return fieldInfo.isNullable() ? 1 + Integer.BYTES : Integer.BYTES;
+            }
+
+            @Override
+            public Integer visit(LongFieldInfo fieldInfo) {
+                return fieldInfo.isNullable() ? 1 + Long.BYTES : Long.BYTES;
+            }
+
+            @Override
+            public Integer visit(BooleanFieldInfo fieldInfo) {
+                return 1;
+            }
+
+            @Override
+            public Integer visit(InstantFieldInfo fieldInfo) {
+                return 1 + Long.BYTES + Integer.BYTES;
+            }
+
+            @Override
+            public Integer visit(IdFieldInfo fieldInfo) {
+                return 1 + Long.BYTES;
+            }
+
+            @Override
+            public Integer visit(EnumFieldInfo fieldInfo) {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public Integer visit(BigDecimalFieldInfo fieldInfo) {
+                return 0;
+            }
+        });
+    }
+
+    /**
+     * @return element type of the column array of the field: string codes, primitives of non-nullable primitive
+     * fields, erased ids, the field type otherwise
+     */
+    private static String columnType(SchemaInfo schemaInfo, EntityTypeInfo entityTypeInfo, FieldInfo fieldInfo) {
+        if (fieldInfo instanceof StringFieldInfo) {
+            return "int";
+        } else if (fieldInfo instanceof IdFieldInfo) {
+            return "codes.writeonce.deltastore.api.Id<?>";
+        } else {
+            return typeName(schemaInfo, fieldInfo, entityTypeInfo.getName(), false);
+        }
+    }
+
     private void generateDeltaRecordClasses(SchemaInfo schemaInfo, Path path,
             Charset charset) throws IOException {
 
@@ -422,7 +856,7 @@ public class SchemaGenerator {
         writer.append("import codes.writeonce.deltastore.api.EntityType;\n");
         writer.append("import codes.writeonce.deltastore.api.FieldValueConsumerVisitor;\n");
         writer.append("import codes.writeonce.deltastore.api.Id;\n");
-        writer.append("import codes.writeonce.deltastore.api.Pool;\n");
+        writer.append("import codes.writeonce.deltastore.api.ThreadLocalArrayPool;\n");
         writer.append("\n");
         writer.append("import javax.annotation.Nonnull;\n");
         writer.append("\n");
@@ -458,20 +892,12 @@ public class SchemaGenerator {
                 .append(entityTypeInfo.getName()).append("DeltaRecord> implements ").append(entityTypeInfo.getName())
                 .append(" {\n");
         writer.append("\n");
-        indent(writer, 1).append("public static final Pool<").append(entityTypeInfo.getName())
-                .append("DeltaRecord> POOL = new Pool<").append(entityTypeInfo.getName()).append("DeltaRecord>() {\n");
-        indent(writer, 2).append("@Nonnull\n");
-        indent(writer, 2).append("@Override\n");
-        indent(writer, 2).append("public ").append(entityTypeInfo.getName()).append("DeltaRecord get() {\n");
-        indent(writer, 3).append("return new ").append(entityTypeInfo.getName()).append("DeltaRecord();\n");
-        indent(writer, 2).append("}\n");
-        writer.append("\n");
-        indent(writer, 2).append("@Override\n");
-        indent(writer, 2).append("public void put(@Nonnull ").append(entityTypeInfo.getName())
-                .append("DeltaRecord value) {\n");
-        indent(writer, 3).append("value.clean();\n");
-        indent(writer, 2).append("}\n");
-        indent(writer, 1).append("};\n");
+        indent(writer, 1).append("public static final ThreadLocalArrayPool<").append(entityTypeInfo.getName())
+                .append("DeltaRecord> POOL =\n");
+        indent(writer, 3).append("new ThreadLocalArrayPool<>(")
+                .append(String.valueOf(entityTypeInfo.getDeltaRecordPoolSize())).append(", ")
+                .append(entityTypeInfo.getName()).append("DeltaRecord::new, ")
+                .append(entityTypeInfo.getName()).append("DeltaRecord::clean);\n");
 
         for (int i = 1; i < getMaskFieldCount(bitIndex); i++) {
             writer.append("\n");
@@ -697,6 +1123,81 @@ public class SchemaGenerator {
         writer.append("}\n");
     }
 
+    private void appendLoad(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            List<FieldInfo> fields, Map<String, Integer> bitIndex) throws IOException {
+
+        final String name = entityTypeInfo.getName();
+        final String storeName = schemaInfo.getName() + "Store";
+
+        writer.append("\n");
+        indent(writer, 1).append("public static <X extends Throwable> ").append(name).append("Record load(")
+                .append(storeName).append(" store, FieldValueLoaderVisitor<X, ").append(name)
+                .append("> visitor)\n");
+        indent(writer, 3).append("throws X {\n");
+        writer.append("\n");
+        indent(writer, 2).append("final ").append(name).append("Record record = POOL.get();\n");
+        indent(writer, 2).append("try {\n");
+        indent(writer, 3).append("record.loadFields(store, visitor);\n");
+        indent(writer, 3).append("record.reindex();\n");
+        indent(writer, 2).append("} catch (Throwable e) {\n");
+        indent(writer, 3).append("record.release();\n");
+        indent(writer, 3).append("throw e;\n");
+        indent(writer, 2).append("}\n");
+        writer.append("\n");
+        indent(writer, 2).append("return record;\n");
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("public static <X extends Throwable> void loadAll(").append(storeName)
+                .append(" store, FieldValueLoaderCursor<X, ").append(name).append("> cursor)\n");
+        indent(writer, 3).append("throws X {\n");
+        writer.append("\n");
+        indent(writer, 2).append(name).append("Record[] records = new ").append(name).append("Record[16];\n");
+        indent(writer, 2).append("int count = 0;\n");
+        indent(writer, 2).append("try {\n");
+        indent(writer, 3).append("while (cursor.next()) {\n");
+        indent(writer, 4).append("if (count == records.length) {\n");
+        indent(writer, 5).append("records = Arrays.copyOf(records, count * 2);\n");
+        indent(writer, 4).append("}\n");
+        indent(writer, 4).append("final ").append(name).append("Record record = POOL.get();\n");
+        indent(writer, 4).append("records[count++] = record;\n");
+        indent(writer, 4).append("record.loadFields(store, cursor);\n");
+        indent(writer, 3).append("}\n");
+        for (final KeyInfo keyInfo : getKeys(schemaInfo, entityTypeInfo)) {
+            indent(writer, 3).append("store.").append(withSmallLetter(keyInfo.getName()))
+                    .append("().addAll(records, count);\n");
+        }
+        indent(writer, 2).append("} catch (Throwable e) {\n");
+        indent(writer, 3).append("for (int i = 0; i < count; i++) {\n");
+        indent(writer, 4).append("records[i].unindex();\n");
+        indent(writer, 4).append("records[i].release();\n");
+        indent(writer, 3).append("}\n");
+        indent(writer, 3).append("throw e;\n");
+        indent(writer, 2).append("}\n");
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("private <X extends Throwable> void loadFields(").append(storeName)
+                .append(" store, FieldValueLoaderVisitor<X, ").append(name).append("> visitor) throws X {\n");
+        indent(writer, 2).append("this.store = store;\n");
+        if (entityTypeInfo.getStorage() != Storage.ROW) {
+            indent(writer, 2).append("row = store.").append(withSmallLetter(name)).append("Columns().allocate();\n");
+        }
+        indent(writer, 2).append("mask0 = MASK_EXISTS;\n");
+
+        for (final FieldInfo fieldInfo : fields) {
+            final String field = name + "EntityType.FIELD_" + toUpperCase(fieldInfo.getName());
+            indent(writer, 2).append("if (visitor.isSet(").append(field).append(")) {\n");
+            indent(writer, 3).append("mask").append(getMaskField(bitIndex, fieldInfo)).append(" |= MASK_")
+                    .append(toUpperCase(fieldInfo.getName())).append(";\n");
+            appendFieldAssignment(indent(writer, 3), schemaInfo, entityTypeInfo, "", fieldInfo.getName(),
+                    chooseVisitor(fieldInfo) + field + ")");
+            indent(writer, 2).append("}\n");
+        }
+
+        indent(writer, 1).append("}\n");
+    }
+
     private void appendCheck(Appendable writer, LinkedHashSet<String> keyFields, FieldInfo fieldInfo,
             Map<String, Integer> bitIndex) throws IOException {
 
@@ -714,11 +1215,14 @@ public class SchemaGenerator {
         writer.append("package ").append(packageName).append(";\n");
         writer.append("\n");
         writer.append("import codes.writeonce.deltastore.api.EntityType;\n");
+        writer.append("import codes.writeonce.deltastore.api.FieldValueLoaderCursor;\n");
+        writer.append("import codes.writeonce.deltastore.api.FieldValueLoaderVisitor;\n");
         writer.append("import codes.writeonce.deltastore.api.Id;\n");
-        writer.append("import codes.writeonce.deltastore.api.Pool;\n");
         writer.append("import codes.writeonce.deltastore.api.Record;\n");
+        writer.append("import codes.writeonce.deltastore.api.ThreadLocalArrayPool;\n");
         writer.append("\n");
         writer.append("import javax.annotation.Nonnull;\n");
+        writer.append("import java.util.Arrays;\n");
         writer.append("import java.util.Objects;\n");
 
         appendImport(writer, schemaInfo, entityTypeInfo);
@@ -757,31 +1261,38 @@ public class SchemaGenerator {
         }
 
         writer.append("\n");
-        indent(writer, 1).append("public static final Pool<").append(entityTypeInfo.getName())
-                .append("Record> POOL = new Pool<").append(entityTypeInfo.getName()).append("Record>() {\n");
-        indent(writer, 2).append("@Nonnull\n");
-        indent(writer, 2).append("@Override\n");
-        indent(writer, 2).append("public ").append(entityTypeInfo.getName()).append("Record get() {\n");
-        indent(writer, 3).append("return new ").append(entityTypeInfo.getName()).append("Record();\n");
-        indent(writer, 2).append("}\n");
-        writer.append("\n");
-        indent(writer, 2).append("@Override\n");
-        indent(writer, 2).append("public void put(@Nonnull ").append(entityTypeInfo.getName())
-                .append("Record value) {\n");
-        indent(writer, 3).append("value.clean();\n");
-        indent(writer, 2).append("}\n");
-        indent(writer, 1).append("};\n");
+        indent(writer, 1).append("public static final ThreadLocalArrayPool<").append(entityTypeInfo.getName())
+                .append("Record> POOL =\n");
+        indent(writer, 3).append("new ThreadLocalArrayPool<>(")
+                .append(String.valueOf(entityTypeInfo.getRecordPoolSize())).append(", ")
+                .append(entityTypeInfo.getName()).append("Record::new, ")
+                .append(entityTypeInfo.getName()).append("Record::clean);\n");
 
         for (int i = 1; i < getMaskFieldCount(bitIndex); i++) {
             writer.append("\n");
             indent(writer, 1).append("public long mask").append(String.valueOf(i)).append(";\n");
         }
 
-        for (final FieldInfo fieldInfo : fields) {
+        if (entityTypeInfo.getStorage() != Storage.ROW) {
             writer.append("\n");
-            indent(writer, 1).append("private ")
-                    .append(typeName(schemaInfo, fieldInfo, entityTypeInfo.getName(), false)).append(" ")
-                    .append(fieldInfo.getName()).append(";\n");
+            indent(writer, 1).append("private int row = -1;\n");
+
+            writer.append("\n");
+            indent(writer, 1).append("/**\n");
+            indent(writer, 1).append(" * values of the fields of the removed entity, its row freed on commit\n");
+            indent(writer, 1).append(" */\n");
+            indent(writer, 1).append("private Object[] removedValues;\n");
+        } else {
+            for (final FieldInfo fieldInfo : fields) {
+                writer.append("\n");
+                if (isDictionary(entityTypeInfo, fieldInfo)) {
+                    indent(writer, 1).append("private int ").append(fieldInfo.getName()).append("Code;\n");
+                } else {
+                    indent(writer, 1).append("private ")
+                            .append(typeName(schemaInfo, fieldInfo, entityTypeInfo.getName(), false)).append(" ")
+                            .append(fieldInfo.getName()).append(";\n");
+                }
+            }
         }
 
         writer.append("\n");
@@ -806,6 +1317,10 @@ public class SchemaGenerator {
         indent(writer, 2).append("final ").append(entityTypeInfo.getName()).append("Record record = POOL.get();\n");
         indent(writer, 2).append("try {\n");
         indent(writer, 3).append("record.store = store;\n");
+        if (entityTypeInfo.getStorage() != Storage.ROW) {
+            indent(writer, 3).append("record.row = store.").append(withSmallLetter(entityTypeInfo.getName()))
+                    .append("Columns().allocate();\n");
+        }
         indent(writer, 3).append("record.mask0 = MASK_EXISTS");
 
         for (final FieldInfo fieldInfo : fields) {
@@ -844,16 +1359,11 @@ public class SchemaGenerator {
         }
 
         for (final FieldInfo fieldInfo : fields) {
-            indent(writer, 3).append("record.").append(fieldInfo.getName()).append(" = ");
-
-            if (fieldInfo.isMutable() && hasValidDefaultValue(fieldInfo)) {
-                writer.append("DEFAULT_").append(toUpperCase(fieldInfo.getName()));
-            } else {
-                writer.append(fieldInfo.getName());
-            }
-
-            writer.append(";\n");
-        }
+            appendFieldAssignment(indent(writer, 3), schemaInfo, entityTypeInfo, "record.", fieldInfo.getName(),
+                    fieldInfo.isMutable() && hasValidDefaultValue(fieldInfo)
+                            ? "DEFAULT_" + toUpperCase(fieldInfo.getName())
+                            : fieldInfo.getName());
+        }
 
         writer.append("\n");
         indent(writer, 3).append("if (!store.currentTransaction.deferIndex) {\n");
@@ -947,10 +1457,12 @@ public class SchemaGenerator {
         indent(writer, 2).append("return record;\n");
         indent(writer, 1).append("}\n");
 
+        appendLoad(schemaInfo, writer, entityTypeInfo, fields, bitIndex);
+
         for (final FieldInfo fieldInfo : fields) {
 
             appendGetterImpl(schemaInfo, writer, entityTypeInfo, fieldInfo);
-            appendChangeTesterImpl(writer, fieldInfo, bitIndex);
+            appendChangeTesterImpl(schemaInfo, writer, entityTypeInfo, fieldInfo, bitIndex);
 
             if (fieldInfo.isMutable()) {
                 appendTesterImpl(writer, fieldInfo, bitIndex);
@@ -958,7 +1470,7 @@ public class SchemaGenerator {
                 appendSetterImpl(schemaInfo, writer, entityTypeInfo, fieldInfo, bitIndex);
             }
 
-            appendBackupField(writer, fieldInfo, bitIndex);
+            appendBackupField(schemaInfo, writer, entityTypeInfo, fieldInfo, bitIndex);
         }
 
         writer.append("\n");
@@ -1018,21 +1530,48 @@ public class SchemaGenerator {
         writer.append("\n");
         indent(writer, 1).append("@Override\n");
         indent(writer, 1).append("public void clean() {\n");
+
+        if (entityTypeInfo.getStorage() != Storage.ROW) {
+            indent(writer, 2).append("if (row != -1) {\n");
+            indent(writer, 3).append("store.").append(withSmallLetter(entityTypeInfo.getName()))
+                    .append("Columns().free(row);\n");
+            indent(writer, 3).append("row = -1;\n");
+            indent(writer, 2).append("}\n");
+            indent(writer, 2).append("removedValues = null;\n");
+        }
+
+        for (final FieldInfo fieldInfo : fields) {
+            if (isDictionary(entityTypeInfo, fieldInfo)) {
+                appendDictionaryRelease(writer, fieldInfo, 2);
+            }
+        }
+
         indent(writer, 2).append("super.clean();\n");
 
         for (int i = 1; i < getMaskFieldCount(bitIndex); i++) {
             indent(writer, 2).append("mask").append(String.valueOf(i)).append(" = 0;\n");
         }
 
-        for (final FieldInfo fieldInfo : fields) {
-            indent(writer, 2).append(fieldInfo.getName()).append(" = ").append(getDefault(fieldInfo)).append(";\n");
+        if (entityTypeInfo.getStorage() == Storage.ROW) {
+            for (final FieldInfo fieldInfo : fields) {
+                if (!isDictionary(entityTypeInfo, fieldInfo)) {
+                    indent(writer, 2).append(fieldInfo.getName()).append(" = ").append(getDefault(fieldInfo))
+                            .append(";\n");
+                }
+            }
         }
 
         indent(writer, 1).append("}\n");
 
+        if (entityTypeInfo.getStorage() != Storage.ROW) {
+            appendColumnarRecordMethods(schemaInfo, writer, entityTypeInfo, fields);
+        } else if (fields.stream().anyMatch(fieldInfo -> isDictionary(entityTypeInfo, fieldInfo))) {
+            appendDictionaryRecordMethods(schemaInfo, writer, entityTypeInfo, fields);
+        }
+
         writer.append("\n");
         indent(writer, 1).append("private void reindex() {\n");
-        appendRecursiveReindex(writer, getKeys(schemaInfo, entityTypeInfo).iterator(), 2);
+        appendRecursiveReindex(schemaInfo, writer, entityTypeInfo, getKeys(schemaInfo, entityTypeInfo).iterator(), 2);
         indent(writer, 1).append("}\n");
 
         writer.append("\n");
@@ -1042,7 +1581,7 @@ public class SchemaGenerator {
         for (final KeyInfo keyInfo : getKeys(schemaInfo, entityTypeInfo)) {
             indent(writer, 2).append("store.").append(withSmallLetter(keyInfo.getName())).append("().remove(this");
             for (final String fieldName : keyInfo.getFields()) {
-                writer.append(", ").append(fieldName);
+                writer.append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
             }
             writer.append(");\n");
         }
@@ -1077,6 +1616,260 @@ public class SchemaGenerator {
         writer.append("}\n");
     }
 
+    private void appendColumnarRecordMethods(SchemaInfo schemaInfo, Appendable writer,
+            EntityTypeInfo entityTypeInfo, List<FieldInfo> fields) throws IOException {
+
+        final String name = entityTypeInfo.getName();
+        final String columns = "store." + withSmallLetter(name) + "Columns()";
+
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        indent(writer, 1).append("public Record<").append(schemaInfo.getName()).append("Store, ?, ?> cleanRecord() {\n");
+        indent(writer, 2).append("if ((mask0 & MASK_EXISTS) == 0 && row != -1) {\n");
+        indent(writer, 3).append("removedValues = new Object[]{");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i != 0) {
+                writer.append(", ");
+            }
+            writer.append("read").append(withCapitalLetter(fields.get(i).getName())).append("()");
+        }
+        writer.append("};\n");
+        indent(writer, 3).append(columns).append(".free(row);\n");
+        indent(writer, 3).append("row = -1;\n");
+        indent(writer, 2).append("}\n");
+        indent(writer, 2).append("return super.cleanRecord();\n");
+        indent(writer, 1).append("}\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+
+            final FieldInfo fieldInfo = fields.get(i);
+            final String type = typeName(schemaInfo, fieldInfo, name, false);
+            final String fieldName = fieldInfo.getName();
+
+            writer.append("\n");
+            if (fieldInfo instanceof IdFieldInfo) {
+                indent(writer, 1).append("@SuppressWarnings(\"unchecked\")\n");
+            }
+            indent(writer, 1).append("private ").append(type).append(" read").append(withCapitalLetter(fieldName))
+                    .append("() {\n");
+            indent(writer, 2).append("if (row == -1) {\n");
+            indent(writer, 3).append("return (").append(type).append(") removedValues()[").append(String.valueOf(i))
+                    .append("];\n");
+            indent(writer, 2).append("}\n");
+
+            if (entityTypeInfo.getStorage() == Storage.OFFHEAP) {
+                indent(writer, 2).append("return ").append(columns).append(".").append(fieldName).append("(row);\n");
+                indent(writer, 1).append("}\n");
+
+                writer.append("\n");
+                indent(writer, 1).append("private void write").append(withCapitalLetter(fieldName)).append("(")
+                        .append(type).append(" value) {\n");
+                indent(writer, 2).append("checkRow();\n");
+                indent(writer, 2).append(columns).append(".").append(fieldName).append("(row, value);\n");
+                indent(writer, 1).append("}\n");
+
+                if (hasValueAccessors(fieldInfo)) {
+                    writer.append("\n");
+                    indent(writer, 1).append("@Override\n");
+                    indent(writer, 1).append("public long ").append(valueGetterName(fieldInfo)).append("() {\n");
+                    indent(writer, 2).append("if (row == -1) {\n");
+                    indent(writer, 3).append("return read").append(withCapitalLetter(fieldName))
+                            .append("().value();\n");
+                    indent(writer, 2).append("}\n");
+                    indent(writer, 2).append("return ").append(columns).append(".").append(fieldName)
+                            .append("Value(row);\n");
+                    indent(writer, 1).append("}\n");
+                }
+                continue;
+            }
+
+            if (fieldInfo instanceof StringFieldInfo) {
+                indent(writer, 2).append("final ").append(name).append("Columns columns = ").append(columns)
+                        .append(";\n");
+                indent(writer, 2).append("return columns.strings.get(columns.").append(fieldName).append("[row]);\n");
+            } else if (fieldInfo instanceof IdFieldInfo) {
+                indent(writer, 2).append("return (").append(type).append(") ").append(columns).append(".")
+                        .append(fieldName).append("[row];\n");
+            } else {
+                indent(writer, 2).append("return ").append(columns).append(".").append(fieldName)
+                        .append("[row];\n");
+            }
+            indent(writer, 1).append("}\n");
+
+            writer.append("\n");
+            indent(writer, 1).append("private void write").append(withCapitalLetter(fieldName)).append("(")
+                    .append(type).append(" value) {\n");
+            indent(writer, 2).append("checkRow();\n");
+            if (fieldInfo instanceof StringFieldInfo) {
+                indent(writer, 2).append("final ").append(name).append("Columns columns = ").append(columns)
+                        .append(";\n");
+                indent(writer, 2).append("columns.").append(fieldName).append("[row] = columns.strings.replace(columns.")
+                        .append(fieldName).append("[row], value);\n");
+            } else {
+                indent(writer, 2).append(columns).append(".").append(fieldName).append("[row] = value;\n");
+            }
+            indent(writer, 1).append("}\n");
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("private Object[] removedValues() {\n");
+        indent(writer, 2).append("if (removedValues == null) {\n");
+        indent(writer, 3).append("throw new IllegalStateException(\"Entity is released\");\n");
+        indent(writer, 2).append("}\n");
+        indent(writer, 2).append("return removedValues;\n");
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("private void checkRow() {\n");
+        indent(writer, 2).append("if (row == -1) {\n");
+        indent(writer, 3).append("throw new IllegalStateException(\"Entity is removed\");\n");
+        indent(writer, 2).append("}\n");
+        indent(writer, 1).append("}\n");
+    }
+
+    private void appendDictionaryRecordMethods(SchemaInfo schemaInfo, Appendable writer,
+            EntityTypeInfo entityTypeInfo, List<FieldInfo> fields) throws IOException {
+
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        indent(writer, 1).append("public Record<").append(schemaInfo.getName()).append("Store, ?, ?> cleanRecord() {\n");
+        indent(writer, 2).append("if ((mask0 & MASK_EXISTS) == 0) {\n");
+        for (final FieldInfo fieldInfo : fields) {
+            if (isDictionary(entityTypeInfo, fieldInfo)) {
+                appendDictionaryRelease(writer, fieldInfo, 3);
+            }
+        }
+        indent(writer, 2).append("}\n");
+        indent(writer, 2).append("return super.cleanRecord();\n");
+        indent(writer, 1).append("}\n");
+
+        for (final FieldInfo fieldInfo : fields) {
+            if (isDictionary(entityTypeInfo, fieldInfo)) {
+
+                final String fieldName = fieldInfo.getName();
+                final String dictionary = "store." + dictionaryName(fieldInfo) + "()";
+
+                writer.append("\n");
+                indent(writer, 1).append("private String read").append(withCapitalLetter(fieldName)).append("() {\n");
+                indent(writer, 2).append("return ").append(dictionary).append(".get(").append(fieldName)
+                        .append("Code);\n");
+                indent(writer, 1).append("}\n");
+
+                writer.append("\n");
+                indent(writer, 1).append("private void write").append(withCapitalLetter(fieldName))
+                        .append("(String value) {\n");
+                indent(writer, 2).append(fieldName).append("Code = ").append(dictionary).append(".replace(")
+                        .append(fieldName).append("Code, value);\n");
+                indent(writer, 1).append("}\n");
+            }
+        }
+    }
+
+    private static void appendDictionaryRelease(Appendable writer, FieldInfo fieldInfo, int level)
+            throws IOException {
+
+        final String code = fieldInfo.getName() + "Code";
+        indent(writer, level).append("if (").append(code).append(" != 0) {\n");
+        indent(writer, level + 1).append("store.").append(dictionaryName(fieldInfo)).append("().release(")
+                .append(code).append(");\n");
+        indent(writer, level + 1).append(code).append(" = 0;\n");
+        indent(writer, level).append("}\n");
+    }
+
+    /**
+     * @return expression reading the field inside its record class
+     */
+    private static String fieldValue(SchemaInfo schemaInfo, EntityTypeInfo entityTypeInfo, String fieldName) {
+        if (hasAccessors(schemaInfo, entityTypeInfo, fieldName)) {
+            return "read" + withCapitalLetter(fieldName) + "()";
+        } else {
+            return fieldName;
+        }
+    }
+
+    private static void appendFieldAssignment(Appendable writer, SchemaInfo schemaInfo,
+            EntityTypeInfo entityTypeInfo, String prefix, String fieldName, String value) throws IOException {
+
+        if (hasAccessors(schemaInfo, entityTypeInfo, fieldName)) {
+            writer.append(prefix).append("write").append(withCapitalLetter(fieldName)).append("(").append(value)
+                    .append(");\n");
+        } else {
+            writer.append(prefix).append(fieldName).append(" = ").append(value).append(";\n");
+        }
+    }
+
+    private static boolean hasAccessors(SchemaInfo schemaInfo, EntityTypeInfo entityTypeInfo, String fieldName) {
+        return entityTypeInfo.getStorage() != Storage.ROW ||
+               isDictionary(entityTypeInfo, getField(schemaInfo, entityTypeInfo, fieldName));
+    }
+
+    /**
+     * @return {@code true} if the row record keeps a code into the dictionary of the field instead of its value
+     */
+    private static boolean isDictionary(EntityTypeInfo entityTypeInfo, FieldInfo fieldInfo) {
+        return entityTypeInfo.getStorage() == Storage.ROW && isDictionary(fieldInfo);
+    }
+
+    private static boolean isDictionary(FieldInfo fieldInfo) {
+        return fieldInfo instanceof StringFieldInfo && ((StringFieldInfo) fieldInfo).isDictionary();
+    }
+
+    /**
+     * @return name of the dictionary of the field, shared by the tables of the type declaring the field and of its
+     * descendants as the keys over the field are
+     */
+    private static String dictionaryName(FieldInfo fieldInfo) {
+        return withSmallLetter(fieldInfo.getEntityType().getName()) + withCapitalLetter(fieldInfo.getName())
+               + "Strings";
+    }
+
+    /**
+     * @return {@code true} if the maps of the level of the tree key over the field are keyed by the labels of the
+     * dictionary of the field instead of the strings; the last field of a unique key keeps its strings, the entries of
+     * its maps holding the entities themselves
+     */
+    private static boolean isLabeled(KeyInfo keyInfo, FieldInfo fieldInfo) {
+
+        if (keyInfo.getKind() != KeyKind.TREE || !isDictionary(fieldInfo) ||
+            !keyInfo.getFields().contains(fieldInfo.getName())) {
+            return false;
+        }
+
+        String lastField = null;
+        for (final String field : keyInfo.getFields()) {
+            lastField = field;
+        }
+        return !keyInfo.isUnique() || !fieldInfo.getName().equals(lastField);
+    }
+
+    /**
+     * @return key of the maps of the level of the field looked up by the value
+     */
+    private static String mapKey(KeyInfo keyInfo, FieldInfo fieldInfo, String value) {
+        return isLabeled(keyInfo, fieldInfo) ? fieldInfo.getName() + "Strings.label(" + value + ")" : value;
+    }
+
+    /**
+     * @return keys of the maps of the level of the field looked up by the values of the filter
+     */
+    private static String mapKeys(KeyInfo keyInfo, FieldInfo fieldInfo) {
+        final String name = fieldInfo.getName();
+        return isLabeled(keyInfo, fieldInfo) ? name + "Strings.labels(" + name + "List)" : name + "List";
+    }
+
+    /**
+     * @return bounds of the range of the keys of the maps of the level of the field given by the filter; the labels
+     * of the nearest strings in the dictionary bound the range of a labelled level inclusively
+     */
+    private static String mapRange(KeyInfo keyInfo, FieldInfo fieldInfo) {
+        final String name = fieldInfo.getName();
+        if (isLabeled(keyInfo, fieldInfo)) {
+            return name + "Strings.ceiling(" + name + "From, " + name + "FromExclusive), false, " +
+                   name + "Strings.floor(" + name + "To, " + name + "ToExclusive), false";
+        }
+        return name + "From, " + name + "FromExclusive, " + name + "To, " + name + "ToExclusive";
+    }
+
     private Map<String, Integer> getBitIndex(List<FieldInfo> fields) {
         int index = 0;
 
@@ -1108,25 +1901,25 @@ public class SchemaGenerator {
         return bitIndex.size() + 64 >> 6;
     }
 
-    private void appendRecursiveReindex(Appendable writer, Iterator<KeyInfo> iterator, int level)
-            throws IOException {
+    private void appendRecursiveReindex(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            Iterator<KeyInfo> iterator, int level) throws IOException {
 
         final KeyInfo keyInfo = iterator.next();
 
         indent(writer, level).append("store.").append(withSmallLetter(keyInfo.getName())).append("().add(this");
         for (final String fieldName : keyInfo.getFields()) {
-            writer.append(", ").append(fieldName);
+            writer.append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
         }
         writer.append(");\n");
 
         if (iterator.hasNext()) {
             indent(writer, level).append("try {\n");
-            appendRecursiveReindex(writer, iterator, level + 1);
+            appendRecursiveReindex(schemaInfo, writer, entityTypeInfo, iterator, level + 1);
             indent(writer, level).append("} catch (Throwable e) {\n");
             indent(writer, level + 1).append("store.").append(withSmallLetter(keyInfo.getName()))
                     .append("().remove(this");
             for (final String fieldName : keyInfo.getFields()) {
-                writer.append(", ").append(fieldName);
+                writer.append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
             }
             writer.append(");\n");
             indent(writer, level + 1).append("throw e;\n");
@@ -1151,8 +1944,8 @@ public class SchemaGenerator {
         final LinkedHashSet<String> keyFields = getKey(schemaInfo, entityTypeInfo).getFields();
 
         for (final String keyFieldName : keyFields) {
-            indent(writer, 2).append("diffStackTop.").append(keyFieldName).append(" = ").append(keyFieldName)
-                    .append(";\n");
+            indent(writer, 2).append("diffStackTop.").append(keyFieldName).append(" = ")
+                    .append(fieldValue(schemaInfo, entityTypeInfo, keyFieldName)).append(";\n");
         }
 
         for (final FieldInfo fieldInfo : getFields(schemaInfo, entityTypeInfo)) {
@@ -1165,10 +1958,11 @@ public class SchemaGenerator {
 
                 if (isValueTestable(fieldInfo)) {
                     indent(writer, 4).append("if (diffStackTop.").append(fieldInfo.getName()).append(" == ")
-                            .append(fieldInfo.getName()).append(") {\n");
+                            .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(") {\n");
                 } else {
                     indent(writer, 4).append("if (Objects.equals(diffStackTop.").append(fieldInfo.getName())
-                            .append(", ").append(fieldInfo.getName()).append(")) {\n");
+                            .append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                            .append(")) {\n");
                 }
 
                 indent(writer, 5).append("diffStackTop.diff").append(getMaskField(bitIndex, fieldInfo))
@@ -1180,7 +1974,7 @@ public class SchemaGenerator {
                         .append(" ^= mask").append(getMaskField(bitIndex, fieldInfo)).append(" & MASK_")
                         .append(toUpperCase(fieldInfo.getName())).append(";\n");
                 indent(writer, 5).append("diffStackTop.").append(fieldInfo.getName()).append(" = ")
-                        .append(fieldInfo.getName()).append(";\n");
+                        .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(";\n");
                 indent(writer, 4).append("}\n");
                 indent(writer, 3).append("} else {\n");
                 indent(writer, 4).append("diffStackTop.mask").append(getMaskField(bitIndex, fieldInfo))
@@ -1188,7 +1982,7 @@ public class SchemaGenerator {
                         .append(toUpperCase(fieldInfo.getName()))
                         .append(" ^ MASK_").append(toUpperCase(fieldInfo.getName())).append(";\n");
                 indent(writer, 4).append("diffStackTop.").append(fieldInfo.getName()).append(" = ")
-                        .append(fieldInfo.getName()).append(";\n");
+                        .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(";\n");
                 indent(writer, 3).append("}\n");
                 indent(writer, 2).append("}\n");
             }
@@ -1232,8 +2026,8 @@ public class SchemaGenerator {
                 indent(writer, 3).append("mask").append(getMaskField(bitIndex, fieldInfo))
                         .append(" ^= diffStackTop.mask").append(getMaskField(bitIndex, fieldInfo)).append(" & MASK_")
                         .append(toUpperCase(fieldInfo.getName())).append(";\n");
-                indent(writer, 3).append(fieldInfo.getName()).append(" = diffStackTop.").append(fieldInfo.getName())
-                        .append(";\n");
+                appendFieldAssignment(indent(writer, 3), schemaInfo, entityTypeInfo, "", fieldInfo.getName(),
+                        "diffStackTop." + fieldInfo.getName());
                 indent(writer, 3).append("diffStackTop.diff").append(getMaskField(bitIndex, fieldInfo))
                         .append(" &= ~MASK_").append(toUpperCase(fieldInfo.getName())).append(";\n");
                 indent(writer, 3).append("diffStackTop.mask").append(getMaskField(bitIndex, fieldInfo))
@@ -1292,7 +2086,7 @@ public class SchemaGenerator {
             indent(writer, 3).append("if (exists) {\n");
             indent(writer, 4).append("store.").append(withSmallLetter(keyInfo.getName())).append("().remove(this");
             for (final String fieldName : keyInfo.getFields()) {
-                writer.append(", ").append(fieldName);
+                writer.append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
             }
             writer.append(");\n");
             indent(writer, 3).append("}\n");
@@ -1304,8 +2098,8 @@ public class SchemaGenerator {
 
         for (final FieldInfo fieldInfo : fields) {
             if (!getKeys(schemaInfo, fieldInfo, entityTypeInfo).isEmpty()) {
-                indent(writer, 2).append(fieldInfo.getName()).append(" = old")
-                        .append(withCapitalLetter(fieldInfo.getName())).append(";\n");
+                appendFieldAssignment(indent(writer, 2), schemaInfo, entityTypeInfo, "", fieldInfo.getName(),
+                        "old" + withCapitalLetter(fieldInfo.getName()));
             }
         }
 
@@ -1435,7 +2229,7 @@ public class SchemaGenerator {
 
         for (final FieldInfo fieldInfo : fields) {
             if (!getKeys(schemaInfo, fieldInfo, entityTypeInfo).isEmpty()) {
-                appendCheckIndexField(writer, fieldInfo, bitIndex);
+                appendCheckIndexField(schemaInfo, writer, entityTypeInfo, fieldInfo, bitIndex);
             }
         }
 
@@ -1479,7 +2273,7 @@ public class SchemaGenerator {
 
             indent(writer, 4).append("store.").append(withSmallLetter(keyInfo.getName())).append("().add(this");
             for (final String fieldName : keyFields) {
-                writer.append(", ").append(fieldName);
+                writer.append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
             }
             writer.append(");\n");
 
@@ -1508,10 +2302,10 @@ public class SchemaGenerator {
                 .append(toUpperCase(fieldInfo.getName())).append(")) {\n");
         if (isValueTestable(fieldInfo)) {
             indent(writer, 3).append("if (diffStackTop.").append(fieldInfo.getName()).append(" != ")
-                    .append(fieldInfo.getName()).append(") {\n");
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(") {\n");
         } else {
             indent(writer, 3).append("if (!Objects.equals(diffStackTop.").append(fieldInfo.getName())
-                    .append(", ").append(fieldInfo.getName()).append(")) {\n");
+                    .append(", ").append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(")) {\n");
         }
         indent(writer, 4).append("reindex").append(getMaskField(bitIndex, fieldInfo)).append(" |= MASK_")
                 .append(toUpperCase(fieldInfo.getName())).append(";\n");
@@ -1520,20 +2314,21 @@ public class SchemaGenerator {
                 .append(" = diffStackTop.").append(fieldInfo.getName()).append(";\n");
         indent(writer, 2).append("} else {\n");
         indent(writer, 3).append("old").append(withCapitalLetter(fieldInfo.getName())).append(" = ")
-                .append(fieldInfo.getName()).append(";\n");
+                .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(";\n");
         indent(writer, 2).append("}\n");
     }
 
-    private void appendCheckIndexField(Appendable writer, FieldInfo fieldInfo,
-            Map<String, Integer> bitIndex) throws IOException {
+    private void appendCheckIndexField(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            FieldInfo fieldInfo, Map<String, Integer> bitIndex) throws IOException {
         writer.append("\n");
         indent(writer, 2).append("if (isDirtyField").append(getMaskField(bitIndex, fieldInfo)).append("(MASK_")
                 .append(toUpperCase(fieldInfo.getName())).append(") && ");
         if (isValueTestable(fieldInfo)) {
-            writer.append("diffStackTop.").append(fieldInfo.getName()).append(" != ").append(fieldInfo.getName());
+            writer.append("diffStackTop.").append(fieldInfo.getName()).append(" != ")
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()));
         } else {
             writer.append("!Objects.equals(diffStackTop.").append(fieldInfo.getName()).append(", ")
-                    .append(fieldInfo.getName()).append(")");
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(")");
         }
         writer.append(") {\n");
         indent(writer, 3).append("reindex").append(getMaskField(bitIndex, fieldInfo)).append(" |= MASK_")
@@ -1541,8 +2336,8 @@ public class SchemaGenerator {
         indent(writer, 2).append("}\n");
     }
 
-    private void appendBackupField(Appendable writer, FieldInfo fieldInfo,
-            Map<String, Integer> bitIndex) throws IOException {
+    private void appendBackupField(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            FieldInfo fieldInfo, Map<String, Integer> bitIndex) throws IOException {
 
         writer.append("\n");
         indent(writer, 1).append("private void backupField").append(withCapitalLetter(fieldInfo.getName()))
@@ -1557,13 +2352,13 @@ public class SchemaGenerator {
         writer.append("\n");
         indent(writer, 2).append("diffStackTop.diff").append(getMaskField(bitIndex, fieldInfo)).append(" ^= MASK_")
                 .append(toUpperCase(fieldInfo.getName())).append(";\n");
-        indent(writer, 2).append("diffStackTop.").append(fieldInfo.getName()).append(" = ").append(fieldInfo.getName())
-                .append(";\n");
+        indent(writer, 2).append("diffStackTop.").append(fieldInfo.getName()).append(" = ")
+                .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(";\n");
         indent(writer, 1).append("}\n");
     }
 
-    private void appendChangeTesterImpl(Appendable writer, FieldInfo fieldInfo,
-            Map<String, Integer> bitIndex) throws IOException {
+    private void appendChangeTesterImpl(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            FieldInfo fieldInfo, Map<String, Integer> bitIndex) throws IOException {
 
         writer.append("\n");
         indent(writer, 1).append("@Override\n");
@@ -1574,11 +2369,11 @@ public class SchemaGenerator {
                 .append(getMaskField(bitIndex, fieldInfo)).append(" & MASK_")
                 .append(toUpperCase(fieldInfo.getName())).append(") != 0 || ");
         if (isValueTestable(fieldInfo)) {
-            writer.append("diffStackTop.").append(fieldInfo.getName()).append(" != ").append(fieldInfo.getName())
-                    .append(");\n");
+            writer.append("diffStackTop.").append(fieldInfo.getName()).append(" != ")
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(");\n");
         } else {
             writer.append("!Objects.equals(diffStackTop.").append(fieldInfo.getName()).append(", ")
-                    .append(fieldInfo.getName()).append("));\n");
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append("));\n");
         }
         indent(writer, 1).append("}\n");
     }
@@ -1608,10 +2403,12 @@ public class SchemaGenerator {
             writer.append("\n");
             indent(writer, 2).append("if (!store.currentTransaction.deferIndex && ");
             if (isValueTestable(fieldInfo)) {
-                writer.append("this.").append(fieldInfo.getName()).append(" != DEFAULT_")
-                        .append(toUpperCase(fieldInfo.getName()));
+                writer.append("this.").append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                        .append(" != DEFAULT_").append(toUpperCase(fieldInfo.getName()));
             } else {
-                writer.append("!Objects.equals(this.").append(fieldInfo.getName()).append(", DEFAULT_")
+                writer.append("!Objects.equals(this.")
+                        .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                        .append(", DEFAULT_")
                         .append(toUpperCase(fieldInfo.getName())).append(")");
             }
             writer.append(") {\n");
@@ -1623,13 +2420,13 @@ public class SchemaGenerator {
                     if (fieldName.equals(fieldInfo.getName())) {
                         writer.append(", DEFAULT_").append(toUpperCase(fieldInfo.getName()));
                     } else {
-                        writer.append(", this.").append(fieldName);
+                        writer.append(", this.").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
                     }
                 }
                 writer.append(");\n");
             }
 
-            appendUnindex(writer, keys);
+            appendUnindex(schemaInfo, writer, entityTypeInfo, keys);
 
             indent(writer, 2).append("}\n");
         }
@@ -1642,8 +2439,8 @@ public class SchemaGenerator {
                 .append(toUpperCase(fieldInfo.getName())).append(";\n");
         indent(writer, 3).append("mask").append(getMaskField(bitIndex, fieldInfo)).append(" ^= MASK_")
                 .append(toUpperCase(fieldInfo.getName())).append(";\n");
-        indent(writer, 3).append(fieldInfo.getName()).append(" = DEFAULT_").append(toUpperCase(fieldInfo.getName()))
-                .append(";\n");
+        appendFieldAssignment(indent(writer, 3), schemaInfo, entityTypeInfo, "", fieldInfo.getName(),
+                "DEFAULT_" + toUpperCase(fieldInfo.getName()));
         indent(writer, 2).append("}\n");
         indent(writer, 1).append("}\n");
     }
@@ -1655,7 +2452,8 @@ public class SchemaGenerator {
         indent(writer, 1).append("@Override\n");
         indent(writer, 1).append("public ").append(typeName(schemaInfo, fieldInfo, entityTypeInfo.getName(), false))
                 .append(" ").append(getterName(fieldInfo)).append("() {\n");
-        indent(writer, 2).append("return ").append(fieldInfo.getName()).append(";\n");
+        indent(writer, 2).append("return ").append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                .append(";\n");
         indent(writer, 1).append("}\n");
     }
 
@@ -1675,9 +2473,11 @@ public class SchemaGenerator {
             writer.append("\n");
             indent(writer, 2).append("if (!store.currentTransaction.deferIndex && ");
             if (isValueTestable(fieldInfo)) {
-                writer.append("this.").append(fieldInfo.getName()).append(" != value");
+                writer.append("this.").append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                        .append(" != value");
             } else {
-                writer.append("!Objects.equals(").append(fieldInfo.getName()).append(", value)");
+                writer.append("!Objects.equals(").append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                        .append(", value)");
             }
             writer.append(") {\n");
 
@@ -1688,13 +2488,13 @@ public class SchemaGenerator {
                     if (fieldName.equals(fieldInfo.getName())) {
                         writer.append(", value");
                     } else {
-                        writer.append(", this.").append(fieldName);
+                        writer.append(", this.").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
                     }
                 }
                 writer.append(");\n");
             }
 
-            appendUnindex(writer, keys);
+            appendUnindex(schemaInfo, writer, entityTypeInfo, keys);
 
             indent(writer, 2).append("}\n");
         }
@@ -1709,25 +2509,28 @@ public class SchemaGenerator {
                 .append(toUpperCase(fieldInfo.getName())).append(";\n");
 
         if (isValueTestable(fieldInfo)) {
-            indent(writer, 2).append("} else if (this.").append(fieldInfo.getName()).append(" != value) {\n");
+            indent(writer, 2).append("} else if (this.")
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName()))
+                    .append(" != value) {\n");
         } else {
-            indent(writer, 2).append("} else if (!Objects.equals(this.").append(fieldInfo.getName())
-                    .append(", value)) {\n");
+            indent(writer, 2).append("} else if (!Objects.equals(this.")
+                    .append(fieldValue(schemaInfo, entityTypeInfo, fieldInfo.getName())).append(", value)) {\n");
         }
 
         indent(writer, 3).append("backupField").append(withCapitalLetter(fieldInfo.getName())).append("();\n");
         indent(writer, 2).append("}\n");
         writer.append("\n");
-        indent(writer, 2).append("this.").append(fieldInfo.getName()).append(" = value;\n");
+        appendFieldAssignment(indent(writer, 2), schemaInfo, entityTypeInfo, "this.", fieldInfo.getName(), "value");
         indent(writer, 1).append("}\n");
     }
 
-    private void appendUnindex(Appendable writer, List<KeyInfo> keys) throws IOException {
+    private void appendUnindex(SchemaInfo schemaInfo, Appendable writer, EntityTypeInfo entityTypeInfo,
+            List<KeyInfo> keys) throws IOException {
         for (final KeyInfo keyInfo : keys) {
             indent(writer, 3).append("store.").append(withSmallLetter(keyInfo.getName()))
                     .append("().remove(this");
             for (final String fieldName : keyInfo.getFields()) {
-                writer.append(", this.").append(fieldName);
+                writer.append(", this.").append(fieldValue(schemaInfo, entityTypeInfo, fieldName));
             }
             writer.append(");\n");
         }
@@ -1939,6 +2742,24 @@ public class SchemaGenerator {
                     writer.append("    void ").append(setterName(fieldInfo)).append("(")
                             .append(typeName(schemaInfo, fieldInfo, type, false)).append(" value);\n");
                 }
+
+                if (hasValueAccessors(fieldInfo)) {
+                    writer.append("\n");
+                    writer.append("    default long ").append(valueGetterName(fieldInfo)).append("() {\n");
+                    writer.append("        return ").append(getterName(fieldInfo)).append("().value();\n");
+                    writer.append("    }\n");
+
+                    if (fieldInfo.isMutable()) {
+                        writer.append("\n");
+                        writer.append("    default void ").append(valueSetterName(fieldInfo))
+                                .append("(long value) {\n");
+                        writer.append("        if (").append(valueGetterName(fieldInfo)).append("() != value) {\n");
+                        writer.append("            ").append(setterName(fieldInfo))
+                                .append("(codes.writeonce.deltastore.api.Id.of(value));\n");
+                        writer.append("        }\n");
+                        writer.append("    }\n");
+                    }
+                }
             }
 
             writer.append("}\n");
@@ -2126,6 +2947,33 @@ public class SchemaGenerator {
         return fields;
     }
 
+    /**
+     * @return dictionary fields of the types of the schema, each once for the type declaring it
+     */
+    private Set<FieldInfo> getDictionaryFields(SchemaInfo schemaInfo) {
+
+        final Set<FieldInfo> fields = new LinkedHashSet<>();
+        for (final EntityTypeInfo entityTypeInfo : schemaInfo.getTypeMap().values()) {
+            for (final FieldInfo fieldInfo : getFields(schemaInfo, entityTypeInfo)) {
+                if (isDictionary(fieldInfo)) {
+                    if (entityTypeInfo.isInstantiable() && entityTypeInfo.getStorage() != Storage.ROW) {
+                        throw new RuntimeException("Dictionary field " + fieldInfo.getName() + " of type " +
+                                                   entityTypeInfo.getName() + " is not stored in rows");
+                    }
+                    fields.add(fieldInfo);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @return fields of the levels of the key keyed by the labels of their dictionaries, see {@link #isLabeled}
+     */
+    private List<FieldInfo> getLabeledFields(SchemaInfo schemaInfo, KeyInfo keyInfo) {
+        return getKeyFields(schemaInfo, keyInfo).stream().filter(field -> isLabeled(keyInfo, field)).collect(toList());
+    }
+
     private void appendKeys(OutputStreamWriter writer, SchemaInfo schemaInfo, EntityTypeInfo entityTypeInfo)
             throws IOException {
 
@@ -2443,6 +3291,8 @@ public class SchemaGenerator {
             writer.append("package ").append(packageName).append(";\n");
             writer.append("\n");
             writer.append("import codes.writeonce.deltastore.api.AbstractTable;\n");
+            writer.append("import codes.writeonce.deltastore.api.FieldValueLoaderCursor;\n");
+            writer.append("import codes.writeonce.deltastore.api.FieldValueLoaderVisitor;\n");
             writer.append("import codes.writeonce.deltastore.api.FieldValueSupplierVisitor;\n");
             writer.append("import codes.writeonce.deltastore.api.Index;\n");
 
@@ -2538,6 +3388,27 @@ public class SchemaGenerator {
             indent(writer.append("\n"), 2).append(");\n");
             indent(writer, 1).append("}\n");
 
+            writer.append("\n");
+            indent(writer, 1).append("@Override\n");
+            appendTypeName(indent(writer, 1).append("public <X extends Throwable> "), entityTypeInfo)
+                    .append(" load(FieldValueLoaderVisitor<X, ").append(entityTypeInfo.getName())
+                    .append("> visitor) throws X {\n");
+            indent(writer, 2).append("if (store.isTransactionPending()) {\n");
+            indent(writer, 3).append("throw new IllegalStateException();\n");
+            indent(writer, 2).append("}\n");
+            indent(writer, 2).append("return ").append(recordName).append(".load(store, visitor);\n");
+            indent(writer, 1).append("}\n");
+
+            writer.append("\n");
+            indent(writer, 1).append("@Override\n");
+            indent(writer, 1).append("public <X extends Throwable> void loadAll(FieldValueLoaderCursor<X, ")
+                    .append(entityTypeInfo.getName()).append("> cursor) throws X {\n");
+            indent(writer, 2).append("if (store.isTransactionPending()) {\n");
+            indent(writer, 3).append("throw new IllegalStateException();\n");
+            indent(writer, 2).append("}\n");
+            indent(writer, 2).append(recordName).append(".loadAll(store, cursor);\n");
+            indent(writer, 1).append("}\n");
+
             writer.append("}\n");
         }
     }
@@ -2729,39 +3600,14 @@ public class SchemaGenerator {
         final EntityTypeInfo entityTypeInfo = keyInfo.getEntityType();
 
         try (FileOutputStream out = new FileOutputStream(path.resolve(keyInfo.getName() + ".java").toFile());
-             OutputStreamWriter writer = new OutputStreamWriter(out, charset)) {
+             OutputStreamWriter output = new OutputStreamWriter(out, charset)) {
+
+            final StringBuilder writer = new StringBuilder();
 
             writer.append("package ").append(schemaInfo.getPackageName()).append(";\n");
             writer.append("\n");
-            writer.append("import codes.writeonce.deltastore.api.AbstractFilter;\n");
-            writer.append("import codes.writeonce.deltastore.api.AbstractKey;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.LongTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.IntegerTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.IdTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.InstantTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.BigDecimalTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.StringTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.EnumTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.BooleanTreeMap;\n");
-            writer.append("import codes.writeonce.deltastore.api.NotUniqueException;\n");
-            writer.append("import codes.writeonce.deltastore.api.SmartIterator;\n");
-            writer.append("import codes.writeonce.deltastore.api.map.NestedIterator;\n");
-            writer.append("\n");
-            writer.append("import java.util.ArrayList;\n");
-            writer.append("import java.util.Collections;\n");
-            writer.append("import java.util.Comparator;\n");
-            writer.append("import java.util.HashMap;\n");
-            writer.append("import java.util.List;\n");
-            writer.append("import java.util.Map;\n");
-            writer.append("import java.util.Objects;\n");
-            writer.append("import java.util.Spliterators;\n");
-            writer.append("import java.util.stream.Collectors;\n");
-            writer.append("import java.util.stream.Stream;\n");
-            writer.append("import java.util.stream.StreamSupport;\n");
-            writer.append("\n");
-            writer.append("import static java.util.Spliterator.NONNULL;\n");
-            writer.append("import static java.util.Spliterator.ORDERED;\n");
-            writer.append("\n");
+
+            final int importsStart = writer.length();
 
             for (final SchemaInfo parentSchemaInfo : schemaInfo.getParentSchemaMap().values()) {
                 for (final EntityTypeInfo eti : parentSchemaInfo.getTypeMap().values()) {
@@ -2789,28 +3635,57 @@ public class SchemaGenerator {
                 throw new RuntimeException("Key " + keyInfo.getName() + " is effectively unique");
             }
 
-            writer.append("\n");
-            indent(writer, 1).append("private final ");
-
-            appendMapType(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
+            if (!keyInfo.isUnique() && keyInfo.getKind() == KeyKind.HASH) {
+                throw new RuntimeException("Key " + keyInfo.getName() + " of kind hash must be unique");
+            }
 
-            indent(writer.append("\n"), 3).append("entityIndexMap = new ").append(treeMapPrefix(keyFields.get(0)))
-                    .append("TreeMap<>();\n");
+            final boolean flat = keyInfo.getKind() == KeyKind.FLAT;
 
-            if (keyInfo.isUnique()) {
-                appendAddUnique(schemaInfo, writer, entityTypeInfo, keyFields, keyInfo);
-                appendAddUniqueUnsafe(schemaInfo, writer, entityTypeInfo, keyFields);
-                appendRemoveUnique(schemaInfo, writer, entityTypeInfo, keyFields);
-                appendGet(schemaInfo, writer, entityTypeInfo, keyFields);
-                appendIteratorAllUnique(writer, entityTypeInfo, keyFields);
+            if (flat) {
+                appendFlatKey(schemaInfo, writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
             } else {
-                appendAddNotUnique(schemaInfo, writer, entityTypeInfo, keyFields, uniqKeyFields);
-                appendRemoveNotUnique(schemaInfo, writer, entityTypeInfo, keyFields, uniqKeyFields);
-                appendIterator(schemaInfo, writer, entityTypeInfo, keyFields, uniqKeyFields);
-                appendList(schemaInfo, writer, entityTypeInfo, keyFields);
-                appendListReusable(schemaInfo, writer, entityTypeInfo, keyFields);
-                appendStream(schemaInfo, writer, entityTypeInfo, keyFields);
-                appendIteratorAllNotUnique(writer, entityTypeInfo, keyFields, uniqKeyFields);
+                writer.append("\n");
+                indent(writer, 1).append("private final ");
+
+                appendMapType(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
+
+                indent(writer.append("\n"), 3).append("entityIndexMap = new ")
+                        .append(mapClassName(keyInfo, keyFields.get(0)))
+                        .append(keyInfo.isCounted() ? "<>(1, 1, true);\n" : "<>();\n");
+
+                final List<FieldInfo> levels = new ArrayList<>(keyFields);
+                if (!keyInfo.isUnique()) {
+                    levels.addAll(uniqKeyFields);
+                }
+                appendSubMapPools(writer, entityTypeInfo, keyInfo, levels);
+                appendDictionaries(writer, keyInfo, keyFields);
+
+                final boolean counted = keyInfo.isCounted();
+
+                if (keyInfo.isUnique()) {
+                    appendAddUnique(schemaInfo, writer, entityTypeInfo, keyFields, keyInfo);
+                    appendAddUniqueUnsafe(schemaInfo, writer, entityTypeInfo, keyFields, keyInfo);
+                    appendRemoveUnique(schemaInfo, writer, entityTypeInfo, keyFields, keyInfo);
+                    appendGet(schemaInfo, writer, entityTypeInfo, keyFields, keyInfo);
+                    if (keyFields.size() == 1) {
+                        appendGetAll(schemaInfo, writer, entityTypeInfo, keyFields.get(0), keyInfo);
+                    }
+                    appendIteratorAllUnique(writer, entityTypeInfo, keyFields, keyInfo);
+                } else {
+                    appendAddNotUnique(schemaInfo, writer, entityTypeInfo, keyFields, uniqKeyFields, keyInfo);
+                    appendRemoveNotUnique(schemaInfo, writer, entityTypeInfo, keyFields, uniqKeyFields, keyInfo);
+                    appendIterator(schemaInfo, writer, entityTypeInfo, keyFields, uniqKeyFields, keyInfo);
+                    appendList(schemaInfo, writer, entityTypeInfo, keyFields);
+                    appendListReusable(schemaInfo, writer, entityTypeInfo, keyFields);
+                    appendStream(schemaInfo, writer, entityTypeInfo, keyFields);
+                    appendIteratorAllNotUnique(writer, entityTypeInfo, keyFields, uniqKeyFields, keyInfo);
+                }
+
+                appendAddAll(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
+
+                if (counted) {
+                    appendCounts(schemaInfo, writer, entityTypeInfo, keyInfo, keyFields);
+                }
             }
 
             writer.append("\n");
@@ -2831,6 +3706,9 @@ public class SchemaGenerator {
                 indent(writer, 2).append("private ")
                         .append(typeName(schemaInfo, field, selfIdType(entityTypeInfo), true)).append("[] ")
                         .append(field.getName()).append("List;\n");
+                if (!isOrdered(keyInfo, field)) {
+                    continue;
+                }
                 indent(writer, 2).append("private ")
                         .append(typeName(schemaInfo, field, selfIdType(entityTypeInfo), true)).append(" ")
                         .append(field.getName()).append("From;\n");
@@ -2880,6 +3758,25 @@ public class SchemaGenerator {
                 indent(writer, 3).append("return this;\n");
                 indent(writer, 2).append("}\n");
 
+                final boolean ordered = isOrdered(keyInfo, field);
+
+                writer.append("\n");
+                indent(writer, 2).append("private void ").append(field.getName()).append("Mode(int mode) {\n");
+                indent(writer, 3).append("if (this.").append(field.getName()).append("Mode == 0");
+                if (ordered) {
+                    writer.append(" && !this.").append(field.getName()).append("Reversed");
+                }
+                writer.append(") {\n");
+                indent(writer, 4).append("this.").append(field.getName()).append("Mode = mode;\n");
+                indent(writer, 3).append("} else {\n");
+                indent(writer, 4).append("throw new IllegalStateException();\n");
+                indent(writer, 3).append("}\n");
+                indent(writer, 2).append("}\n");
+
+                if (!ordered) {
+                    continue;
+                }
+
                 writer.append("\n");
                 indent(writer, 2).append("public final Filter ").append(field.getName()).append("From(")
                         .append(typeName(schemaInfo, field, selfIdType(entityTypeInfo), false, true)).append(" ")
@@ -2966,16 +3863,6 @@ public class SchemaGenerator {
                 indent(writer, 3).append("return this;\n");
                 indent(writer, 2).append("}\n");
 
-                writer.append("\n");
-                indent(writer, 2).append("private void ").append(field.getName()).append("Mode(int mode) {\n");
-                indent(writer, 3).append("if (this.").append(field.getName()).append("Mode == 0 && !this.")
-                        .append(field.getName()).append("Reversed) {\n");
-                indent(writer, 4).append("this.").append(field.getName()).append("Mode = mode;\n");
-                indent(writer, 3).append("} else {\n");
-                indent(writer, 4).append("throw new IllegalStateException();\n");
-                indent(writer, 3).append("}\n");
-                indent(writer, 2).append("}\n");
-
                 writer.append("\n");
                 indent(writer, 2).append("private void ").append(field.getName()).append("Mode3() {\n");
                 indent(writer, 3).append("if (this.").append(field.getName()).append("Mode == 0) {\n");
@@ -2994,142 +3881,1428 @@ public class SchemaGenerator {
                 indent(writer, 2).append("}\n");
             }
 
-            appendFilterIterator(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
+            if (flat) {
+                appendFlatFilterIterator(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
+            } else {
+                appendFilterIterator(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
 
-            for (int i = 0; i < keyFields.size(); i++) {
-                final FieldInfo field = keyFields.get(i);
+                if (keyInfo.isCounted()) {
+                    appendFilterCount(writer, keyInfo, keyFields);
+                }
 
-                writer.append("\n");
+                if (isTree(keyInfo, keyFields, uniqKeyFields)) {
+                    appendFilterSpliterator(writer, entityTypeInfo, keyInfo, keyFields, uniqKeyFields);
+                }
 
-                indent(writer, 2).append("private NestedIterator<");
-                appendMapType(writer, entityTypeInfo, keyInfo, keyFields.subList(i, keyFields.size()), uniqKeyFields);
-                writer.append(", ");
-                appendTypeName(writer, entityTypeInfo);
-                writer.append("> ").append(field.getName()).append("Query(");
+                for (int i = 0; i < keyFields.size(); i++) {
+                    final FieldInfo field = keyFields.get(i);
+
+                    writer.append("\n");
 
-                final boolean simple = keyInfo.isUnique() && i == keyFields.size() - 1;
-                if (!simple) {
-                    writer.append("NestedIterator<");
-                    appendMapType(writer, entityTypeInfo, keyInfo, keyFields.subList(i + 1, keyFields.size()),
+                    indent(writer, 2).append("private NestedIterator<");
+                    appendMapType(writer, entityTypeInfo, keyInfo, keyFields.subList(i, keyFields.size()),
                             uniqKeyFields);
                     writer.append(", ");
                     appendTypeName(writer, entityTypeInfo);
-                    writer.append("> iterator");
-                }
+                    writer.append("> ").append(field.getName()).append("Query(");
 
-                writer.append(") {\n");
+                    final boolean simple = keyInfo.isUnique() && i == keyFields.size() - 1;
+                    if (!simple) {
+                        writer.append("NestedIterator<");
+                        appendMapType(writer, entityTypeInfo, keyInfo, keyFields.subList(i + 1, keyFields.size()),
+                                uniqKeyFields);
+                        writer.append(", ");
+                        appendTypeName(writer, entityTypeInfo);
+                        writer.append("> iterator");
+                    }
 
-                final String mapName = i == 0 ? "entityIndexMap.i" : treeMapPrefix(field) + "TreeMap.newI";
-
-                indent(writer, 3).append("switch (this.").append(field.getName()).append("Mode) {\n");
-                indent(writer, 4).append("case 0:\n");
-                indent(writer, 5).append("return ").append(mapName).append("terator(");
-                if (!simple) {
-                    writer.append("iterator, ");
-                }
-                writer.append(field.getName()).append("Reversed);\n");
-                indent(writer, 4).append("case 1:\n");
-                indent(writer, 5).append("return ").append(mapName).append("teratorByKey(");
-                if (!simple) {
-                    writer.append("iterator, ");
-                }
-                writer.append(field.getName()).append(");\n");
-                indent(writer, 4).append("case 2:\n");
-                indent(writer, 5).append("return ").append(mapName).append("teratorByKeys(");
-                if (!simple) {
-                    writer.append("iterator, ");
-                }
-                writer.append(field.getName()).append("List);\n");
-                indent(writer, 4).append("case 3:\n");
-                indent(writer, 5).append("return ").append(mapName).append("teratorByRange(");
-                if (!simple) {
-                    writer.append("iterator, ");
-                }
-                writer.append(field.getName()).append("From, ")
-                        .append(field.getName()).append("FromExclusive, ")
-                        .append(field.getName()).append("To, ")
-                        .append(field.getName()).append("ToExclusive, ")
-                        .append(field.getName()).append("Reversed);\n");
-                indent(writer, 4).append("default:\n");
-                indent(writer, 5).append("throw new IllegalArgumentException();\n");
-                indent(writer, 3).append("}\n");
-                indent(writer, 2).append("}\n");
+                    writer.append(") {\n");
+
+                    final String mapName = i == 0 ? "entityIndexMap.i" : mapClassName(keyInfo, field) + ".newI";
+                    final boolean ordered = isOrdered(keyInfo, field);
+
+                    indent(writer, 3).append("switch (this.").append(field.getName()).append("Mode) {\n");
+                    indent(writer, 4).append("case 0:\n");
+                    indent(writer, 5).append("return ").append(mapName).append("terator(");
+                    if (!simple) {
+                        writer.append("iterator, ");
+                    }
+                    writer.append(ordered ? field.getName() + "Reversed" : "false").append(");\n");
+                    indent(writer, 4).append("case 1:\n");
+                    indent(writer, 5).append("return ").append(mapName).append("teratorByKey(");
+                    if (!simple) {
+                        writer.append("iterator, ");
+                    }
+                    writer.append(mapKey(keyInfo, field, field.getName())).append(");\n");
+                    indent(writer, 4).append("case 2:\n");
+                    indent(writer, 5).append("return ").append(mapName).append("teratorByKeys(");
+                    if (!simple) {
+                        writer.append("iterator, ");
+                    }
+                    writer.append(mapKeys(keyInfo, field)).append(");\n");
+                    if (ordered) {
+                        indent(writer, 4).append("case 3:\n");
+                        indent(writer, 5).append("return ").append(mapName).append("teratorByRange(");
+                        if (!simple) {
+                            writer.append("iterator, ");
+                        }
+                        writer.append(mapRange(keyInfo, field)).append(", ")
+                                .append(field.getName()).append("Reversed);\n");
+                    }
+                    indent(writer, 4).append("default:\n");
+                    indent(writer, 5).append("throw new IllegalArgumentException();\n");
+                    indent(writer, 3).append("}\n");
+                    indent(writer, 2).append("}\n");
+                }
             }
 
             indent(writer, 1).append("}\n");
 
             writer.append("}\n");
-        }
-    }
 
-    private void appendMapType(OutputStreamWriter writer, EntityTypeInfo entityTypeInfo, KeyInfo keyInfo,
-            List<FieldInfo> keyFields, List<FieldInfo> uniqKeyFields)
-            throws IOException {
-
-        int c = 0;
+            final CharSequence source = writer.subSequence(importsStart, writer.length());
+            final StringBuilder imports = new StringBuilder();
+            appendUsedImports(imports, source, KEY_IMPORTS);
+            appendUsedImports(imports, source, KEY_JAVA_IMPORTS);
+            appendUsedImports(imports, source, KEY_STATIC_IMPORTS);
+            writer.insert(importsStart, imports);
 
-        for (final FieldInfo field : keyFields) {
-            writer.append(treeMapPrefix(field)).append("TreeMap<");
-            c++;
+            output.append(writer);
         }
+    }
 
-        if (!keyInfo.isUnique()) {
-            for (final FieldInfo field : uniqKeyFields) {
-                writer.append(treeMapPrefix(field)).append("TreeMap<");
-                c++;
+    /**
+     * Appends the group of imports of the classes the source refers to by their simple names, followed by an empty
+     * line unless none is used, so that each key class imports only the maps of its kind.
+     */
+    private static void appendUsedImports(StringBuilder writer, CharSequence source, List<String> classNames) {
+
+        boolean used = false;
+        for (final String className : classNames) {
+            final String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            if (Pattern.compile("\\b" + simpleName + "\\b").matcher(source).find()) {
+                writer.append("import ").append(className).append(";\n");
+                used = true;
             }
         }
+        if (used) {
+            writer.append("\n");
+        }
+    }
+
+    private void appendFlatKey(
+            SchemaInfo schemaInfo,
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> keyFields,
+            List<FieldInfo> uniqKeyFields
+    ) throws IOException {
+
+        final List<FieldInfo> levels = new ArrayList<>(keyFields);
+        if (!keyInfo.isUnique()) {
+            levels.addAll(uniqKeyFields);
+        }
+
+        final FlatLayout layout = new FlatLayout(keyInfo, levels);
+
+        appendFlatComparator(writer, levels, layout);
+
+        writer.append("\n");
+        indent(writer, 1).append("private static final KeyComparator COMPARATOR = new KeyComparator();\n");
+
+        writer.append("\n");
+        appendTypeName(indent(writer, 1).append("private final CompositeTreeMap<"), entityTypeInfo)
+                .append("> entityIndexMap = new CompositeTreeMap<>(COMPARATOR);\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("private final CompositeKey probe = new CompositeKey(COMPARATOR);\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("private static void key(\n");
+        indent(writer, 3).append("CompositeKey key,\n");
+        indent(writer, 3).append("int entry,");
+        appendParamDefs(schemaInfo, writer, entityTypeInfo, levels);
+        writer.append(") {\n");
+        if (layout.flagged) {
+            indent(writer, 2).append("key.setLong(entry, 0, ");
+            boolean first = true;
+            for (int i = 0; i < levels.size(); i++) {
+                if (layout.flags[i] != -1) {
+                    if (!first) {
+                        writer.append(" | ");
+                    }
+                    first = false;
+                    writer.append("(").append(levels.get(i).getName()).append(" == null ? 0 : ")
+                            .append(String.valueOf(1L << layout.flags[i])).append("L)");
+                }
+            }
+            writer.append(");\n");
+        }
+        for (int i = 0; i < levels.size(); i++) {
+            final FieldInfo field = levels.get(i);
+            final String name = field.getName();
+            if (layout.objects[i]) {
+                indent(writer, 2).append("key.setObject(entry, ").append(String.valueOf(layout.slots[i]))
+                        .append(", ").append(name).append(");\n");
+            } else {
+                final List<String> values = flatLongValues(field, name);
+                for (int j = 0; j < values.size(); j++) {
+                    indent(writer, 2).append("key.setLong(entry, ").append(String.valueOf(layout.slots[i] + j))
+                            .append(", ");
+                    if (layout.flags[i] != -1) {
+                        writer.append(name).append(" == null ? 0 : ");
+                    }
+                    writer.append(values.get(j)).append(");\n");
+                }
+            }
+        }
+        indent(writer, 1).append("}\n");
+
+        final List<FieldInfo> idFields = keyInfo.isUnique() ? List.of() : uniqKeyFields;
+        final String key = appendFlatKeyCall(new StringBuilder(), "probe", "0", keyFields, idFields, false)
+                .toString();
+
+        writer.append("\n");
+        indent(writer, 1).append("public void add(\n");
+        appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
+        appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
+        writer.append(") {\n");
+        indent(writer, 2).append(key).append(";\n");
+        if (keyInfo.isUnique()) {
+            appendTypeName(indent(writer, 2).append("final "), entityTypeInfo)
+                    .append(" prev = entityIndexMap.get(probe);\n");
+            writer.append("\n");
+            indent(writer, 2).append("if (prev != entity) {\n");
+            indent(writer, 3).append("if (prev != null");
+            for (final FieldInfo field : keyFields) {
+                indent(writer.append(" &&\n"), 4).append("Objects.equals(prev.").append(getterName(field))
+                        .append("(), ").append(field.getName()).append(")");
+            }
+            writer.append(") {\n");
+            writer.append("\n");
+            indent(writer, 4).append("throw new NotUniqueException(\"Duplicate key \\\"").append(keyInfo.getName())
+                    .append("\\\" [")
+                    .append(keyFields.stream().map(e -> e.getName() + "=\" + " + e.getName() + " + \"")
+                            .collect(Collectors.joining(", ")))
+                    .append("]\");\n");
+            indent(writer, 3).append("}\n");
+            indent(writer, 3).append("entityIndexMap.put(probe, entity);\n");
+            indent(writer, 2).append("}\n");
+        } else {
+            indent(writer, 2).append("entityIndexMap.put(probe, entity);\n");
+        }
+        indent(writer, 1).append("}\n");
+
+        if (keyInfo.isUnique()) {
+            writer.append("\n");
+            indent(writer, 1).append("public void addUnsafe(\n");
+            appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
+            appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
+            writer.append(") {\n");
+            indent(writer, 2).append(key).append(";\n");
+            indent(writer, 2).append("entityIndexMap.put(probe, entity);\n");
+            indent(writer, 1).append("}\n");
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("public void remove(\n");
+        appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
+        appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
+        writer.append(") {\n");
+        indent(writer, 2).append(key).append(";\n");
+        indent(writer, 2).append("if (entityIndexMap.get(probe) == entity) {\n");
+        indent(writer, 3).append("entityIndexMap.remove(probe);\n");
+        indent(writer, 2).append("}\n");
+        indent(writer, 1).append("}\n");
+
+        if (keyInfo.isUnique()) {
+            writer.append("\n");
+            appendTypeName(indent(writer, 1).append("public "), entityTypeInfo).append(" get(");
+            appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
+            writer.append(") {\n");
+            indent(writer, 2).append("final CompositeKey key = new CompositeKey(COMPARATOR);\n");
+            indent(writer, 2).append(appendFlatKeyCall(new StringBuilder(), "key", "0", keyFields, idFields, false))
+                    .append(";\n");
+            indent(writer, 2).append("return entityIndexMap.get(key);\n");
+            indent(writer, 1).append("}\n");
+        } else {
+            writer.append("\n");
+            appendTypeName(indent(writer, 1).append("public SmartIterator<"), entityTypeInfo).append("> iterator(");
+            appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
+            writer.append(") {\n");
+            indent(writer, 2).append("return filter()");
+            for (final FieldInfo field : keyFields) {
+                indent(writer.append("\n"), 4).append(".").append(field.getName()).append("(")
+                        .append(field.getName()).append(")");
+            }
+            indent(writer.append("\n"), 4).append(".iterator();\n");
+            indent(writer, 1).append("}\n");
+            appendList(schemaInfo, writer, entityTypeInfo, keyFields);
+            appendListReusable(schemaInfo, writer, entityTypeInfo, keyFields);
+            appendStream(schemaInfo, writer, entityTypeInfo, keyFields);
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        appendTypeName(indent(writer, 1).append("public SmartIterator<"), entityTypeInfo)
+                .append("> iterator() {\n");
+        indent(writer, 2).append("return entityIndexMap.iterator(false);\n");
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 1).append("/**\n");
+        indent(writer, 1).append(" * Adds the entities at once. The empty key is built from the sorted composite keys in one pass, otherwise\n");
+        indent(writer, 1).append(" * the entities are added one by one. Reorders the array.\n");
+        indent(writer, 1).append(" */\n");
+        appendTypeName(indent(writer, 1).append("public void addAll("), entityTypeInfo)
+                .append("[] entities, int count) {\n");
+        writer.append("\n");
+        indent(writer, 2).append("if (!entityIndexMap.isEmpty()) {\n");
+        indent(writer, 3).append("for (int i = 0; i < count; i++) {\n");
+        appendTypeName(indent(writer, 4).append("final "), entityTypeInfo).append(" entity = entities[i];\n");
+        indent(writer, 4).append("add(entity");
+        for (final FieldInfo field : keyFields) {
+            writer.append(", entity.").append(getterName(field)).append("()");
+        }
+        writer.append(");\n");
+        indent(writer, 3).append("}\n");
+        indent(writer, 3).append("return;\n");
+        indent(writer, 2).append("}\n");
+        writer.append("\n");
+        indent(writer, 2).append("final CompositeKey keys = new CompositeKey(COMPARATOR, count);\n");
+        indent(writer, 2).append("for (int i = 0; i < count; i++) {\n");
+        appendTypeName(indent(writer, 3).append("final "), entityTypeInfo).append(" entity = entities[i];\n");
+        indent(writer, 3);
+        appendFlatKeyCall(writer, "keys", "i", keyFields, idFields, true);
+        writer.append(";\n");
+        indent(writer, 2).append("}\n");
+        writer.append("\n");
+        if (keyInfo.isUnique()) {
+            indent(writer, 2).append("final int i = keys.sort(entities, count);\n");
+            indent(writer, 2).append("if (i != -1) {\n");
+            indent(writer, 3).append("throw new NotUniqueException(\"Duplicate key \\\"").append(keyInfo.getName())
+                    .append("\\\" [")
+                    .append(keyFields.stream().map(e -> e.getName() + "=\" + entities[i]." + getterName(e) + "() + \"")
+                            .collect(Collectors.joining(", ")))
+                    .append("]\");\n");
+            indent(writer, 2).append("}\n");
+        } else {
+            indent(writer, 2).append("keys.sort(entities, count);\n");
+        }
+        indent(writer, 2).append("entityIndexMap.bulkLoad(keys, entities, count);\n");
+        indent(writer, 1).append("}\n");
+    }
+
+    /**
+     * Appends the call storing the key fields, taken from the parameters or from the entity, and the identity fields
+     * of the entity into the entry of the composite key.
+     */
+    private <T extends Appendable> T appendFlatKeyCall(
+            T writer,
+            String target,
+            String entry,
+            List<FieldInfo> keyFields,
+            List<FieldInfo> idFields,
+            boolean fromEntity
+    ) throws IOException {
+
+        writer.append("key(").append(target).append(", ").append(entry);
+        for (final FieldInfo field : keyFields) {
+            writer.append(", ");
+            if (fromEntity) {
+                writer.append("entity.").append(getterName(field)).append("()");
+            } else {
+                writer.append(field.getName());
+            }
+        }
+        for (final FieldInfo field : idFields) {
+            writer.append(", entity.").append(getterName(field)).append("()");
+        }
+        writer.append(")");
+        return writer;
+    }
+
+    private void appendFlatFilterIterator(
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> keyFields,
+            List<FieldInfo> uniqKeyFields
+    ) throws IOException {
+
+        writer.append("\n");
+        appendTypeName(indent(writer, 2).append("public final SmartIterator<"), entityTypeInfo)
+                .append("> iterator() {\n");
+        writer.append("\n");
+        appendTypeName(indent(writer, 3).append("final CompositeIterator<"), entityTypeInfo)
+                .append("> iterator = new CompositeIterator<>(")
+                .append(String.valueOf(keyFields.size() + (keyInfo.isUnique() ? 0 : uniqKeyFields.size())))
+                .append(");\n");
+
+        for (int i = 0; i < keyFields.size(); i++) {
+            final String name = keyFields.get(i).getName();
+            final String level = String.valueOf(i);
+
+            writer.append("\n");
+            indent(writer, 3).append("switch (this.").append(name).append("Mode) {\n");
+            indent(writer, 4).append("case 0:\n");
+            indent(writer, 5).append("iterator.all(").append(level).append(", ").append(name).append("Reversed);\n");
+            indent(writer, 5).append("break;\n");
+            indent(writer, 4).append("case 1:\n");
+            indent(writer, 5).append("iterator.key(").append(level).append(", ").append(name).append(");\n");
+            indent(writer, 5).append("break;\n");
+            indent(writer, 4).append("case 2:\n");
+            indent(writer, 5).append("iterator.keys(").append(level).append(", ").append(name).append("List);\n");
+            indent(writer, 5).append("break;\n");
+            indent(writer, 4).append("case 3:\n");
+            indent(writer, 5).append("iterator.range(").append(level).append(",\n");
+            indent(writer, 7).append(name).append("From,\n");
+            indent(writer, 7).append(name).append("FromExclusive,\n");
+            indent(writer, 7).append(name).append("To,\n");
+            indent(writer, 7).append(name).append("ToExclusive,\n");
+            indent(writer, 7).append(name).append("Reversed);\n");
+            indent(writer, 5).append("break;\n");
+            indent(writer, 4).append("default:\n");
+            indent(writer, 5).append("throw new IllegalArgumentException();\n");
+            indent(writer, 3).append("}\n");
+        }
+
+        if (!keyInfo.isUnique()) {
+            writer.append("\n");
+            for (int i = 0; i < uniqKeyFields.size(); i++) {
+                indent(writer, 3).append("iterator.all(").append(String.valueOf(keyFields.size() + i))
+                        .append(", reversed);\n");
+            }
+        }
+
+        writer.append("\n");
+        indent(writer, 3).append("iterator.reset(entityIndexMap);\n");
+        indent(writer, 3).append("return iterator;\n");
+        indent(writer, 2).append("}\n");
+    }
+
+    /**
+     * Appends the comparator of the composite keys: a straight-line comparison of the slots of each component in turn.
+     */
+    private void appendFlatComparator(Appendable writer, List<FieldInfo> levels, FlatLayout layout)
+            throws IOException {
+
+        writer.append("\n");
+        indent(writer, 1).append("private static final class KeyComparator extends CompositeComparator {\n");
+        writer.append("\n");
+        indent(writer, 2).append("KeyComparator() {\n");
+        indent(writer, 3).append("super(").append(String.valueOf(levels.size())).append(", ")
+                .append(String.valueOf(layout.longWidth)).append(", ").append(String.valueOf(layout.objectWidth))
+                .append(");\n");
+        indent(writer, 2).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 2).append("@Override\n");
+        indent(writer, 2).append("public int compare(\n");
+        indent(writer, 4).append("long[] longs1,\n");
+        indent(writer, 4).append("Object[] objects1,\n");
+        indent(writer, 4).append("int key1,\n");
+        indent(writer, 4).append("long[] longs2,\n");
+        indent(writer, 4).append("Object[] objects2,\n");
+        indent(writer, 4).append("int key2,\n");
+        indent(writer, 4).append("int components\n");
+        indent(writer, 2).append(") {\n");
+        writer.append("\n");
+        indent(writer, 3).append("if (components == 0) {\n");
+        indent(writer, 4).append("return 0;\n");
+        indent(writer, 3).append("}\n");
+        writer.append("\n");
+        if (layout.longWidth != 0) {
+            indent(writer, 3).append("final int l1 = ").append(slotBase("key1", layout.longWidth)).append(";\n");
+            indent(writer, 3).append("final int l2 = ").append(slotBase("key2", layout.longWidth)).append(";\n");
+        }
+        if (layout.objectWidth != 0) {
+            indent(writer, 3).append("final int o1 = ").append(slotBase("key1", layout.objectWidth)).append(";\n");
+            indent(writer, 3).append("final int o2 = ").append(slotBase("key2", layout.objectWidth)).append(";\n");
+        }
+        indent(writer, 3).append("int cmp;\n");
+        for (int i = 0; i < levels.size(); i++) {
+            final FieldInfo field = levels.get(i);
+            writer.append("\n");
+            if (layout.objects[i]) {
+                final String type = "BigDecimal".equals(treeMapPrefix(field)) ? "java.math.BigDecimal" : "String";
+                final String slot = slot(layout.slots[i]);
+                indent(writer, 3).append("cmp = compareObjects((").append(type).append(") objects1[o1").append(slot)
+                        .append("], (").append(type).append(") objects2[o2").append(slot).append("]);\n");
+            } else {
+                int depth = 3;
+                if (layout.flags[i] != -1) {
+                    final String mask = (1L << layout.flags[i]) + "L";
+                    indent(writer, depth).append("cmp = Long.compare(longs1[l1] & ").append(mask)
+                            .append(", longs2[l2] & ").append(mask).append(");\n");
+                    indent(writer, depth).append("if (cmp == 0) {\n");
+                    depth++;
+                }
+                final int width = flatLongValues(field, "").size();
+                for (int j = 0; j < width; j++) {
+                    final String slot = slot(layout.slots[i] + j);
+                    if (j != 0) {
+                        indent(writer, depth).append("if (cmp == 0) {\n");
+                        depth++;
+                    }
+                    indent(writer, depth).append("cmp = Long.compare(longs1[l1").append(slot).append("], longs2[l2")
+                            .append(slot).append("]);\n");
+                }
+                while (depth > 3) {
+                    depth--;
+                    indent(writer, depth).append("}\n");
+                }
+            }
+            if (i != levels.size() - 1) {
+                indent(writer, 3).append("if (cmp != 0 || components == ").append(String.valueOf(i + 1))
+                        .append(") {\n");
+                indent(writer, 4).append("return cmp;\n");
+                indent(writer, 3).append("}\n");
+            }
+        }
+        indent(writer, 3).append("return cmp;\n");
+        indent(writer, 2).append("}\n");
+
+        writer.append("\n");
+        indent(writer, 2).append("@Override\n");
+        indent(writer, 2)
+                .append("public void set(long[] longs, Object[] objects, int key, int component, Object value) {\n");
+        indent(writer, 3).append("switch (component) {\n");
+        for (int i = 0; i < levels.size(); i++) {
+            final FieldInfo field = levels.get(i);
+            indent(writer, 4).append("case ").append(String.valueOf(i)).append(":\n");
+            if (layout.objects[i]) {
+                indent(writer, 5).append("objects[").append(slotBase("key", layout.objectWidth))
+                        .append(slot(layout.slots[i])).append("] = value;\n");
+            } else {
+                final List<String> values = flatLongValues(field, "((" + flatBoxedType(field) + ") value)");
+                int depth = 5;
+                final String flags = "longs[" + slotBase("key", layout.longWidth) + "]";
+                if (layout.flags[i] != -1) {
+                    final String mask = (1L << layout.flags[i]) + "L";
+                    indent(writer, 5).append("if (value == null) {\n");
+                    indent(writer, 6).append(flags).append(" &= ~").append(mask).append(";\n");
+                    for (int j = 0; j < values.size(); j++) {
+                        indent(writer, 6).append("longs[").append(slotBase("key", layout.longWidth))
+                                .append(slot(layout.slots[i] + j)).append("] = 0;\n");
+                    }
+                    indent(writer, 5).append("} else {\n");
+                    indent(writer, 6).append(flags).append(" |= ").append(mask).append(";\n");
+                    depth++;
+                }
+                for (int j = 0; j < values.size(); j++) {
+                    indent(writer, depth).append("longs[").append(slotBase("key", layout.longWidth))
+                            .append(slot(layout.slots[i] + j)).append("] = ").append(values.get(j))
+                            .append(";\n");
+                }
+                if (layout.flags[i] != -1) {
+                    indent(writer, 5).append("}\n");
+                }
+            }
+            indent(writer, 5).append("break;\n");
+        }
+        indent(writer, 4).append("default:\n");
+        indent(writer, 5).append("throw new IllegalArgumentException();\n");
+        indent(writer, 3).append("}\n");
+        indent(writer, 2).append("}\n");
+        indent(writer, 1).append("}\n");
+    }
+
+    @Nonnull
+    private static String slotBase(String key, int width) {
+        return width == 1 ? key : key + " * " + width;
+    }
+
+    @Nonnull
+    private static String slot(int slot) {
+        return slot == 0 ? "" : " + " + slot;
+    }
+
+    /**
+     * @return expressions of the long slots of a component of a flat key given by the expression of its value
+     */
+    @Nonnull
+    private List<String> flatLongValues(FieldInfo field, String value) {
+
+        switch (treeMapPrefix(field)) {
+            case "Integer":
+            case "Long":
+                return List.of(value);
+            case "Boolean":
+                return List.of(value + " ? 1 : 0");
+            case "Instant":
+                return List.of(value + ".getEpochSecond()", value + ".getNano()");
+            case "Id":
+                return List.of(value + ".value()");
+            case "Enum":
+                return List.of(value + ".ordinal()");
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    @Nonnull
+    private String flatBoxedType(FieldInfo field) {
+
+        switch (treeMapPrefix(field)) {
+            case "Integer":
+                return "Integer";
+            case "Long":
+                return "Long";
+            case "Boolean":
+                return "Boolean";
+            case "Instant":
+                return "java.time.Instant";
+            case "Id":
+                return "codes.writeonce.deltastore.api.Id<?>";
+            case "Enum":
+                return "Enum<?>";
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Slots of the components of a flat key: strings and decimals take an object slot each, the other fields one or,
+     * for instants, two long slots following the flags of the nullable ones.
+     */
+    private final class FlatLayout {
+
+        final int[] slots;
+
+        final boolean[] objects;
+
+        final int[] flags;
+
+        final boolean flagged;
+
+        final int longWidth;
+
+        final int objectWidth;
+
+        FlatLayout(KeyInfo keyInfo, List<FieldInfo> levels) {
+
+            final int count = levels.size();
+            slots = new int[count];
+            objects = new boolean[count];
+            flags = new int[count];
+
+            int flag = 0;
+            for (int i = 0; i < count; i++) {
+                final FieldInfo field = levels.get(i);
+                final String prefix = treeMapPrefix(field);
+                objects[i] = "String".equals(prefix) || "BigDecimal".equals(prefix);
+                flags[i] = !objects[i] && field.isNullable() ? flag++ : -1;
+            }
+
+            if (flag > Long.SIZE) {
+                throw new RuntimeException(
+                        "Key " + keyInfo.getName() + " of kind flat has more than " + Long.SIZE + " nullable fields");
+            }
+
+            flagged = flag != 0;
+            int longSlot = flagged ? 1 : 0;
+            int objectSlot = 0;
+            for (int i = 0; i < count; i++) {
+                if (objects[i]) {
+                    slots[i] = objectSlot++;
+                } else {
+                    slots[i] = longSlot;
+                    longSlot += flatLongValues(levels.get(i), "").size();
+                }
+            }
+            longWidth = longSlot;
+            objectWidth = objectSlot;
+        }
+    }
+
+    private void appendAddAll(
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> keyFields,
+            List<FieldInfo> uniqKeyFields
+    ) throws IOException {
+
+        final List<FieldInfo> levels = new ArrayList<>(keyFields);
+        if (!keyInfo.isUnique()) {
+            levels.addAll(uniqKeyFields);
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("/**\n");
+        indent(writer, 1).append(" * Adds the entities at once. The empty key is built from the sorted key values in one pass, otherwise the\n");
+        indent(writer, 1).append(" * entities are added one by one. Reorders the array.\n");
+        indent(writer, 1).append(" */\n");
+        appendTypeName(indent(writer, 1).append("public void addAll("), entityTypeInfo)
+                .append("[] entities, int count) {\n");
+        writer.append("\n");
+        indent(writer, 2).append("if (!entityIndexMap.isEmpty()) {\n");
+        indent(writer, 3).append("for (int i = 0; i < count; i++) {\n");
+        appendTypeName(indent(writer, 4).append("final "), entityTypeInfo).append(" entity = entities[i];\n");
+        indent(writer, 4).append("add(entity");
+        for (final FieldInfo field : keyFields) {
+            writer.append(", entity.").append(getterName(field)).append("()");
+        }
+        writer.append(");\n");
+        indent(writer, 3).append("}\n");
+        indent(writer, 3).append("return;\n");
+        indent(writer, 2).append("}\n");
+        writer.append("\n");
+        indent(writer, 2).append("Arrays.sort(entities, 0, count, ").append(keyInfo.getName())
+                .append("::compareKeys);\n");
+
+        final List<FieldInfo> labeledFields =
+                keyFields.stream().filter(field -> isLabeled(keyInfo, field)).collect(toList());
+        if (labeledFields.isEmpty()) {
+            indent(writer, 2).append("addAll0(entityIndexMap, entities, 0, count);\n");
+        } else {
+            // the keys of the labelled levels reference their strings as the maps are built, so the duplicates are
+            // told beforehand, and the strings are put into the dictionaries first not to relabel the maps being built
+            indent(writer, 2).append("for (int i = 1; i < count; i++) {\n");
+            indent(writer, 3).append("if (compareKeys(entities[i - 1], entities[i]) == 0) {\n");
+            appendDuplicateKey(writer, 4, keyInfo, keyFields);
+            indent(writer, 3).append("}\n");
+            indent(writer, 2).append("}\n");
+            appendLabeledFieldsLoop(writer, labeledFields, "acquireLabel");
+            indent(writer, 2).append("addAll0(entityIndexMap, entities, 0, count);\n");
+            appendLabeledFieldsLoop(writer, labeledFields, "releaseLabel");
+        }
+        indent(writer, 1).append("}\n");
+
+        writer.append("\n");
+        appendTypeName(appendTypeName(indent(writer, 1).append("private static int compareKeys("), entityTypeInfo)
+                .append(" a, "), entityTypeInfo).append(" b) {\n");
+        for (int i = 0; i < levels.size(); i++) {
+            final FieldInfo field = levels.get(i);
+            final String getter = getterName(field) + "()";
+            final String compare;
+            if (isPrimitive(field) && !field.isNullable()) {
+                compare = treeMapPrefix(field) + ".compare(a." + getter + ", b." + getter + ")";
+            } else {
+                compare = "compare(a." + getter + ", b." + getter + ")";
+            }
+            if (i == levels.size() - 1) {
+                indent(writer, 2).append("return ").append(compare).append(";\n");
+            } else {
+                indent(writer, 2).append(i == 0 ? "int " : "").append("c = ").append(compare).append(";\n");
+                indent(writer, 2).append("if (c != 0) {\n");
+                indent(writer, 3).append("return c;\n");
+                indent(writer, 2).append("}\n");
+            }
+        }
+        indent(writer, 1).append("}\n");
+
+        for (int level = 0; level < levels.size(); level++) {
+            appendAddAllLevel(writer, entityTypeInfo, keyInfo, keyFields, levels, level, !labeledFields.isEmpty());
+        }
+    }
+
+    private static void appendDuplicateKey(Appendable writer, int ind, KeyInfo keyInfo, List<FieldInfo> keyFields)
+            throws IOException {
+
+        indent(writer, ind).append("throw new NotUniqueException(\"Duplicate key \\\"").append(keyInfo.getName())
+                .append("\\\" [")
+                .append(keyFields.stream().map(e -> e.getName() + "=\" + entities[i]." + getterName(e) + "() + \"")
+                        .collect(Collectors.joining(", ")))
+                .append("]\");\n");
+    }
+
+    private static void appendLabeledFieldsLoop(Appendable writer, List<FieldInfo> labeledFields, String method)
+            throws IOException {
+
+        indent(writer, 2).append("for (int i = 0; i < count; i++) {\n");
+        for (final FieldInfo field : labeledFields) {
+            indent(writer, 3).append(field.getName()).append("Strings.").append(method).append("(entities[i].")
+                    .append(getterName(field)).append("());\n");
+        }
+        indent(writer, 2).append("}\n");
+    }
+
+    private void appendAddAllLevel(
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> keyFields,
+            List<FieldInfo> levels,
+            int level,
+            boolean labeledKey
+    ) throws IOException {
+
+        final FieldInfo field = levels.get(level);
+        final String getter = getterName(field) + "()";
+        final boolean labeled = isLabeled(keyInfo, field);
+        final String prefix = labeled ? "Integer" : treeMapPrefix(field);
+        final boolean tree = isTreeMap(keyInfo, field);
+        final boolean last = level == levels.size() - 1;
+        final boolean primitive = isPrimitive(field) && !field.isNullable();
+        final boolean nullKey = !primitive && !labeled;
+
+        writer.append("\n");
+        indent(writer, 1).append(labeledKey ? "private void addAll" : "private static void addAll")
+                .append(String.valueOf(level)).append("(");
+        appendMapType(writer, entityTypeInfo, keyInfo, levels.subList(level, levels.size()));
+        appendTypeName(writer.append(" map, "), entityTypeInfo).append("[] entities, int from, int to) {\n");
+        writer.append("\n");
+
+        if (tree) {
+            final String keyArray;
+            switch (prefix) {
+                case "Long":
+                case "Id":
+                case "Instant":
+                    keyArray = "long";
+                    break;
+                case "Integer":
+                case "Enum":
+                    keyArray = "int";
+                    break;
+                case "Boolean":
+                    keyArray = "boolean";
+                    break;
+                case "BigDecimal":
+                    keyArray = "java.math.BigDecimal";
+                    break;
+                default:
+                    keyArray = prefix;
+                    break;
+            }
+            indent(writer, 2).append("final ").append(keyArray).append("[] keys = new ").append(keyArray)
+                    .append("[to - from];\n");
+            if (prefix.equals("Instant")) {
+                indent(writer, 2).append("final int[] keys2 = new int[to - from];\n");
+            }
+            indent(writer, 2).append("final Object[] values = new Object[to - from];\n");
+            indent(writer, 2).append("int count = 0;\n");
+            if (nullKey) {
+                if (last) {
+                    appendTypeName(indent(writer, 2), entityTypeInfo);
+                } else {
+                    appendMapType(indent(writer, 2), entityTypeInfo, keyInfo, levels.subList(level + 1, levels.size()));
+                }
+                writer.append(" nullValue = null;\n");
+            }
+            writer.append("\n");
+        }
+
+        indent(writer, 2).append("for (int i = from; i < to; ) {\n");
+        indent(writer, 3).append("final var key = entities[i].").append(getter).append(";\n");
+        indent(writer, 3).append("int j = i + 1;\n");
+        if (primitive) {
+            indent(writer, 3).append("while (j < to && entities[j].").append(getter).append(" == key) {\n");
+        } else {
+            indent(writer, 3).append("while (j < to && compare(entities[j].").append(getter)
+                    .append(", key) == 0) {\n");
+        }
+        indent(writer, 4).append("j++;\n");
+        indent(writer, 3).append("}\n");
+
+        final String value;
+        if (last) {
+            if (!labeledKey) {
+                indent(writer, 3).append("if (j - i > 1) {\n");
+                appendDuplicateKey(writer, 4, keyInfo, keyFields);
+                indent(writer, 3).append("}\n");
+            }
+            value = "entities[i]";
+        } else {
+            indent(writer, 3).append("final ");
+            appendMapType(writer, entityTypeInfo, keyInfo, levels.subList(level + 1, levels.size()));
+            writer.append(" value = new ").append(mapClassName(keyInfo, levels.get(level + 1)))
+                    .append(keyInfo.isCounted() ? "<>(SUB_MAP_CAPACITY, SUB_MAP_RETAINED_CAPACITY, true);\n" : "<>();\n");
+            indent(writer, 3).append("addAll").append(String.valueOf(level + 1)).append("(value, entities, i, j);\n");
+            value = "value";
+        }
+
+        if (labeled) {
+            indent(writer, 3).append("keys[count] = ").append(field.getName()).append("Strings.acquireLabel(key);\n");
+            indent(writer, 3).append("values[count++] = ").append(value).append(";\n");
+        } else if (tree) {
+            int ind = 3;
+            if (nullKey) {
+                indent(writer, 3).append("if (key == null) {\n");
+                indent(writer, 4).append("nullValue = ").append(value).append(";\n");
+                indent(writer, 3).append("} else {\n");
+                ind = 4;
+            }
+            switch (prefix) {
+                case "Id":
+                    indent(writer, ind).append("keys[count] = key.value();\n");
+                    break;
+                case "Enum":
+                    indent(writer, ind).append("keys[count] = key.ordinal();\n");
+                    break;
+                case "Instant":
+                    indent(writer, ind).append("keys[count] = key.getEpochSecond();\n");
+                    indent(writer, ind).append("keys2[count] = key.getNano();\n");
+                    break;
+                default:
+                    indent(writer, ind).append("keys[count] = key;\n");
+                    break;
+            }
+            indent(writer, ind).append("values[count++] = ").append(value).append(";\n");
+            if (nullKey) {
+                indent(writer, 3).append("}\n");
+            }
+        } else {
+            indent(writer, 3).append("map.put(key, ").append(value).append(");\n");
+        }
+
+        indent(writer, 3).append("i = j;\n");
+        indent(writer, 2).append("}\n");
+
+        if (tree) {
+            writer.append("\n");
+            indent(writer, 2).append("map.bulkLoad(keys, ").append(prefix.equals("Instant") ? "keys2, " : "")
+                    .append("values, count);\n");
+            if (nullKey) {
+                indent(writer, 2).append("if (nullValue != null) {\n");
+                indent(writer, 3).append("map.put(null, nullValue);\n");
+                indent(writer, 2).append("}\n");
+            }
+        }
+
+        indent(writer, 1).append("}\n");
+    }
+
+    private void appendMapType(Appendable writer, EntityTypeInfo entityTypeInfo, KeyInfo keyInfo,
+            List<FieldInfo> keyFields, List<FieldInfo> uniqKeyFields)
+            throws IOException {
+
+        int c = 0;
+
+        for (final FieldInfo field : keyFields) {
+            writer.append(mapClassName(keyInfo, field)).append("<");
+            c++;
+        }
+
+        if (!keyInfo.isUnique()) {
+            for (final FieldInfo field : uniqKeyFields) {
+                writer.append(mapClassName(keyInfo, field)).append("<");
+                c++;
+            }
+        }
+
+        appendTypeName(writer, entityTypeInfo);
 
-        appendTypeName(writer, entityTypeInfo);
-
         for (int i = 0; i < c; i++) {
             writer.append(">");
         }
     }
 
-    @Nonnull
-    private String treeMapPrefix(FieldInfo field) {
-        return field.accept(new FieldInfo.Visitor<String, RuntimeException>() {
-            @Override
-            public String visit(StringFieldInfo fieldInfo) {
-                return "String";
-            }
+    private void appendMapType(Appendable writer, EntityTypeInfo entityTypeInfo, KeyInfo keyInfo,
+            List<FieldInfo> levels) throws IOException {
+
+        for (final FieldInfo field : levels) {
+            writer.append(mapClassName(keyInfo, field)).append("<");
+        }
+
+        appendTypeName(writer, entityTypeInfo);
+
+        for (int i = 0; i < levels.size(); i++) {
+            writer.append(">");
+        }
+    }
+
+    @Nonnull
+    private String mapClassName(KeyInfo keyInfo, FieldInfo field) {
+
+        if (isLabeled(keyInfo, field)) {
+            return "IntegerTreeMap";
+        }
+
+        final String prefix = treeMapPrefix(field);
+        switch (prefix) {
+            case "Long":
+            case "Integer":
+            case "Id":
+                switch (keyInfo.getKind()) {
+                    case BTREE:
+                        return prefix + "BTreeMap";
+                    case HASH:
+                        return prefix + "HashMap";
+                }
+        }
+        return prefix + "TreeMap";
+    }
+
+    /**
+     * @return {@code true} if the maps of the level of the field are red-black tree maps
+     */
+    private boolean isTreeMap(KeyInfo keyInfo, FieldInfo field) {
+        return isLabeled(keyInfo, field) || mapClassName(keyInfo, field).equals(treeMapPrefix(field) + "TreeMap");
+    }
+
+    private boolean isOrdered(KeyInfo keyInfo, FieldInfo field) {
+        return !mapClassName(keyInfo, field).endsWith("HashMap");
+    }
+
+    @Nonnull
+    private String treeMapPrefix(FieldInfo field) {
+        return field.accept(new FieldInfo.Visitor<String, RuntimeException>() {
+            @Override
+            public String visit(StringFieldInfo fieldInfo) {
+                return "String";
+            }
+
+            @Override
+            public String visit(IntegerFieldInfo fieldInfo) {
+                return "Integer";
+            }
+
+            @Override
+            public String visit(LongFieldInfo fieldInfo) {
+                return "Long";
+            }
+
+            @Override
+            public String visit(BooleanFieldInfo fieldInfo) {
+                return "Boolean";
+            }
+
+            @Override
+            public String visit(InstantFieldInfo fieldInfo) {
+                return "Instant";
+            }
+
+            @Override
+            public String visit(IdFieldInfo fieldInfo) {
+                return "Id";
+            }
+
+            @Override
+            public String visit(EnumFieldInfo fieldInfo) {
+                return "Enum";
+            }
+
+            @Override
+            public String visit(BigDecimalFieldInfo fieldInfo) {
+                return "BigDecimal";
+            }
+        });
+    }
+
+    private void appendSubMapPools(
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> levels
+    ) throws IOException {
+
+        for (int i = 1; i < levels.size(); i++) {
+            final FieldInfo field = levels.get(i);
+            final String mapClassName = mapClassName(keyInfo, field);
+            writer.append("\n");
+            indent(writer, 1).append("private final ArrayPool<");
+            appendMapType(writer, entityTypeInfo, keyInfo, levels.subList(i, levels.size()));
+            writer.append("> subMaps").append(String.valueOf(i)).append(" =\n");
+            final boolean sized = !mapClassName.endsWith("BTreeMap");
+            indent(writer, 3).append("new ArrayPool<>(SUB_MAP_POOL_SIZE, () -> new ").append(mapClassName)
+                    .append(sized ? "<>(SUB_MAP_CAPACITY, SUB_MAP_RETAINED_CAPACITY" : "<>(")
+                    .append(keyInfo.isCounted() ? ", true));\n" : "));\n");
+        }
+    }
+
+    /**
+     * Appends the dictionaries of the labelled levels of the key, taken by the constructor, and the rewriting of the
+     * keys of the maps of a level once its dictionary relabels its strings.
+     */
+    private void appendDictionaries(Appendable writer, KeyInfo keyInfo, List<FieldInfo> keyFields)
+            throws IOException {
+
+        final List<FieldInfo> labeledFields =
+                keyFields.stream().filter(field -> isLabeled(keyInfo, field)).collect(toList());
+        if (labeledFields.isEmpty()) {
+            return;
+        }
+
+        for (final FieldInfo field : labeledFields) {
+            writer.append("\n");
+            indent(writer, 1).append("private final SortedStringDictionary ").append(field.getName())
+                    .append("Strings;\n");
+        }
+
+        writer.append("\n");
+        indent(writer, 1).append("public ").append(keyInfo.getName()).append("(")
+                .append(labeledFields.stream().map(field -> "SortedStringDictionary " + field.getName() + "Strings")
+                        .collect(Collectors.joining(", ")))
+                .append(") {\n");
+        for (final FieldInfo field : labeledFields) {
+            final String dictionary = field.getName() + "Strings";
+            indent(writer, 2).append("this.").append(dictionary).append(" = ").append(dictionary).append(";\n");
+            indent(writer, 2).append(dictionary).append(".addListener(this::relabel")
+                    .append(withCapitalLetter(field.getName())).append(");\n");
+        }
+        indent(writer, 1).append("}\n");
+
+        for (final FieldInfo field : labeledFields) {
+            final int level = keyFields.indexOf(field);
+            writer.append("\n");
+            indent(writer, 1).append("private void relabel").append(withCapitalLetter(field.getName()))
+                    .append("(IntUnaryOperator labels) {\n");
+            indent(writer, 2).append("entityIndexMap");
+            for (int i = 1; i <= level; i++) {
+                writer.append(".forEachValue(").append(mapName(i)).append(" -> ").append(mapName(i));
+            }
+            writer.append(".relabel(labels)");
+            for (int i = 1; i <= level; i++) {
+                writer.append(")");
+            }
+            writer.append(";\n");
+            indent(writer, 1).append("}\n");
+        }
+    }
+
+    /**
+     * Appends the labels of the values of the labelled key fields, looked up in their dictionaries.
+     */
+    private void appendLabels(Appendable writer, KeyInfo keyInfo, List<FieldInfo> keyFields, boolean reassigned)
+            throws IOException {
+
+        for (final FieldInfo field : keyFields) {
+            if (isLabeled(keyInfo, field)) {
+                indent(writer, 2).append(reassigned ? "int " : "final int ").append(field.getName())
+                        .append("Label = ").append(mapKey(keyInfo, field, field.getName())).append(";\n");
+            }
+        }
+    }
+
+    /**
+     * Appends the lookup of the innermost map of the key, taking the missing nested maps from the pools. A new key of a
+     * labelled level references its string in the dictionary, which may relabel the maps of the level.
+     *
+     * @return name of the innermost map
+     */
+    private String appendGetSubMaps(Appendable writer, KeyInfo keyInfo, List<FieldInfo> keyFields, List<String> keys)
+            throws IOException {
+
+        String mapName = "entityIndexMap";
+
+        for (int i = 1; i < keys.size(); i++) {
+            final String key = keys.get(i - 1);
+            final String nextMapName = "map" + i;
+            indent(writer, 2).append("var ").append(nextMapName).append(" = ").append(mapName).append(".get(")
+                    .append(key).append(");\n");
+            indent(writer, 2).append("if (").append(nextMapName).append(" == null) {\n");
+            indent(writer, 3).append(nextMapName).append(" = subMaps").append(String.valueOf(i)).append(".get();\n");
+            if (i - 1 < keyFields.size() && isLabeled(keyInfo, keyFields.get(i - 1))) {
+                final String name = keyFields.get(i - 1).getName();
+                indent(writer, 3).append(key).append(" = ").append(name).append("Strings.acquireLabel(").append(name)
+                        .append(");\n");
+            }
+            indent(writer, 3).append(mapName).append(".put(").append(key).append(", ").append(nextMapName)
+                    .append(");\n");
+            indent(writer, 2).append("}\n");
+            mapName = nextMapName;
+        }
+
+        return mapName;
+    }
+
+    /**
+     * Appends the removal of the entity from the innermost map of the key, returning the emptied nested maps to the
+     * pools and the strings of their keys of the labelled levels to the dictionaries.
+     */
+    private void appendRemoveSubMaps(Appendable writer, KeyInfo keyInfo, List<FieldInfo> keyFields,
+            List<String> keys, boolean counted) throws IOException {
+
+        final int last = keys.size() - 1;
+
+        for (int i = 1; i <= last; i++) {
+            indent(writer, 2).append("final var map").append(String.valueOf(i)).append(" = ")
+                    .append(mapName(i - 1)).append(".get(").append(keys.get(i - 1)).append(");\n");
+            indent(writer, 2).append("if (map").append(String.valueOf(i)).append(" == null) {\n");
+            indent(writer, 3).append("return;\n");
+            indent(writer, 2).append("}\n");
+        }
+
+        indent(writer, 2).append("if (").append(mapName(last)).append(".get(").append(keys.get(last))
+                .append(") == entity) {\n");
+        indent(writer, 3).append(mapName(last)).append(".remove(").append(keys.get(last)).append(");\n");
+        if (counted) {
+            appendAddCounts(writer, 3, keys, -1);
+        }
+
+        for (int i = last; i > 0; i--) {
+            final int ind = 2 + last - i;
+            indent(writer, ind + 1).append("if (map").append(String.valueOf(i)).append(".isEmpty()) {\n");
+            indent(writer, ind + 2).append(mapName(i - 1)).append(".remove(").append(keys.get(i - 1))
+                    .append(");\n");
+            indent(writer, ind + 2).append("subMaps").append(String.valueOf(i)).append(".put(map")
+                    .append(String.valueOf(i)).append(");\n");
+            if (i - 1 < keyFields.size() && isLabeled(keyInfo, keyFields.get(i - 1))) {
+                final String name = keyFields.get(i - 1).getName();
+                indent(writer, ind + 2).append(name).append("Strings.releaseLabel(").append(name).append(");\n");
+            }
+        }
+
+        for (int i = 1; i <= last; i++) {
+            indent(writer, 2 + last - i + 1).append("}\n");
+        }
+
+        indent(writer, 2).append("}\n");
+    }
+
+    private static String mapName(int level) {
+        return level == 0 ? "entityIndexMap" : "map" + level;
+    }
+
+    /**
+     * Appends the update of the weights of the nested maps holding the innermost map of the key.
+     */
+    private void appendAddCounts(Appendable writer, int ind, List<String> keys, int delta) throws IOException {
+
+        for (int i = keys.size() - 2; i >= 0; i--) {
+            indent(writer, ind).append(mapName(i)).append(".addCount(").append(keys.get(i)).append(", ")
+                    .append(String.valueOf(delta)).append(");\n");
+        }
+    }
+
+    /**
+     * Appends the put of the entity into the innermost map of the key, counting it if new.
+     */
+    private void appendPutCounted(Appendable writer, int ind, String mapName, List<String> keys)
+            throws IOException {
 
-            @Override
-            public String visit(IntegerFieldInfo fieldInfo) {
-                return "Integer";
-            }
+        final String put = mapName + ".put(" + keys.get(keys.size() - 1) + ", entity)";
+        if (keys.size() == 1) {
+            indent(writer, ind).append(put).append(";\n");
+        } else {
+            indent(writer, ind).append("if (").append(put).append(" == null) {\n");
+            appendAddCounts(writer, ind + 1, keys, 1);
+            indent(writer, ind).append("}\n");
+        }
+    }
 
-            @Override
-            public String visit(LongFieldInfo fieldInfo) {
-                return "Long";
-            }
+    /**
+     * Appends the counts of the entities of a counted key, in whole and per each prefix of the key fields.
+     */
+    private void appendCounts(
+            SchemaInfo schemaInfo,
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> keyFields
+    ) throws IOException {
 
-            @Override
-            public String visit(BooleanFieldInfo fieldInfo) {
-                return "Boolean";
+        writer.append("\n");
+        indent(writer, 1).append("@Override\n");
+        indent(writer, 1).append("public int count() {\n");
+        indent(writer, 2).append("return entityIndexMap.count();\n");
+        indent(writer, 1).append("}\n");
+
+        final int prefixes = keyInfo.isUnique() ? keyFields.size() - 1 : keyFields.size();
+
+        for (int length = 1; length <= prefixes; length++) {
+            final List<FieldInfo> prefix = keyFields.subList(0, length);
+            writer.append("\n");
+            indent(writer, 1).append("public int count(");
+            appendParamDefs(schemaInfo, writer, entityTypeInfo, prefix);
+            writer.append(") {\n");
+            for (int i = 0; i < length; i++) {
+                indent(writer, 2).append("final var ").append(mapName(i + 1)).append(" = ").append(mapName(i))
+                        .append(".get(").append(mapKey(keyInfo, prefix.get(i), prefix.get(i).getName()))
+                        .append(");\n");
+                indent(writer, 2).append("if (").append(mapName(i + 1)).append(" == null) {\n");
+                indent(writer, 3).append("return 0;\n");
+                indent(writer, 2).append("}\n");
             }
+            indent(writer, 2).append("return ").append(mapName(length)).append(".count();\n");
+            indent(writer, 1).append("}\n");
+        }
+    }
 
-            @Override
-            public String visit(InstantFieldInfo fieldInfo) {
-                return "Instant";
+    /**
+     * Appends the count of the entities matching the filter of a counted key. It is told by the weights of the maps
+     * as long as no more than one key level past the exact key values is filtered.
+     */
+    private void appendFilterCount(Appendable writer, KeyInfo keyInfo, List<FieldInfo> keyFields) throws IOException {
+
+        writer.append("\n");
+        indent(writer, 2).append("@Override\n");
+        indent(writer, 2).append("protected int count() {\n");
+
+        for (int i = 0; i < keyFields.size(); i++) {
+            final FieldInfo field = keyFields.get(i);
+            final String name = field.getName();
+            final String map = mapName(i);
+
+            if (i != 0) {
+                writer.append("\n");
             }
+            indent(writer, 3).append("if (").append(name).append("Mode != 1) {\n");
+            if (i != keyFields.size() - 1) {
+                indent(writer, 4).append("if (");
+                for (int j = i + 1; j < keyFields.size(); j++) {
+                    if (j != i + 1) {
+                        writer.append(" || ");
+                    }
+                    writer.append(keyFields.get(j).getName()).append("Mode != 0");
+                }
+                writer.append(") {\n");
+                indent(writer, 5).append("return -1;\n");
+                indent(writer, 4).append("}\n");
+            }
+            indent(writer, 4).append("switch (").append(name).append("Mode) {\n");
+            indent(writer, 5).append("case 0:\n");
+            indent(writer, 6).append("return ").append(map).append(".count();\n");
+            indent(writer, 5).append("case 2:\n");
+            indent(writer, 6).append("return ").append(map).append(".countByKeys(").append(mapKeys(keyInfo, field))
+                    .append(");\n");
+            if (isOrdered(keyInfo, field)) {
+                indent(writer, 5).append("case 3:\n");
+                indent(writer, 6).append("return ").append(map).append(".countRange(")
+                        .append(mapRange(keyInfo, field)).append(");\n");
+            }
+            indent(writer, 5).append("default:\n");
+            indent(writer, 6).append("throw new IllegalArgumentException();\n");
+            indent(writer, 4).append("}\n");
+            indent(writer, 3).append("}\n");
 
-            @Override
-            public String visit(IdFieldInfo fieldInfo) {
-                return "Id";
+            if (keyInfo.isUnique() && i == keyFields.size() - 1) {
+                indent(writer, 3).append("return ").append(map).append(".get(").append(name)
+                        .append(") == null ? 0 : 1;\n");
+            } else {
+                indent(writer, 3).append("final var ").append(mapName(i + 1)).append(" = ").append(map)
+                        .append(".get(").append(mapKey(keyInfo, keyFields.get(i), name)).append(");\n");
+                if (i == keyFields.size() - 1) {
+                    indent(writer, 3).append("return ").append(mapName(i + 1)).append(" == null ? 0 : ")
+                            .append(mapName(i + 1)).append(".count();\n");
+                } else {
+                    indent(writer, 3).append("if (").append(mapName(i + 1)).append(" == null) {\n");
+                    indent(writer, 4).append("return 0;\n");
+                    indent(writer, 3).append("}\n");
+                }
             }
+        }
 
-            @Override
-            public String visit(EnumFieldInfo fieldInfo) {
-                return "Enum";
+        indent(writer, 2).append("}\n");
+    }
+
+    /**
+     * @return {@code true} if all the maps of the key are tree maps, see {@link #appendFilterSpliterator}
+     */
+    private boolean isTree(KeyInfo keyInfo, List<FieldInfo> keyFields, List<FieldInfo> uniqKeyFields) {
+
+        final List<FieldInfo> levels = new ArrayList<>(keyFields);
+        if (!keyInfo.isUnique()) {
+            levels.addAll(uniqKeyFields);
+        }
+        return levels.stream().allMatch(field -> isTreeMap(keyInfo, field));
+    }
+
+    /**
+     * Splits the maps of the key structurally where the filter gives exact values to a prefix of the key fields, then
+     * scans the next level in the key order over all or a range of its keys and the following levels over all of
+     * theirs.
+     */
+    private void appendFilterSpliterator(
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            KeyInfo keyInfo,
+            List<FieldInfo> keyFields,
+            List<FieldInfo> uniqKeyFields
+    ) throws IOException {
+
+        final int levels = keyInfo.isUnique() ? keyFields.size() : keyFields.size() + uniqKeyFields.size();
+
+        writer.append("\n");
+        indent(writer, 2).append("@Override\n");
+        appendTypeName(indent(writer, 2).append("protected Spliterator<"), entityTypeInfo)
+                .append("> spliterator() {\n");
+
+        if (!keyInfo.isUnique()) {
+            indent(writer, 3).append("if (reversed) {\n");
+            indent(writer, 4).append("return null;\n");
+            indent(writer, 3).append("}\n");
+            writer.append("\n");
+        }
+
+        for (int i = 0; i < keyFields.size(); i++) {
+            final String name = keyFields.get(i).getName();
+            final String map = mapName(i);
+
+            if (i != 0) {
+                writer.append("\n");
+            }
+            indent(writer, 3).append("if (").append(name).append("Mode != 1) {\n");
+            indent(writer, 4).append("if (").append(name).append("Reversed");
+            for (int j = i + 1; j < keyFields.size(); j++) {
+                final String next = keyFields.get(j).getName();
+                writer.append(" || ").append(next).append("Mode != 0 || ").append(next).append("Reversed");
+            }
+            writer.append(") {\n");
+            indent(writer, 5).append("return null;\n");
+            indent(writer, 4).append("}\n");
+            indent(writer, 4).append("switch (").append(name).append("Mode) {\n");
+            indent(writer, 5).append("case 0:\n");
+            indent(writer, 6).append("return ").append(map).append(".spliterator(");
+            appendNestedSpliterator(writer, i + 1, levels);
+            writer.append(");\n");
+            indent(writer, 5).append("case 3:\n");
+            indent(writer, 6).append("return ").append(map).append(".spliteratorByRange(");
+            if (appendNestedSpliterator(writer, i + 1, levels)) {
+                writer.append(", ");
             }
+            writer.append(mapRange(keyInfo, keyFields.get(i))).append(");\n");
+            indent(writer, 5).append("default:\n");
+            indent(writer, 6).append("return null;\n");
+            indent(writer, 4).append("}\n");
+            indent(writer, 3).append("}\n");
 
-            @Override
-            public String visit(BigDecimalFieldInfo fieldInfo) {
-                return "BigDecimal";
+            if (keyInfo.isUnique() && i == keyFields.size() - 1) {
+                indent(writer, 3).append("return null;\n");
+            } else {
+                indent(writer, 3).append("final var ").append(mapName(i + 1)).append(" = ").append(map)
+                        .append(".get(").append(mapKey(keyInfo, keyFields.get(i), name)).append(");\n");
+                if (i == keyFields.size() - 1) {
+                    indent(writer, 3).append("return ").append(mapName(i + 1))
+                            .append(" == null ? Spliterators.emptySpliterator() : ").append(mapName(i + 1))
+                            .append(".spliterator(");
+                    appendNestedSpliterator(writer, i + 2, levels);
+                    writer.append(");\n");
+                } else {
+                    indent(writer, 3).append("if (").append(mapName(i + 1)).append(" == null) {\n");
+                    indent(writer, 4).append("return Spliterators.emptySpliterator();\n");
+                    indent(writer, 3).append("}\n");
+                }
             }
-        });
+        }
+
+        indent(writer, 2).append("}\n");
+    }
+
+    /**
+     * Appends the function expanding the values of a map into the spliterators of the maps of the next level, if any.
+     *
+     * @param level level of the maps the values are
+     * @return {@code true} if the values are maps
+     */
+    private static boolean appendNestedSpliterator(Appendable writer, int level, int levels) throws IOException {
+
+        if (level >= levels) {
+            return false;
+        }
+
+        writer.append("s").append(String.valueOf(level)).append(" -> s").append(String.valueOf(level))
+                .append(".spliterator(");
+        appendNestedSpliterator(writer, level + 1, levels);
+        writer.append(")");
+        return true;
+    }
+
+    private static List<String> subMapKeys(KeyInfo keyInfo, List<FieldInfo> keyFields,
+            List<FieldInfo> uniqKeyFields) {
+
+        final List<String> keys = new ArrayList<>();
+        for (final FieldInfo field : keyFields) {
+            keys.add(isLabeled(keyInfo, field) ? field.getName() + "Label" : field.getName());
+        }
+        for (final FieldInfo field : uniqKeyFields) {
+            keys.add("entity." + getterName(field) + "()");
+        }
+        return keys;
     }
 
     private void appendAddUnique(
@@ -3145,49 +5318,40 @@ public class SchemaGenerator {
         appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
         appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
         writer.append(") {\n");
-        indent(writer, 2).append("with(\n");
-        indent(writer, 4).append("entityIndexMap");
 
-        final Iterator<FieldInfo> iterator = keyFields.iterator();
-        FieldInfo fieldInfo = iterator.next();
-        while (true) {
-            if (iterator.hasNext()) {
-                final FieldInfo fieldInfo2 = iterator.next();
-                indent(writer.append("\n"), 6).append(".computeIfAbsent(").append(fieldInfo.getName())
-                        .append(", k -> new ").append(treeMapPrefix(fieldInfo2)).append("TreeMap<>())");
-                fieldInfo = fieldInfo2;
-            } else {
-                indent(writer.append(",\n"), 4).append("map -> {\n");
-                appendTypeName(indent(writer, 5).append("final "), entityTypeInfo).append(" prev = map.get(")
-                        .append(fieldInfo.getName()).append(");\n");
-                writer.append("\n");
-                indent(writer, 5).append("if (prev != entity) {\n");
+        appendLabels(writer, keyInfo, keyFields, true);
+        final List<String> keys = subMapKeys(keyInfo, keyFields, List.of());
+        final String mapName = appendGetSubMaps(writer, keyInfo, keyFields, keys);
+        final String key = keys.get(keys.size() - 1);
 
-                indent(writer, 6).append("if (prev != null");
+        appendTypeName(indent(writer, 2).append("final "), entityTypeInfo).append(" prev = ").append(mapName)
+                .append(".get(").append(key).append(");\n");
+        writer.append("\n");
+        indent(writer, 2).append("if (prev != entity) {\n");
 
-                for (final FieldInfo field : keyFields) {
-                    indent(writer.append(" &&\n"), 7).append("Objects.equals(prev.").append(getterName(field))
-                            .append("(), ").append(field.getName()).append(")");
-                }
+        indent(writer, 3).append("if (prev != null");
 
-                writer.append(") {\n");
-                writer.append("\n");
-                indent(writer, 7).append("throw new NotUniqueException(\"Duplicate key \\\"").append(keyInfo.getName())
-                        .append("\\\" [")
-                        .append(keyFields.stream().map(e -> e.getName() + "=\" + " + e.getName() + " + \"")
-                                .collect(Collectors.joining(", ")))
-                        .append("]\");\n");
+        for (final FieldInfo field : keyFields) {
+            indent(writer.append(" &&\n"), 4).append("Objects.equals(prev.").append(getterName(field))
+                    .append("(), ").append(field.getName()).append(")");
+        }
 
-                indent(writer, 6).append("}\n");
-                indent(writer, 6).append("map.put(").append(fieldInfo.getName()).append(", entity);\n");
+        writer.append(") {\n");
+        writer.append("\n");
+        indent(writer, 4).append("throw new NotUniqueException(\"Duplicate key \\\"").append(keyInfo.getName())
+                .append("\\\" [")
+                .append(keyFields.stream().map(e -> e.getName() + "=\" + " + e.getName() + " + \"")
+                        .collect(Collectors.joining(", ")))
+                .append("]\");\n");
 
-                indent(writer, 5).append("}\n");
-                indent(writer, 4).append("}\n");
-                break;
-            }
+        indent(writer, 3).append("}\n");
+        indent(writer, 3).append(mapName).append(".put(").append(key).append(", entity);\n");
+        if (keyInfo.isCounted() && keys.size() > 1) {
+            indent(writer, 3).append("if (prev == null) {\n");
+            appendAddCounts(writer, 4, keys, 1);
+            indent(writer, 3).append("}\n");
         }
-
-        indent(writer, 2).append(");\n");
+        indent(writer, 2).append("}\n");
         indent(writer, 1).append("}\n");
     }
 
@@ -3195,7 +5359,8 @@ public class SchemaGenerator {
             SchemaInfo schemaInfo,
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
-            List<FieldInfo> keyFields
+            List<FieldInfo> keyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3203,25 +5368,16 @@ public class SchemaGenerator {
         appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
         appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
         writer.append(") {\n");
-        indent(writer, 2).append("with(\n");
-        indent(writer, 4).append("entityIndexMap");
 
-        final Iterator<FieldInfo> iterator = keyFields.iterator();
-        FieldInfo fieldInfo = iterator.next();
-        while (true) {
-            if (iterator.hasNext()) {
-                final FieldInfo fieldInfo2 = iterator.next();
-                indent(writer.append("\n"), 6).append(".computeIfAbsent(").append(fieldInfo.getName())
-                        .append(", k -> new ").append(treeMapPrefix(fieldInfo2)).append("TreeMap<>())");
-                fieldInfo = fieldInfo2;
-            } else {
-                indent(writer.append(",\n"), 4).append("map -> map.put(").append(fieldInfo.getName())
-                        .append(", entity)\n");
-                break;
-            }
+        appendLabels(writer, keyInfo, keyFields, true);
+        final List<String> keys = subMapKeys(keyInfo, keyFields, List.of());
+        final String mapName = appendGetSubMaps(writer, keyInfo, keyFields, keys);
+        if (keyInfo.isCounted()) {
+            appendPutCounted(writer, 2, mapName, keys);
+        } else {
+            indent(writer, 2).append(mapName).append(".put(").append(keys.get(keys.size() - 1))
+                    .append(", entity);\n");
         }
-
-        indent(writer, 2).append(");\n");
         indent(writer, 1).append("}\n");
     }
 
@@ -3230,7 +5386,8 @@ public class SchemaGenerator {
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
             List<FieldInfo> keyFields,
-            List<FieldInfo> uniqKeyFields
+            List<FieldInfo> uniqKeyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3238,40 +5395,16 @@ public class SchemaGenerator {
         appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
         appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
         writer.append(") {\n");
-        indent(writer, 2).append("entityIndexMap");
-
-        final Iterator<FieldInfo> keyIterator = keyFields.iterator();
-        final Iterator<FieldInfo> iterator = uniqKeyFields.iterator();
-
-        FieldInfo fieldInfo = keyIterator.next();
-        while (true) {
-            if (keyIterator.hasNext()) {
-                final FieldInfo fieldInfo2 = keyIterator.next();
-                indent(writer.append("\n"), 4).append(".computeIfAbsent(").append(fieldInfo.getName())
-                        .append(", k -> new ").append(treeMapPrefix(fieldInfo2)).append("TreeMap<>())");
-                fieldInfo = fieldInfo2;
-            } else {
-                final FieldInfo fieldInfo2 = iterator.next();
-                indent(writer.append("\n"), 4).append(".computeIfAbsent(").append(fieldInfo.getName())
-                        .append(", k -> new ").append(treeMapPrefix(fieldInfo2)).append("TreeMap<>())");
-                fieldInfo = fieldInfo2;
-                break;
-            }
-        }
 
-        while (true) {
-            if (iterator.hasNext()) {
-                final FieldInfo fieldInfo2 = iterator.next();
-                indent(writer.append("\n"), 4).append(".computeIfAbsent(entity.").append(getterName(fieldInfo))
-                        .append("(), k -> new ").append(treeMapPrefix(fieldInfo2)).append("TreeMap<>())");
-                fieldInfo = fieldInfo2;
-            } else {
-                indent(writer.append("\n"), 4).append(".put(entity.").append(getterName(fieldInfo))
-                        .append("(), entity);\n");
-                break;
-            }
+        appendLabels(writer, keyInfo, keyFields, true);
+        final List<String> keys = subMapKeys(keyInfo, keyFields, uniqKeyFields);
+        final String mapName = appendGetSubMaps(writer, keyInfo, keyFields, keys);
+        if (keyInfo.isCounted()) {
+            appendPutCounted(writer, 2, mapName, keys);
+        } else {
+            indent(writer, 2).append(mapName).append(".put(").append(keys.get(keys.size() - 1))
+                    .append(", entity);\n");
         }
-
         indent(writer, 1).append("}\n");
     }
 
@@ -3279,7 +5412,8 @@ public class SchemaGenerator {
             SchemaInfo schemaInfo,
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
-            List<FieldInfo> keyFields
+            List<FieldInfo> keyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3287,34 +5421,9 @@ public class SchemaGenerator {
         appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
         appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
         writer.append(") {\n");
-
-        String mapName = "entityIndexMap";
-        int ind = 0;
-
-        final Iterator<FieldInfo> iterator = keyFields.iterator();
-        while (iterator.hasNext()) {
-            final FieldInfo fieldInfo = iterator.next();
-            if (iterator.hasNext()) {
-                ind++;
-                final String nextMapName = "map" + ind;
-                indent(writer, 1 + ind).append("remove(").append(mapName).append(", ")
-                        .append(fieldInfo.getName()).append(", ").append(nextMapName).append(" -> {\n");
-                mapName = nextMapName;
-            } else {
-                appendTypeName(indent(writer, 2 + ind).append("final "), entityTypeInfo).append(" prev = ")
-                        .append(mapName).append(".get(").append(fieldInfo.getName()).append(");\n");
-                indent(writer, 2 + ind).append("if (prev == entity) {\n");
-                indent(writer, 3 + ind).append(mapName).append(".remove(").append(fieldInfo.getName())
-                        .append(");\n");
-                indent(writer, 2 + ind).append("}\n");
-            }
-        }
-
-        while (ind > 0) {
-            indent(writer, 1 + ind).append("});\n");
-            ind--;
-        }
-
+        appendLabels(writer, keyInfo, keyFields, false);
+        appendRemoveSubMaps(writer, keyInfo, keyFields, subMapKeys(keyInfo, keyFields, List.of()),
+                keyInfo.isCounted());
         indent(writer, 1).append("}\n");
     }
 
@@ -3323,7 +5432,8 @@ public class SchemaGenerator {
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
             List<FieldInfo> keyFields,
-            List<FieldInfo> uniqKeyFields
+            List<FieldInfo> uniqKeyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3331,42 +5441,9 @@ public class SchemaGenerator {
         appendTypeName(indent(writer, 3), entityTypeInfo).append(" entity,");
         appendParamDefs(schemaInfo, writer, entityTypeInfo, keyFields);
         writer.append(") {\n");
-
-        String mapName = "entityIndexMap";
-        int ind = 0;
-
-        for (FieldInfo fieldInfo : keyFields) {
-            ind++;
-            final String nextMapName = "map" + ind;
-            indent(writer, 1 + ind).append("remove(").append(mapName).append(", ").append(fieldInfo.getName())
-                    .append(", ").append(nextMapName).append(" -> {\n");
-            mapName = nextMapName;
-        }
-
-        final Iterator<FieldInfo> iterator = uniqKeyFields.iterator();
-        while (iterator.hasNext()) {
-            final FieldInfo fieldInfo = iterator.next();
-            if (iterator.hasNext()) {
-                ind++;
-                final String nextMapName = "map" + ind;
-                indent(writer, 1 + ind).append("remove(").append(mapName).append(", entity.")
-                        .append(getterName(fieldInfo)).append("(), ").append(nextMapName).append(" -> {\n");
-                mapName = nextMapName;
-            } else {
-                appendTypeName(indent(writer, 2 + ind).append("final "), entityTypeInfo).append(" prev = ")
-                        .append(mapName).append(".get(entity.").append(getterName(fieldInfo)).append("());\n");
-                indent(writer, 2 + ind).append("if (prev == entity) {\n");
-                indent(writer, 3 + ind).append(mapName).append(".remove(entity.").append(getterName(fieldInfo))
-                        .append("());\n");
-                indent(writer, 2 + ind).append("}\n");
-            }
-        }
-
-        while (ind > 0) {
-            indent(writer, 1 + ind).append("});\n");
-            ind--;
-        }
-
+        appendLabels(writer, keyInfo, keyFields, false);
+        appendRemoveSubMaps(writer, keyInfo, keyFields, subMapKeys(keyInfo, keyFields, uniqKeyFields),
+                keyInfo.isCounted());
         indent(writer, 1).append("}\n");
     }
 
@@ -3374,7 +5451,8 @@ public class SchemaGenerator {
             SchemaInfo schemaInfo,
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
-            List<FieldInfo> keyFields
+            List<FieldInfo> keyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3389,8 +5467,9 @@ public class SchemaGenerator {
         while (true) {
             if (iterator.hasNext()) {
                 final FieldInfo field2 = iterator.next();
-                indent(writer.append("\n"), 4).append(".getOrDefault(").append(field.getName())
-                        .append(", ").append(treeMapPrefix(field2)).append("TreeMap.empty())");
+                indent(writer.append("\n"), 4).append(".getOrDefault(")
+                        .append(mapKey(keyInfo, field, field.getName())).append(", ")
+                        .append(mapClassName(keyInfo, field2)).append(".empty())");
                 field = field2;
             } else {
                 indent(writer.append("\n"), 4).append(".get(").append(field.getName()).append(")");
@@ -3401,6 +5480,76 @@ public class SchemaGenerator {
         writer.append(";\n");
 
         indent(writer, 1).append("}\n");
+
+        if (keyFields.size() == 1 && keyFields.get(0) instanceof IdFieldInfo) {
+            writer.append("\n");
+            appendTypeName(indent(writer, 1).append("public "), entityTypeInfo).append(" get(long ")
+                    .append(field.getName()).append(") {\n");
+            indent(writer, 2).append("return entityIndexMap.get(").append(field.getName()).append(");\n");
+            indent(writer, 1).append("}\n");
+        }
+    }
+
+    private void appendGetAll(
+            SchemaInfo schemaInfo,
+            Appendable writer,
+            EntityTypeInfo entityTypeInfo,
+            FieldInfo field,
+            KeyInfo keyInfo
+    ) throws IOException {
+
+        final boolean tree = isTreeMap(keyInfo, field);
+        final String keyType = typeName(schemaInfo, field, selfIdType(entityTypeInfo), true);
+
+        writer.append("\n");
+        indent(writer, 1).append("/**\n");
+        indent(writer, 1).append(" * Looks the entities up by the keys at once, putting them at the same positions of the ")
+                .append("array,\n");
+        indent(writer, 1).append(" * {@code null} for the keys not found.");
+        if (tree) {
+            writer.append(" Ascending runs of the keys are probed in a single walk over the\n");
+            indent(writer, 1).append(" * tree each.");
+        }
+        writer.append("\n");
+        indent(writer, 1).append(" *\n");
+        indent(writer, 1).append(" * @return number of the entities found\n");
+        indent(writer, 1).append(" */\n");
+        indent(writer, 1).append("public int getAll(").append(keyType).append("[] keys, ");
+        appendTypeName(writer, entityTypeInfo).append("[] entities, int count) {\n");
+
+        if (tree) {
+            indent(writer, 2).append("return entityIndexMap.getBatch(keys, entities, count);\n");
+        } else {
+            indent(writer, 2).append("int found = 0;\n");
+            indent(writer, 2).append("for (int i = 0; i < count; i++) {\n");
+            indent(writer, 3).append("final var entity = entityIndexMap.get(keys[i]);\n");
+            indent(writer, 3).append("entities[i] = entity;\n");
+            indent(writer, 3).append("if (entity != null) {\n");
+            indent(writer, 4).append("found++;\n");
+            indent(writer, 3).append("}\n");
+            indent(writer, 2).append("}\n");
+            indent(writer, 2).append("return found;\n");
+        }
+
+        indent(writer, 1).append("}\n");
+
+        if (tree) {
+            writer.append("\n");
+            indent(writer, 1).append("/**\n");
+            indent(writer, 1).append(" * Looks the entities up by the keys at once, probing them in the ascending order in a ")
+                    .append("single walk\n");
+            indent(writer, 1).append(" * over the tree, see {@code getAll(keys, entities, count)}.\n");
+            indent(writer, 1).append(" *\n");
+            indent(writer, 1).append(" * @param order scratch of at least {@code count} elements for the order of the keys, ")
+                    .append("owned by the\n");
+            indent(writer, 1).append(" *              caller\n");
+            indent(writer, 1).append(" * @return number of the entities found\n");
+            indent(writer, 1).append(" */\n");
+            indent(writer, 1).append("public int getAll(").append(keyType).append("[] keys, ");
+            appendTypeName(writer, entityTypeInfo).append("[] entities, int count, int[] order) {\n");
+            indent(writer, 2).append("return entityIndexMap.getBatch(keys, entities, count, order);\n");
+            indent(writer, 1).append("}\n");
+        }
     }
 
     private void appendList(
@@ -3500,7 +5649,8 @@ public class SchemaGenerator {
     private void appendIteratorAllUnique(
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
-            List<FieldInfo> keyFields
+            List<FieldInfo> keyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3514,7 +5664,7 @@ public class SchemaGenerator {
         iterator.next();
 
         if (iterator.hasNext()) {
-            appendIteratorAll(writer, iterator, "false");
+            appendIteratorAll(writer, keyInfo, iterator, "false");
             writer.append(", false);\n");
         } else {
             writer.append("false);\n");
@@ -3527,7 +5677,8 @@ public class SchemaGenerator {
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
             List<FieldInfo> keyFields,
-            List<FieldInfo> uniqKeyFields
+            List<FieldInfo> uniqKeyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3543,7 +5694,7 @@ public class SchemaGenerator {
         final Iterator<FieldInfo> iterator = fields.iterator();
         iterator.next();
 
-        appendIteratorAll(writer, iterator, "false");
+        appendIteratorAll(writer, keyInfo, iterator, "false");
         writer.append(", false);\n");
 
         indent(writer, 1).append("}\n");
@@ -3554,7 +5705,8 @@ public class SchemaGenerator {
             Appendable writer,
             EntityTypeInfo entityTypeInfo,
             List<FieldInfo> keyFields,
-            List<FieldInfo> uniqKeyFields
+            List<FieldInfo> uniqKeyFields,
+            KeyInfo keyInfo
     ) throws IOException {
 
         writer.append("\n");
@@ -3571,13 +5723,15 @@ public class SchemaGenerator {
         while (true) {
             if (keyIterator.hasNext()) {
                 final FieldInfo field2 = keyIterator.next();
-                indent(writer.append("\n"), 4).append(".getOrDefault(").append(field.getName()).append(", ")
-                        .append(treeMapPrefix(field2)).append("TreeMap.empty())");
+                indent(writer.append("\n"), 4).append(".getOrDefault(")
+                        .append(mapKey(keyInfo, field, field.getName())).append(", ")
+                        .append(mapClassName(keyInfo, field2)).append(".empty())");
                 field = field2;
             } else {
                 final FieldInfo field2 = iterator.next();
-                indent(writer.append("\n"), 4).append(".getOrDefault(").append(field.getName()).append(", ")
-                        .append(treeMapPrefix(field2)).append("TreeMap.empty())");
+                indent(writer.append("\n"), 4).append(".getOrDefault(")
+                        .append(mapKey(keyInfo, field, field.getName())).append(", ")
+                        .append(mapClassName(keyInfo, field2)).append(".empty())");
                 // field = field2;
                 break;
             }
@@ -3586,7 +5740,7 @@ public class SchemaGenerator {
         indent(writer.append("\n"), 4).append(".iterator(");
 
         if (iterator.hasNext()) {
-            appendIteratorAll(writer, iterator, "false");
+            appendIteratorAll(writer, keyInfo, iterator, "false");
             writer.append(", false);\n");
         } else {
             writer.append("false);\n");
@@ -3611,7 +5765,7 @@ public class SchemaGenerator {
 
         appendIteratorQuery(writer, keyFields.size(), keyFields.iterator(), () -> {
             if (!keyInfo.isUnique()) {
-                appendIteratorAll(writer, uniqKeyFields.iterator(), "reversed");
+                appendIteratorAll(writer, keyInfo, uniqKeyFields.iterator(), "reversed");
             }
         });
 
@@ -3636,13 +5790,13 @@ public class SchemaGenerator {
         writer.append(")");
     }
 
-    private void appendIteratorAll(Appendable writer, Iterator<FieldInfo> iterator, String reversed)
-            throws IOException {
+    private void appendIteratorAll(Appendable writer, KeyInfo keyInfo, Iterator<FieldInfo> iterator,
+            String reversed) throws IOException {
 
         if (iterator.hasNext()) {
-            writer.append(treeMapPrefix(iterator.next())).append("TreeMap.newIterator(");
+            writer.append(mapClassName(keyInfo, iterator.next())).append(".newIterator(");
             if (iterator.hasNext()) {
-                appendIteratorAll(writer, iterator, reversed);
+                appendIteratorAll(writer, keyInfo, iterator, reversed);
                 writer.append(", ");
             }
             writer.append(reversed).append(")");
@@ -3690,6 +5844,21 @@ public class SchemaGenerator {
         return types;
     }
 
+    /**
+     * @return {@code true} if the field has primitive accessors of the values of its identifiers
+     */
+    private static boolean hasValueAccessors(FieldInfo fieldInfo) {
+        return fieldInfo instanceof IdFieldInfo && !fieldInfo.isNullable();
+    }
+
+    private static String valueGetterName(FieldInfo fieldInfo) {
+        return "get" + withCapitalLetter(fieldInfo.getName()) + "Value";
+    }
+
+    private static String valueSetterName(FieldInfo fieldInfo) {
+        return "set" + withCapitalLetter(fieldInfo.getName()) + "Value";
+    }
+
     private static String setterName(FieldInfo fieldInfo) {
         return "set" + withCapitalLetter(fieldInfo.getName());
     }
@@ -12,9 +12,13 @@ public class EntityTypeInfo {
     private final String key;
     private final LinkedHashMap<String, FieldInfo> fieldMap;
     private final LinkedHashMap<String, KeyInfo> keyMap;
+    private final int recordPoolSize;
+    private final int deltaRecordPoolSize;
+    private final Storage storage;
 
     public EntityTypeInfo(String schemaName, LinkedHashSet<String> parents, String name, boolean instantiable,
-            String key, LinkedHashMap<String, FieldInfo> fieldMap, LinkedHashMap<String, KeyInfo> keyMap) {
+            String key, LinkedHashMap<String, FieldInfo> fieldMap, LinkedHashMap<String, KeyInfo> keyMap,
+            int recordPoolSize, int deltaRecordPoolSize, Storage storage) {
         this.schemaName = schemaName;
         this.parents = parents;
         this.name = name;
@@ -22,6 +26,9 @@ public class EntityTypeInfo {
         this.key = key;
         this.fieldMap = fieldMap;
         this.keyMap = keyMap;
+        this.recordPoolSize = recordPoolSize;
+        this.deltaRecordPoolSize = deltaRecordPoolSize;
+        this.storage = storage;
     }
 
     public String getSchemaName() {
@@ -51,4 +58,16 @@ public class EntityTypeInfo {
     public LinkedHashMap<String, KeyInfo> getKeyMap() {
         return keyMap;
     }
+
+    public int getRecordPoolSize() {
+        return recordPoolSize;
+    }
+
+    public int getDeltaRecordPoolSize() {
+        return deltaRecordPoolSize;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
 }
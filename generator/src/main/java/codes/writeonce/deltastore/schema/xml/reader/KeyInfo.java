@@ -7,14 +7,18 @@ public class KeyInfo {
     private final String schemaName;
     private final String name;
     private final boolean unique;
+    private final KeyKind kind;
+    private final boolean counted;
     private final LinkedHashSet<String> fields;
     private final EntityTypeInfo entityType;
 
-    public KeyInfo(String schemaName, String name, boolean unique, LinkedHashSet<String> fields,
-            EntityTypeInfo entityTypeInfo) {
+    public KeyInfo(String schemaName, String name, boolean unique, KeyKind kind, boolean counted,
+            LinkedHashSet<String> fields, EntityTypeInfo entityTypeInfo) {
         this.schemaName = schemaName;
         this.name = name;
         this.unique = unique;
+        this.kind = kind;
+        this.counted = counted;
         this.fields = fields;
         this.entityType = entityTypeInfo;
     }
@@ -31,6 +35,14 @@ public class KeyInfo {
         return unique;
     }
 
+    public KeyKind getKind() {
+        return kind;
+    }
+
+    public boolean isCounted() {
+        return counted;
+    }
+
     public LinkedHashSet<String> getFields() {
         return fields;
     }
@@ -0,0 +1,24 @@
+package codes.writeonce.deltastore.schema.xml.reader;
+
+public enum KeyKind {
+
+    /**
+     * red-black tree maps
+     */
+    TREE,
+
+    /**
+     * B+tree maps for long, integer and id fields, red-black tree maps for the others
+     */
+    BTREE,
+
+    /**
+     * unordered hash maps for long, integer and id fields, red-black tree maps for the others
+     */
+    HASH,
+
+    /**
+     * single red-black tree map keyed by all the fields of the key encoded in one string
+     */
+    FLAT
+}
@@ -0,0 +1,19 @@
+package codes.writeonce.deltastore.schema.xml.reader;
+
+public enum Storage {
+
+    /**
+     * field values kept in the members of each record
+     */
+    ROW,
+
+    /**
+     * field values kept in per-table column arrays indexed by the row of the record, strings dictionary-encoded
+     */
+    COLUMNAR,
+
+    /**
+     * field values kept outside the heap in fixed-width rows of direct buffers, strings dictionary-encoded
+     */
+    OFFHEAP
+}
@@ -2,8 +2,16 @@ package codes.writeonce.deltastore.schema.xml.reader;
 
 public class StringFieldInfo extends FieldInfo {
 
-    public StringFieldInfo(String name, boolean mutable, boolean nullable, EntityTypeInfo entityType) {
+    private final boolean dictionary;
+
+    public StringFieldInfo(String name, boolean mutable, boolean nullable, EntityTypeInfo entityType,
+            boolean dictionary) {
         super(name, mutable, nullable, entityType);
+        this.dictionary = dictionary;
+    }
+
+    public boolean isDictionary() {
+        return dictionary;
     }
 
     @Override
@@ -54,6 +54,10 @@ public class XmlSchemaReader {
 
     private static final String NAMESPACE = "http://writeonce.codes/xsd/deltastore";
 
+    private static final int DEFAULT_RECORD_POOL_SIZE = 0;
+
+    private static final int DEFAULT_DELTA_RECORD_POOL_SIZE = 1024;
+
     private static final NamespaceContextImpl NAMESPACE_CONTEXT = new NamespaceContextImpl();
 
     private static final ErrorHandlerImpl ERROR_HANDLER = new ErrorHandlerImpl();
@@ -113,6 +117,11 @@ public class XmlSchemaReader {
                 final String name = getRequiredAttribute(typeElement, "name");
                 final boolean instantiable = !getOptionalBoolean(typeElement, "abstract", false);
                 final String key = getOptionalAttribute(typeElement, "key");
+                final int recordPoolSize =
+                        getOptionalInt(typeElement, "recordPoolSize", DEFAULT_RECORD_POOL_SIZE);
+                final int deltaRecordPoolSize =
+                        getOptionalInt(typeElement, "deltaRecordPoolSize", DEFAULT_DELTA_RECORD_POOL_SIZE);
+                final Storage storage = getStorage(typeElement);
                 ofNullable(getOptionalAttribute(typeElement, "extends")).ifPresent(parents::add);
 
                 for (final Element extendsElement : getElements(typeElement, extendsExpression)) {
@@ -120,7 +129,8 @@ public class XmlSchemaReader {
                 }
 
                 final EntityTypeInfo entityTypeInfo =
-                        new EntityTypeInfo(schemaName, parents, name, instantiable, key, fieldMap, entityKeyMap);
+                        new EntityTypeInfo(schemaName, parents, name, instantiable, key, fieldMap, entityKeyMap,
+                                recordPoolSize, deltaRecordPoolSize, storage);
                 typeMap.put(name, entityTypeInfo);
 
                 for (final Element fieldElement : getElements(typeElement, fieldExpression)) {
@@ -128,6 +138,10 @@ public class XmlSchemaReader {
                     final boolean mutable = getOptionalBoolean(fieldElement, "mutable", true);
                     final boolean nullable = getOptionalBoolean(fieldElement, "nullable", true);
                     final String type = getRequiredAttribute(fieldElement, "type");
+                    final boolean dictionary = getOptionalBoolean(fieldElement, "dictionary", false);
+                    if (dictionary && !type.equals("string")) {
+                        throw new ParsingException("Dictionary field must be of type string: " + fieldName);
+                    }
                     final FieldInfo fieldInfo;
                     switch (type) {
                         case "integer":
@@ -146,7 +160,7 @@ public class XmlSchemaReader {
                             fieldInfo = new BigDecimalFieldInfo(fieldName, mutable, nullable, entityTypeInfo);
                             break;
                         case "string":
-                            fieldInfo = new StringFieldInfo(fieldName, mutable, nullable, entityTypeInfo);
+                            fieldInfo = new StringFieldInfo(fieldName, mutable, nullable, entityTypeInfo, dictionary);
                             break;
                         case "enum":
                             final String enumType = getRequiredAttribute(fieldElement, "enumType");
@@ -166,13 +180,19 @@ public class XmlSchemaReader {
 
                     final String keyName = getRequiredAttribute(keyElement, "name");
                     final boolean unique = getOptionalBoolean(keyElement, "unique", false);
+                    final KeyKind kind = getKeyKind(keyElement);
+                    final boolean counted = getOptionalBoolean(keyElement, "counted", false);
+                    if (counted && kind != KeyKind.TREE) {
+                        throw new ParsingException("Counted key must be of kind tree: " + keyName);
+                    }
                     final LinkedHashSet<String> keyFields = new LinkedHashSet<>();
 
                     for (final Element fieldElement : getElements(keyElement, fieldExpression)) {
                         keyFields.add(getRequiredAttribute(fieldElement, "ref"));
                     }
 
-                    final KeyInfo keyInfo = new KeyInfo(schemaName, keyName, unique, keyFields, entityTypeInfo);
+                    final KeyInfo keyInfo = new KeyInfo(schemaName, keyName, unique, kind, counted, keyFields,
+                            entityTypeInfo);
                     keyMap.put(keyName, keyInfo);
                     entityKeyMap.put(keyName, keyInfo);
                 }
@@ -216,6 +236,48 @@ public class XmlSchemaReader {
                 .orElse(defaultValue);
     }
 
+    private KeyKind getKeyKind(Element element) throws ParsingException {
+
+        final String kind = getOptionalAttribute(element, "kind");
+        if (kind == null) {
+            return KeyKind.TREE;
+        }
+        switch (kind) {
+            case "tree":
+                return KeyKind.TREE;
+            case "btree":
+                return KeyKind.BTREE;
+            case "hash":
+                return KeyKind.HASH;
+            case "flat":
+                return KeyKind.FLAT;
+            default:
+                throw new ParsingException("Unsupported key kind: " + kind);
+        }
+    }
+
+    private Storage getStorage(Element element) throws ParsingException {
+
+        final String storage = getOptionalAttribute(element, "storage");
+        if (storage == null) {
+            return Storage.ROW;
+        }
+        switch (storage) {
+            case "row":
+                return Storage.ROW;
+            case "columnar":
+                return Storage.COLUMNAR;
+            case "offheap":
+                return Storage.OFFHEAP;
+            default:
+                throw new ParsingException("Unsupported storage: " + storage);
+        }
+    }
+
+    private int getOptionalInt(Element element, String name, int defaultValue) {
+        return ofNullable(getOptionalAttribute(element, name)).map(DatatypeConverter::parseInt).orElse(defaultValue);
+    }
+
     private Document parseDocument(InputSource inputSource)
             throws ParserConfigurationException, SAXException, IOException {
 
@@ -0,0 +1,81 @@
+package codes.writeonce.deltastore.persistence;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Growable heap buffer the log entries are encoded into.
+ */
+final class FrameBuffer {
+
+    private ByteBuffer buffer;
+
+    FrameBuffer(int capacity) {
+        buffer = ByteBuffer.allocate(capacity);
+    }
+
+    void clear() {
+        buffer.clear();
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * @return the encoded bytes, valid until the next write to this buffer
+     */
+    @Nonnull
+    ByteBuffer flip() {
+        return buffer.flip();
+    }
+
+    @Nonnull
+    FrameBuffer putByte(int value) {
+        ensure(Byte.BYTES).put((byte) value);
+        return this;
+    }
+
+    @Nonnull
+    FrameBuffer putShort(int value) {
+        ensure(Short.BYTES).putShort((short) value);
+        return this;
+    }
+
+    @Nonnull
+    FrameBuffer putInt(int value) {
+        ensure(Integer.BYTES).putInt(value);
+        return this;
+    }
+
+    @Nonnull
+    FrameBuffer putLong(long value) {
+        ensure(Long.BYTES).putLong(value);
+        return this;
+    }
+
+    @Nonnull
+    FrameBuffer putBytes(@Nonnull byte[] value) {
+        ensure(Integer.BYTES + value.length).putInt(value.length).put(value);
+        return this;
+    }
+
+    @Nonnull
+    FrameBuffer putString(@Nonnull String value) {
+        return putBytes(value.getBytes(UTF_8));
+    }
+
+    @Nonnull
+    private ByteBuffer ensure(int length) {
+
+        if (buffer.remaining() < length) {
+            final ByteBuffer grown =
+                    ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+            buffer = grown.put(buffer.flip());
+        }
+
+        return buffer;
+    }
+}
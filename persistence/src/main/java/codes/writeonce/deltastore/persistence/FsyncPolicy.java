@@ -0,0 +1,19 @@
+package codes.writeonce.deltastore.persistence;
+
+public enum FsyncPolicy {
+
+    /**
+     * leave flushing to the OS, a crash of the host may lose written groups
+     */
+    NONE,
+
+    /**
+     * force the channel after each group of commits is written
+     */
+    GROUP,
+
+    /**
+     * write and force the channel on every commit, no grouping
+     */
+    COMMIT
+}
@@ -0,0 +1,70 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.EntityType;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.Schema;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entity type of a logged schema descriptor matched by name to the store schema.
+ */
+final class LoggedType {
+
+    final EntityType<?> entityType;
+
+    /**
+     * fields of the store schema by their positions in the descriptor
+     */
+    final Field<?, ?>[] fields;
+
+    /**
+     * positions of the fields of the entity type in the store schema
+     */
+    final Map<Field<?, ?>, Integer> indexes = new IdentityHashMap<>();
+
+    private LoggedType(@Nonnull EntityType<?> entityType, @Nonnull Field<?, ?>[] fields) {
+        this.entityType = entityType;
+        this.fields = fields;
+        final List<? extends Field<?, ?>> all = entityType.getFields();
+        for (int i = 0; i < all.size(); i++) {
+            indexes.put(all.get(i), i);
+        }
+    }
+
+    /**
+     * Reads the descriptor written by {@link WalFormat#describe}.
+     */
+    @Nonnull
+    static LoggedType[] read(@Nonnull ByteBuffer in, @Nonnull Schema schema) {
+
+        final LoggedType[] types = new LoggedType[in.getInt()];
+
+        for (int i = 0; i < types.length; i++) {
+
+            final String name = WalFormat.getString(in);
+            final EntityType<?> entityType = schema.getEntityType(name);
+            if (entityType == null) {
+                throw new IllegalStateException("Logged entity type " + name + " is missing in the store schema");
+            }
+
+            final Field<?, ?>[] fields = new Field<?, ?>[in.getInt()];
+            for (int j = 0; j < fields.length; j++) {
+                final String fieldName = WalFormat.getString(in);
+                fields[j] = entityType.getField(fieldName);
+                if (fields[j] == null) {
+                    throw new IllegalStateException(
+                            "Logged field " + name + "." + fieldName + " is missing in the store schema");
+                }
+            }
+
+            types[i] = new LoggedType(entityType, fields);
+        }
+
+        return types;
+    }
+}
@@ -0,0 +1,123 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.BigDecimalField;
+import codes.writeonce.deltastore.api.BooleanField;
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EnumField;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.FieldValueLoaderVisitor;
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.IdField;
+import codes.writeonce.deltastore.api.InstantField;
+import codes.writeonce.deltastore.api.IntegerField;
+import codes.writeonce.deltastore.api.LongField;
+import codes.writeonce.deltastore.api.StringField;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Values of a logged entry the table locates, creates or loads the entity by.
+ */
+class LoggedValues<E extends Entity<E>> implements FieldValueLoaderVisitor<RuntimeException, E> {
+
+    private final Map<Field<?, ?>, Integer> indexes;
+
+    private final Object[] values;
+
+    private final boolean[] present;
+
+    LoggedValues(@Nonnull Map<Field<?, ?>, Integer> indexes) {
+        this.indexes = indexes;
+        this.values = new Object[indexes.size()];
+        this.present = new boolean[indexes.size()];
+    }
+
+    void put(@Nonnull Field<E, ?> field, @Nullable Object value) {
+        final int index = indexes.get(field);
+        values[index] = value;
+        present[index] = true;
+    }
+
+    void clear() {
+        Arrays.fill(values, null);
+        Arrays.fill(present, false);
+    }
+
+    @Override
+    public boolean isSet(@Nonnull Field<E, ?> field) {
+        final Integer index = indexes.get(field);
+        return index != null && present[index];
+    }
+
+    @Override
+    public BigDecimal visit(BigDecimalField<E> field) {
+        return (BigDecimal) get(field);
+    }
+
+    @Override
+    public Long visit(LongField<E> field) {
+        return (Long) get(field);
+    }
+
+    @Override
+    public Instant visit(InstantField<E> field) {
+        return (Instant) get(field);
+    }
+
+    @Override
+    public Boolean visit(BooleanField<E> field) {
+        return (Boolean) get(field);
+    }
+
+    @Override
+    public <N extends Enum<N>> N visit(EnumField<E, N> field) {
+        return field.getEnumType().cast(get(field));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <I extends Id> I visit(IdField<E, I> field) {
+        return (I) get(field);
+    }
+
+    @Override
+    public String visit(StringField<E> field) {
+        return (String) get(field);
+    }
+
+    @Override
+    public Integer visit(IntegerField<E> field) {
+        return (Integer) get(field);
+    }
+
+    @Override
+    public boolean visitAsBoolean(@Nonnull BooleanField<E> field) {
+        return (Boolean) get(field);
+    }
+
+    @Override
+    public int visitAsInt(@Nonnull IntegerField<E> field) {
+        return (Integer) get(field);
+    }
+
+    @Override
+    public long visitAsLong(@Nonnull LongField<E> field) {
+        return (Long) get(field);
+    }
+
+    @Nullable
+    private Object get(@Nonnull Field<E, ?> field) {
+
+        final Integer index = indexes.get(field);
+        if (index == null || !present[index]) {
+            throw new IllegalStateException("Value of the field " + field.getName() + " is not logged");
+        }
+
+        return values[index];
+    }
+}
@@ -0,0 +1,28 @@
+package codes.writeonce.deltastore.persistence;
+
+/**
+ * Layout of the snapshot file.
+ * <p>
+ * The file starts with the magic, the version, the sequence number of the last write-ahead log commit the snapshot
+ * includes, the length-prefixed schema descriptor of {@link WalFormat#describe} and the table directory: the number
+ * of tables followed by the entity type, row count, offset and length of each table section. A table section is a
+ * list of row groups of up to {@link #ROW_GROUP_SIZE} rows, each one is the row count followed by a length-prefixed
+ * column per field of the descriptor. A column holds a value per row encoded as in the log, or
+ * {@link WalFormat#TAG_CLEAR} for the fields that are not set.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x4453534E;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+
+    static final int DIRECTORY_ENTRY_SIZE = Short.BYTES + Integer.BYTES + Long.BYTES * 2;
+
+    static final int ROW_GROUP_SIZE = 1 << 16;
+
+    private SnapshotFormat() {
+        // empty
+    }
+}
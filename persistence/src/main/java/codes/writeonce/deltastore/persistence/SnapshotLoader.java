@@ -0,0 +1,376 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EntityType;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.FieldValueLoaderCursor;
+import codes.writeonce.deltastore.api.Key;
+import codes.writeonce.deltastore.api.Store;
+import codes.writeonce.deltastore.api.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.HEADER_SIZE;
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.MAGIC;
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.VERSION;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_CLEAR;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+public final class SnapshotLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotLoader.class);
+
+    /**
+     * size of the part of a table section mapped at once
+     */
+    static final int WINDOW_SIZE =
+            Integer.getInteger("codes.writeonce.deltastore.persistence.SnapshotLoader.WINDOW_SIZE", 1 << 26);
+
+    private SnapshotLoader() {
+        // empty
+    }
+
+    /**
+     * Loads the snapshot into the empty store using the common fork-join pool.
+     *
+     * @return sequence number of the last write-ahead log commit the snapshot includes
+     * @see #load(Path, Store, Executor)
+     */
+    public static <S extends Store<S>> long load(@Nonnull Path path, @Nonnull S store) throws IOException {
+        return load(path, store, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads the snapshot into the empty store through {@link Table#loadAll}, bypassing transactions and commit
+     * listeners. Table sections are decoded in parallel on the executor; tables sharing a key are loaded by the same
+     * task, as the key maps are not thread-safe. A section is memory-mapped a window of whole row groups at a time, so
+     * sections of any size load, see {@link #WINDOW_SIZE}. Types and fields are matched by name as in
+     * {@link WalRecovery}.
+     *
+     * @return sequence number of the last write-ahead log commit the snapshot includes, to continue the replay of the
+     * log after
+     */
+    public static <S extends Store<S>> long load(@Nonnull Path path, @Nonnull S store, @Nonnull Executor executor)
+            throws IOException {
+        return load(path, store, executor, WINDOW_SIZE);
+    }
+
+    static <S extends Store<S>> long load(
+            @Nonnull Path path,
+            @Nonnull S store,
+            @Nonnull Executor executor,
+            int windowSize
+    ) throws IOException {
+
+        if (store.isTransactionPending()) {
+            throw new IllegalStateException();
+        }
+
+        final long start = System.nanoTime();
+        final long sequence;
+        final List<List<Section>> groups = new ArrayList<>();
+        final List<Set<String>> groupKeys = new ArrayList<>();
+        long rows = 0;
+
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            read(channel, header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Not a snapshot file: " + path);
+            }
+            if (header.getInt(Integer.BYTES) != VERSION) {
+                throw new IllegalStateException("Unsupported snapshot version: " + header.getInt(Integer.BYTES));
+            }
+            sequence = header.getLong(Integer.BYTES * 2);
+
+            final ByteBuffer descriptor = ByteBuffer.allocate(header.getInt(Integer.BYTES * 2 + Long.BYTES));
+            read(channel, descriptor, HEADER_SIZE);
+            final LoggedType[] types = LoggedType.read(descriptor.flip(), store.getSchema());
+
+            final long directoryPosition = HEADER_SIZE + descriptor.limit();
+            final ByteBuffer tableCount = ByteBuffer.allocate(Integer.BYTES);
+            read(channel, tableCount, directoryPosition);
+            final ByteBuffer directory =
+                    ByteBuffer.allocate(tableCount.getInt(0) * SnapshotFormat.DIRECTORY_ENTRY_SIZE);
+            read(channel, directory, directoryPosition + Integer.BYTES);
+            directory.flip();
+
+            while (directory.hasRemaining()) {
+                final LoggedType type = types[directory.getShort()];
+                final int count = directory.getInt();
+                final long offset = directory.getLong();
+                final long length = directory.getLong();
+                if (!type.entityType.isInstantiable()) {
+                    throw new IllegalStateException(
+                            "Entity type " + type.entityType.getName() + " is not instantiable in the store schema");
+                }
+                rows += count;
+                group(groups, groupKeys, new Section(type, offset, length));
+            }
+
+            final List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+            for (final List<Section> group : groups) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (final Section section : group) {
+                        load(store.getTable(section.type.entityType), section.type,
+                                new Window(channel, section.offset, section.length, windowSize));
+                    }
+                }, executor));
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+
+        LOGGER.info("Loaded snapshot {} of {} rows at sequence {} in {} tasks in {} ms", path, rows, sequence,
+                groups.size(), (System.nanoTime() - start) / 1_000_000);
+        return sequence;
+    }
+
+    /**
+     * Merges the section into the groups of the sections sharing keys with it.
+     */
+    private static void group(
+            @Nonnull List<List<Section>> groups,
+            @Nonnull List<Set<String>> groupKeys,
+            @Nonnull Section section
+    ) {
+        final Set<String> keys = new HashSet<>();
+        for (final Key<?> key : section.type.entityType.getKeys()) {
+            keys.add(key.getName());
+        }
+
+        final List<Section> group = new ArrayList<>();
+        group.add(section);
+
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            if (!Collections.disjoint(groupKeys.get(i), keys)) {
+                keys.addAll(groupKeys.remove(i));
+                group.addAll(groups.remove(i));
+            }
+        }
+
+        groups.add(group);
+        groupKeys.add(keys);
+    }
+
+    private static <E extends Entity<E>> void load(
+            @Nonnull Table<E> table,
+            @Nonnull LoggedType type,
+            @Nonnull Window in
+    ) {
+        table.loadAll(new Rows<>(type, in));
+    }
+
+    private static void read(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer, long position)
+            throws IOException {
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalStateException("Unexpected end of the snapshot file");
+            }
+        }
+    }
+
+    /**
+     * Part of a table section mapped at once, moved over the section a row group at a time. A window holds the
+     * {@link #WINDOW_SIZE} bytes following the row group it starts with, or that row group alone if it is larger.
+     */
+    private static final class Window {
+
+        private final FileChannel channel;
+
+        private final long end;
+
+        private final int size;
+
+        /**
+         * position of the next row group in the file
+         */
+        private long position;
+
+        private long start;
+
+        private ByteBuffer buffer;
+
+        Window(@Nonnull FileChannel channel, long offset, long length, int size) {
+            this.channel = channel;
+            this.end = offset + length;
+            this.size = size;
+            this.position = offset;
+        }
+
+        /**
+         * Slices the columns of the next row group.
+         *
+         * @return number of the rows in the row group, or {@code -1} at the end of the section
+         */
+        int next(@Nonnull ByteBuffer[] columns) {
+
+            if (position == end) {
+                return -1;
+            }
+
+            long length = size;
+            while (true) {
+                if (buffer != null && position >= start) {
+                    final int count = slice((int) (position - start), columns);
+                    if (count != -1) {
+                        return count;
+                    }
+                    if (position == start) {
+                        if (start + buffer.capacity() == end) {
+                            throw new IllegalStateException("Unexpected end of the snapshot table section");
+                        }
+                        if (buffer.capacity() == Integer.MAX_VALUE) {
+                            throw new IllegalStateException("Snapshot row group is larger than 2 GB");
+                        }
+                        length = Math.max(length, buffer.capacity() * 2L);
+                    }
+                }
+                map(Math.min(Math.min(length, end - position), Integer.MAX_VALUE));
+            }
+        }
+
+        /**
+         * @return number of the rows in the row group at the offset, or {@code -1} if it does not fit in the buffer
+         */
+        private int slice(int offset, @Nonnull ByteBuffer[] columns) {
+
+            final ByteBuffer buffer = this.buffer;
+            final int limit = buffer.capacity();
+
+            if (limit - offset < Integer.BYTES) {
+                return -1;
+            }
+            final int count = buffer.getInt(offset);
+            int p = offset + Integer.BYTES;
+
+            for (int i = 0; i < columns.length; i++) {
+                if (limit - p < Integer.BYTES) {
+                    return -1;
+                }
+                final int length = buffer.getInt(p);
+                p += Integer.BYTES;
+                if (limit - p < length) {
+                    return -1;
+                }
+                columns[i] = buffer.slice(p, length);
+                p += length;
+            }
+
+            position = start + p;
+            return count;
+        }
+
+        private void map(long length) {
+            try {
+                buffer = channel.map(READ_ONLY, position, length);
+                start = position;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map the snapshot file", e);
+            }
+        }
+    }
+
+    /**
+     * Rows of a table section read column by column.
+     */
+    private static final class Rows<E extends Entity<E>> extends LoggedValues<E>
+            implements FieldValueLoaderCursor<RuntimeException, E> {
+
+        private final LoggedType type;
+
+        private final Window in;
+
+        @SuppressWarnings("rawtypes")
+        private final ValueDecoder decoder = new ValueDecoder<>();
+
+        private final ByteBuffer[] columns;
+
+        /**
+         * rows left in the current row group
+         */
+        private int remaining;
+
+        Rows(@Nonnull LoggedType type, @Nonnull Window in) {
+            super(type.indexes);
+            this.type = type;
+            this.in = in;
+            this.columns = new ByteBuffer[type.fields.length];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean next() {
+
+            while (remaining == 0) {
+                remaining = in.next(columns);
+                if (remaining == -1) {
+                    remaining = 0;
+                    return false;
+                }
+            }
+
+            clear();
+            for (int i = 0; i < columns.length; i++) {
+                final ByteBuffer column = columns[i];
+                if (column.get(column.position()) == TAG_CLEAR) {
+                    column.get();
+                } else {
+                    final Field<E, ?> field = (Field<E, ?>) type.fields[i];
+                    put(field, decoder.read(field, column));
+                }
+            }
+
+            remaining--;
+            return true;
+        }
+    }
+
+    private static final class Section {
+
+        final LoggedType type;
+
+        final long offset;
+
+        final long length;
+
+        Section(@Nonnull LoggedType type, long offset, long length) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EntityType;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.SmartIterator;
+import codes.writeonce.deltastore.api.Store;
+import codes.writeonce.deltastore.api.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.DIRECTORY_ENTRY_SIZE;
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.HEADER_SIZE;
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.MAGIC;
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.ROW_GROUP_SIZE;
+import static codes.writeonce.deltastore.persistence.SnapshotFormat.VERSION;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_CLEAR;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public final class SnapshotWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    private SnapshotWriter() {
+        // empty
+    }
+
+    /**
+     * Writes the committed contents of the store to the snapshot file, replacing it atomically once the snapshot is
+     * complete and synced. Must be called while no transaction is pending.
+     *
+     * @param sequence sequence number of the last write-ahead log commit the store contents include, usually
+     *                 {@link WalWriter#getSequence()}
+     */
+    public static <S extends Store<S>> void write(@Nonnull Path path, @Nonnull S store, long sequence)
+            throws IOException {
+
+        if (store.isTransactionPending()) {
+            throw new IllegalStateException();
+        }
+
+        final long start = System.nanoTime();
+        final List<? extends EntityType<?>> entityTypes = store.getSchema().getEntityTypes();
+
+        int tableCount = 0;
+        for (final EntityType<?> entityType : entityTypes) {
+            if (entityType.isInstantiable()) {
+                tableCount++;
+            }
+        }
+
+        final FrameBuffer descriptor = new FrameBuffer(1024);
+        WalFormat.describe(store.getSchema(), descriptor);
+        final ByteBuffer descriptorBytes = descriptor.flip();
+        final int directoryPosition = HEADER_SIZE + descriptorBytes.remaining();
+
+        final ByteBuffer header = ByteBuffer.allocate(directoryPosition + Integer.BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(sequence).putInt(descriptorBytes.remaining())
+                .put(descriptorBytes).putInt(tableCount);
+
+        final ByteBuffer directory = ByteBuffer.allocate(tableCount * DIRECTORY_ENTRY_SIZE);
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long rows = 0;
+
+        try (FileChannel channel = FileChannel.open(temp, CREATE, TRUNCATE_EXISTING, WRITE)) {
+
+            write(channel, header.flip());
+            channel.position(header.limit() + directory.capacity());
+
+            for (int i = 0; i < entityTypes.size(); i++) {
+                final EntityType<?> entityType = entityTypes.get(i);
+                if (entityType.isInstantiable()) {
+                    final long offset = channel.position();
+                    final int count = writeTable(channel, store.getTable(entityType));
+                    directory.putShort((short) i).putInt(count).putLong(offset).putLong(channel.position() - offset);
+                    rows += count;
+                }
+            }
+
+            channel.position(header.limit());
+            write(channel, directory.flip());
+            channel.force(true);
+        }
+
+        Files.move(temp, path, ATOMIC_MOVE, REPLACE_EXISTING);
+
+        LOGGER.info("Written snapshot {} of {} rows at sequence {} in {} ms", path, rows, sequence,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Entity<E>> int writeTable(@Nonnull FileChannel channel, @Nonnull Table<E> table)
+            throws IOException {
+
+        final EntityType<E> entityType = table.getType();
+        final List<? extends Field<E, ?>> fields = entityType.getFields();
+        final FrameBuffer[] columns = new FrameBuffer[fields.size()];
+        final ValueEncoder<E>[] encoders = new ValueEncoder[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new FrameBuffer(1024);
+            encoders[i] = new ValueEncoder<>(columns[i]);
+        }
+
+        final ByteBuffer lengths = ByteBuffer.allocate(Integer.BYTES);
+        int count = 0;
+        int groupCount = 0;
+
+        try (SmartIterator<E> iterator = (SmartIterator<E>) table.getKeyIndex().iterator()) {
+            while (true) {
+                final E entity = iterator.get();
+                if (entity == null) {
+                    break;
+                }
+                // the key index of a type lists the entities of its subtypes as well
+                if (entity.getEntityType() != entityType) {
+                    continue;
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    final Field<E, ?> field = fields.get(i);
+                    if (field.isSet(entity)) {
+                        encoders[i].write(field, field.getValue(entity));
+                    } else {
+                        columns[i].putByte(TAG_CLEAR);
+                    }
+                }
+                count++;
+                if (++groupCount == ROW_GROUP_SIZE) {
+                    writeGroup(channel, lengths, columns, groupCount);
+                    groupCount = 0;
+                }
+            }
+        }
+
+        if (groupCount != 0) {
+            writeGroup(channel, lengths, columns, groupCount);
+        }
+
+        return count;
+    }
+
+    private static void writeGroup(
+            @Nonnull FileChannel channel,
+            @Nonnull ByteBuffer lengths,
+            @Nonnull FrameBuffer[] columns,
+            int count
+    ) throws IOException {
+
+        write(channel, lengths.clear().putInt(0, count));
+
+        for (final FrameBuffer column : columns) {
+            write(channel, lengths.clear().putInt(0, column.position()));
+            write(channel, column.flip());
+            column.clear();
+        }
+    }
+
+    private static void write(@Nonnull FileChannel channel, @Nonnull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
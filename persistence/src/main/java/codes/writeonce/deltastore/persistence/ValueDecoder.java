@@ -0,0 +1,89 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.BigDecimalField;
+import codes.writeonce.deltastore.api.BooleanField;
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EnumField;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.IdField;
+import codes.writeonce.deltastore.api.InstantField;
+import codes.writeonce.deltastore.api.IntegerField;
+import codes.writeonce.deltastore.api.LongField;
+import codes.writeonce.deltastore.api.StringField;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_NULL;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_VALUE;
+
+final class ValueDecoder<E extends Entity<E>> implements Field.Visitor<Object, RuntimeException, E> {
+
+    private ByteBuffer in;
+
+    /**
+     * Reads a value written by {@link ValueEncoder#write}.
+     */
+    @Nullable
+    Object read(@Nonnull Field<E, ?> field, @Nonnull ByteBuffer in) {
+
+        switch (in.get()) {
+            case TAG_NULL:
+                return null;
+            case TAG_VALUE:
+                this.in = in;
+                final Object value = field.accept(this);
+                this.in = null;
+                return value;
+            default:
+                throw new IllegalStateException("Corrupted value of field " + field.getName());
+        }
+    }
+
+    @Override
+    public Object visit(BigDecimalField<E> field) {
+        final int scale = in.getInt();
+        return new BigDecimal(new BigInteger(WalFormat.getBytes(in)), scale);
+    }
+
+    @Override
+    public Object visit(LongField<E> field) {
+        return in.getLong();
+    }
+
+    @Override
+    public Object visit(InstantField<E> field) {
+        final long seconds = in.getLong();
+        return Instant.ofEpochSecond(seconds, in.getInt());
+    }
+
+    @Override
+    public Object visit(BooleanField<E> field) {
+        return in.get() != 0;
+    }
+
+    @Override
+    public <N extends Enum<N>> Object visit(EnumField<E, N> field) {
+        return Enum.valueOf(field.getEnumType(), WalFormat.getString(in));
+    }
+
+    @Override
+    public <I extends Id> Object visit(IdField<E, I> field) {
+        return field.createId(in.getLong());
+    }
+
+    @Override
+    public Object visit(StringField<E> field) {
+        return WalFormat.getString(in);
+    }
+
+    @Override
+    public Object visit(IntegerField<E> field) {
+        return in.getInt();
+    }
+}
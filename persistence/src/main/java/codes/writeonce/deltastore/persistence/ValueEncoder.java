@@ -0,0 +1,94 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.BigDecimalField;
+import codes.writeonce.deltastore.api.BooleanField;
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EnumField;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.IdField;
+import codes.writeonce.deltastore.api.InstantField;
+import codes.writeonce.deltastore.api.IntegerField;
+import codes.writeonce.deltastore.api.LongField;
+import codes.writeonce.deltastore.api.StringField;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_NULL;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_VALUE;
+
+final class ValueEncoder<E extends Entity<E>> implements Field.Visitor<Void, RuntimeException, E> {
+
+    private final FrameBuffer out;
+
+    private Object value;
+
+    ValueEncoder(@Nonnull FrameBuffer out) {
+        this.out = out;
+    }
+
+    void write(@Nonnull Field<E, ?> field, @Nullable Object value) {
+
+        if (value == null) {
+            out.putByte(TAG_NULL);
+        } else {
+            out.putByte(TAG_VALUE);
+            this.value = value;
+            field.accept(this);
+            this.value = null;
+        }
+    }
+
+    @Override
+    public Void visit(BigDecimalField<E> field) {
+        final BigDecimal v = (BigDecimal) value;
+        out.putInt(v.scale()).putBytes(v.unscaledValue().toByteArray());
+        return null;
+    }
+
+    @Override
+    public Void visit(LongField<E> field) {
+        out.putLong((Long) value);
+        return null;
+    }
+
+    @Override
+    public Void visit(InstantField<E> field) {
+        final Instant v = (Instant) value;
+        out.putLong(v.getEpochSecond()).putInt(v.getNano());
+        return null;
+    }
+
+    @Override
+    public Void visit(BooleanField<E> field) {
+        out.putByte((Boolean) value ? 1 : 0);
+        return null;
+    }
+
+    @Override
+    public <N extends Enum<N>> Void visit(EnumField<E, N> field) {
+        out.putString(((Enum<?>) value).name());
+        return null;
+    }
+
+    @Override
+    public <I extends Id> Void visit(IdField<E, I> field) {
+        out.putLong(((Id<?>) value).value());
+        return null;
+    }
+
+    @Override
+    public Void visit(StringField<E> field) {
+        out.putString((String) value);
+        return null;
+    }
+
+    @Override
+    public Void visit(IntegerField<E> field) {
+        out.putInt((Integer) value);
+        return null;
+    }
+}
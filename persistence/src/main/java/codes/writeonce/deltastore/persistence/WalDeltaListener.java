@@ -0,0 +1,176 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.BooleanField;
+import codes.writeonce.deltastore.api.DeltaListener;
+import codes.writeonce.deltastore.api.DeltaRecord;
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EntityType;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.FieldValueConsumerVisitor;
+import codes.writeonce.deltastore.api.IntegerField;
+import codes.writeonce.deltastore.api.LongField;
+import codes.writeonce.deltastore.api.Schema;
+import codes.writeonce.deltastore.api.Store;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static codes.writeonce.deltastore.persistence.WalFormat.END;
+import static codes.writeonce.deltastore.persistence.WalFormat.OP_INSERT;
+import static codes.writeonce.deltastore.persistence.WalFormat.OP_REMOVE;
+import static codes.writeonce.deltastore.persistence.WalFormat.OP_UPDATE;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_CLEAR;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_VALUE;
+
+/**
+ * Logs the deltas of each commit as one frame of the write-ahead log, then passes them to the next listener which is
+ * responsible for releasing them.
+ * <p>
+ * Inserts carry the values the table creates the entity from, updates and removes carry the values of the primary
+ * key; inserts and updates are followed by the changed fields. Nothing is logged while no writer is set, which is how
+ * {@link WalRecovery} replays the log into the store that will be logging afterwards.
+ */
+public class WalDeltaListener<S extends Store<S>> implements DeltaListener<S> {
+
+    private final DeltaListener<S> deltaListener;
+
+    private final Map<EntityType<?>, Integer> typeIndexes = new IdentityHashMap<>();
+
+    private final Map<EntityType<?>, Map<Field<?, ?>, Integer>> fieldIndexes = new IdentityHashMap<>();
+
+    private final FrameBuffer frame = new FrameBuffer(4096);
+
+    @SuppressWarnings("rawtypes")
+    private final ValueEncoder valueEncoder = new ValueEncoder(frame);
+
+    @SuppressWarnings("rawtypes")
+    private final ChangeEncoder changeEncoder = new ChangeEncoder();
+
+    private Map<Field<?, ?>, Integer> entityFieldIndexes;
+
+    private WalWriter writer;
+
+    public WalDeltaListener(@Nonnull Schema schema, @Nonnull DeltaListener<S> deltaListener) {
+
+        this.deltaListener = deltaListener;
+
+        final List<EntityType<?>> entityTypes = schema.getEntityTypes();
+        for (int i = 0; i < entityTypes.size(); i++) {
+            final EntityType<?> entityType = entityTypes.get(i);
+            typeIndexes.put(entityType, i);
+            final Map<Field<?, ?>, Integer> indexes = new IdentityHashMap<>();
+            final List<? extends Field<?, ?>> fields = entityType.getFields();
+            for (int j = 0; j < fields.size(); j++) {
+                indexes.put(fields.get(j), j);
+            }
+            fieldIndexes.put(entityType, indexes);
+        }
+    }
+
+    @Nullable
+    public WalWriter getWriter() {
+        return writer;
+    }
+
+    public void setWriter(@Nullable WalWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void acceptDeltas(
+            DeltaRecord<S, ?, ?> removeListTail,
+            DeltaRecord<S, ?, ?> updateListTail,
+            DeltaRecord<S, ?, ?> insertListTail
+    ) {
+        try {
+            if (writer != null) {
+                frame.clear();
+                DeltaRecord.iterate(removeListTail, item -> write(OP_REMOVE, item));
+                DeltaRecord.iterate(updateListTail, item -> write(OP_UPDATE, item));
+                DeltaRecord.iterate(insertListTail, item -> write(OP_INSERT, item));
+                if (frame.position() != 0) {
+                    writer.append(frame.flip());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the write-ahead log", e);
+        } finally {
+            deltaListener.acceptDeltas(removeListTail, updateListTail, insertListTail);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <D extends DeltaRecord<S, E, D>, E extends Entity<E>> void write(byte op, DeltaRecord<S, E, D> deltaRecord) {
+
+        final EntityType<E> entityType = deltaRecord.getEntityType();
+        final E entity = deltaRecord.asEntity();
+
+        frame.putByte(op).putShort(typeIndexes.get(entityType));
+        entityFieldIndexes = fieldIndexes.get(entityType);
+
+        if (op == OP_INSERT) {
+            for (final Field<E, ?> field : entityType.getFields()) {
+                if (!field.isMutable() || !field.isNullable()) {
+                    writeValue(field, entity);
+                }
+            }
+        } else {
+            for (final Field<E, ?> field : entityType.getKey().getFields()) {
+                writeValue(field, entity);
+            }
+        }
+        frame.putShort(END);
+
+        if (op != OP_REMOVE) {
+            deltaRecord.accept((FieldValueConsumerVisitor<Void, RuntimeException, E>) changeEncoder);
+            frame.putShort(END);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Entity<E>> void writeValue(@Nonnull Field<E, ?> field, @Nonnull E entity) {
+        frame.putShort(entityFieldIndexes.get(field));
+        valueEncoder.write(field, field.getValue(entity));
+    }
+
+    private final class ChangeEncoder<E extends Entity<E>>
+            implements FieldValueConsumerVisitor<Void, RuntimeException, E> {
+
+        @Override
+        public <F extends Field<E, V>, V> Void visitClear(@Nonnull F field) {
+            frame.putShort(entityFieldIndexes.get(field)).putByte(TAG_CLEAR);
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <F extends Field<E, V>, V> Void visitSet(@Nonnull F field, V value) {
+            frame.putShort(entityFieldIndexes.get(field));
+            valueEncoder.write(field, value);
+            return null;
+        }
+
+        @Override
+        public Void visitSet(@Nonnull BooleanField<E> field, boolean value) {
+            frame.putShort(entityFieldIndexes.get(field)).putByte(TAG_VALUE).putByte(value ? 1 : 0);
+            return null;
+        }
+
+        @Override
+        public Void visitSet(@Nonnull IntegerField<E> field, int value) {
+            frame.putShort(entityFieldIndexes.get(field)).putByte(TAG_VALUE).putInt(value);
+            return null;
+        }
+
+        @Override
+        public Void visitSet(@Nonnull LongField<E> field, long value) {
+            frame.putShort(entityFieldIndexes.get(field)).putByte(TAG_VALUE).putLong(value);
+            return null;
+        }
+    }
+}
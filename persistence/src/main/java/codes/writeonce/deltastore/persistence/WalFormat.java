@@ -0,0 +1,75 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.EntityType;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.Schema;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Layout of the write-ahead log file.
+ * <p>
+ * The file starts with the magic, the version and the length-prefixed schema descriptor listing the entity type names
+ * and their field names; entries refer to types and fields by their positions in the descriptor. Each committed
+ * transaction follows as a frame: payload length, sequence number, payload and the CRC32C of the sequence number and
+ * the payload. A payload is a list of entries, each one is the operation, the entity type and two field lists
+ * terminated by {@link #END}: the values the entity is located or created by, and the changed values.
+ */
+final class WalFormat {
+
+    static final int MAGIC = 0x4453574C;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = Integer.BYTES * 3;
+
+    static final int FRAME_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    static final int FRAME_TRAILER_SIZE = Integer.BYTES;
+
+    static final byte OP_REMOVE = 0;
+
+    static final byte OP_UPDATE = 1;
+
+    static final byte OP_INSERT = 2;
+
+    static final byte TAG_NULL = 0;
+
+    static final byte TAG_VALUE = 1;
+
+    static final byte TAG_CLEAR = 2;
+
+    static final short END = -1;
+
+    private WalFormat() {
+        // empty
+    }
+
+    static void describe(@Nonnull Schema schema, @Nonnull FrameBuffer out) {
+
+        out.putInt(schema.getEntityTypes().size());
+
+        for (final EntityType<?> entityType : schema.getEntityTypes()) {
+            out.putString(entityType.getName());
+            out.putInt(entityType.getFields().size());
+            for (final Field<?, ?> field : entityType.getFields()) {
+                out.putString(field.getName());
+            }
+        }
+    }
+
+    @Nonnull
+    static byte[] getBytes(@Nonnull ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    @Nonnull
+    static String getString(@Nonnull ByteBuffer in) {
+        return new String(getBytes(in), UTF_8);
+    }
+}
@@ -0,0 +1,161 @@
+package codes.writeonce.deltastore.persistence;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+import static codes.writeonce.deltastore.persistence.WalFormat.FRAME_HEADER_SIZE;
+import static codes.writeonce.deltastore.persistence.WalFormat.FRAME_TRAILER_SIZE;
+import static codes.writeonce.deltastore.persistence.WalFormat.HEADER_SIZE;
+import static codes.writeonce.deltastore.persistence.WalFormat.MAGIC;
+import static codes.writeonce.deltastore.persistence.WalFormat.VERSION;
+
+/**
+ * Reads the frames of a log up to the end of the file or the first incomplete or corrupted frame.
+ */
+final class WalReader {
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+
+    private final ByteBuffer trailer = ByteBuffer.allocate(FRAME_TRAILER_SIZE);
+
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer descriptor;
+
+    private ByteBuffer payload = ByteBuffer.allocate(4096);
+
+    private long position;
+
+    private long sequence;
+
+    private boolean torn;
+
+    WalReader(@Nonnull FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * @return {@code false} if the file is too short to contain the header, i.e. the log is empty
+     */
+    boolean readHeader() throws IOException {
+
+        if (size < HEADER_SIZE) {
+            return false;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(buffer, 0);
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalStateException("Unsupported write-ahead log format");
+        }
+
+        final int length = buffer.getInt(Integer.BYTES * 2);
+        if (length < 0 || size < HEADER_SIZE + (long) length) {
+            return false;
+        }
+
+        descriptor = ByteBuffer.allocate(length);
+        readFully(descriptor, HEADER_SIZE);
+        descriptor.flip();
+        position = HEADER_SIZE + length;
+        return true;
+    }
+
+    @Nonnull
+    ByteBuffer descriptor() {
+        return descriptor.duplicate();
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @return {@code false} at the end of the valid frames
+     */
+    boolean next() throws IOException {
+
+        if (position + FRAME_HEADER_SIZE + FRAME_TRAILER_SIZE > size) {
+            torn = position != size;
+            return false;
+        }
+
+        header.clear();
+        readFully(header, position);
+        final int length = header.getInt(0);
+        final long frameSequence = header.getLong(Integer.BYTES);
+
+        if (length < 0 || position + FRAME_HEADER_SIZE + length + FRAME_TRAILER_SIZE > size) {
+            torn = true;
+            return false;
+        }
+
+        if (payload.capacity() < length) {
+            payload = ByteBuffer.allocate(Math.max(payload.capacity() * 2, length));
+        }
+        payload.clear().limit(length);
+        readFully(payload, position + FRAME_HEADER_SIZE);
+        payload.flip();
+
+        trailer.clear();
+        readFully(trailer, position + FRAME_HEADER_SIZE + length);
+
+        crc.reset();
+        crc.update(header.array(), Integer.BYTES, Long.BYTES);
+        crc.update(payload.duplicate());
+
+        if ((int) crc.getValue() != trailer.getInt(0) || sequence != 0 && frameSequence != sequence + 1) {
+            torn = true;
+            return false;
+        }
+
+        position += FRAME_HEADER_SIZE + length + FRAME_TRAILER_SIZE;
+        sequence = frameSequence;
+        return true;
+    }
+
+    /**
+     * @return payload of the current frame
+     */
+    @Nonnull
+    ByteBuffer payload() {
+        return payload;
+    }
+
+    /**
+     * @return sequence number of the current frame, {@code 0} before the first one
+     */
+    long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return end position of the current frame
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * @return {@code true} if the valid frames are followed by garbage
+     */
+    boolean isTorn() {
+        return torn;
+    }
+
+    private void readFully(@Nonnull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.Entity;
+import codes.writeonce.deltastore.api.EntityType;
+import codes.writeonce.deltastore.api.Field;
+import codes.writeonce.deltastore.api.Store;
+import codes.writeonce.deltastore.api.StoreTransaction;
+import codes.writeonce.deltastore.api.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static codes.writeonce.deltastore.persistence.WalFormat.END;
+import static codes.writeonce.deltastore.persistence.WalFormat.OP_INSERT;
+import static codes.writeonce.deltastore.persistence.WalFormat.OP_REMOVE;
+import static codes.writeonce.deltastore.persistence.WalFormat.OP_UPDATE;
+import static codes.writeonce.deltastore.persistence.WalFormat.TAG_CLEAR;
+import static java.nio.file.StandardOpenOption.READ;
+
+public final class WalRecovery {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalRecovery.class);
+
+    private WalRecovery() {
+        // empty
+    }
+
+    /**
+     * Replays the write-ahead log into the store, each logged commit in its own store transaction, through the
+     * {@link Table#create} and {@link Table#get} entry points of the generated tables. Types and fields are matched by
+     * name, so the log may come from an older schema the store schema only adds types and fields to. Replay stops
+     * at the first torn or corrupted frame.
+     * <p>
+     * The store must not log the replayed commits again: replay before setting the writer of its
+     * {@link WalDeltaListener}.
+     *
+     * @return number of replayed commits
+     */
+    public static <S extends Store<S>> long replay(@Nonnull Path path, @Nonnull S store) throws IOException {
+        return replay(path, store, 0);
+    }
+
+    /**
+     * Replays the commits of the write-ahead log following the given sequence number, the one a
+     * {@link SnapshotLoader snapshot} the store was loaded from was taken at.
+     *
+     * @return number of replayed commits
+     */
+    public static <S extends Store<S>> long replay(@Nonnull Path path, @Nonnull S store, long afterSequence)
+            throws IOException {
+
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+
+            final WalReader reader = new WalReader(channel);
+            if (!reader.readHeader()) {
+                return 0;
+            }
+
+            final LoggedType[] types = LoggedType.read(reader.descriptor(), store.getSchema());
+            final ValueDecoder<?> decoder = new ValueDecoder<>();
+
+            long count = 0;
+
+            while (reader.next()) {
+                if (reader.sequence() <= afterSequence) {
+                    continue;
+                }
+                final ByteBuffer payload = reader.payload();
+                try (StoreTransaction<S> t = store.begin(true)) {
+                    while (payload.hasRemaining()) {
+                        final byte op = payload.get();
+                        replay(store, op, types[payload.getShort()], decoder, payload);
+                    }
+                    t.commit();
+                }
+                count++;
+            }
+
+            if (reader.isTorn()) {
+                LOGGER.warn("Ignoring torn tail of the write-ahead log {} after sequence {}", path, reader.sequence());
+            }
+
+            LOGGER.info("Replayed {} commits from the write-ahead log {}", count, path);
+            return count;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <S extends Store<S>, E extends Entity<E>> void replay(
+            @Nonnull S store,
+            byte op,
+            @Nonnull LoggedType type,
+            @Nonnull ValueDecoder decoder,
+            @Nonnull ByteBuffer in
+    ) {
+        final EntityType<E> entityType = (EntityType<E>) type.entityType;
+        final LoggedValues<E> values = new LoggedValues<>(type.indexes);
+
+        for (short index = in.getShort(); index != END; index = in.getShort()) {
+            final Field<E, ?> field = (Field<E, ?>) type.fields[index];
+            values.put(field, decoder.read(field, in));
+        }
+
+        final Table<E> table = store.getTable(entityType);
+
+        switch (op) {
+            case OP_REMOVE:
+                get(table, values).remove();
+                break;
+            case OP_UPDATE:
+                update(get(table, values), type, decoder, in);
+                break;
+            case OP_INSERT:
+                update(table.create(values), type, decoder, in);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operation: " + op);
+        }
+    }
+
+    @Nonnull
+    private static <E extends Entity<E>> E get(@Nonnull Table<E> table, @Nonnull LoggedValues<E> values) {
+
+        final E entity = table.get(values);
+        if (entity == null) {
+            throw new IllegalStateException("Logged entity of the type " + table.getName() + " not found");
+        }
+
+        return entity;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E extends Entity<E>> void update(
+            @Nonnull E entity,
+            @Nonnull LoggedType type,
+            @Nonnull ValueDecoder decoder,
+            @Nonnull ByteBuffer in
+    ) {
+        for (short index = in.getShort(); index != END; index = in.getShort()) {
+            final Field<E, Object> field = (Field<E, Object>) type.fields[index];
+            if (in.get(in.position()) == TAG_CLEAR) {
+                in.get();
+                field.clearValue(entity);
+            } else {
+                field.setValue(entity, decoder.read(field, in));
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import static codes.writeonce.deltastore.persistence.WalFormat.FRAME_HEADER_SIZE;
+import static codes.writeonce.deltastore.persistence.WalFormat.FRAME_TRAILER_SIZE;
+import static codes.writeonce.deltastore.persistence.WalFormat.HEADER_SIZE;
+import static codes.writeonce.deltastore.persistence.WalFormat.MAGIC;
+import static codes.writeonce.deltastore.persistence.WalFormat.VERSION;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only writer of the write-ahead log.
+ * <p>
+ * Frames are collected in a direct buffer and written with a single call once the buffer is full or the oldest
+ * pending frame is older than the group commit delay, so the commits of that window share one write and one fsync.
+ * Unless every commit is forced on its own, a flusher thread owned by the writer closes the open group once the delay
+ * expires, so the last commits of a store gone quiet reach the storage without further appends.
+ * <p>
+ * An existing file is continued: its torn tail, if any, is truncated and the sequence numbers go on from the last
+ * valid frame.
+ */
+public class WalWriter implements Closeable {
+
+    public static final int DEFAULT_GROUP_COMMIT_BYTES = 1 << 20;
+
+    public static final long DEFAULT_GROUP_COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final FileChannel channel;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long groupCommitNanos;
+
+    private final ByteBuffer group;
+
+    private final CRC32C crc = new CRC32C();
+
+    private long sequence;
+
+    private long groupStart;
+
+    @Nullable
+    private final Thread flusher;
+
+    /**
+     * failure of the flusher thread, reported by the next call
+     */
+    @Nullable
+    private IOException failure;
+
+    private boolean closed;
+
+    public WalWriter(@Nonnull Path path, @Nonnull Schema schema) throws IOException {
+        this(path, schema, FsyncPolicy.GROUP, DEFAULT_GROUP_COMMIT_BYTES, DEFAULT_GROUP_COMMIT_NANOS);
+    }
+
+    public WalWriter(
+            @Nonnull Path path,
+            @Nonnull Schema schema,
+            @Nonnull FsyncPolicy fsyncPolicy,
+            int groupCommitBytes,
+            long groupCommitNanos
+    ) throws IOException {
+
+        if (groupCommitBytes <= 0 || groupCommitNanos < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitNanos = groupCommitNanos;
+        this.group = ByteBuffer.allocateDirect(groupCommitBytes);
+        this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+
+        try {
+            final FrameBuffer descriptor = new FrameBuffer(1024);
+            WalFormat.describe(schema, descriptor);
+            open(path, descriptor.flip());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        if (fsyncPolicy == FsyncPolicy.COMMIT) {
+            flusher = null;
+        } else {
+            flusher = new Thread(this::flushGroups, "deltastore-wal-flusher-" + path.getFileName());
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * @return sequence number of the last appended frame
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Appends the payload as the next frame.
+     */
+    public synchronized void append(@Nonnull ByteBuffer payload) throws IOException {
+
+        checkFailure();
+
+        final int frameSize = FRAME_HEADER_SIZE + payload.remaining() + FRAME_TRAILER_SIZE;
+
+        if (group.remaining() < frameSize) {
+            flush();
+            if (group.remaining() < frameSize) {
+                final ByteBuffer frame = ByteBuffer.allocate(frameSize);
+                encode(frame, payload);
+                write(frame.flip());
+                force();
+                return;
+            }
+        }
+
+        if (group.position() == 0) {
+            groupStart = System.nanoTime();
+            notifyAll();
+        }
+
+        encode(group, payload);
+
+        if (fsyncPolicy == FsyncPolicy.COMMIT || System.nanoTime() - groupStart >= groupCommitNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the pending frames, forcing them to the storage unless the policy is {@link FsyncPolicy#NONE}.
+     */
+    public synchronized void flush() throws IOException {
+        checkFailure();
+        if (group.position() != 0) {
+            write(group.flip());
+            group.clear();
+            force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while stopping the flusher", e);
+            }
+        }
+
+        synchronized (this) {
+            try (channel) {
+                flush();
+            }
+        }
+    }
+
+    private synchronized void flushGroups() {
+        try {
+            while (!closed) {
+                if (group.position() == 0) {
+                    wait();
+                } else {
+                    final long remaining = groupCommitNanos - (System.nanoTime() - groupStart);
+                    if (remaining > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } else {
+                        flush();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.error("Write-ahead log flusher interrupted", e);
+        } catch (IOException e) {
+            logger.error("Failed to flush the write-ahead log", e);
+            failure = e;
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log flusher failed", failure);
+        }
+    }
+
+    private void open(@Nonnull Path path, @Nonnull ByteBuffer descriptor) throws IOException {
+
+        final WalReader reader = new WalReader(channel);
+
+        if (reader.readHeader()) {
+            if (!reader.descriptor().equals(descriptor)) {
+                throw new IllegalStateException("Write-ahead log " + path + " was written with another schema");
+            }
+            while (reader.next()) {
+                // skip
+            }
+            if (reader.isTorn()) {
+                logger.warn("Truncating torn tail of the write-ahead log {} at {}", path, reader.position());
+                channel.truncate(reader.position());
+            }
+            sequence = reader.sequence();
+            channel.position(reader.position());
+        } else {
+            channel.truncate(0);
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + descriptor.remaining());
+            header.putInt(MAGIC).putInt(VERSION).putInt(descriptor.remaining()).put(descriptor);
+            write(header.flip());
+            channel.force(true);
+        }
+    }
+
+    private void encode(@Nonnull ByteBuffer target, @Nonnull ByteBuffer payload) {
+
+        final int start = target.position();
+        target.putInt(payload.remaining()).putLong(sequence + 1).put(payload);
+
+        crc.reset();
+        crc.update(target.duplicate().limit(target.position()).position(start + Integer.BYTES));
+        target.putInt((int) crc.getValue());
+
+        sequence++;
+    }
+
+    private void write(@Nonnull ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void force() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            channel.force(false);
+        }
+    }
+}
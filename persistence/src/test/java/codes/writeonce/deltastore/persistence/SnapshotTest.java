@@ -0,0 +1,142 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.api.ReleaseDeltaListener;
+import codes.writeonce.deltastore.api.Transaction;
+import codes.writeonce.deltastore.api.TransformDeltaCommitListener;
+import codes.writeonce.deltastore.example.model.common.Order;
+import codes.writeonce.deltastore.example.model.order.Order2;
+import codes.writeonce.deltastore.example.model.order.OrderSchema;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotTest {
+
+    private static final int COUNT = 200_000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotAndReplay() throws IOException {
+
+        final Path snapshot = folder.getRoot().toPath().resolve("store.snapshot");
+        final Path wal = folder.getRoot().toPath().resolve("store.wal");
+
+        final WalDeltaListener<OrderStore> listener = new WalDeltaListener<>(OrderSchema.INSTANCE,
+                new ReleaseDeltaListener<OrderStore>());
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(listener));
+
+        try (WalWriter writer = new WalWriter(wal, OrderSchema.INSTANCE)) {
+            listener.setWriter(writer);
+
+            try (Transaction t = store.begin()) {
+                for (int i = 0; i < COUNT; i++) {
+                    final Order order = store.order().create(Id.of(i), i);
+                    switch (i % 3) {
+                        case 0:
+                            order.setBar("bar" + i);
+                            break;
+                        case 1:
+                            order.setBar(null);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                for (int i = 0; i < 100; i++) {
+                    store.order2().create(Id.of(i), i * 2);
+                }
+                t.commit();
+            }
+
+            SnapshotWriter.write(snapshot, store, writer.getSequence());
+
+            try (Transaction t = store.begin()) {
+                store.orderIdIndex().get(Id.of(0)).setBar("changed");
+                store.orderIdIndex().get(Id.of(1)).remove();
+                store.order().create(Id.of(COUNT), -1);
+                t.commit();
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        try {
+            assertEquals(1, SnapshotLoader.load(snapshot, store2, executor));
+        } finally {
+            executor.shutdown();
+        }
+
+        try (Transaction ignored = store2.begin()) {
+            assertEquals(COUNT, store2.orderIdIndex().filter().list().size());
+            assertEquals(100, store2.order2IdIndex().filter().list().size());
+            assertEquals("bar0", store2.orderIdIndex().get(Id.of(0)).getBar());
+            assertTrue(store2.orderIdIndex().get(Id.of(1)).hasBar());
+            assertNull(store2.orderIdIndex().get(Id.of(1)).getBar());
+            assertFalse(store2.orderIdIndex().get(Id.of(2)).hasBar());
+            assertEquals(COUNT, store2.orderFooIndex().filter().list().size());
+            final Id<Order2> id = Id.of(42);
+            assertEquals(84, store2.order2IdIndex().get(id).getFoo());
+        }
+
+        assertEquals(1, WalRecovery.replay(wal, store2, 1));
+
+        try (Transaction ignored = store2.begin()) {
+            assertEquals(COUNT, store2.orderIdIndex().filter().list().size());
+            assertEquals("changed", store2.orderIdIndex().get(Id.of(0)).getBar());
+            assertNull(store2.orderIdIndex().get(Id.of(1)));
+            assertEquals(-1, store2.orderIdIndex().get(Id.of(COUNT)).getFoo());
+        }
+    }
+
+    @Test
+    public void sectionsSpanningSeveralWindows() throws IOException {
+
+        final Path snapshot = folder.getRoot().toPath().resolve("store.snapshot");
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        try (Transaction t = store.begin()) {
+            for (int i = 0; i < COUNT; i++) {
+                store.order().create(Id.of(i), i).setBar(i % 2 == 0 ? "bar" + i : null);
+            }
+            for (int i = 0; i < 100; i++) {
+                store.order2().create(Id.of(i), i * 2);
+            }
+            t.commit();
+        }
+
+        SnapshotWriter.write(snapshot, store, 7);
+        assertTrue(Files.size(snapshot) > 4 << 20);
+
+        for (final int windowSize : new int[]{64, 1 << 20, 4 << 20}) {
+            final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+            assertEquals(7, SnapshotLoader.load(snapshot, store2, Runnable::run, windowSize));
+
+            try (Transaction ignored = store2.begin()) {
+                assertEquals(COUNT, store2.orderIdIndex().filter().list().size());
+                assertEquals(100, store2.order2IdIndex().filter().list().size());
+                for (int i = 0; i < COUNT; i += 997) {
+                    final Order order = store2.orderIdIndex().get(Id.of(i));
+                    assertEquals(i, order.getFoo());
+                    assertEquals(i % 2 == 0 ? "bar" + i : null, order.getBar());
+                }
+                assertEquals(198, store2.order2IdIndex().get(Id.of(99)).getFoo());
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package codes.writeonce.deltastore.persistence;
+
+import codes.writeonce.deltastore.api.Id;
+import codes.writeonce.deltastore.api.ReleaseDeltaCommitListener;
+import codes.writeonce.deltastore.api.ReleaseDeltaListener;
+import codes.writeonce.deltastore.api.Transaction;
+import codes.writeonce.deltastore.api.TransformDeltaCommitListener;
+import codes.writeonce.deltastore.example.model.common.Order;
+import codes.writeonce.deltastore.example.model.order.Order2;
+import codes.writeonce.deltastore.example.model.order.OrderSchema;
+import codes.writeonce.deltastore.example.model.order.OrderStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WalTest {
+
+    private static final Id<Order> ID1 = Id.of(123);
+    private static final Id<Order> ID2 = Id.of(321);
+
+    private static final Id<Order2> ID1B = Id.of(123);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replay() throws IOException {
+
+        final Path path = folder.getRoot().toPath().resolve("store.wal");
+        final WalDeltaListener<OrderStore> listener = new WalDeltaListener<>(OrderSchema.INSTANCE,
+                new ReleaseDeltaListener<OrderStore>());
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(listener));
+
+        try (WalWriter writer = new WalWriter(path, OrderSchema.INSTANCE, FsyncPolicy.GROUP, 256, Long.MAX_VALUE)) {
+            listener.setWriter(writer);
+
+            try (Transaction t = store.begin()) {
+                store.order().create(ID1, 234).setBar("345");
+                store.order().create(ID2, 432).setBar("543");
+                store.order2().create(ID1B, 1);
+                t.commit();
+            }
+
+            try (Transaction t = store.begin()) {
+                store.orderIdIndex().get(ID1).setBar("x".repeat(1000));
+                store.orderIdIndex().get(ID2).clearBar();
+                store.order2IdIndex().get(ID1B).setFoo(2);
+                t.commit();
+            }
+
+            for (int i = 0; i < 100; i++) {
+                try (Transaction t = store.begin()) {
+                    store.order().create(Id.of(1000 + i), i).setBar(null);
+                    t.commit();
+                }
+            }
+
+            try (Transaction t = store.begin()) {
+                store.orderIdIndex().get(Id.of(1050)).remove();
+                t.commit();
+            }
+
+            assertEquals(103, writer.getSequence());
+        }
+
+        final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+        assertEquals(103, WalRecovery.replay(path, store2));
+
+        try (Transaction ignored = store2.begin()) {
+            assertEquals("x".repeat(1000), store2.orderIdIndex().get(ID1).getBar());
+            assertEquals(234, store2.orderIdIndex().get(ID1).getFoo());
+            assertFalse(store2.orderIdIndex().get(ID2).hasBar());
+            assertEquals(2, store2.order2IdIndex().get(ID1B).getFoo());
+            assertEquals(99, store2.orderIdIndex().filter().idFrom(Id.of(1000)).list().size());
+            assertNull(store2.orderIdIndex().get(Id.of(1000)).getBar());
+            assertNull(store2.orderIdIndex().get(Id.of(1050)));
+        }
+    }
+
+    @Test
+    public void tornTail() throws IOException {
+
+        final Path path = folder.getRoot().toPath().resolve("store.wal");
+
+        append(path, 0, 3);
+
+        try (FileChannel channel = FileChannel.open(path, WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(2, WalRecovery.replay(path, new OrderStore(new ReleaseDeltaCommitListener<>())));
+
+        append(path, 2, 1);
+
+        final OrderStore store = new OrderStore(new ReleaseDeltaCommitListener<>());
+        assertEquals(3, WalRecovery.replay(path, store));
+
+        try (Transaction ignored = store.begin()) {
+            assertEquals(3, store.orderIdIndex().filter().list().size());
+            assertEquals(2, store.orderIdIndex().get(Id.of(2)).getFoo());
+        }
+    }
+
+    @Test
+    public void idleGroupIsFlushed() throws IOException, InterruptedException {
+
+        final Path path = folder.getRoot().toPath().resolve("store.wal");
+        final WalDeltaListener<OrderStore> listener = new WalDeltaListener<>(OrderSchema.INSTANCE,
+                new ReleaseDeltaListener<OrderStore>());
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(listener));
+
+        try (WalWriter writer = new WalWriter(path, OrderSchema.INSTANCE, FsyncPolicy.GROUP,
+                WalWriter.DEFAULT_GROUP_COMMIT_BYTES, TimeUnit.MILLISECONDS.toNanos(10))) {
+            listener.setWriter(writer);
+
+            try (Transaction t = store.begin()) {
+                store.order().create(ID1, 234);
+                t.commit();
+            }
+
+            // no further appends: the flusher of the writer has to close the group on its own
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (WalRecovery.replay(path, new OrderStore(new ReleaseDeltaCommitListener<>())) == 0) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+
+            final OrderStore store2 = new OrderStore(new ReleaseDeltaCommitListener<>());
+            assertEquals(1, WalRecovery.replay(path, store2));
+            try (Transaction ignored = store2.begin()) {
+                assertEquals(234, store2.orderIdIndex().get(ID1).getFoo());
+            }
+        }
+    }
+
+    private static void append(@Nonnull Path path, int from, int count) throws IOException {
+
+        final WalDeltaListener<OrderStore> listener = new WalDeltaListener<>(OrderSchema.INSTANCE,
+                new ReleaseDeltaListener<OrderStore>());
+        final OrderStore store = new OrderStore(new TransformDeltaCommitListener<>(listener));
+        WalRecovery.replay(path, store);
+
+        try (WalWriter writer = new WalWriter(path, OrderSchema.INSTANCE, FsyncPolicy.COMMIT, 1024, 0)) {
+            listener.setWriter(writer);
+            assertEquals(from, writer.getSequence());
+            for (int i = from; i < from + count; i++) {
+                try (Transaction t = store.begin()) {
+                    store.order().create(Id.of(i), i);
+                    t.commit();
+                }
+            }
+        }
+    }
+}